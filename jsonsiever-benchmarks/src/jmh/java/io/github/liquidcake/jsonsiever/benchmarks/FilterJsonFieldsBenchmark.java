@@ -0,0 +1,82 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link JsonFilteringService#filterJsonFields(byte[], JsonNode)} over a matrix of payload sizes,
+ * payload shapes and pattern selectivity. Run with gc profiler (enabled in build.gradle) to see allocation per operation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class FilterJsonFieldsBenchmark {
+
+    @Param({"1KB", "64KB", "1MB", "10MB", "100MB"})
+    private String payloadSize;
+
+    @Param
+    private PayloadShape payloadShape;
+
+    @Param
+    private PatternSelectivity patternSelectivity;
+
+    private JsonFilteringService jsonFilteringService;
+    private byte[] payload;
+    private JsonNode filterPattern;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonFilteringException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SyntheticPayloadGenerator generator = new SyntheticPayloadGenerator(objectMapper);
+        int sizeBytes = parseSize(payloadSize);
+
+        jsonFilteringService = new JsonFilteringService(objectMapper.getFactory());
+        payload = generator.generatePayload(payloadShape, sizeBytes);
+        filterPattern = generator.generatePattern(payloadShape, sizeBytes, patternSelectivity);
+
+        //fail fast on pattern not matching generated payload instead of benchmarking error path
+        jsonFilteringService.filterJsonFields(payload, filterPattern);
+    }
+
+    @Benchmark
+    public byte[] filterJsonFields() throws JsonFilteringException {
+        return jsonFilteringService.filterJsonFields(payload, filterPattern);
+    }
+
+    static int parseSize(String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+        }
+
+        if (size.endsWith("KB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+        }
+
+        return Integer.parseInt(size);
+    }
+}
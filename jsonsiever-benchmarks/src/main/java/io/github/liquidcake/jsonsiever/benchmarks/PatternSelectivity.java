@@ -0,0 +1,21 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks;
+
+public enum PatternSelectivity {
+    /**
+     * Pattern keeps approximately 1% of leaf fields
+     */
+    KEEP_1_PERCENT,
+    /**
+     * Pattern keeps approximately 50% of leaf fields
+     */
+    KEEP_50_PERCENT,
+    /**
+     * Pattern uses wildcards ("{}" / "[]") for most of nested containers
+     */
+    WILDCARD_HEAVY
+}
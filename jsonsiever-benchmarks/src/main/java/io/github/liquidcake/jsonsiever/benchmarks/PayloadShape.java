@@ -0,0 +1,29 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks;
+
+public enum PayloadShape {
+    /**
+     * Root object with many sibling object fields
+     */
+    WIDE_OBJECT,
+    /**
+     * Array of records, each nested many levels deep
+     */
+    DEEP_NESTING,
+    /**
+     * Large array of records with mixed field types, similar to "fArray" elements of complex_structure.json test resource
+     */
+    HOMOGENEOUS_ARRAY,
+    /**
+     * Array of records consisting mostly of long string fields
+     */
+    STRING_HEAVY,
+    /**
+     * Array of records consisting mostly of integer/float fields and arrays of numbers
+     */
+    NUMBER_HEAVY
+}
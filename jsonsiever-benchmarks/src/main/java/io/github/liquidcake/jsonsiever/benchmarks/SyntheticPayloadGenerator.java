@@ -0,0 +1,290 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic json payloads of given shape and approximate size, and filter patterns of given selectivity
+ * for them. Records are modeled on complex_structure.json test resource (same field naming and value types).
+ * Generation is deterministic (fixed random seed), so benchmark runs are reproducible
+ */
+public class SyntheticPayloadGenerator {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final long SEED = 42;
+    private static final int DEEP_NESTING_DEPTH = 24;
+    private static final int WIDE_OBJECT_FIELD_SIZE_ESTIMATE = 120;
+
+    private final ObjectMapper objectMapper;
+
+    public SyntheticPayloadGenerator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param sizeBytes approximate payload size - generation stops right after this size is reached
+     */
+    public byte[] generatePayload(PayloadShape shape, int sizeBytes) {
+        Random random = new Random(SEED);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(sizeBytes + sizeBytes / 10);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+
+            if (shape == PayloadShape.WIDE_OBJECT) {
+                for (int i = 0; generator.getOutputBuffered() + outputStream.size() < sizeBytes; i++) {
+                    generator.writeFieldName("fObject" + i);
+                    objectMapper.writeTree(generator, wideObjectField(random));
+                }
+            } else {
+                generator.writeStringField("fString", "somestriiing");
+                generator.writeNumberField("fInt", 111);
+                generator.writeFieldName("fArray");
+                generator.writeStartArray();
+
+                for (int i = 0; generator.getOutputBuffered() + outputStream.size() < sizeBytes; i++) {
+                    objectMapper.writeTree(generator, record(shape, random, i));
+                }
+
+                generator.writeEndArray();
+            }
+
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    public JsonNode generatePattern(PayloadShape shape, int sizeBytes, PatternSelectivity selectivity) {
+        if (shape == PayloadShape.WIDE_OBJECT) {
+            return wideObjectPattern(sizeBytes / WIDE_OBJECT_FIELD_SIZE_ESTIMATE + 1, selectivity);
+        }
+
+        JsonNode sampleRecord = record(shape, new Random(SEED), 0);
+
+        ObjectNode pattern = NODES.objectNode();
+        pattern.put("fInt", 1);
+        pattern.set("fArray", NODES.arrayNode().add(recordPattern(sampleRecord, selectivity, new int[]{0})));
+
+        return pattern;
+    }
+
+    private JsonNode wideObjectPattern(int fieldsCount, PatternSelectivity selectivity) {
+        ObjectNode pattern = NODES.objectNode();
+
+        for (int i = 0; i < fieldsCount; i++) {
+            boolean keep = switch (selectivity) {
+                case KEEP_1_PERCENT -> i % 100 == 0;
+                case KEEP_50_PERCENT -> i % 2 == 0;
+                case WILDCARD_HEAVY -> i % 4 != 0;
+            };
+
+            if (keep) {
+                //half of kept fields are filtered field-by-field, other half are kept by wildcard
+                if (selectivity != PatternSelectivity.WILDCARD_HEAVY && i % 4 == 0) {
+                    ObjectNode fieldPattern = NODES.objectNode();
+                    fieldPattern.put("fString", 1);
+                    fieldPattern.put("fInt", 1);
+                    pattern.set("fObject" + i, fieldPattern);
+                } else {
+                    pattern.set("fObject" + i, NODES.objectNode());
+                }
+            }
+        }
+
+        return pattern;
+    }
+
+    //builds pattern that keeps leaf fields according to selectivity, counting leaves in order of their appearance
+    private JsonNode recordPattern(JsonNode sample, PatternSelectivity selectivity, int[] leafCounter) {
+        ObjectNode pattern = NODES.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = sample.fields();
+        int containerIndex = 0;
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+
+            if (value.isObject() || isArrayOfContainers(value)) {
+                if (selectivity == PatternSelectivity.WILDCARD_HEAVY && containerIndex++ % 3 != 2) {
+                    pattern.set(field.getKey(), value.isObject() ? NODES.objectNode() : NODES.arrayNode());
+                    continue;
+                }
+
+                JsonNode nestedPattern = value.isObject()
+                        ? recordPattern(value, selectivity, leafCounter)
+                        : arrayPattern(value, selectivity, leafCounter);
+
+                if (nestedPattern != null && !nestedPattern.isEmpty()) {
+                    pattern.set(field.getKey(), nestedPattern);
+                }
+            } else if (keepLeaf(selectivity, leafCounter[0]++)) {
+                //arrays of primitives may only be filtered with wildcard
+                pattern.set(field.getKey(), value.isArray() ? NODES.arrayNode() : NODES.numberNode(1));
+            }
+        }
+
+        return pattern;
+    }
+
+    private JsonNode arrayPattern(JsonNode sampleArray, PatternSelectivity selectivity, int[] leafCounter) {
+        JsonNode element = sampleArray.get(0);
+        JsonNode elementPattern;
+
+        if (element.isObject()) {
+            elementPattern = recordPattern(element, selectivity, leafCounter);
+            //empty object pattern would be a wildcard - so skip array completely instead
+            elementPattern = elementPattern.isEmpty() ? null : elementPattern;
+        } else if (isArrayOfContainers(element)) {
+            elementPattern = arrayPattern(element, selectivity, leafCounter);
+        } else {
+            //arrays of primitives may only be filtered with wildcard
+            elementPattern = keepLeaf(selectivity, leafCounter[0]++) ? NODES.arrayNode() : null;
+        }
+
+        return elementPattern == null ? null : NODES.arrayNode().add(elementPattern);
+    }
+
+    private boolean keepLeaf(PatternSelectivity selectivity, int leafIndex) {
+        return switch (selectivity) {
+            //always keep first leaf so result is not empty
+            case KEEP_1_PERCENT -> leafIndex % 100 == 0;
+            case KEEP_50_PERCENT, WILDCARD_HEAVY -> leafIndex % 2 == 0;
+        };
+    }
+
+    private boolean isArrayOfContainers(JsonNode node) {
+        return node.isArray() && !node.isEmpty() && (node.get(0).isObject() || node.get(0).isArray());
+    }
+
+    private JsonNode record(PayloadShape shape, Random random, int index) {
+        return switch (shape) {
+            case DEEP_NESTING -> deepRecord(random, index, DEEP_NESTING_DEPTH);
+            case STRING_HEAVY -> stringHeavyRecord(random, index);
+            case NUMBER_HEAVY -> numberHeavyRecord(random, index);
+            default -> mixedRecord(random, index);
+        };
+    }
+
+    private ObjectNode wideObjectField(Random random) {
+        ObjectNode field = NODES.objectNode();
+        field.put("fString", randomString(random, 16));
+        field.put("fInt", random.nextInt(1_000_000));
+        field.put("fBool", random.nextBoolean());
+        field.put("fFloat", random.nextDouble() * 1000);
+        field.putNull("fNull");
+
+        return field;
+    }
+
+    //record similar to "fArray" element of complex_structure.json
+    private ObjectNode mixedRecord(Random random, int index) {
+        ObjectNode record = NODES.objectNode();
+        record.put("fString", randomString(random, 12));
+        record.put("fInt", index);
+        record.put("fBool", random.nextBoolean());
+        record.put("fFloat", random.nextDouble() * 1000);
+        record.putNull("fNull");
+
+        ObjectNode nestedObject = record.putObject("fObject");
+        nestedObject.put("fString", randomString(random, 12));
+        nestedObject.put("fInt", random.nextInt(1000));
+
+        ArrayNode arrayOfArrays = nestedObject.putArray("fArrayXDemObjects");
+        for (int i = 0; i < 2; i++) {
+            ArrayNode innerArray = arrayOfArrays.addArray();
+
+            for (int j = 0; j < 2; j++) {
+                ObjectNode innerObject = innerArray.addObject();
+                innerObject.put("fInt", random.nextInt(1000));
+                innerObject.putArray("fArray").add(random.nextInt(1000)).add(random.nextInt(1000));
+
+                ArrayNode innerObjects = innerObject.putArray("fArray2");
+                innerObjects.addObject().put("fBool", true).put("fInt", random.nextInt(1000));
+                innerObjects.addObject().put("fBool", false).put("fInt", random.nextInt(1000));
+            }
+        }
+
+        nestedObject.putArray("fArrayXDemPrimitives").addArray().add(1).add(2).add(3);
+
+        record.put("fString2", randomString(random, 24));
+
+        return record;
+    }
+
+    private ObjectNode deepRecord(Random random, int index, int depth) {
+        ObjectNode record = NODES.objectNode();
+        record.put("fString", randomString(random, 8));
+        record.put("fInt", index);
+
+        if (depth > 0) {
+            record.set("fObject", deepRecord(random, index, depth - 1));
+        }
+
+        record.put("fBool", random.nextBoolean());
+
+        return record;
+    }
+
+    private ObjectNode stringHeavyRecord(Random random, int index) {
+        ObjectNode record = NODES.objectNode();
+        record.put("fInt", index);
+
+        for (int i = 0; i < 10; i++) {
+            record.put("fString" + i, randomString(random, 32 + random.nextInt(128)));
+        }
+
+        ArrayNode tags = record.putArray("fArray");
+        for (int i = 0; i < 4; i++) {
+            tags.add(randomString(random, 10));
+        }
+
+        return record;
+    }
+
+    private ObjectNode numberHeavyRecord(Random random, int index) {
+        ObjectNode record = NODES.objectNode();
+        record.put("fInt", index);
+
+        for (int i = 0; i < 8; i++) {
+            record.put("fLong" + i, random.nextLong());
+            record.put("fFloat" + i, random.nextDouble() * 1_000_000);
+        }
+
+        ArrayNode numbers = record.putArray("fArray");
+        for (int i = 0; i < 16; i++) {
+            numbers.add(random.nextInt());
+        }
+
+        return record;
+    }
+
+    private String randomString(Random random, int length) {
+        char[] chars = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+
+        return new String(chars);
+    }
+}
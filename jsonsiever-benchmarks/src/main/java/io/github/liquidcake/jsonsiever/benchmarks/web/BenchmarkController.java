@@ -0,0 +1,46 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidcake.jsonsiever.benchmarks.PayloadShape;
+import io.github.liquidcake.jsonsiever.benchmarks.SyntheticPayloadGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Returns pre-generated json payload, so measured time is dominated by web layer and json filtering
+ */
+@RestController
+public class BenchmarkController {
+
+    private final byte[] payload;
+
+    public BenchmarkController(@Value("${" + WebBenchmarkApplication.PAYLOAD_BYTES_PROPERTY + ":65536}") int payloadBytes) {
+        this.payload = new SyntheticPayloadGenerator(new ObjectMapper())
+                .generatePayload(PayloadShape.HOMOGENEOUS_ARRAY, payloadBytes);
+    }
+
+    @GetMapping(value = "/sync/items", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getItemsSync() {
+        return payload;
+    }
+
+    @GetMapping(value = "/async/items", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<byte[]> getItemsAsync() {
+        return CompletableFuture.supplyAsync(() -> payload);
+    }
+
+    //not configured in json-filtering-settings.yml
+    @GetMapping(value = "/unmatched/items", produces = MediaType.APPLICATION_JSON_VALUE)
+    public byte[] getItemsUnmatched() {
+        return payload;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks.web;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Sequence of requests replayed by each load generator thread.
+ * Either synthetic (weighted mix of sync/async endpoints, header/client-id patterns and unmatched paths)
+ * or loaded from replay file
+ */
+public class RequestMix {
+
+    private static final int SYNTHETIC_SEQUENCE_LENGTH = 10_000;
+    private static final long SEED = 42;
+
+    private final List<BenchmarkRequest> requests;
+
+    private RequestMix(List<BenchmarkRequest> requests) {
+        this.requests = requests;
+    }
+
+    public static RequestMix synthetic() {
+        List<String> headerPatterns = List.of(
+                "{\"fArray\": [{\"fInt\": 1}]}",
+                "{\"fArray\": [{\"fString\": 1, \"fObject\": {\"fInt\": 1}}]}",
+                "{\"fInt\": 1, \"fArray\": [{\"fObject\": {}}]}"
+        );
+
+        Map<BenchmarkRequest, Integer> weights = new LinkedHashMap<>();
+        for (String headerPattern : headerPatterns) {
+            weights.put(new BenchmarkRequest("/sync/items", Map.of("X-json-filter-pattern", headerPattern)), 10);
+            weights.put(new BenchmarkRequest("/async/items", Map.of("X-json-filter-pattern", headerPattern)), 4);
+        }
+        weights.put(new BenchmarkRequest("/sync/items", Map.of("X-client-id", "mobile")), 15);
+        weights.put(new BenchmarkRequest("/sync/items", Map.of()), 10);
+        weights.put(new BenchmarkRequest("/async/items", Map.of("X-client-id", "mobile")), 12);
+        weights.put(new BenchmarkRequest("/async/items", Map.of()), 6);
+        weights.put(new BenchmarkRequest("/unmatched/items", Map.of()), 10);
+
+        int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        List<BenchmarkRequest> sequence = new ArrayList<>(SYNTHETIC_SEQUENCE_LENGTH);
+
+        for (Map.Entry<BenchmarkRequest, Integer> entry : weights.entrySet()) {
+            int count = SYNTHETIC_SEQUENCE_LENGTH * entry.getValue() / totalWeight;
+
+            for (int i = 0; i < count; i++) {
+                sequence.add(entry.getKey());
+            }
+        }
+
+        Collections.shuffle(sequence, new Random(SEED));
+
+        return new RequestMix(sequence);
+    }
+
+    /**
+     * Replay file format - one request per line: path, then optional tab-separated "Header-Name: value" pairs.
+     * Empty lines and lines starting with '#' are ignored
+     */
+    public static RequestMix fromReplayFile(Path replayFile) throws IOException {
+        List<BenchmarkRequest> sequence = new ArrayList<>();
+
+        for (String line : Files.readAllLines(replayFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split("\t");
+            Map<String, String> headers = new LinkedHashMap<>();
+
+            for (int i = 1; i < parts.length; i++) {
+                int separatorIdx = parts[i].indexOf(':');
+
+                if (separatorIdx < 1) {
+                    throw new IllegalArgumentException("Bad header in replay file line: " + line);
+                }
+
+                headers.put(parts[i].substring(0, separatorIdx).trim(), parts[i].substring(separatorIdx + 1).trim());
+            }
+
+            sequence.add(new BenchmarkRequest(parts[0].trim(), headers));
+        }
+
+        if (sequence.isEmpty()) {
+            throw new IllegalArgumentException("Replay file is empty: " + replayFile);
+        }
+
+        return new RequestMix(sequence);
+    }
+
+    public BenchmarkRequest get(long index) {
+        return requests.get((int) (index % requests.size()));
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    public static class BenchmarkRequest {
+        private final String path;
+        private final Map<String, String> headers;
+
+        public BenchmarkRequest(String path, Map<String, String> headers) {
+            this.path = path;
+            this.headers = headers;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks.web;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end benchmark of json filtering on web layer: starts embedded Tomcat app {@link WebBenchmarkApplication}
+ * with and without {@link io.github.liquidcake.jsonsiever.web.JsonResponseBodyFilter} registered,
+ * replays request mix (see {@link RequestMix}) from local load generator threads and reports
+ * throughput, latency percentiles and server-side allocation rate for both runs.
+ * <p>
+ * Arguments (all optional): --threads=16 --warmup=10 --duration=30 (seconds) --payload=64KB --replay=&lt;file&gt;
+ * --mode=both|filtering|baseline
+ */
+public class WebBenchmark {
+
+    private final int threads;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int payloadBytes;
+    private final RequestMix requestMix;
+
+    public WebBenchmark(int threads, int warmupSeconds, int durationSeconds, int payloadBytes, RequestMix requestMix) {
+        this.threads = threads;
+        this.warmupSeconds = warmupSeconds;
+        this.durationSeconds = durationSeconds;
+        this.payloadBytes = payloadBytes;
+        this.requestMix = requestMix;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = parseArguments(args);
+
+        RequestMix requestMix = arguments.containsKey("replay")
+                ? RequestMix.fromReplayFile(Path.of(arguments.get("replay")))
+                : RequestMix.synthetic();
+
+        WebBenchmark benchmark = new WebBenchmark(
+                Integer.parseInt(arguments.getOrDefault("threads", "16")),
+                Integer.parseInt(arguments.getOrDefault("warmup", "10")),
+                Integer.parseInt(arguments.getOrDefault("duration", "30")),
+                parseSize(arguments.getOrDefault("payload", "64KB")),
+                requestMix
+        );
+
+        String mode = arguments.getOrDefault("mode", "both");
+        List<BenchmarkResult> results = new ArrayList<>();
+
+        if (!"filtering".equals(mode)) {
+            results.add(benchmark.run(false));
+        }
+        if (!"baseline".equals(mode)) {
+            results.add(benchmark.run(true));
+        }
+
+        System.out.printf("%nthreads=%d payload=%dB duration=%ds requests in mix=%d%n",
+                benchmark.threads, benchmark.payloadBytes, benchmark.durationSeconds, requestMix.size());
+        System.out.printf("%-10s %12s %10s %10s %10s %10s %14s %14s%n",
+                "mode", "req/s", "p50 us", "p99 us", "p999 us", "errors", "alloc MB/s", "alloc KB/req");
+
+        for (BenchmarkResult result : results) {
+            System.out.println(result);
+        }
+    }
+
+    public BenchmarkResult run(boolean filteringEnabled) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(WebBenchmarkApplication.class)
+                .properties(
+                        "server.port=0",
+                        WebBenchmarkApplication.FILTERING_ENABLED_PROPERTY + "=" + filteringEnabled,
+                        WebBenchmarkApplication.PAYLOAD_BYTES_PROPERTY + "=" + payloadBytes
+                )
+                .run();
+
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            runLoad(httpClient, port, warmupSeconds, null);
+
+            AllocationSnapshot allocationBefore = AllocationSnapshot.takeForServerThreads();
+            LoadResult loadResult = runLoad(httpClient, port, durationSeconds, new long[threads][]);
+            AllocationSnapshot allocationAfter = AllocationSnapshot.takeForServerThreads();
+
+            return new BenchmarkResult(filteringEnabled ? "filtering" : "baseline", loadResult,
+                    allocationAfter.allocatedBytesSince(allocationBefore), durationSeconds);
+        } finally {
+            context.close();
+        }
+    }
+
+    private LoadResult runLoad(HttpClient httpClient, int port, int seconds, long[][] latenciesPerThread)
+            throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        int[] requestsPerThread = new int[threads];
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int threadIdx = t;
+
+            Thread worker = new Thread(() -> {
+                long[] latencies = new long[1 << 16];
+                int count = 0;
+                //each thread starts from different position of request mix
+                long requestIdx = (long) threadIdx * requestMix.size() / threads;
+
+                while (System.nanoTime() < deadlineNanos) {
+                    RequestMix.BenchmarkRequest benchmarkRequest = requestMix.get(requestIdx++);
+                    HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + port + benchmarkRequest.getPath()));
+                    benchmarkRequest.getHeaders().forEach(requestBuilder::header);
+
+                    long startNanos = System.nanoTime();
+
+                    try {
+                        HttpResponse<byte[]> response =
+                                httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofByteArray());
+
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - startNanos;
+                }
+
+                requestsPerThread[threadIdx] = count;
+
+                if (latenciesPerThread != null) {
+                    latenciesPerThread[threadIdx] = Arrays.copyOf(latencies, count);
+                }
+            }, "load-generator-" + t);
+
+            workers.add(worker);
+            worker.start();
+        }
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long[] allLatencies = latenciesPerThread == null
+                ? new long[0]
+                : Arrays.stream(latenciesPerThread).flatMapToLong(Arrays::stream).sorted().toArray();
+
+        return new LoadResult(Arrays.stream(requestsPerThread).asLongStream().sum(), errors.get(), allLatencies);
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Bad argument (expected --name=value): " + arg);
+            }
+
+            arguments.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        return arguments;
+    }
+
+    private static int parseSize(String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+        }
+
+        if (size.endsWith("KB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+        }
+
+        return Integer.parseInt(size);
+    }
+
+    private static class LoadResult {
+        private final long requests;
+        private final long errors;
+        private final long[] sortedLatenciesNanos;
+
+        private LoadResult(long requests, long errors, long[] sortedLatenciesNanos) {
+            this.requests = requests;
+            this.errors = errors;
+            this.sortedLatenciesNanos = sortedLatenciesNanos;
+        }
+
+        private long percentileMicros(double percentile) {
+            if (sortedLatenciesNanos.length == 0) {
+                return 0;
+            }
+
+            int idx = (int) Math.ceil(percentile * sortedLatenciesNanos.length) - 1;
+
+            return TimeUnit.NANOSECONDS.toMicros(sortedLatenciesNanos[Math.max(idx, 0)]);
+        }
+    }
+
+    /**
+     * Bytes allocated by server-side threads (Tomcat workers and common pool threads running async endpoints),
+     * so allocations of load generator itself are not counted
+     */
+    private static class AllocationSnapshot {
+        private final Map<Long, Long> allocatedBytesPerThread;
+
+        private AllocationSnapshot(Map<Long, Long> allocatedBytesPerThread) {
+            this.allocatedBytesPerThread = allocatedBytesPerThread;
+        }
+
+        private static AllocationSnapshot takeForServerThreads() {
+            com.sun.management.ThreadMXBean threadMXBean =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            Map<Long, Long> allocatedBytesPerThread = new HashMap<>();
+
+            for (ThreadInfo threadInfo : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds())) {
+                if (threadInfo != null && isServerThread(threadInfo.getThreadName())) {
+                    allocatedBytesPerThread.put(threadInfo.getThreadId(),
+                            threadMXBean.getThreadAllocatedBytes(threadInfo.getThreadId()));
+                }
+            }
+
+            return new AllocationSnapshot(allocatedBytesPerThread);
+        }
+
+        private static boolean isServerThread(String threadName) {
+            return threadName.startsWith("http-nio-") || threadName.startsWith("ForkJoinPool.commonPool");
+        }
+
+        private long allocatedBytesSince(AllocationSnapshot before) {
+            long result = 0;
+
+            for (Map.Entry<Long, Long> entry : allocatedBytesPerThread.entrySet()) {
+                result += entry.getValue() - before.allocatedBytesPerThread.getOrDefault(entry.getKey(), 0L);
+            }
+
+            return result;
+        }
+    }
+
+    public static class BenchmarkResult {
+        private final String mode;
+        private final LoadResult loadResult;
+        private final long allocatedBytes;
+        private final int durationSeconds;
+
+        private BenchmarkResult(String mode, LoadResult loadResult, long allocatedBytes, int durationSeconds) {
+            this.mode = mode;
+            this.loadResult = loadResult;
+            this.allocatedBytes = allocatedBytes;
+            this.durationSeconds = durationSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s %12.1f %10d %10d %10d %10d %14.1f %14.1f",
+                    mode,
+                    (double) loadResult.requests / durationSeconds,
+                    loadResult.percentileMicros(0.5),
+                    loadResult.percentileMicros(0.99),
+                    loadResult.percentileMicros(0.999),
+                    loadResult.errors,
+                    allocatedBytes / 1024.0 / 1024.0 / durationSeconds,
+                    loadResult.requests == 0 ? 0 : allocatedBytes / 1024.0 / loadResult.requests);
+        }
+    }
+}
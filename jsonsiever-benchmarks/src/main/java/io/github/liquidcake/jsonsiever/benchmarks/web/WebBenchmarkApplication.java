@@ -0,0 +1,51 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.benchmarks.web;
+
+import io.github.liquidcake.jsonsiever.web.DynamicJsonFiltersCacheWrapper;
+import io.github.liquidcake.jsonsiever.web.JsonResponseBodyFilter;
+import io.github.liquidcake.jsonsiever.web.JsonResponseFilterApplier;
+import io.github.liquidcake.jsonsiever.web.SimpleInMemoryDynamicJsonFiltersCacheWrapper;
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Embedded Tomcat app used by {@link WebBenchmark}, configured the same way as demo_app_spring.
+ * Json filter may be disabled with {@link #FILTERING_ENABLED_PROPERTY} to get baseline numbers
+ */
+@SpringBootApplication
+@Import(JsonFilteringConfig.class)
+public class WebBenchmarkApplication {
+
+    public static final String FILTERING_ENABLED_PROPERTY = "benchmark.filtering.enabled";
+    public static final String PAYLOAD_BYTES_PROPERTY = "benchmark.payload.bytes";
+
+    @Bean
+    public FilterRegistrationBean<JsonResponseBodyFilter> filterRegistrationBean(
+            JsonResponseFilterApplier jsonResponseFilterApplier,
+            @Value("${" + FILTERING_ENABLED_PROPERTY + ":true}") boolean filteringEnabled
+    ) {
+        FilterRegistrationBean<JsonResponseBodyFilter> registrationBean = new FilterRegistrationBean<>();
+
+        registrationBean.setFilter(
+                new JsonResponseBodyFilter(jsonResponseFilterApplier)
+        );
+
+        registrationBean.addUrlPatterns("/*");
+        registrationBean.setOrder(99);
+        registrationBean.setEnabled(filteringEnabled);
+        return registrationBean;
+    }
+
+    @Bean
+    public DynamicJsonFiltersCacheWrapper simpleInMemoryDynamicJsonFiltersCacheWrapper() {
+        return new SimpleInMemoryDynamicJsonFiltersCacheWrapper();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.cli;
+
+/**
+ * Result of filtering of single file
+ */
+public class FilteringStats {
+    private final InputFormat format;
+    private final long inputBytes;
+    private final long outputBytes;
+    private final int chunks;
+    private final long elapsedNanos;
+
+    public FilteringStats(InputFormat format, long inputBytes, long outputBytes, int chunks, long elapsedNanos) {
+        this.format = format;
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+        this.chunks = chunks;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public InputFormat getFormat() {
+        return format;
+    }
+
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * @return number of chunks filtered in parallel, 1 if file was filtered as a single stream
+     */
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getInputMegabytesPerSecond() {
+        return elapsedNanos > 0 ? (inputBytes / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0) : 0;
+    }
+}
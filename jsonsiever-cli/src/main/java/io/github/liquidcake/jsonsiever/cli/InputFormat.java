@@ -0,0 +1,49 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.cli;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum InputFormat {
+    /**
+     * Single json document, filtered as a stream by one thread
+     */
+    JSON,
+    /**
+     * Newline-delimited json documents, filtered by several threads in chunks of lines
+     */
+    NDJSON,
+    /**
+     * Single json document with top-level array, elements are filtered by several threads in chunks of elements
+     */
+    ARRAY;
+
+    public static InputFormat parse(String format) {
+        return InputFormat.valueOf(format.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Detects format by file extension (".ndjson", ".jsonl") or by first significant byte of file ('[' - array)
+     */
+    public static InputFormat detect(Path path, MappedInput input) {
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+
+        if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+
+        for (long position = 0; position < input.size(); position++) {
+            byte b = input.get(position);
+
+            if (!ParallelFileFilter.isWhitespace(b)) {
+                return b == '[' ? ARRAY : JSON;
+            }
+        }
+
+        return JSON;
+    }
+}
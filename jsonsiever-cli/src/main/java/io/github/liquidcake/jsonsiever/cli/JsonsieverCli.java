@@ -0,0 +1,153 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidcake.jsonsiever.core.CompactFilterPatternParser;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command-line tool that filters json file on disk with filter pattern file (json or compact syntax, see
+ * {@link JsonFilteringService} and {@link CompactFilterPatternParser}), e.g.
+ * <pre>
+ * jsonsiever-cli --pattern=partner.json --input=dump.ndjson --output=partner-dump.ndjson
+ * </pre>
+ * Input is memory-mapped (files above 2GB are supported), NDJSON and top-level array files are filtered in parallel
+ * (see {@link ParallelFileFilter}). Throughput and memory statistics are printed when filtering is done.
+ * <p>
+ * Arguments: --pattern=&lt;file&gt; --input=&lt;file&gt; --output=&lt;file&gt; (required),
+ * --format=auto|json|ndjson|array (default: auto, see {@link InputFormat#detect}),
+ * --threads=&lt;available processors&gt; --chunk=16MB
+ */
+public class JsonsieverCli {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = parseArguments(args);
+
+        if (!arguments.containsKey("pattern") || !arguments.containsKey("input") || !arguments.containsKey("output")) {
+            System.err.println("Usage: jsonsiever-cli --pattern=<file> --input=<file> --output=<file> " +
+                    "[--format=auto|json|ndjson|array] [--threads=N] [--chunk=16MB]");
+            System.exit(1);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode filterPattern = readFilterPattern(objectMapper, Path.of(arguments.get("pattern")));
+
+        int threads = Integer.parseInt(
+                arguments.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        ParallelFileFilter parallelFileFilter = new ParallelFileFilter(new JsonFilteringService(objectMapper.getFactory()),
+                threads, parseSize(arguments.getOrDefault("chunk", "16MB")));
+
+        Path inputPath = Path.of(arguments.get("input"));
+        Path outputPath = Path.of(arguments.get("output"));
+
+        resetPeakHeapUsage();
+
+        FilteringStats stats;
+
+        try (MappedInput input = MappedInput.map(inputPath);
+             FileChannel outputChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            String format = arguments.getOrDefault("format", "auto");
+            InputFormat inputFormat = "auto".equalsIgnoreCase(format)
+                    ? InputFormat.detect(inputPath, input)
+                    : InputFormat.parse(format);
+
+            stats = parallelFileFilter.filter(input, inputFormat, filterPattern, outputChannel);
+        }
+
+        printStats(stats, threads);
+    }
+
+    private static JsonNode readFilterPattern(ObjectMapper objectMapper, Path path) throws Exception {
+        String filterPattern = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+
+        JsonNode parsedFilterPattern = CompactFilterPatternParser.isCompactFilterPattern(filterPattern)
+                ? CompactFilterPatternParser.parse(filterPattern)
+                : objectMapper.readTree(filterPattern);
+
+        //fail before any input is read
+        JsonFilteringService.validateFilterPattern(parsedFilterPattern);
+
+        return parsedFilterPattern;
+    }
+
+    private static void printStats(FilteringStats stats, int threads) {
+        double seconds = stats.getElapsedNanos() / 1_000_000_000.0;
+
+        System.out.printf("format=%s threads=%d chunks=%d%n", stats.getFormat(),
+                stats.getFormat() == InputFormat.JSON ? 1 : threads, stats.getChunks());
+        System.out.printf("input=%.1fMB output=%.1fMB (%.1f%%) time=%.2fs throughput=%.1fMB/s%n",
+                toMegabytes(stats.getInputBytes()), toMegabytes(stats.getOutputBytes()),
+                stats.getInputBytes() > 0 ? 100.0 * stats.getOutputBytes() / stats.getInputBytes() : 0,
+                seconds, stats.getInputMegabytesPerSecond());
+        System.out.printf("heap peak=%.1fMB max=%.1fMB (input is memory-mapped, not loaded into heap)%n",
+                toMegabytes(getPeakHeapUsage()), toMegabytes(Runtime.getRuntime().maxMemory()));
+    }
+
+    private static void resetPeakHeapUsage() {
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                memoryPool.resetPeakUsage();
+            }
+        }
+    }
+
+    //sum of peaks of heap pools - upper bound of heap usage, pools may peak at different moments
+    private static long getPeakHeapUsage() {
+        long peakHeapUsage = 0;
+
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                peakHeapUsage += memoryPool.getPeakUsage().getUsed();
+            }
+        }
+
+        return peakHeapUsage;
+    }
+
+    private static double toMegabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Bad argument (expected --name=value): " + arg);
+            }
+
+            arguments.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        return arguments;
+    }
+
+    private static int parseSize(String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+        }
+
+        if (size.endsWith("KB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+        }
+
+        return Integer.parseInt(size);
+    }
+}
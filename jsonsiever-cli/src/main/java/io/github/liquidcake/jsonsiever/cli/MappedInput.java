@@ -0,0 +1,108 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.cli;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only memory-mapped file of any size. Single mapping is limited to 2GB, so file is mapped as a sequence
+ * of 1GB segments and addressed by long position
+ */
+public class MappedInput implements Closeable {
+    private static final int SEGMENT_SIZE_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SIZE_BITS;
+    private static final long SEGMENT_OFFSET_MASK = SEGMENT_SIZE - 1;
+
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private MappedInput(FileChannel fileChannel, MappedByteBuffer[] segments, long size) {
+        this.fileChannel = fileChannel;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    public static MappedInput map(Path path) throws IOException {
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            long size = fileChannel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SIZE_BITS)];
+
+            for (int i = 0; i < segments.length; i++) {
+                long segmentStart = (long) i << SEGMENT_SIZE_BITS;
+
+                segments[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                        Math.min(SEGMENT_SIZE, size - segmentStart));
+            }
+
+            return new MappedInput(fileChannel, segments, size);
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_SIZE_BITS)].get((int) (position & SEGMENT_OFFSET_MASK));
+    }
+
+    /**
+     * Copies bytes [from, to) into new array, with given number of free bytes before and after them
+     */
+    public byte[] copy(long from, long to, int paddingBefore, int paddingAfter) {
+        int length = Math.toIntExact(to - from);
+        byte[] bytes = new byte[paddingBefore + length + paddingAfter];
+        int copied = 0;
+
+        while (copied < length) {
+            long position = from + copied;
+            MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SIZE_BITS)];
+            int segmentOffset = (int) (position & SEGMENT_OFFSET_MASK);
+            int chunkLength = Math.min(length - copied, segment.limit() - segmentOffset);
+
+            segment.get(segmentOffset, bytes, paddingBefore + copied, chunkLength);
+            copied += chunkLength;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return stream over whole file (mapped memory is read directly, without copying)
+     */
+    public InputStream asInputStream() {
+        List<InputStream> segmentInputStreams = new ArrayList<>(segments.length);
+
+        for (MappedByteBuffer segment : segments) {
+            segmentInputStreams.add(new ByteBufferBackedInputStream(segment.duplicate()));
+        }
+
+        return new SequenceInputStream(Collections.enumeration(segmentInputStreams));
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filters memory-mapped json file with single filter pattern.
+ * <ul>
+ * <li>{@link InputFormat#NDJSON} - file is split into chunks of whole lines, chunks are filtered in parallel
+ * (each line is a separate json document)</li>
+ * <li>{@link InputFormat#ARRAY} - top-level array is split into chunks of whole elements (element boundaries are found
+ * by lightweight byte scan, without parsing), each chunk is filtered in parallel as a separate array and filtered chunks
+ * are joined back into single array. Only possible for array filter pattern (e.g. [{"id": 1}]) - root array slice
+ * or "include all" patterns need whole array, so file is filtered as {@link InputFormat#JSON}</li>
+ * <li>{@link InputFormat#JSON} - file is filtered as a single stream by one thread, without loading it into heap</li>
+ * </ul>
+ * Filtered chunks are written in input order. Number of chunks being filtered or waiting to be written is bounded,
+ * so heap usage depends on chunk size and number of threads, not on file size
+ */
+public class ParallelFileFilter {
+    private static final int OUTPUT_BUFFER_SIZE = 1024 * 1024;
+
+    private final JsonFilteringService jsonFilteringService;
+    private final int threads;
+    private final int chunkSizeBytes;
+
+    public ParallelFileFilter(JsonFilteringService jsonFilteringService, int threads, int chunkSizeBytes) {
+        this.jsonFilteringService = jsonFilteringService;
+        this.threads = threads;
+        this.chunkSizeBytes = chunkSizeBytes;
+    }
+
+    public FilteringStats filter(MappedInput input, InputFormat format, JsonNode filterPattern,
+                                 WritableByteChannel outputChannel) throws IOException, JsonFilteringException {
+        long startNanos = System.nanoTime();
+        ChannelOutputStream output = new ChannelOutputStream(outputChannel);
+        int chunks;
+
+        switch (format) {
+            case NDJSON: {
+                chunks = filterNdjson(input, filterPattern, output);
+                break;
+            }
+            case ARRAY: {
+                if (filterPattern.isArray() && !filterPattern.isEmpty()) {
+                    chunks = filterArray(input, filterPattern, output);
+                    break;
+                }
+
+                format = InputFormat.JSON;
+                chunks = filterStream(input, filterPattern, output);
+                break;
+            }
+            default: {
+                chunks = filterStream(input, filterPattern, output);
+            }
+        }
+
+        return new FilteringStats(format, input.size(), output.getCount(), chunks, System.nanoTime() - startNanos);
+    }
+
+    private int filterStream(MappedInput input, JsonNode filterPattern, ChannelOutputStream output)
+            throws IOException, JsonFilteringException {
+        BufferedOutputStream bufferedOutput = new BufferedOutputStream(output, OUTPUT_BUFFER_SIZE);
+
+        jsonFilteringService.filterJsonFields(input.asInputStream(), bufferedOutput, filterPattern);
+
+        bufferedOutput.flush();
+
+        return 1;
+    }
+
+    private int filterNdjson(MappedInput input, JsonNode filterPattern, ChannelOutputStream output)
+            throws IOException, JsonFilteringException {
+        try (OrderedChunkFilter orderedChunkFilter = new OrderedChunkFilter(filteredChunk ->
+                output.write(filteredChunk, 0, filteredChunk.length))) {
+            long chunkStart = 0;
+
+            while (chunkStart < input.size()) {
+                long chunkEnd = findLineEnd(input, Math.min(input.size(), chunkStart + chunkSizeBytes));
+                long from = chunkStart;
+
+                orderedChunkFilter.submit(() -> filterNdjsonChunk(input.copy(from, chunkEnd, 0, 0), filterPattern));
+
+                chunkStart = chunkEnd;
+            }
+
+            return orderedChunkFilter.finish();
+        }
+    }
+
+    private byte[] filterNdjsonChunk(byte[] chunk, JsonNode filterPattern) throws IOException, JsonFilteringException {
+        ByteArrayOutputStream filteredChunk = new ByteArrayOutputStream(chunk.length);
+        int lineStart = 0;
+
+        while (lineStart < chunk.length) {
+            int lineEnd = lineStart;
+
+            while (lineEnd < chunk.length && chunk[lineEnd] != '\n') {
+                lineEnd++;
+            }
+
+            int documentStart = lineStart;
+            int documentEnd = lineEnd;
+
+            while (documentStart < documentEnd && isWhitespace(chunk[documentStart])) {
+                documentStart++;
+            }
+            while (documentEnd > documentStart && isWhitespace(chunk[documentEnd - 1])) {
+                documentEnd--;
+            }
+
+            //blank lines are dropped
+            if (documentEnd > documentStart) {
+                jsonFilteringService.filterJsonFields(
+                        new ByteArrayInputStream(chunk, documentStart, documentEnd - documentStart),
+                        filteredChunk, filterPattern);
+                filteredChunk.write('\n');
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return filteredChunk.toByteArray();
+    }
+
+    private int filterArray(MappedInput input, JsonNode filterPattern, ChannelOutputStream output)
+            throws IOException, JsonFilteringException {
+        long position = skipWhitespaces(input, 0);
+
+        if (position >= input.size() || input.get(position) != '[') {
+            throw new JsonFilteringException("Input is not a json array");
+        }
+
+        output.write('[');
+
+        ArrayChunkJoiner arrayChunkJoiner = new ArrayChunkJoiner(output);
+
+        try (OrderedChunkFilter orderedChunkFilter = new OrderedChunkFilter(arrayChunkJoiner)) {
+            long chunkStart = -1;
+            long chunkEnd = -1;
+
+            position = skipWhitespaces(input, position + 1);
+
+            if (position < input.size() && input.get(position) == ']') {
+                //empty array
+                position = input.size();
+            }
+
+            while (position < input.size()) {
+                long elementEnd = findValueEnd(input, position);
+
+                if (chunkStart < 0) {
+                    chunkStart = position;
+                }
+                chunkEnd = elementEnd;
+
+                if (chunkEnd - chunkStart >= chunkSizeBytes) {
+                    submitArrayChunk(orderedChunkFilter, input, chunkStart, chunkEnd, filterPattern);
+                    chunkStart = -1;
+                }
+
+                position = skipWhitespaces(input, elementEnd);
+
+                if (position >= input.size()) {
+                    throw new JsonFilteringException("Unexpected end of json array");
+                }
+
+                byte separator = input.get(position);
+
+                if (separator == ']') {
+                    //content after top-level array is ignored, same as when filtering whole document
+                    break;
+                } else if (separator != ',') {
+                    throw new JsonFilteringException(String.format(
+                            "Unexpected character '%s' after array element at byte %d", (char) separator, position));
+                }
+
+                position = skipWhitespaces(input, position + 1);
+            }
+
+            if (chunkStart >= 0) {
+                submitArrayChunk(orderedChunkFilter, input, chunkStart, chunkEnd, filterPattern);
+            }
+
+            int chunks = orderedChunkFilter.finish();
+
+            output.write(']');
+
+            return chunks;
+        }
+    }
+
+    private void submitArrayChunk(OrderedChunkFilter orderedChunkFilter, MappedInput input, long chunkStart,
+                                  long chunkEnd, JsonNode filterPattern) throws IOException, JsonFilteringException {
+        orderedChunkFilter.submit(() -> {
+            //chunk of elements (with commas between them) is filtered as a separate array
+            byte[] chunk = input.copy(chunkStart, chunkEnd, 1, 1);
+            chunk[0] = '[';
+            chunk[chunk.length - 1] = ']';
+
+            return jsonFilteringService.filterJsonFields(chunk, filterPattern);
+        });
+    }
+
+    /**
+     * @return position after line feed that ends line containing byte before passed position, or input size
+     */
+    private static long findLineEnd(MappedInput input, long position) {
+        for (long i = position - 1; i < input.size(); i++) {
+            if (input.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+
+        return input.size();
+    }
+
+    /**
+     * @return position after json value (object, array, string or scalar) starting at passed position
+     */
+    static long findValueEnd(MappedInput input, long valueStart) {
+        int depth = 0;
+        boolean inString = false;
+
+        for (long position = valueStart; position < input.size(); position++) {
+            byte b = input.get(position);
+
+            if (inString) {
+                if (b == '\\') {
+                    position++;
+                } else if (b == '"') {
+                    inString = false;
+
+                    if (depth == 0) {
+                        return position + 1;
+                    }
+                }
+
+                continue;
+            }
+
+            switch (b) {
+                case '"': {
+                    inString = true;
+                    break;
+                }
+                case '{':
+                case '[': {
+                    depth++;
+                    break;
+                }
+                case '}':
+                case ']': {
+                    if (depth == 0) {
+                        //scalar is followed by end of enclosing array
+                        return position;
+                    }
+
+                    depth--;
+
+                    if (depth == 0) {
+                        return position + 1;
+                    }
+                    break;
+                }
+                case ',': {
+                    if (depth == 0) {
+                        return position;
+                    }
+                    break;
+                }
+                default: {
+                    if (depth == 0 && isWhitespace(b)) {
+                        return position;
+                    }
+                }
+            }
+        }
+
+        return input.size();
+    }
+
+    private static long skipWhitespaces(MappedInput input, long position) {
+        while (position < input.size() && isWhitespace(input.get(position))) {
+            position++;
+        }
+
+        return position;
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private interface FilteredChunkConsumer {
+        void accept(byte[] filteredChunk) throws IOException, JsonFilteringException;
+    }
+
+    /**
+     * Filters chunks in parallel and passes filtered chunks to consumer in submission order.
+     * At most 2 chunks per thread are in flight - submission blocks until oldest chunk is filtered and consumed
+     */
+    private class OrderedChunkFilter implements AutoCloseable {
+        private final FilteredChunkConsumer filteredChunkConsumer;
+        private final ExecutorService executorService;
+        private final Deque<Future<byte[]>> inFlightChunks = new ArrayDeque<>();
+        private int chunks;
+
+        private OrderedChunkFilter(FilteredChunkConsumer filteredChunkConsumer) {
+            AtomicInteger threadCounter = new AtomicInteger();
+
+            this.filteredChunkConsumer = filteredChunkConsumer;
+            this.executorService = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "jsonsiever-cli-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        private void submit(Callable<byte[]> chunkFilteringTask) throws IOException, JsonFilteringException {
+            if (inFlightChunks.size() >= threads * 2) {
+                consumeOldestChunk();
+            }
+
+            inFlightChunks.add(executorService.submit(chunkFilteringTask));
+            chunks++;
+        }
+
+        private int finish() throws IOException, JsonFilteringException {
+            while (!inFlightChunks.isEmpty()) {
+                consumeOldestChunk();
+            }
+
+            return chunks;
+        }
+
+        private void consumeOldestChunk() throws IOException, JsonFilteringException {
+            byte[] filteredChunk;
+
+            try {
+                filteredChunk = inFlightChunks.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for chunk to be filtered", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof JsonFilteringException) {
+                    throw (JsonFilteringException) e.getCause();
+                }
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+
+                throw new JsonFilteringException(e.getCause());
+            }
+
+            filteredChunkConsumer.accept(filteredChunk);
+        }
+
+        @Override
+        public void close() {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes elements of filtered chunk arrays as elements of single array
+     */
+    private static class ArrayChunkJoiner implements FilteredChunkConsumer {
+        private final OutputStream output;
+        private boolean elementWritten;
+
+        private ArrayChunkJoiner(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void accept(byte[] filteredChunk) throws IOException, JsonFilteringException {
+            if (filteredChunk.length < 2 || filteredChunk[0] != '[' || filteredChunk[filteredChunk.length - 1] != ']') {
+                throw new JsonFilteringException("Filtered chunk of array elements is not an array");
+            }
+
+            //all elements of chunk may be filtered out (e.g. by element predicate)
+            if (filteredChunk.length == 2) {
+                return;
+            }
+
+            if (elementWritten) {
+                output.write(',');
+            }
+
+            output.write(filteredChunk, 1, filteredChunk.length - 2);
+            elementWritten = true;
+        }
+    }
+
+    /**
+     * Writes to channel and counts written bytes
+     */
+    private static class ChannelOutputStream extends OutputStream {
+        private final WritableByteChannel channel;
+        private long count;
+
+        private ChannelOutputStream(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(b, off, len);
+
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
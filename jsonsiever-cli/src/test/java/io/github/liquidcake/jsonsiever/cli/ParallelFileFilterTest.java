@@ -0,0 +1,102 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ParallelFileFilterTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonFilteringService JSON_FILTERING_SERVICE = new JsonFilteringService(OBJECT_MAPPER.getFactory());
+
+    //tiny chunks, so each chunk holds just a few elements / lines
+    private final ParallelFileFilter parallelFileFilter = new ParallelFileFilter(JSON_FILTERING_SERVICE, 4, 64);
+
+    /**
+     * Array split into chunks gives same result as filtering of whole array - including elements with commas, brackets
+     * and escaped quotes inside strings, and chunks where all elements are dropped by predicate
+     */
+    @Test
+    public void test_array() throws Exception {
+        StringBuilder jsonData = new StringBuilder("[\n");
+
+        for (int i = 0; i < 100; i++) {
+            jsonData.append(i > 0 ? ",\n" : "")
+                    .append(String.format("  {\"id\": %d, \"name\": \"a, [b] {c} \\\"d\\\"\", \"price\": %d, " +
+                            "\"tags\": [\"x\", \"y\"], \"stock\": {\"count\": %d}}", i, i % 30, i * 2));
+        }
+
+        jsonData.append("\n]\n");
+
+        assertSameAsWholeDocumentFiltering(jsonData.toString(), "[{\"id\": 1, \"stock\": {}}]", InputFormat.ARRAY);
+        assertSameAsWholeDocumentFiltering(jsonData.toString(),
+                "[{\"$where\": {\"price\": {\"$lt\": 3}}, \"name\": 1}]", InputFormat.ARRAY);
+        assertSameAsWholeDocumentFiltering("[1, 2.50, \"x\", null, true]", "[]", InputFormat.ARRAY);
+        assertSameAsWholeDocumentFiltering(" [ ] ", "[{\"id\": 1}]", InputFormat.ARRAY);
+
+        //root array slice needs whole array
+        Assertions.assertEquals(InputFormat.JSON, filter(jsonData.toString(),
+                "{\"$offset\": 10, \"$limit\": 5}", InputFormat.ARRAY, new ByteArrayOutputStream()).getFormat());
+    }
+
+    @Test
+    public void test_ndjson() throws Exception {
+        StringBuilder jsonData = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        JsonNode filterPattern = OBJECT_MAPPER.readTree("{\"id\": 1, \"meta\": {\"-debug\": 1}}");
+
+        for (int i = 0; i < 100; i++) {
+            String line = String.format("{\"id\": %d, \"name\": \"n\\n%d\", \"meta\": {\"debug\": 1, \"v\": %d}}", i, i, i);
+
+            jsonData.append(line).append(i % 10 == 0 ? "\r\n\n" : "\n");
+            expected.append(new String(JSON_FILTERING_SERVICE.filterJsonFields(
+                    line.getBytes(StandardCharsets.UTF_8), filterPattern), StandardCharsets.UTF_8)).append('\n');
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FilteringStats stats = filter(jsonData.toString(), filterPattern.toString(), InputFormat.NDJSON, output);
+
+        Assertions.assertEquals(expected.toString(), output.toString(StandardCharsets.UTF_8));
+        Assertions.assertTrue(stats.getChunks() > 1);
+    }
+
+    private void assertSameAsWholeDocumentFiltering(String jsonData, String filterPattern, InputFormat format)
+            throws Exception {
+        byte[] expected = JSON_FILTERING_SERVICE.filterJsonFields(
+                jsonData.getBytes(StandardCharsets.UTF_8), OBJECT_MAPPER.readTree(filterPattern));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FilteringStats stats = filter(jsonData, filterPattern, format, output);
+
+        Assertions.assertArrayEquals(expected, output.toByteArray());
+        Assertions.assertEquals(expected.length, stats.getOutputBytes());
+    }
+
+    private FilteringStats filter(String jsonData, String filterPattern, InputFormat format,
+                                  ByteArrayOutputStream output) throws Exception {
+        Path inputFile = Files.createTempFile("jsonsiever-cli-test", ".json");
+
+        try {
+            Files.write(inputFile, jsonData.getBytes(StandardCharsets.UTF_8));
+
+            try (MappedInput input = MappedInput.map(inputFile)) {
+                return parallelFileFilter.filter(input, format, OBJECT_MAPPER.readTree(filterPattern),
+                        Channels.newChannel(output));
+            }
+        } finally {
+            Files.delete(inputFile);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses compact filter pattern syntax - comma-separated list of field paths, e.g.
+ * <pre>
+ * name,stats.str,items[].id,meta.*
+ * </pre>
+ * into the same filter pattern structure as WYSIWYG json pattern
+ * <pre>
+ * {"name": 1, "stats": {"str": 1}, "items": [{"id": 1}], "meta": {}}
+ * </pre>
+ * <ul>
+ * <li>path segments are separated by '.', "[]" suffix means "elements of array" (e.g. "matrix[][].id")</li>
+ * <li>path ending with field name includes whole field (whatever its value is), path ending with "[]" or ".*" includes
+ * whole array / object</li>
+ * <li>pattern for root array starts with "[]", e.g. "[].id,[].name"</li>
+ * <li>single "*" is "include all" pattern</li>
+ * <li>path starting with "-" excludes its last field, e.g. "-debug,-stats.audit" is same as
+ * {"-debug": 1, "-": 1, "stats": {"-audit": 1}} (see exclusion in {@link JsonFilteringService}). All objects on
+ * the way to excluded field are switched to exclusion mode ("-" marker), so "-stats.audit" keeps all fields except
+ * "stats.audit", and other (not excluded) paths only set nested patterns for fields that are kept anyway</li>
+ * </ul>
+ * Field names containing '.', ',' or '[' can't be used in compact syntax.
+ * <p>
+ * Pattern is compiled in a single scan, without intermediate json text or tokens
+ */
+public final class CompactFilterPatternParser {
+    private static final char PATH_SEPARATOR = ',';
+    private static final char SEGMENT_SEPARATOR = '.';
+    private static final String ARRAY_ELEMENTS = "[]";
+    private static final String WILDCARD = "*";
+    private static final char EXCLUDED_PATH_PREFIX = '-';
+
+    private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+    private CompactFilterPatternParser() {
+    }
+
+    /**
+     * @return true if passed filter pattern is written in compact syntax, false if it is json
+     */
+    public static boolean isCompactFilterPattern(String filterPattern) {
+        int firstCharIdx = skipWhitespaces(filterPattern, 0);
+
+        if (firstCharIdx >= filterPattern.length()) {
+            return false;
+        }
+
+        char firstChar = filterPattern.charAt(firstCharIdx);
+
+        if (firstChar == '[') {
+            //"[]" alone is same in both syntaxes, "[].id" is compact, "[{...}]" is json
+            return filterPattern.startsWith(ARRAY_ELEMENTS, firstCharIdx)
+                    && skipWhitespaces(filterPattern, firstCharIdx + ARRAY_ELEMENTS.length()) < filterPattern.length();
+        }
+
+        return firstChar != '{' && firstChar != '"';
+    }
+
+    public static JsonNode parse(String filterPattern) throws BadFilterPatternException {
+        String pattern = filterPattern.trim();
+
+        if (pattern.isEmpty()) {
+            throw new BadFilterPatternException("Compact filter pattern is empty");
+        }
+
+        if (WILDCARD.equals(pattern)) {
+            return TextNode.valueOf(JsonFilteringService.FILTER_PATTERN_INCLUDE_ALL);
+        }
+
+        int firstPathStart = pattern.charAt(0) == EXCLUDED_PATH_PREFIX ? 1 : 0;
+        ContainerNode<?> rootNode = pattern.startsWith(ARRAY_ELEMENTS, firstPathStart)
+                ? NODE_FACTORY.arrayNode()
+                : NODE_FACTORY.objectNode();
+        Set<JsonNode> wildcardNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        int pos = 0;
+
+        while (pos <= pattern.length()) {
+            pos = parsePath(pattern, pos, rootNode, wildcardNodes);
+        }
+
+        return rootNode;
+    }
+
+    /**
+     * @return position of next path start, or position after pattern end
+     */
+    private static int parsePath(String pattern, int pathStart, ContainerNode<?> rootNode, Set<JsonNode> wildcardNodes)
+            throws BadFilterPatternException {
+        JsonNode node = rootNode;
+        int pos = skipWhitespaces(pattern, pathStart);
+        boolean excluded = pos < pattern.length() && pattern.charAt(pos) == EXCLUDED_PATH_PREFIX;
+        //objects on the way to excluded field
+        List<ObjectNode> excludedPathObjectNodes = null;
+
+        if (excluded) {
+            excludedPathObjectNodes = new ArrayList<>();
+            pos++;
+        }
+
+        while (true) {
+            int nameStart = skipWhitespaces(pattern, pos);
+
+            pos = nameStart;
+            while (pos < pattern.length() && !isSpecialChar(pattern.charAt(pos))) {
+                pos++;
+            }
+
+            int nameEnd = pos;
+            while (nameEnd > nameStart && Character.isWhitespace(pattern.charAt(nameEnd - 1))) {
+                nameEnd--;
+            }
+
+            int arrayDepth = 0;
+            while (pattern.startsWith(ARRAY_ELEMENTS, pos)) {
+                arrayDepth++;
+                pos = skipWhitespaces(pattern, pos + ARRAY_ELEMENTS.length());
+            }
+
+            if (pos < pattern.length() && pattern.charAt(pos) == '[') {
+                throw new BadFilterPatternException(
+                        String.format("Unexpected '[' at position %d of compact filter pattern: %s", pos, pattern));
+            }
+
+            boolean lastSegment = pos >= pattern.length() || pattern.charAt(pos) == PATH_SEPARATOR;
+
+            if (!lastSegment && pattern.charAt(pos) != SEGMENT_SEPARATOR) {
+                throw new BadFilterPatternException(String.format(
+                        "Unexpected character '%s' at position %d of compact filter pattern: %s",
+                        pattern.charAt(pos), pos, pattern));
+            }
+
+            boolean hasName = nameEnd > nameStart;
+
+            if (!hasName && (arrayDepth == 0 || node != rootNode)) {
+                throw new BadFilterPatternException(
+                        String.format("Empty field name at position %d of compact filter pattern: %s", nameStart, pattern));
+            }
+
+            //inside wildcard everything is already included
+            if (wildcardNodes.contains(node)) {
+                return skipToNextPath(pattern, pos);
+            }
+
+            if (hasName) {
+                if (!node.isObject()) {
+                    throw new BadFilterPatternException(
+                            "Compact filter pattern mixes root array and root object paths: " + pattern);
+                }
+
+                ObjectNode objectNode = (ObjectNode) node;
+
+                if (nameEnd - nameStart == WILDCARD.length() && pattern.startsWith(WILDCARD, nameStart)) {
+                    if (!lastSegment || arrayDepth > 0 || excluded) {
+                        throw new BadFilterPatternException(
+                                "'*' is only allowed as last segment of path in compact filter pattern: " + pattern);
+                    }
+
+                    markWildcard(objectNode, wildcardNodes);
+
+                    return skipToNextPath(pattern, pos);
+                }
+
+                String fieldName = pattern.substring(nameStart, nameEnd);
+
+                if (excluded && lastSegment) {
+                    //whole field (including array, if "[]" is set) is excluded
+                    objectNode.put(JsonFilteringService.EXCLUDED_FIELD_PREFIX + fieldName, 1);
+
+                    //otherwise parent objects would keep only the path to excluded field
+                    for (ObjectNode excludedPathObjectNode : excludedPathObjectNodes) {
+                        excludedPathObjectNode.put(JsonFilteringService.EXCLUDED_FIELD_PREFIX, 1);
+                    }
+
+                    return skipToNextPath(pattern, pos);
+                }
+
+                JsonNode fieldNode = objectNode.get(fieldName);
+
+                //field is already included as a whole
+                if (fieldNode != null && !fieldNode.isContainerNode()) {
+                    return skipToNextPath(pattern, pos);
+                }
+
+                if (lastSegment && arrayDepth == 0) {
+                    objectNode.put(fieldName, 1);
+
+                    return skipToNextPath(pattern, pos);
+                }
+
+                if (fieldNode == null) {
+                    fieldNode = arrayDepth > 0 ? objectNode.putArray(fieldName) : objectNode.putObject(fieldName);
+                } else if (fieldNode.isArray() != arrayDepth > 0) {
+                    throw new BadFilterPatternException(String.format(
+                            "Field '%s' is used both as object and as array in compact filter pattern: %s",
+                            fieldName, pattern));
+                }
+
+                if (excluded) {
+                    excludedPathObjectNodes.add(objectNode);
+                }
+
+                node = fieldNode;
+            } else if (!node.isArray()) {
+                throw new BadFilterPatternException(
+                        "Compact filter pattern mixes root array and root object paths: " + pattern);
+            }
+
+            for (int i = 0; i < arrayDepth; i++) {
+                if (wildcardNodes.contains(node)) {
+                    return skipToNextPath(pattern, pos);
+                }
+
+                ArrayNode arrayNode = (ArrayNode) node;
+                boolean lastArrayLevel = i == arrayDepth - 1;
+
+                if (lastSegment && lastArrayLevel) {
+                    if (excluded) {
+                        throw new BadFilterPatternException(
+                                "Root array can't be excluded in compact filter pattern: " + pattern);
+                    }
+
+                    markWildcard(arrayNode, wildcardNodes);
+
+                    return skipToNextPath(pattern, pos);
+                }
+
+                JsonNode elementNode = arrayNode.isEmpty() ? null : arrayNode.get(0);
+
+                if (elementNode == null) {
+                    elementNode = lastArrayLevel ? arrayNode.addObject() : arrayNode.addArray();
+                } else if (elementNode.isArray() == lastArrayLevel) {
+                    throw new BadFilterPatternException(
+                            "Array elements are used both as objects and as arrays in compact filter pattern: " + pattern);
+                }
+
+                node = elementNode;
+            }
+
+            //skip '.'
+            pos++;
+        }
+    }
+
+    private static void markWildcard(ContainerNode<?> containerNode, Set<JsonNode> wildcardNodes) {
+        //empty container is a wildcard
+        containerNode.removeAll();
+        wildcardNodes.add(containerNode);
+    }
+
+    private static int skipToNextPath(String pattern, int pos) {
+        int pathSeparatorIdx = pattern.indexOf(PATH_SEPARATOR, pos);
+
+        return pathSeparatorIdx >= 0 ? pathSeparatorIdx + 1 : pattern.length() + 1;
+    }
+
+    private static int skipWhitespaces(String str, int pos) {
+        while (pos < str.length() && Character.isWhitespace(str.charAt(pos))) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    private static boolean isSpecialChar(char c) {
+        return c == SEGMENT_SEPARATOR || c == PATH_SEPARATOR || c == '[';
+    }
+}
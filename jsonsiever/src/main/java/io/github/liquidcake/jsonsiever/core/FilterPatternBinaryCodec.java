@@ -0,0 +1,318 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact versioned binary encoding of filter patterns.
+ * Allows storing already parsed filter patterns (e.g. in build-time bundle or in remote cache) and restoring them
+ * without json parsing.
+ * <p>
+ * Format: version byte, followed by node tree. Each node is a type tag followed by its content.
+ * Numbers and lengths are written as varints, object field names are written once and then referenced by index.
+ */
+public class FilterPatternBinaryCodec {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_ARRAY = 6;
+    private static final byte TAG_OBJECT = 7;
+    private static final byte TAG_BIG_NUMBER = 8;
+
+    private static final int MAX_NESTING_DEPTH = 1000;
+
+    public byte[] encode(JsonNode filterPattern) throws BadFilterPatternException {
+        if (filterPattern == null) {
+            throw new BadFilterPatternException("Filter pattern node is null");
+        }
+
+        Encoder encoder = new Encoder();
+
+        encoder.out.write(FORMAT_VERSION);
+        encoder.writeNode(filterPattern);
+
+        return encoder.out.toByteArray();
+    }
+
+    public JsonNode decode(byte[] encodedFilterPattern) throws JsonFilteringException {
+        if (encodedFilterPattern == null || encodedFilterPattern.length == 0) {
+            throw new JsonFilteringException("Encoded filter pattern is empty");
+        }
+
+        if (encodedFilterPattern[0] != FORMAT_VERSION) {
+            throw new JsonFilteringException("Unsupported encoded filter pattern format version: " + encodedFilterPattern[0]);
+        }
+
+        Decoder decoder = new Decoder(encodedFilterPattern);
+
+        try {
+            JsonNode result = decoder.readNode(0);
+
+            if (decoder.position != encodedFilterPattern.length) {
+                throw new JsonFilteringException("Unexpected trailing data in encoded filter pattern");
+            }
+
+            return result;
+        } catch (IndexOutOfBoundsException e) {
+            throw new JsonFilteringException("Encoded filter pattern is truncated", e);
+        }
+    }
+
+    private static class Encoder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final Map<String, Integer> fieldNameIndexes = new HashMap<>();
+
+        private void writeNode(JsonNode node) throws BadFilterPatternException {
+            switch (node.getNodeType()) {
+                case NULL:
+                case MISSING: {
+                    out.write(TAG_NULL);
+                    break;
+                }
+                case BOOLEAN: {
+                    out.write(node.booleanValue() ? TAG_TRUE : TAG_FALSE);
+                    break;
+                }
+                case NUMBER: {
+                    writeNumber(node);
+                    break;
+                }
+                case STRING: {
+                    out.write(TAG_STRING);
+                    writeString(node.textValue());
+                    break;
+                }
+                case ARRAY: {
+                    out.write(TAG_ARRAY);
+                    writeVarLong(node.size());
+
+                    for (JsonNode element : node) {
+                        writeNode(element);
+                    }
+                    break;
+                }
+                case OBJECT: {
+                    out.write(TAG_OBJECT);
+                    writeVarLong(node.size());
+
+                    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+
+                        writeFieldName(field.getKey());
+                        writeNode(field.getValue());
+                    }
+                    break;
+                }
+                default: {
+                    throw new BadFilterPatternException("Unsupported filter pattern node type: " + node.getNodeType());
+                }
+            }
+        }
+
+        private void writeNumber(JsonNode node) {
+            if (node.isIntegralNumber() && node.canConvertToLong()) {
+                out.write(TAG_LONG);
+                //zigzag encoding so small negative numbers are also short
+                long value = node.longValue();
+                writeVarLong((value << 1) ^ (value >> 63));
+            } else if (node.isDouble() || node.isFloat()) {
+                out.write(TAG_DOUBLE);
+                long bits = Double.doubleToLongBits(node.doubleValue());
+
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out.write((int) (bits >>> shift));
+                }
+            } else {
+                out.write(TAG_BIG_NUMBER);
+                writeString(node.asText());
+            }
+        }
+
+        private void writeFieldName(String fieldName) {
+            Integer index = fieldNameIndexes.get(fieldName);
+
+            if (index != null) {
+                writeVarLong(index + 1);
+            } else {
+                writeVarLong(0);
+                writeString(fieldName);
+                fieldNameIndexes.put(fieldName, fieldNameIndexes.size());
+            }
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+
+            out.write((int) value);
+        }
+    }
+
+    private static class Decoder {
+        private final byte[] data;
+        private final List<String> fieldNames = new ArrayList<>();
+        private int position = 1;
+
+        private Decoder(byte[] data) {
+            this.data = data;
+        }
+
+        private JsonNode readNode(int depth) throws JsonFilteringException {
+            if (depth > MAX_NESTING_DEPTH) {
+                throw new JsonFilteringException("Encoded filter pattern is nested too deep");
+            }
+
+            byte tag = data[position++];
+
+            switch (tag) {
+                case TAG_NULL:
+                    return JsonNodeFactory.instance.nullNode();
+                case TAG_TRUE:
+                    return JsonNodeFactory.instance.booleanNode(true);
+                case TAG_FALSE:
+                    return JsonNodeFactory.instance.booleanNode(false);
+                case TAG_LONG: {
+                    long zigzag = readVarLong();
+                    long value = (zigzag >>> 1) ^ -(zigzag & 1);
+
+                    return value == (int) value
+                            ? JsonNodeFactory.instance.numberNode((int) value)
+                            : JsonNodeFactory.instance.numberNode(value);
+                }
+                case TAG_DOUBLE: {
+                    long bits = 0;
+
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | (data[position++] & 0xFF);
+                    }
+
+                    return JsonNodeFactory.instance.numberNode(Double.longBitsToDouble(bits));
+                }
+                case TAG_BIG_NUMBER: {
+                    String value = readString();
+
+                    return value.indexOf('.') < 0 && value.indexOf('e') < 0 && value.indexOf('E') < 0
+                            ? JsonNodeFactory.instance.numberNode(new BigInteger(value))
+                            : JsonNodeFactory.instance.numberNode(new BigDecimal(value));
+                }
+                case TAG_STRING:
+                    return JsonNodeFactory.instance.textNode(readString());
+                case TAG_ARRAY: {
+                    int size = readSize();
+                    ArrayNode arrayNode = JsonNodeFactory.instance.arrayNode(size);
+
+                    for (int i = 0; i < size; i++) {
+                        arrayNode.add(readNode(depth + 1));
+                    }
+
+                    return arrayNode;
+                }
+                case TAG_OBJECT: {
+                    int size = readSize();
+                    ObjectNode objectNode = JsonNodeFactory.instance.objectNode();
+
+                    for (int i = 0; i < size; i++) {
+                        String fieldName = readFieldName();
+
+                        objectNode.set(fieldName, readNode(depth + 1));
+                    }
+
+                    return objectNode;
+                }
+                default:
+                    throw new JsonFilteringException("Unknown node tag in encoded filter pattern: " + tag);
+            }
+        }
+
+        private String readFieldName() throws JsonFilteringException {
+            int reference = readSize();
+
+            if (reference == 0) {
+                String fieldName = readString();
+                fieldNames.add(fieldName);
+
+                return fieldName;
+            }
+
+            if (reference > fieldNames.size()) {
+                throw new JsonFilteringException("Bad field name reference in encoded filter pattern: " + reference);
+            }
+
+            return fieldNames.get(reference - 1);
+        }
+
+        private String readString() throws JsonFilteringException {
+            int length = readSize();
+
+            if (length > data.length - position) {
+                throw new JsonFilteringException("Encoded filter pattern is truncated");
+            }
+
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+
+            return value;
+        }
+
+        private int readSize() throws JsonFilteringException {
+            long size = readVarLong();
+
+            if (size < 0 || size > data.length) {
+                throw new JsonFilteringException("Bad size in encoded filter pattern: " + size);
+            }
+
+            return (int) size;
+        }
+
+        private long readVarLong() throws JsonFilteringException {
+            long result = 0;
+
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+
+            throw new JsonFilteringException("Malformed varint in encoded filter pattern");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Generates sample json data of the shape described by filter pattern, e.g. to warm up filtering engine on startup
+ * when no real sample of filtered json is available.
+ * <p>
+ * Each object of sample has all fields listed in pattern (excluded fields included) plus a field that is not listed,
+ * arrays have several elements, and fields included as a whole get small object with values of every type -
+ * so both copying and skipping paths of filtering engine are exercised
+ */
+public final class FilterPatternSampleGenerator {
+    public static final int SAMPLE_ARRAY_SIZE = 4;
+
+    private static final String UNLISTED_FIELD_NAME = "jsonsieverWarmupUnlisted";
+    private static final String SPECIAL_FIELD_PREFIX = "$";
+
+    private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+    private FilterPatternSampleGenerator() {
+    }
+
+    /**
+     * @param filterPattern valid filter pattern (see {@link JsonFilteringService#validateFilterPattern(JsonNode)})
+     */
+    public static JsonNode generateSample(JsonNode filterPattern) {
+        if (filterPattern.isObject()) {
+            if (filterPattern.size() == 0) {
+                return generateValueSample();
+            }
+
+            if (isArraySlicePattern(filterPattern)) {
+                JsonNode elementPattern = filterPattern.get(JsonFilteringService.ARRAY_SLICE_EACH);
+
+                return generateArraySample(elementPattern);
+            }
+
+            ObjectNode sample = NODE_FACTORY.objectNode();
+
+            Iterator<Map.Entry<String, JsonNode>> fields = filterPattern.fields();
+
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String fieldName = field.getKey();
+
+                //element predicates are conditions, not fields
+                if (fieldName.startsWith(SPECIAL_FIELD_PREFIX)) {
+                    continue;
+                }
+
+                //exclusion mode marker, not a field
+                if (JsonFilteringService.EXCLUDED_FIELD_PREFIX.equals(fieldName)) {
+                    continue;
+                }
+
+                if (fieldName.startsWith(JsonFilteringService.EXCLUDED_FIELD_PREFIX)) {
+                    fieldName = fieldName.substring(JsonFilteringService.EXCLUDED_FIELD_PREFIX.length());
+                }
+
+                sample.set(fieldName, generateSample(field.getValue()));
+            }
+
+            sample.set(UNLISTED_FIELD_NAME, generateValueSample());
+
+            return sample;
+        }
+
+        if (filterPattern.isArray()) {
+            return generateArraySample(filterPattern.size() > 0 ? filterPattern.get(0) : null);
+        }
+
+        //"include all" pattern or field included as a whole
+        return generateValueSample();
+    }
+
+    private static boolean isArraySlicePattern(JsonNode filterPattern) {
+        return filterPattern.has(JsonFilteringService.ARRAY_SLICE_LIMIT)
+                || filterPattern.has(JsonFilteringService.ARRAY_SLICE_OFFSET)
+                || filterPattern.has(JsonFilteringService.ARRAY_SLICE_EACH);
+    }
+
+    /**
+     * @param elementPattern null if array is included as a whole
+     */
+    private static ArrayNode generateArraySample(JsonNode elementPattern) {
+        ArrayNode sample = NODE_FACTORY.arrayNode();
+
+        for (int i = 0; i < SAMPLE_ARRAY_SIZE; i++) {
+            if (elementPattern != null) {
+                sample.add(generateSample(elementPattern));
+            } else {
+                sample.add(i);
+            }
+        }
+
+        return sample;
+    }
+
+    private static ObjectNode generateValueSample() {
+        ObjectNode sample = NODE_FACTORY.objectNode();
+
+        sample.put("text", "sample \"text\" value");
+        sample.put("number", 1234567);
+        sample.put("decimal", 12.5);
+        sample.put("flag", true);
+        sample.putNull("none");
+        sample.putArray("values").add(1).add("two").add(3.0);
+        sample.putObject("nested").put("text", "nested value");
+
+        return sample;
+    }
+}
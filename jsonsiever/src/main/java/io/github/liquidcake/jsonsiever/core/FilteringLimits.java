@@ -0,0 +1,45 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.exception.FilteringLimitExceededException;
+
+/**
+ * Limits of resources single filtering may take, so one pathological json data (e.g. extremely deep nesting or huge
+ * number of tokens) can't tie up a thread. See {@link JsonFilteringService#filterJsonFields(byte[], JsonNode, FilteringLimits)}.
+ * If limit is exceeded - filtering fails with {@link FilteringLimitExceededException}
+ */
+public final class FilteringLimits {
+    /**
+     * No limits - json data is filtered whatever it takes
+     */
+    public static final FilteringLimits NONE = new FilteringLimits(0, 0);
+
+    private final int maxNestingDepth;
+    private final long maxFilteringMillis;
+
+    /**
+     * @param maxNestingDepth    maximum nesting depth of objects and arrays in json data (non-positive value - no limit)
+     * @param maxFilteringMillis maximum time single filtering may take (non-positive value - no limit)
+     */
+    public FilteringLimits(int maxNestingDepth, long maxFilteringMillis) {
+        this.maxNestingDepth = Math.max(0, maxNestingDepth);
+        this.maxFilteringMillis = Math.max(0, maxFilteringMillis);
+    }
+
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    public long getMaxFilteringMillis() {
+        return maxFilteringMillis;
+    }
+
+    public boolean isUnlimited() {
+        return maxNestingDepth == 0 && maxFilteringMillis == 0;
+    }
+}
@@ -6,16 +6,38 @@
 package io.github.liquidcake.jsonsiever.core;
 
 import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+import io.github.liquidcake.jsonsiever.core.exception.FilteringLimitExceededException;
 import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.core.metrics.JsonFilteringMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -37,6 +59,16 @@ import java.util.Set;
  * to empty object ("{}"). In this case content of corresponding json data object won't be filtered, and it will be returned as is.
  * <p>Otherwise, if object inside filter pattern is not empty - corresponding object inside json data will be filtered accordingly:
  * <br>result will include only fields that are listed inside filter pattern object.
+ * <p>Any value (e.g. '1') set in filter pattern for object or array field is same as wildcard - field is included as a whole.
+ * <p>
+ * <h3>Exclusion</h3>
+ * <p>
+ * Object filter pattern may list fields to be excluded instead, with "-" prefix, e.g. {"-debug": 1}. If object pattern
+ * contains at least one excluded field - all fields of corresponding json data object, except excluded ones,
+ * are included. Excluded fields are skipped without processing their content, other fields are copied as is,
+ * unless nested filter pattern is set for them (e.g. {"-debug": 1, "stats": {"-audit": 1}}).
+ * Bare "-" field (e.g. {"-": 1, "stats": {"-audit": 1}}) switches object to exclusion mode without excluding
+ * anything at its level - so nested field can be excluded while keeping all other fields.
  * <p>
  * <h3>Array fields</h3>
  * <p><b>NOTE: non-wildcard filtering is supported only for homogenous arrays: all items inside array
@@ -53,6 +85,52 @@ import java.util.Set;
  * This element will be used as a filter pattern for all (!) elements of array.
  * Since we work with array of objects or array of arrays - this element pattern may be an object or an array itself.
  * <p>
+ * <h3>Array slices</h3>
+ * <p>
+ * Instead of array filter pattern, object with "$limit" and/or "$offset" (non-negative integers) and optional "$each"
+ * (filter pattern for array elements, same as single element of usual array filter pattern) may be used, e.g.
+ * {"items": {"$offset": 10, "$limit": 20, "$each": {"id": 1}}}. Only elements within slice are returned,
+ * elements before offset and after limit are skipped without processing their content.
+ * <p>
+ * <h3>Array element predicates</h3>
+ * <p>
+ * Object element pattern of array (or "$each" of array slice) may contain "$where" object with conditions on scalar
+ * fields of element, e.g. {"items": [{"$where": {"status": "active", "price": {"$gte": 10, "$lt": 100}}, "id": 1}]}.
+ * Elements that don't match all conditions (or are null) are dropped. Supported conditions:
+ * <ul>
+ * <li>scalar value or {"$eq": value} - field is equal to value (numbers are compared by value, e.g. 1 equals 1.0)</li>
+ * <li>{"$in": [values]} - field is equal to one of values</li>
+ * <li>{"$gt" / "$gte" / "$lt" / "$lte": number} - numeric field is within range</li>
+ * </ul>
+ * Condition fails if field is missing, or is an object or array. Conditions are only applied to direct fields of element
+ * and don't have to be listed in element pattern itself (other fields of element pattern define output as usual,
+ * "$where" alone means "whole element").
+ * <br>Element is read ahead only until all its conditions are decided - element is skipped as soon as some condition
+ * fails, and only fields that will be output are held in lookahead buffer (up to
+ * {@value #MAX_PREDICATE_LOOKAHEAD_BYTES} bytes of json data). Conditions are applied before slice offset and limit,
+ * so {"$limit": 10, "$each": {"$where": ...}} returns first 10 matching elements.
+ * <p>
+ * <h2>Compact syntax</h2>
+ * <p>
+ * Filter pattern may also be written as comma-separated field paths, e.g. "name,address.street,books[].name"
+ * (see {@link CompactFilterPatternParser}). Such pattern is parsed directly into the same structure as json filter pattern.
+ * <p>
+ * <h2>Several filter patterns</h2>
+ * <p>
+ * Same json data may be filtered with several filter patterns at once (e.g. to prepare per-client variants of large
+ * shared document) with {@link #filterJsonFieldsForEachPattern(byte[], List) filterJsonFieldsForEachPattern()} -
+ * json data is parsed only once and each token is written to outputs of all filter patterns that include it.
+ * <p>
+ * <h2>Non-blocking filtering</h2>
+ * <p>
+ * Json data that arrives in chunks (e.g. reactive response body) may be filtered chunk by chunk, without blocking
+ * a thread while waiting for next chunk, with {@link NonBlockingFilter} (see {@link #newNonBlockingFilter(JsonNode)}).
+ * <p>
+ * <h2>Limits</h2>
+ * <p>
+ * Filtering of single json data may be bounded by nesting depth and time (see {@link FilteringLimits}), filtering
+ * that exceeds limits fails with {@link FilteringLimitExceededException} instead of running unbounded.
+ * <p>
  * <h2>Examples:</h2>
  * <pre>
  * Remove fields from object
@@ -80,6 +158,11 @@ import java.util.Set;
  * filterPattern = {"books": [{"name": 1}]}
  * result = {"books": [{"name": "LOTR"}, {"name": "Cats"}]}
  * <br>
+ * Exclude fields
+ * jsonData = {"name": "Kek", "age": 99, "debug": {"trace": "..."}, "address": {"city": "London", "street": "Baker st."}}
+ * filterPattern = {"-debug": 1, "address": {"-street": 1}}
+ * result = {"name": "Kek", "age": 99, "address": {"city": "London"}}
+ * <br>
  * Use specific filter for array (of arrays)
  * jsonData = {"shelfBlocks": [
  * [{"shelfNum": 55, "code": "A"}, {"shelfNum": 56, "code": "A"}],
@@ -93,6 +176,12 @@ public class JsonFilteringService {
     private final Logger log = LoggerFactory.getLogger(JsonFilteringService.class);
 
     public static final String FILTER_PATTERN_INCLUDE_ALL = "*";
+    public static final String EXCLUDED_FIELD_PREFIX = "-";
+    public static final String ARRAY_SLICE_LIMIT = "$limit";
+    public static final String ARRAY_SLICE_OFFSET = "$offset";
+    public static final String ARRAY_SLICE_EACH = "$each";
+    public static final String ELEMENT_PREDICATE = "$where";
+    public static final int MAX_PREDICATE_LOOKAHEAD_BYTES = 1024 * 1024;
 
     private static final JsonNode ABSENT_NODE = new TextNode("JSONSIEVER_ABSENT_NODE");
     private static final JsonNode WILDCARD_NODE = new TextNode("JSONSIEVER_WILDCARD_NODE");
@@ -101,9 +190,23 @@ public class JsonFilteringService {
     );
 
     private final JsonFactory jsonFactory;
+    private final JsonFilteringMetrics jsonFilteringMetrics;
 
     public JsonFilteringService(JsonFactory jsonFactory) {
+        this(jsonFactory, JsonFilteringMetrics.NOOP);
+    }
+
+    public JsonFilteringService(JsonFactory jsonFactory, JsonFilteringMetrics jsonFilteringMetrics) {
         this.jsonFactory = jsonFactory;
+        this.jsonFilteringMetrics = jsonFilteringMetrics;
+    }
+
+    /**
+     * @return service with same json factory that reports to passed metrics (e.g. {@link JsonFilteringMetrics#NOOP}
+     * for filtering that must not be counted, like warm-up)
+     */
+    public JsonFilteringService withMetrics(JsonFilteringMetrics jsonFilteringMetrics) {
+        return new JsonFilteringService(jsonFactory, jsonFilteringMetrics);
     }
 
     /**
@@ -121,75 +224,319 @@ public class JsonFilteringService {
      * with some fields removed based on filter pattern
      */
     public byte[] filterJsonFields(byte[] jsonData, JsonNode filterPatternJsonRootNode) throws JsonFilteringException {
+        return filterJsonFields(jsonData, filterPatternJsonRootNode, FilteringLimits.NONE);
+    }
+
+    /**
+     * Same as {@link #filterJsonFields(byte[], JsonNode) filterJsonFields()}, but filtering is stopped as soon as
+     * json data exceeds passed limits
+     *
+     * @throws FilteringLimitExceededException if json data exceeds limits
+     */
+    public byte[] filterJsonFields(byte[] jsonData, JsonNode filterPatternJsonRootNode, FilteringLimits filteringLimits)
+            throws JsonFilteringException {
         if (jsonData == null) {
             throw new IllegalArgumentException("Json data bytes array is null");
         }
 
-        if (jsonData.length == 0 || filterPatternJsonRootNode == null) {
+        if (jsonData.length == 0 || isIncludeAllFilterPattern(filterPatternJsonRootNode)) {
             return jsonData;
         }
 
-        boolean filterPatternIsEmptyString = filterPatternJsonRootNode.isTextual()
-                && filterPatternJsonRootNode.isEmpty();
-        boolean filterPatternIsIncludeAllString = filterPatternJsonRootNode.isTextual()
-                && FILTER_PATTERN_INCLUDE_ALL.equals(filterPatternJsonRootNode.asText());
-        boolean filterPatternIsEmptyContainer =
-                (filterPatternJsonRootNode.isObject() || filterPatternJsonRootNode.isArray())
-                        && filterPatternJsonRootNode.isEmpty();
+        ByteArrayOutputStream resultOutputStream = new ByteArrayOutputStream();
+        JsonGenerator outputGenerator;
+        JsonParser dataParser;
 
-        if (filterPatternIsEmptyString || filterPatternIsIncludeAllString || filterPatternIsEmptyContainer) {
-            return jsonData;
+        try {
+            outputGenerator = jsonFactory.createGenerator(resultOutputStream, JsonEncoding.UTF8);
+            dataParser = applyFilteringLimits(jsonFactory.createParser(jsonData), filteringLimits);
+        } catch (IOException e) {
+            throw new JsonFilteringException("Failed to start JSON processing", e);
         }
 
-        return doFilterJsonFields(jsonData, filterPatternJsonRootNode);
+        doFilterJsonFields(dataParser, outputGenerator, filterPatternJsonRootNode);
+
+        return resultOutputStream.toByteArray();
+    }
+
+    /**
+     * Streaming variant of {@link #filterJsonFields(byte[], JsonNode) filterJsonFields()}: reads json data from passed
+     * input stream and writes filtered json to passed output stream as it goes, so neither whole input nor whole
+     * output is materialized as a byte array. Streams are not closed.
+     * <p>NOTE: if exception is thrown - some part of filtered json may already be written to output stream
+     *
+     * @param jsonDataInputStream       valid json to be filtered
+     * @param outputStream              stream to write filtered json to
+     * @param filterPatternJsonRootNode filter pattern, same as for {@link #filterJsonFields(byte[], JsonNode) filterJsonFields()}
+     */
+    public void filterJsonFields(InputStream jsonDataInputStream, OutputStream outputStream,
+                                 JsonNode filterPatternJsonRootNode) throws JsonFilteringException {
+        filterJsonFields(jsonDataInputStream, outputStream, filterPatternJsonRootNode, FilteringLimits.NONE);
     }
 
-    private byte[] doFilterJsonFields(byte[] jsonData, JsonNode filterPatternJsonRootNode)
+    /**
+     * Same as {@link #filterJsonFields(InputStream, OutputStream, JsonNode) filterJsonFields()}, but filtering is stopped
+     * as soon as json data exceeds passed limits
+     *
+     * @throws FilteringLimitExceededException if json data exceeds limits
+     */
+    public void filterJsonFields(InputStream jsonDataInputStream, OutputStream outputStream,
+                                 JsonNode filterPatternJsonRootNode, FilteringLimits filteringLimits)
             throws JsonFilteringException {
-        ByteArrayOutputStream resultOutputStream = new ByteArrayOutputStream();
+        if (jsonDataInputStream == null || outputStream == null) {
+            throw new IllegalArgumentException("Json data input stream or output stream is null");
+        }
+
+        if (isIncludeAllFilterPattern(filterPatternJsonRootNode)) {
+            try {
+                jsonDataInputStream.transferTo(outputStream);
+            } catch (IOException e) {
+                throw new JsonFilteringException("Failed to copy json data to output stream", e);
+            }
+
+            return;
+        }
+
         JsonGenerator outputGenerator;
         JsonParser dataParser;
 
         try {
-            outputGenerator = jsonFactory.createGenerator(resultOutputStream, JsonEncoding.UTF8);
-            dataParser = jsonFactory.createParser(jsonData);
+            outputGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            dataParser = applyFilteringLimits(jsonFactory.createParser(jsonDataInputStream)
+                    .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE), filteringLimits);
         } catch (IOException e) {
             throw new JsonFilteringException("Failed to start JSON processing", e);
         }
 
+        doFilterJsonFields(dataParser, outputGenerator, filterPatternJsonRootNode);
+    }
+
+    /**
+     * Filters json data with several filter patterns at once, see
+     * {@link #filterJsonFieldsForEachPattern(byte[], List, List) filterJsonFieldsForEachPattern()}
+     *
+     * @return filtered json data for each filter pattern, in the same order as filter patterns
+     */
+    public List<byte[]> filterJsonFieldsForEachPattern(byte[] jsonData, List<JsonNode> filterPatternJsonRootNodes)
+            throws JsonFilteringException {
+        List<ByteArrayOutputStream> resultOutputStreams = new ArrayList<>(filterPatternJsonRootNodes.size());
+
+        for (int i = 0; i < filterPatternJsonRootNodes.size(); i++) {
+            resultOutputStreams.add(new ByteArrayOutputStream());
+        }
+
+        filterJsonFieldsForEachPattern(jsonData, filterPatternJsonRootNodes, resultOutputStreams);
+
+        List<byte[]> results = new ArrayList<>(resultOutputStreams.size());
+
+        for (ByteArrayOutputStream resultOutputStream : resultOutputStreams) {
+            results.add(resultOutputStream.toByteArray());
+        }
+
+        return results;
+    }
+
+    /**
+     * Filters json data with several filter patterns at once: json data is parsed only once, and each token is written
+     * to outputs of all filter patterns that include it (filter patterns that are active at current position of json data).
+     * Parts of json data that are not included by any filter pattern are skipped without processing.
+     * Result for each filter pattern is the same as result of
+     * {@link #filterJsonFields(byte[], JsonNode) filterJsonFields()} with this filter pattern.
+     * <p>Filter patterns with array element predicates ("$where") are applied in separate pass over json data.
+     * <p>NOTE: if exception is thrown (e.g. one of filter patterns doesn't match json data) - some part of filtered json
+     * may already be written to output streams
+     *
+     * @param jsonData                   valid json (as bytes array) to be filtered
+     * @param filterPatternJsonRootNodes filter patterns, same as for {@link #filterJsonFields(byte[], JsonNode) filterJsonFields()}
+     * @param outputStreams              streams to write filtered json to, one per filter pattern (in the same order).
+     *                                   Streams are not closed
+     */
+    public void filterJsonFieldsForEachPattern(byte[] jsonData, List<JsonNode> filterPatternJsonRootNodes,
+                                               List<? extends OutputStream> outputStreams)
+            throws JsonFilteringException {
+        if (jsonData == null) {
+            throw new IllegalArgumentException("Json data bytes array is null");
+        }
+
+        if (filterPatternJsonRootNodes.size() != outputStreams.size()) {
+            throw new IllegalArgumentException("Number of filter patterns and number of output streams must be equal");
+        }
+
+        if (jsonData.length == 0) {
+            return;
+        }
+
+        List<JsonNode> sharedPassFilterPatterns = new ArrayList<>();
+        List<JsonGenerator> sharedPassOutputGenerators = new ArrayList<>();
+
+        for (int i = 0; i < filterPatternJsonRootNodes.size(); i++) {
+            JsonNode filterPatternJsonRootNode = filterPatternJsonRootNodes.get(i);
+            OutputStream outputStream = outputStreams.get(i);
+
+            if (containsElementPredicate(filterPatternJsonRootNode)) {
+                //predicates need per-pattern lookahead - filter separately
+                filterJsonFields(new ByteArrayInputStream(jsonData), outputStream, filterPatternJsonRootNode);
+                continue;
+            }
+
+            try {
+                if (isIncludeAllFilterPattern(filterPatternJsonRootNode)) {
+                    outputStream.write(jsonData);
+                } else {
+                    sharedPassFilterPatterns.add(filterPatternJsonRootNode);
+                    sharedPassOutputGenerators.add(jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)
+                            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+                }
+            } catch (IOException e) {
+                throw new JsonFilteringException("Failed to start JSON processing", e);
+            }
+        }
+
+        if (!sharedPassFilterPatterns.isEmpty()) {
+            doFilterJsonFieldsSharedPass(jsonData,
+                    sharedPassFilterPatterns.toArray(new JsonNode[0]),
+                    sharedPassOutputGenerators.toArray(new JsonGenerator[0]));
+        }
+    }
+
+    /**
+     * Creates filter for json data that is fed in chunks, see {@link NonBlockingFilter}
+     *
+     * @param filterPatternJsonRootNode filter pattern, same as for {@link #filterJsonFields(byte[], JsonNode) filterJsonFields()}
+     */
+    public NonBlockingFilter newNonBlockingFilter(JsonNode filterPatternJsonRootNode) throws JsonFilteringException {
+        return new NonBlockingFilter(filterPatternJsonRootNode);
+    }
+
+    /**
+     * Checks filter pattern structure (node types, array patterns with exactly one element, array slices, element
+     * predicates), so pattern may be rejected once - when it is parsed or cached - instead of failing while json data
+     * is filtered. Mismatch between pattern and particular json data (e.g. object pattern for array of primitives)
+     * can only be found while filtering
+     *
+     * @throws BadFilterPatternException if filter pattern can't be applied to any json data
+     */
+    public static void validateFilterPattern(JsonNode filterPatternJsonRootNode) throws BadFilterPatternException {
+        if (isIncludeAllFilterPattern(filterPatternJsonRootNode)) {
+            return;
+        }
+
+        if (filterPatternJsonRootNode.isObject()) {
+            validateObjectFilterPattern(filterPatternJsonRootNode);
+        } else if (filterPatternJsonRootNode.isArray()) {
+            validateArrayFilterPattern(filterPatternJsonRootNode);
+        } else {
+            throw new BadFilterPatternException(String.format(
+                    "Filter pattern must be an object, an array or \"%s\": %s",
+                    FILTER_PATTERN_INCLUDE_ALL, filterPatternJsonRootNode));
+        }
+    }
+
+    private static void validateObjectFilterPattern(JsonNode objectFilterPatternNode) throws BadFilterPatternException {
+        ElementPredicate.compile(objectFilterPatternNode);
+
+        Iterator<Map.Entry<String, JsonNode>> fields = objectFilterPatternNode.fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+
+            if (!ELEMENT_PREDICATE.equals(field.getKey())) {
+                validateNestedFilterPattern(field.getValue());
+            }
+        }
+    }
+
+    private static void validateArrayFilterPattern(JsonNode arrayFilterPatternNode) throws BadFilterPatternException {
+        if (arrayFilterPatternNode.size() > 1) {
+            throw new BadFilterPatternException("Filter pattern node for ARRAY must contain exactly one element - " +
+                    "as a pattern for all array elements (or just be empty as wildcard): " + arrayFilterPatternNode);
+        }
+
+        if (arrayFilterPatternNode.size() == 1) {
+            validateNestedFilterPattern(arrayFilterPatternNode.get(0));
+        }
+    }
+
+    //pattern of object field or of array elements - value (wildcard), object, array or array slice
+    private static void validateNestedFilterPattern(JsonNode filterPatternNode) throws BadFilterPatternException {
+        if (filterPatternNode.isArray()) {
+            validateArrayFilterPattern(filterPatternNode);
+        } else if (filterPatternNode.isObject()) {
+            ArraySlice arraySlice = ArraySlice.compile(filterPatternNode);
+
+            if (arraySlice == ArraySlice.NOT_ARRAY_SLICE) {
+                validateObjectFilterPattern(filterPatternNode);
+            } else if (!WILDCARD_NODE.equals(arraySlice.arrayFilterPatternNode)) {
+                validateArrayFilterPattern(arraySlice.arrayFilterPatternNode);
+            }
+        }
+    }
+
+    private static boolean isIncludeAllFilterPattern(JsonNode filterPatternJsonRootNode) {
+        if (filterPatternJsonRootNode == null) {
+            return true;
+        }
+
+        boolean filterPatternIsEmptyString = filterPatternJsonRootNode.isTextual()
+                && filterPatternJsonRootNode.isEmpty();
+        boolean filterPatternIsIncludeAllString = filterPatternJsonRootNode.isTextual()
+                && FILTER_PATTERN_INCLUDE_ALL.equals(filterPatternJsonRootNode.asText());
+        boolean filterPatternIsEmptyContainer =
+                (filterPatternJsonRootNode.isObject() || filterPatternJsonRootNode.isArray())
+                        && filterPatternJsonRootNode.isEmpty();
+
+        return filterPatternIsEmptyString || filterPatternIsIncludeAllString || filterPatternIsEmptyContainer;
+    }
+
+    private static JsonParser applyFilteringLimits(JsonParser dataParser, FilteringLimits filteringLimits) {
+        return filteringLimits.isUnlimited() ? dataParser : new LimitedJsonParser(dataParser, filteringLimits);
+    }
+
+    private void doFilterJsonFields(JsonParser dataParser, JsonGenerator outputGenerator,
+                                    JsonNode filterPatternJsonRootNode) throws JsonFilteringException {
+        FilteringContext context = new FilteringContext();
+
         try {
             JsonToken firstToken = dataParser.nextToken();
 
+            if (firstToken == null) {
+                //empty json data (possible for streamed input) - nothing to output
+                return;
+            }
+
+            context.readTokens++;
+
             assertTokenIsValid(firstToken);
 
             switch (firstToken) {
                 case START_OBJECT: {
                     assertFilterPatternNodeCorrectness(filterPatternJsonRootNode, JsonNodeType.OBJECT);
                     //output START_OBJECT
-                    outputToken(firstToken, dataParser, outputGenerator);
+                    outputToken(firstToken, dataParser, outputGenerator, context);
 
-                    processObjectNode(dataParser, outputGenerator, filterPatternJsonRootNode);
+                    processObjectNode(dataParser, outputGenerator, filterPatternJsonRootNode, context);
                     break;
                 }
                 case START_ARRAY: {
-                    assertFilterPatternNodeCorrectness(filterPatternJsonRootNode, JsonNodeType.ARRAY);
                     //output START_ARRAY
-                    outputToken(firstToken, dataParser, outputGenerator);
+                    outputToken(firstToken, dataParser, outputGenerator, context);
 
-                    processArrayNode(dataParser, outputGenerator, filterPatternJsonRootNode);
+                    processNestedArrayNode(dataParser, outputGenerator, filterPatternJsonRootNode, context);
                     break;
                 }
                 default: {
                     //if json data only contains (single) value token - just return it
-                    outputToken(firstToken, dataParser, outputGenerator);
+                    outputToken(firstToken, dataParser, outputGenerator, context);
                 }
             }
-        } catch (Exception e) {
-            JsonLocation lastProcessedLocation = dataParser.currentLocation();
+        } catch (LimitedJsonParser.LimitExceededIOException e) {
+            logFilteringFailure("JSON filtration", dataParser.currentLocation(), e.getLimitExceededException());
 
-            log.error("Exception during JSON filtration. Last processed token is approximately at line '{}' column '{}'",
-                    lastProcessedLocation.getLineNr(),
-                    lastProcessedLocation.getColumnNr(), e);
+            throw e.getLimitExceededException();
+
+        } catch (Exception e) {
+            logFilteringFailure("JSON filtration", dataParser.currentLocation(), e);
 
             throw new JsonFilteringException(e);
 
@@ -207,306 +554,1948 @@ public class JsonFilteringService {
             }
         }
 
-        return resultOutputStream.toByteArray();
+        jsonFilteringMetrics.recordTokens(context.outputTokens, context.readTokens - context.outputTokens);
     }
 
-    private void processObjectNode(JsonParser dataParser, JsonGenerator outputGenerator,
-                                   JsonNode objectFilterPatternNode) throws JsonFilteringException, IOException {
-        //consider empty object filter pattern to be a wildcard - so whole object should be returned as is
-        if (!objectFilterPatternNode.equals(ABSENT_NODE) && objectFilterPatternNode.isEmpty()) {
-            objectFilterPatternNode = WILDCARD_NODE;
+    /**
+     * Single pass over json data for several filter patterns. At each position of json data, filter pattern node of
+     * every filter pattern is tracked in array (index of filter pattern = index of output generator),
+     * null means filter pattern is not active at this position (nothing is output for it)
+     */
+    private void doFilterJsonFieldsSharedPass(byte[] jsonData, JsonNode[] filterPatternJsonRootNodes,
+                                              JsonGenerator[] outputGenerators) throws JsonFilteringException {
+        FilteringContext context = new FilteringContext();
+        JsonParser dataParser;
+
+        try {
+            dataParser = jsonFactory.createParser(jsonData);
+        } catch (IOException e) {
+            throw new JsonFilteringException("Failed to start JSON processing", e);
         }
 
-        JsonToken nextToken;
+        try {
+            JsonToken firstToken = dataParser.nextToken();
 
-        while ((nextToken = dataParser.nextToken()) != JsonToken.END_OBJECT) {
-            assertTokenIsValid(nextToken);
+            if (firstToken == null) {
+                //no json data - nothing to output
+                return;
+            }
 
-            String fieldName = dataParser.currentName();
+            context.readTokens++;
 
-            switch (nextToken) {
-                case FIELD_NAME: {
-                    //don't need to process field name token
-                    continue;
-                }
-                case START_OBJECT: {
-                    if (shouldIncludeObjectField(objectFilterPatternNode, fieldName)) {
-                        //output START_OBJECT
-                        outputToken(nextToken, fieldName, dataParser, outputGenerator);
-                    }
+            assertTokenIsValid(firstToken);
 
-                    JsonNode nestedObjectFilterPatternNode =
-                            getFilterPatternNodeForObjectNestedContainer(objectFilterPatternNode, fieldName);
+            for (int i = 0; i < outputGenerators.length; i++) {
+                if (JsonToken.START_OBJECT.equals(firstToken)) {
+                    assertFilterPatternNodeCorrectness(filterPatternJsonRootNodes[i], JsonNodeType.OBJECT);
+                }
 
-                    assertFilterPatternNodeCorrectness(nestedObjectFilterPatternNode, JsonNodeType.OBJECT);
+                //output START_OBJECT / START_ARRAY or single value token
+                outputToken(firstToken, dataParser, outputGenerators[i], context);
+            }
 
-                    processObjectNode(dataParser, outputGenerator, nestedObjectFilterPatternNode);
+            switch (firstToken) {
+                case START_OBJECT: {
+                    processObjectNodeSharedPass(dataParser, outputGenerators, filterPatternJsonRootNodes, context);
                     break;
                 }
                 case START_ARRAY: {
-                    if (shouldIncludeObjectField(objectFilterPatternNode, fieldName)) {
-                        //output START_ARRAY
-                        outputToken(nextToken, fieldName, dataParser, outputGenerator);
-                    }
-
-                    JsonNode arrayFilterPatternNode =
-                            getFilterPatternNodeForObjectNestedContainer(objectFilterPatternNode, fieldName);
-
-                    assertFilterPatternNodeCorrectness(arrayFilterPatternNode, JsonNodeType.ARRAY);
-
-                    processArrayNode(dataParser, outputGenerator, arrayFilterPatternNode);
+                    processArrayNodeSharedPass(dataParser, outputGenerators, filterPatternJsonRootNodes, context);
                     break;
                 }
                 default: {
-                    if (shouldIncludeObjectField(objectFilterPatternNode, fieldName)) {
-                        outputToken(nextToken, fieldName, dataParser, outputGenerator);
-                    }
+                    break;
                 }
             }
-        }
+        } catch (Exception e) {
+            logFilteringFailure("JSON filtration with " + outputGenerators.length + " filter patterns",
+                    dataParser.currentLocation(), e);
 
-        if (!ABSENT_NODE.equals(objectFilterPatternNode)) {
-            //output END_OBJECT
-            outputToken(nextToken, dataParser, outputGenerator);
+            throw new JsonFilteringException(e);
+
+        } finally {
+            try {
+                dataParser.close();
+            } catch (IOException e) {
+                log.error("Failed to close JsonParser", e);
+            }
+
+            for (JsonGenerator outputGenerator : outputGenerators) {
+                try {
+                    outputGenerator.close();
+                } catch (IOException e) {
+                    log.error("Failed to close JsonGenerator", e);
+                }
+            }
         }
+
+        jsonFilteringMetrics.recordTokens(context.outputTokens,
+                Math.max(0, context.readTokens * outputGenerators.length - context.outputTokens));
     }
 
-    private void processArrayNode(JsonParser dataParser, JsonGenerator outputGenerator,
-                                  JsonNode arrayElementFilterPatternNode) throws JsonFilteringException, IOException {
-        //consider empty array filter pattern to be a wildcard - so whole array should be returned as is
-        if (!arrayElementFilterPatternNode.equals(ABSENT_NODE) && arrayElementFilterPatternNode.isEmpty()) {
-            arrayElementFilterPatternNode = WILDCARD_NODE;
-        }
+    private void processObjectNodeSharedPass(JsonParser dataParser, JsonGenerator[] outputGenerators,
+                                             JsonNode[] objectFilterPatternNodes, FilteringContext context)
+            throws JsonFilteringException, IOException {
+        List<Set<String>> excludedFieldNames = new ArrayList<>(objectFilterPatternNodes.length);
 
-        SimpleJsonNodeType onlyAllowedArrayElementsType = null;
+        for (int i = 0; i < objectFilterPatternNodes.length; i++) {
+            JsonNode objectFilterPatternNode = objectFilterPatternNodes[i];
+
+            //consider empty object filter pattern to be a wildcard - so whole object should be returned as is
+            if (objectFilterPatternNode != null && objectFilterPatternNode.isEmpty()) {
+                objectFilterPatternNodes[i] = WILDCARD_NODE;
+            }
+
+            excludedFieldNames.add(objectFilterPatternNodes[i] != null && objectFilterPatternNodes[i].isObject()
+                    ? context.getExcludedFieldNames(objectFilterPatternNodes[i])
+                    : null);
+        }
 
+        //filter pattern nodes for current field, reused for all fields of this object
+        JsonNode[] fieldFilterPatternNodes = new JsonNode[objectFilterPatternNodes.length];
         JsonToken nextToken;
 
-        while ((nextToken = dataParser.nextToken()) != JsonToken.END_ARRAY) {
+        while ((nextToken = dataParser.nextToken()) != JsonToken.END_OBJECT) {
+            context.readTokens++;
             assertTokenIsValid(nextToken);
 
+            if (JsonToken.FIELD_NAME.equals(nextToken)) {
+                //don't need to process field name token
+                continue;
+            }
+
             String fieldName = dataParser.currentName();
-            String fieldValueStr = dataParser.getText();
+            boolean anyFilterPatternActive = false;
 
-            //for wildcard or absent filter pattern - allow processing array without even checking if it is homogenous
-            if (!WILDCARD_NODE.equals(arrayElementFilterPatternNode)
-                    && !ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
-                onlyAllowedArrayElementsType =
-                        verifyArrayElementType(nextToken, onlyAllowedArrayElementsType, fieldValueStr);
+            for (int i = 0; i < objectFilterPatternNodes.length; i++) {
+                fieldFilterPatternNodes[i] = getFieldFilterPatternNodeSharedPass(
+                        objectFilterPatternNodes[i], excludedFieldNames.get(i), fieldName);
+                anyFilterPatternActive |= fieldFilterPatternNodes[i] != null;
             }
 
-            switch (nextToken) {
-                case START_OBJECT: {
-                    if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
-                        //output START_OBJECT
-                        outputToken(nextToken, fieldName, dataParser, outputGenerator);
-                    }
+            if (!anyFilterPatternActive) {
+                //field is filtered out by all filter patterns - skip whole value (no-op for primitive value)
+                dataParser.skipChildren();
+                continue;
+            }
 
-                    JsonNode objectFilterPatternNode =
-                            getFilterPatternNodeForArrayNestedContainer(arrayElementFilterPatternNode);
+            for (int i = 0; i < outputGenerators.length; i++) {
+                if (fieldFilterPatternNodes[i] != null) {
+                    if (JsonToken.START_OBJECT.equals(nextToken)) {
+                        assertFilterPatternNodeCorrectness(
+                                nonEmptyOrWildcard(fieldFilterPatternNodes[i]), JsonNodeType.OBJECT);
+                    }
 
-                    assertFilterPatternNodeCorrectness(objectFilterPatternNode, JsonNodeType.OBJECT);
+                    //output START_OBJECT / START_ARRAY or value token
+                    outputToken(nextToken, fieldName, dataParser, outputGenerators[i], context);
+                }
+            }
 
-                    processObjectNode(dataParser, outputGenerator, objectFilterPatternNode);
+            switch (nextToken) {
+                case START_OBJECT: {
+                    processObjectNodeSharedPass(dataParser, outputGenerators, fieldFilterPatternNodes, context);
                     break;
                 }
                 case START_ARRAY: {
-                    if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+                    processArrayNodeSharedPass(dataParser, outputGenerators, fieldFilterPatternNodes, context);
+                    break;
+                }
+                default: {
+                    break;
+                }
+            }
+        }
+
+        context.readTokens++;
+
+        for (int i = 0; i < outputGenerators.length; i++) {
+            if (objectFilterPatternNodes[i] != null) {
+                //output END_OBJECT
+                outputToken(nextToken, dataParser, outputGenerators[i], context);
+            }
+        }
+    }
+
+    /**
+     * @return filter pattern node for object field, or null if field is filtered out
+     */
+    private JsonNode getFieldFilterPatternNodeSharedPass(JsonNode objectFilterPatternNode, Set<String> excludedFieldNames,
+                                                         String fieldName) {
+        if (objectFilterPatternNode == null || WILDCARD_NODE.equals(objectFilterPatternNode)) {
+            return objectFilterPatternNode;
+        }
+
+        if (excludedFieldNames != null) {
+            if (excludedFieldNames.contains(fieldName)) {
+                return null;
+            }
+
+            //fields without nested filter pattern are copied as is
+            JsonNode fieldFilterPatternNode = leafToWildcard(objectFilterPatternNode.get(fieldName));
+
+            return fieldFilterPatternNode != null ? fieldFilterPatternNode : WILDCARD_NODE;
+        }
+
+        return leafToWildcard(objectFilterPatternNode.get(fieldName));
+    }
+
+    private void processArrayNodeSharedPass(JsonParser dataParser, JsonGenerator[] outputGenerators,
+                                            JsonNode[] arrayFilterPatternNodes, FilteringContext context)
+            throws JsonFilteringException, IOException {
+        int filterPatternsCount = arrayFilterPatternNodes.length;
+        //same as filter pattern passed to processArrayNode(), null if filter pattern is not active
+        JsonNode[] arrayElementFilterPatternNodes = new JsonNode[filterPatternsCount];
+        //filter pattern nodes for nested containers of array elements
+        JsonNode[] elementFilterPatternNodes = new JsonNode[filterPatternsCount];
+        long[] sliceStarts = new long[filterPatternsCount];
+        long[] sliceEnds = new long[filterPatternsCount];
+
+        for (int i = 0; i < filterPatternsCount; i++) {
+            JsonNode arrayFilterPatternNode = arrayFilterPatternNodes[i];
+
+            if (arrayFilterPatternNode == null) {
+                continue;
+            }
+
+            ArraySlice arraySlice = context.getArraySlice(arrayFilterPatternNode);
+            JsonNode arrayElementFilterPatternNode;
+
+            if (arraySlice != null) {
+                arrayElementFilterPatternNode = arraySlice.arrayFilterPatternNode;
+                sliceStarts[i] = arraySlice.offset;
+                sliceEnds[i] = arraySlice.limit != ArraySlice.NO_LIMIT
+                        ? (long) arraySlice.offset + arraySlice.limit
+                        : Long.MAX_VALUE;
+            } else {
+                assertFilterPatternNodeCorrectness(arrayFilterPatternNode, JsonNodeType.ARRAY);
+
+                arrayElementFilterPatternNode = arrayFilterPatternNode;
+                sliceEnds[i] = Long.MAX_VALUE;
+            }
+
+            //consider empty array filter pattern to be a wildcard - so whole array should be returned as is
+            arrayElementFilterPatternNodes[i] = nonEmptyOrWildcard(arrayElementFilterPatternNode);
+        }
+
+        //filter pattern nodes for current element, reused for all elements of this array
+        JsonNode[] currentElementFilterPatternNodes = new JsonNode[filterPatternsCount];
+        SimpleJsonNodeType onlyAllowedArrayElementsType = null;
+        long elementIdx = 0;
+
+        JsonToken nextToken;
+
+        while ((nextToken = dataParser.nextToken()) != JsonToken.END_ARRAY) {
+            context.readTokens++;
+            assertTokenIsValid(nextToken);
+
+            boolean anyFilterPatternActive = false;
+            boolean anyFilterPatternRemaining = false;
+            //for wildcard filter patterns - allow processing array without even checking if it is homogenous
+            boolean verifyElementType = false;
+
+            for (int i = 0; i < filterPatternsCount; i++) {
+                currentElementFilterPatternNodes[i] = null;
+
+                if (arrayElementFilterPatternNodes[i] == null || elementIdx >= sliceEnds[i]) {
+                    continue;
+                }
+
+                anyFilterPatternRemaining = true;
+
+                if (elementIdx >= sliceStarts[i]) {
+                    currentElementFilterPatternNodes[i] =
+                            getFilterPatternNodeForArrayNestedContainer(arrayElementFilterPatternNodes[i]);
+                    anyFilterPatternActive = true;
+                    verifyElementType |= !WILDCARD_NODE.equals(arrayElementFilterPatternNodes[i]);
+                }
+            }
+
+            elementIdx++;
+
+            if (!anyFilterPatternRemaining) {
+                //slice limits of all filter patterns are reached - skip current and all remaining elements
+                dataParser.skipChildren();
+                nextToken = skipContainerRemainder(dataParser, JsonToken.END_ARRAY);
+                break;
+            }
+
+            if (!anyFilterPatternActive) {
+                //element before slice offsets of all filter patterns - skip it whole (no-op for primitive value)
+                dataParser.skipChildren();
+                continue;
+            }
+
+            if (verifyElementType) {
+                onlyAllowedArrayElementsType =
+                        verifyArrayElementType(nextToken, onlyAllowedArrayElementsType, dataParser.getText());
+            }
+
+            for (int i = 0; i < filterPatternsCount; i++) {
+                if (currentElementFilterPatternNodes[i] == null) {
+                    continue;
+                }
+
+                if (JsonToken.START_OBJECT.equals(nextToken)) {
+                    assertFilterPatternNodeCorrectness(
+                            nonEmptyOrWildcard(currentElementFilterPatternNodes[i]), JsonNodeType.OBJECT);
+                } else if (!JsonToken.START_ARRAY.equals(nextToken)) {
+                    assertFilterPatternNodeIsValidForArrayOfPrimitives(nextToken, arrayElementFilterPatternNodes[i]);
+                }
+
+                //output START_OBJECT / START_ARRAY or value token
+                outputToken(nextToken, dataParser, outputGenerators[i], context);
+            }
+
+            switch (nextToken) {
+                case START_OBJECT: {
+                    processObjectNodeSharedPass(dataParser, outputGenerators, currentElementFilterPatternNodes, context);
+                    break;
+                }
+                case START_ARRAY: {
+                    processArrayNodeSharedPass(dataParser, outputGenerators, currentElementFilterPatternNodes, context);
+                    break;
+                }
+                default: {
+                    break;
+                }
+            }
+        }
+
+        context.readTokens++;
+
+        for (int i = 0; i < outputGenerators.length; i++) {
+            if (arrayFilterPatternNodes[i] != null) {
+                //output END_ARRAY
+                outputToken(nextToken, dataParser, outputGenerators[i], context);
+            }
+        }
+    }
+
+    //empty container or value in filter pattern means "include as a whole"
+    private JsonNode nonEmptyOrWildcard(JsonNode filterPatternNode) {
+        return filterPatternNode.isEmpty() ? WILDCARD_NODE : filterPatternNode;
+    }
+
+    private static boolean containsElementPredicate(JsonNode filterPatternNode) {
+        if (filterPatternNode == null || !filterPatternNode.isContainerNode()) {
+            return false;
+        }
+
+        if (filterPatternNode.has(ELEMENT_PREDICATE)) {
+            return true;
+        }
+
+        for (JsonNode childNode : filterPatternNode) {
+            if (containsElementPredicate(childNode)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void processObjectNode(JsonParser dataParser, JsonGenerator outputGenerator,
+                                   JsonNode objectFilterPatternNode, FilteringContext context)
+            throws JsonFilteringException, IOException {
+        //consider empty object filter pattern to be a wildcard - so whole object should be returned as is
+        if (!objectFilterPatternNode.equals(ABSENT_NODE) && objectFilterPatternNode.isEmpty()) {
+            objectFilterPatternNode = WILDCARD_NODE;
+        }
+
+        if (!ABSENT_NODE.equals(objectFilterPatternNode) && !WILDCARD_NODE.equals(objectFilterPatternNode)) {
+            Set<String> excludedFieldNames = context.getExcludedFieldNames(objectFilterPatternNode);
+
+            if (excludedFieldNames != null) {
+                processObjectNodeWithExclusions(
+                        dataParser, outputGenerator, objectFilterPatternNode, excludedFieldNames, context);
+                return;
+            }
+        }
+
+        JsonToken nextToken;
+
+        while ((nextToken = dataParser.nextToken()) != JsonToken.END_OBJECT) {
+            context.readTokens++;
+            assertTokenIsValid(nextToken);
+
+            String fieldName = dataParser.currentName();
+
+            switch (nextToken) {
+                case FIELD_NAME: {
+                    //don't need to process field name token
+                    continue;
+                }
+                case START_OBJECT: {
+                    if (shouldIncludeObjectField(objectFilterPatternNode, fieldName)) {
+                        //output START_OBJECT
+                        outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+                    }
+
+                    JsonNode nestedObjectFilterPatternNode =
+                            getFilterPatternNodeForObjectNestedContainer(objectFilterPatternNode, fieldName);
+
+                    assertFilterPatternNodeCorrectness(nestedObjectFilterPatternNode, JsonNodeType.OBJECT);
+
+                    processObjectNode(dataParser, outputGenerator, nestedObjectFilterPatternNode, context);
+                    break;
+                }
+                case START_ARRAY: {
+                    if (shouldIncludeObjectField(objectFilterPatternNode, fieldName)) {
                         //output START_ARRAY
-                        outputToken(nextToken, fieldName, dataParser, outputGenerator);
+                        outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+                    }
+
+                    JsonNode arrayFilterPatternNode =
+                            getFilterPatternNodeForObjectNestedContainer(objectFilterPatternNode, fieldName);
+
+                    processNestedArrayNode(dataParser, outputGenerator, arrayFilterPatternNode, context);
+                    break;
+                }
+                default: {
+                    if (shouldIncludeObjectField(objectFilterPatternNode, fieldName)) {
+                        outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+                    }
+                }
+            }
+        }
+
+        context.readTokens++;
+
+        if (!ABSENT_NODE.equals(objectFilterPatternNode)) {
+            //output END_OBJECT
+            outputToken(nextToken, dataParser, outputGenerator, context);
+        }
+    }
+
+    /**
+     * Object filter pattern with excluded ("-field") fields: excluded fields are skipped without being processed,
+     * fields that have nested filter pattern are filtered by it, all other fields are copied as is
+     */
+    private void processObjectNodeWithExclusions(JsonParser dataParser, JsonGenerator outputGenerator,
+                                                 JsonNode objectFilterPatternNode, Set<String> excludedFieldNames,
+                                                 FilteringContext context)
+            throws JsonFilteringException, IOException {
+        JsonToken nextToken;
+
+        while ((nextToken = dataParser.nextToken()) != JsonToken.END_OBJECT) {
+            context.readTokens++;
+            assertTokenIsValid(nextToken);
+
+            String fieldName = dataParser.currentName();
+
+            if (JsonToken.FIELD_NAME.equals(nextToken)) {
+                //don't need to process field name token
+                continue;
+            }
+
+            if (excludedFieldNames.contains(fieldName)) {
+                //skip whole excluded value (no-op for primitive value)
+                dataParser.skipChildren();
+                continue;
+            }
+
+            JsonNode fieldFilterPatternNode = leafToWildcard(objectFilterPatternNode.get(fieldName));
+
+            if (fieldFilterPatternNode == null || WILDCARD_NODE.equals(fieldFilterPatternNode)
+                    || fieldFilterPatternNode.isEmpty()) {
+                copyValue(nextToken, fieldName, dataParser, outputGenerator, context);
+                continue;
+            }
+
+            switch (nextToken) {
+                case START_OBJECT: {
+                    //output START_OBJECT
+                    outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+
+                    assertFilterPatternNodeCorrectness(fieldFilterPatternNode, JsonNodeType.OBJECT);
+
+                    processObjectNode(dataParser, outputGenerator, fieldFilterPatternNode, context);
+                    break;
+                }
+                case START_ARRAY: {
+                    //output START_ARRAY
+                    outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+
+                    processNestedArrayNode(dataParser, outputGenerator, fieldFilterPatternNode, context);
+                    break;
+                }
+                default: {
+                    outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+                }
+            }
+        }
+
+        context.readTokens++;
+
+        //output END_OBJECT
+        outputToken(nextToken, dataParser, outputGenerator, context);
+    }
+
+    /**
+     * Copies current value (with all its nested content, if it is object or array) to output as is,
+     * without checking filter pattern
+     */
+    private void copyValue(JsonToken token, String fieldName, JsonParser dataParser, JsonGenerator outputGenerator,
+                           FilteringContext context) throws JsonFilteringException, IOException {
+        outputToken(token, fieldName, dataParser, outputGenerator, context);
+
+        if (!JsonToken.START_OBJECT.equals(token) && !JsonToken.START_ARRAY.equals(token)) {
+            return;
+        }
+
+        int depth = 1;
+
+        while (depth > 0) {
+            JsonToken nextToken = dataParser.nextToken();
+            context.readTokens++;
+            assertTokenIsValid(nextToken);
+
+            switch (nextToken) {
+                case FIELD_NAME: {
+                    context.outputTokens++;
+                    outputGenerator.writeFieldName(dataParser.currentName());
+                    continue;
+                }
+                case START_OBJECT:
+                case START_ARRAY: {
+                    depth++;
+                    break;
+                }
+                case END_OBJECT:
+                case END_ARRAY: {
+                    depth--;
+                    break;
+                }
+                default: {
+                    break;
+                }
+            }
+
+            outputToken(nextToken, dataParser, outputGenerator, context);
+        }
+    }
+
+    /**
+     * Processes array with either usual array filter pattern or array slice pattern ({"$limit": 10, "$each": {...}})
+     */
+    private void processNestedArrayNode(JsonParser dataParser, JsonGenerator outputGenerator,
+                                        JsonNode arrayFilterPatternNode, FilteringContext context)
+            throws JsonFilteringException, IOException {
+        ArraySlice arraySlice = context.getArraySlice(arrayFilterPatternNode);
+
+        if (arraySlice != null) {
+            processArrayNode(dataParser, outputGenerator, arraySlice.arrayFilterPatternNode,
+                    arraySlice.offset, arraySlice.limit, context);
+        } else {
+            assertFilterPatternNodeCorrectness(arrayFilterPatternNode, JsonNodeType.ARRAY);
+
+            processArrayNode(dataParser, outputGenerator, arrayFilterPatternNode, 0, ArraySlice.NO_LIMIT, context);
+        }
+    }
+
+    private void processArrayNode(JsonParser dataParser, JsonGenerator outputGenerator,
+                                  JsonNode arrayElementFilterPatternNode, int offset, int limit,
+                                  FilteringContext context)
+            throws JsonFilteringException, IOException {
+        //consider empty array filter pattern to be a wildcard - so whole array should be returned as is
+        if (!arrayElementFilterPatternNode.equals(ABSENT_NODE) && arrayElementFilterPatternNode.isEmpty()) {
+            arrayElementFilterPatternNode = WILDCARD_NODE;
+        }
+
+        ElementPredicate elementPredicate =
+                context.getElementPredicate(getFilterPatternNodeForArrayNestedContainer(arrayElementFilterPatternNode));
+        SimpleJsonNodeType onlyAllowedArrayElementsType = null;
+        int skippedElements = 0;
+        int processedElements = 0;
+
+        JsonToken nextToken;
+
+        while ((nextToken = dataParser.nextToken()) != JsonToken.END_ARRAY) {
+            context.readTokens++;
+            assertTokenIsValid(nextToken);
+
+            //with predicate, only matching elements count towards slice offset
+            if (skippedElements < offset && elementPredicate == null) {
+                //element before slice offset - skip it whole (no-op for primitive value)
+                skippedElements++;
+                dataParser.skipChildren();
+                continue;
+            }
+
+            if (processedElements == limit) {
+                //slice limit reached - skip current and all remaining elements without processing them
+                dataParser.skipChildren();
+                nextToken = skipContainerRemainder(dataParser, JsonToken.END_ARRAY);
+                break;
+            }
+
+            String fieldName = dataParser.currentName();
+            String fieldValueStr = dataParser.getText();
+
+            //for wildcard or absent filter pattern - allow processing array without even checking if it is homogenous
+            if (!WILDCARD_NODE.equals(arrayElementFilterPatternNode)
+                    && !ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+                onlyAllowedArrayElementsType =
+                        verifyArrayElementType(nextToken, onlyAllowedArrayElementsType, fieldValueStr);
+            }
+
+            if (elementPredicate != null
+                    && (JsonToken.START_OBJECT.equals(nextToken) || JsonToken.VALUE_NULL.equals(nextToken))) {
+                boolean inSlice = skippedElements >= offset;
+
+                //element before slice offset is only matched, not output
+                if (processObjectNodeWithPredicate(dataParser, inSlice ? outputGenerator : null, elementPredicate,
+                        nextToken, context)) {
+                    if (inSlice) {
+                        processedElements++;
+                    } else {
+                        skippedElements++;
                     }
+                }
+
+                continue;
+            }
+
+            processedElements++;
+
+            switch (nextToken) {
+                case START_OBJECT: {
+                    if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+                        //output START_OBJECT
+                        outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+                    }
+
+                    JsonNode objectFilterPatternNode =
+                            getFilterPatternNodeForArrayNestedContainer(arrayElementFilterPatternNode);
+
+                    assertFilterPatternNodeCorrectness(objectFilterPatternNode, JsonNodeType.OBJECT);
+
+                    processObjectNode(dataParser, outputGenerator, objectFilterPatternNode, context);
+                    break;
+                }
+                case START_ARRAY: {
+                    if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+                        //output START_ARRAY
+                        outputToken(nextToken, fieldName, dataParser, outputGenerator, context);
+                    }
+
+                    JsonNode arrayFilterPatternNode =
+                            getFilterPatternNodeForArrayNestedContainer(arrayElementFilterPatternNode);
+
+                    processNestedArrayNode(dataParser, outputGenerator, arrayFilterPatternNode, context);
+                    break;
+                }
+                default: {
+                    assertFilterPatternNodeIsValidForArrayOfPrimitives(nextToken, arrayElementFilterPatternNode);
+
+                    if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+                        outputToken(nextToken, dataParser, outputGenerator, context);
+                    }
+                }
+            }
+        }
+
+        context.readTokens++;
+
+        if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+            //output END_ARRAY
+            outputToken(nextToken, dataParser, outputGenerator, context);
+        }
+    }
+
+    /**
+     * Processes array element (object or null) with predicate ("$where") element filter pattern.
+     * Element fields are read ahead until all predicate conditions are decided, only fields that will be output are
+     * held in lookahead buffer. As soon as some condition fails - rest of element is skipped without processing.
+     * When all conditions are met - buffered fields are replayed and rest of element is processed as usual
+     *
+     * @param outputGenerator generator to output matching element to, or null if element should only be matched
+     *                        (e.g. it is before slice offset)
+     * @return true if element matches predicate
+     */
+    private boolean processObjectNodeWithPredicate(JsonParser dataParser, JsonGenerator outputGenerator,
+                                                   ElementPredicate elementPredicate, JsonToken elementToken,
+                                                   FilteringContext context)
+            throws JsonFilteringException, IOException {
+        if (!JsonToken.START_OBJECT.equals(elementToken)) {
+            //null element has no fields to match
+            return false;
+        }
+
+        JsonNode objectFilterPatternNode = elementPredicate.objectFilterPatternNode;
+        Set<String> excludedFieldNames = WILDCARD_NODE.equals(objectFilterPatternNode)
+                ? null
+                : context.getExcludedFieldNames(objectFilterPatternNode);
+
+        TokenBuffer lookaheadBuffer = outputGenerator != null ? new TokenBuffer(dataParser) : null;
+        long lookaheadStartOffset = getInputOffset(dataParser.currentLocation());
+        BitSet metConditions = new BitSet(elementPredicate.conditionsByFieldName.size());
+
+        JsonToken nextToken;
+
+        while ((nextToken = dataParser.nextToken()) != JsonToken.END_OBJECT) {
+            if (nextToken == null) {
+                throw new JsonFilteringException("Unexpected end of json data inside object");
+            }
+
+            assertTokenIsValid(nextToken);
+
+            if (JsonToken.FIELD_NAME.equals(nextToken)) {
+                continue;
+            }
+
+            String fieldName = dataParser.currentName();
+            FieldCondition fieldCondition = elementPredicate.conditionsByFieldName.get(fieldName);
+
+            //raw value text is taken before value is buffered, so number representation is not affected
+            if (fieldCondition != null && !fieldCondition.matches(nextToken, dataParser.getText())) {
+                dataParser.skipChildren();
+                skipContainerRemainder(dataParser, JsonToken.END_OBJECT);
+                return false;
+            }
+
+            if (lookaheadBuffer != null && isObjectFieldOutput(objectFilterPatternNode, excludedFieldNames, fieldName)) {
+                lookaheadBuffer.writeFieldName(fieldName);
+                lookaheadBuffer.copyCurrentStructure(dataParser);
+
+                if (getInputOffset(dataParser.currentLocation()) - lookaheadStartOffset > MAX_PREDICATE_LOOKAHEAD_BYTES) {
+                    throw new JsonFilteringException(String.format("Array element predicate is not decided within %d " +
+                            "bytes of element. Put predicate fields first or narrow down element filter pattern",
+                            MAX_PREDICATE_LOOKAHEAD_BYTES));
+                }
+            } else {
+                dataParser.skipChildren();
+            }
+
+            if (fieldCondition != null) {
+                metConditions.set(fieldCondition.index);
+
+                if (metConditions.cardinality() == elementPredicate.conditionsByFieldName.size()) {
+                    break;
+                }
+            }
+        }
+
+        if (JsonToken.END_OBJECT.equals(nextToken)) {
+            //some predicate fields are missing from element
+            return false;
+        }
+
+        if (outputGenerator == null) {
+            skipContainerRemainder(dataParser, JsonToken.END_OBJECT);
+            return true;
+        }
+
+        //output START_OBJECT
+        outputToken(JsonToken.START_OBJECT, dataParser, outputGenerator, context);
+
+        //release lookahead buffer - continue processing element from buffered fields, then from json data
+        JsonParser elementParser = JsonParserSequence.createFlattened(false, lookaheadBuffer.asParser(), dataParser);
+
+        processObjectNode(elementParser, outputGenerator, objectFilterPatternNode, context);
+
+        return true;
+    }
+
+    private boolean isObjectFieldOutput(JsonNode objectFilterPatternNode, Set<String> excludedFieldNames,
+                                        String fieldName) {
+        if (excludedFieldNames != null) {
+            return !excludedFieldNames.contains(fieldName);
+        }
+
+        return shouldIncludeObjectField(objectFilterPatternNode, fieldName);
+    }
+
+    private long getInputOffset(JsonLocation location) {
+        return location.getByteOffset() >= 0 ? location.getByteOffset() : location.getCharOffset();
+    }
+
+    /**
+     * Skips remaining content of current object or array
+     *
+     * @return END_OBJECT / END_ARRAY token of current object / array
+     */
+    private JsonToken skipContainerRemainder(JsonParser dataParser, JsonToken endToken)
+            throws JsonFilteringException, IOException {
+        JsonToken nextToken;
+
+        while ((nextToken = dataParser.nextToken()) != endToken) {
+            if (nextToken == null) {
+                throw new JsonFilteringException("Unexpected end of json data inside " +
+                        (JsonToken.END_ARRAY.equals(endToken) ? "array" : "object"));
+            }
+
+            dataParser.skipChildren();
+        }
+
+        return nextToken;
+    }
+
+    //nested container means 'object inside object' or 'array inside object'
+    private JsonNode getFilterPatternNodeForObjectNestedContainer(JsonNode objectFilterPatternNode, String fieldName) {
+        if (WILDCARD_NODE.equals(objectFilterPatternNode)) {
+            return WILDCARD_NODE;
+        } else if (ABSENT_NODE.equals(objectFilterPatternNode)) {
+            return ABSENT_NODE;
+        } else {
+            return objectFilterPatternNode.has(fieldName)
+                    ? leafToWildcard(objectFilterPatternNode.get(fieldName))
+                    : ABSENT_NODE;
+        }
+    }
+
+    //nested container means 'object inside array' or 'array inside array'
+    private JsonNode getFilterPatternNodeForArrayNestedContainer(JsonNode arrayElementFilterPatternNode) {
+        if (WILDCARD_NODE.equals(arrayElementFilterPatternNode)) {
+            return WILDCARD_NODE;
+        } else if (ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+            return ABSENT_NODE;
+        } else {
+            return leafToWildcard(getFilterPatternForArrayItems(arrayElementFilterPatternNode));
+        }
+    }
+
+    //value (e.g. '1') set in filter pattern for object or array means "include it as a whole"
+    private JsonNode leafToWildcard(JsonNode filterPatternNode) {
+        return filterPatternNode != null && filterPatternNode.isValueNode() ? WILDCARD_NODE : filterPatternNode;
+    }
+
+    private SimpleJsonNodeType verifyArrayElementType(
+            JsonToken token, SimpleJsonNodeType onlyAllowedArrayElementsType, Object fieldValue
+    ) throws JsonFilteringException {
+        SimpleJsonNodeType arrayElementType = getArrayElementType(token);
+
+        //if not yet initialized (now checking just 1st array element)
+        if (onlyAllowedArrayElementsType == null) {
+            return arrayElementType;
+        }
+
+        //if all values were null until now, and now we got a proper value - change it
+        if (SimpleJsonNodeType.NULL.equals(onlyAllowedArrayElementsType)
+                && !SimpleJsonNodeType.NULL.equals(arrayElementType)) {
+            return arrayElementType;
+        }
+
+        if (!arrayElementType.equals(onlyAllowedArrayElementsType)
+                && !arrayElementType.equals(SimpleJsonNodeType.NULL)) {
+            throw new JsonFilteringException(
+                    String.format("Array must contain elements of a single type (OBJECT, ARRAY, VALUE). " +
+                            "%s expected. Offending symbol: %s", onlyAllowedArrayElementsType, fieldValue));
+        }
+
+        return onlyAllowedArrayElementsType;
+    }
+
+    private SimpleJsonNodeType getArrayElementType(JsonToken nextToken) {
+        switch (nextToken) {
+            case START_OBJECT:
+                return SimpleJsonNodeType.OBJECT;
+            case START_ARRAY:
+                return SimpleJsonNodeType.ARRAY;
+            case VALUE_NULL:
+                return SimpleJsonNodeType.NULL;
+            default:
+                return SimpleJsonNodeType.VALUE;
+        }
+    }
+
+    private JsonNode getFilterPatternForArrayItems(JsonNode arrayElementFilterPatternNode) {
+        //we expect all items of this array (objects or arrays) to have the same structure
+        //so 1st element of array is expected to contain filter pattern for this structure
+        return arrayElementFilterPatternNode.get(0);
+    }
+
+    private boolean shouldIncludeObjectField(JsonNode objectFilterPatternNode, String fieldName) {
+        if (ABSENT_NODE.equals(objectFilterPatternNode)) {
+            return false;
+        }
+
+        return WILDCARD_NODE.equals(objectFilterPatternNode) || objectFilterPatternNode.has(fieldName);
+    }
+
+    private void outputToken(JsonToken token, JsonParser jsonParser, JsonGenerator outputGenerator,
+                             FilteringContext context) throws IOException {
+        outputToken(token, null, jsonParser, outputGenerator, context);
+    }
+
+    private void outputToken(JsonToken token, String fieldName,
+                             JsonParser jsonParser, JsonGenerator outputGenerator,
+                             FilteringContext context) throws IOException {
+        context.outputTokens++;
+
+        if (fieldName != null) {
+            context.outputTokens++;
+            outputGenerator.writeFieldName(fieldName);
+        }
+
+        switch (token) {
+            case START_OBJECT: {
+                outputGenerator.writeStartObject();
+                break;
+            }
+            case END_OBJECT: {
+                outputGenerator.writeEndObject();
+                break;
+            }
+            case START_ARRAY: {
+                outputGenerator.writeStartArray();
+                break;
+            }
+            case END_ARRAY: {
+                outputGenerator.writeEndArray();
+                break;
+            }
+            case VALUE_STRING: {
+                outputGenerator.writeString(jsonParser.getValueAsString());
+                break;
+            }
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT: {
+                outputGenerator.writeNumber(jsonParser.getValueAsString());
+                break;
+            }
+            case VALUE_TRUE: {
+                outputGenerator.writeBoolean(true);
+                break;
+            }
+            case VALUE_FALSE: {
+                outputGenerator.writeBoolean(false);
+                break;
+            }
+            case VALUE_NULL: {
+                outputGenerator.writeNull();
+                break;
+            }
+        }
+    }
+
+    private void assertFilterPatternNodeCorrectness(JsonNode filterPatternNode, JsonNodeType expectedType)
+            throws BadFilterPatternException {
+        if (WILDCARD_NODE.equals(filterPatternNode) || ABSENT_NODE.equals(filterPatternNode)) {
+            return;
+        }
+
+        if (filterPatternNode == null) {
+            throw new BadFilterPatternException("Filter pattern node is null. Expected type: " + expectedType);
+        }
+
+        if (!expectedType.equals(filterPatternNode.getNodeType())) {
+            throw new BadFilterPatternException(
+                    String.format("Filter pattern node is not of type %s: %s", expectedType, filterPatternNode));
+        }
+
+        if (JsonNodeType.ARRAY.equals(expectedType) && filterPatternNode.size() > 1) {
+            throw new BadFilterPatternException("Filter pattern node for ARRAY must contain exactly one element - " +
+                    "as a pattern for all array elements (or just be empty as wildcard)");
+        }
+    }
+
+    private void assertFilterPatternNodeIsValidForArrayOfPrimitives(JsonToken nextToken, JsonNode arrayElementFilterPatternNode)
+            throws BadFilterPatternException {
+        if (JsonToken.VALUE_NULL.equals(nextToken)) {
+            return;
+        }
+
+        if (!WILDCARD_NODE.equals(arrayElementFilterPatternNode) && !ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
+            throw new BadFilterPatternException(String.format("Bad filter pattern node for array of primitives: %s",
+                    arrayElementFilterPatternNode));
+        }
+    }
+
+    private void assertTokenIsValid(JsonToken token) throws JsonFilteringException {
+        if (token == JsonToken.NOT_AVAILABLE) {
+            //we are always expecting input json data to be completely loaded and available
+            throw new JsonFilteringException("Got NOT_AVAILABLE token. This should not happen");
+        }
+
+        if (UNSUPPORTED_JSON_TOKENS.contains(token)) {
+            throw new JsonFilteringException(token + " json token is not supported");
+        }
+    }
+
+    /**
+     * Push-based filter for json data that arrives in chunks: chunks are fed with {@link #feedInput(byte[], int, int)},
+     * filtered json produced so far is taken with {@link #drainOutput()}. Json data is filtered token by token using
+     * explicit stack of containers (instead of recursion), so filtering may stop wherever chunk ends and continue when
+     * next chunk arrives - no thread is blocked waiting for input.
+     * <p>Result is the same as result of {@link #filterJsonFields(byte[], JsonNode) filterJsonFields()}.
+     * Array elements with predicates ("$where") are read ahead only until predicate is decided, same as in blocking
+     * filtering - so memory held by filter doesn't depend on json data size (lookahead is bounded by
+     * {@value #MAX_PREDICATE_LOOKAHEAD_BYTES} bytes of json data per element).
+     * <p>Filter is not thread-safe: chunks must be fed sequentially. Filter can't be used anymore after exception
+     */
+    public final class NonBlockingFilter {
+        private final JsonNode filterPatternJsonRootNode;
+        private final FilteringContext context = new FilteringContext();
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        private final boolean includeAll;
+        //null for "include all" filter pattern
+        private final JsonParser dataParser;
+        private final JsonGenerator outputGenerator;
+        //parser that current token is taken from: dataParser, or lookahead buffer that is being replayed
+        private JsonParser tokenParser;
+        //array element with predicate that is being read ahead, null if none
+        private PredicateLookahead lookahead;
+
+        //filtered containers, innermost on top. Containers that are skipped or copied as a whole are not on stack
+        private final Deque<NonBlockingFilterFrame> frames = new ArrayDeque<>();
+        //depth inside container that is skipped / copied as a whole, 0 if not inside such container
+        private int skippedDepth;
+        private int copiedDepth;
+        private boolean rootValueStarted;
+
+        private NonBlockingFilter(JsonNode filterPatternJsonRootNode) throws JsonFilteringException {
+            this.filterPatternJsonRootNode = filterPatternJsonRootNode;
+            this.includeAll = isIncludeAllFilterPattern(filterPatternJsonRootNode);
+
+            if (includeAll) {
+                this.dataParser = null;
+                this.outputGenerator = null;
+
+                return;
+            }
+
+            try {
+                this.dataParser = jsonFactory.createNonBlockingByteArrayParser();
+                this.outputGenerator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8);
+            } catch (IOException e) {
+                throw new JsonFilteringException("Failed to start JSON processing", e);
+            }
+
+            this.tokenParser = dataParser;
+        }
+
+        /**
+         * Filters next chunk of json data. Passed array may be reused by caller after method returns
+         */
+        public void feedInput(byte[] jsonDataChunk, int offset, int length) throws JsonFilteringException {
+            if (includeAll) {
+                outputStream.write(jsonDataChunk, offset, length);
+                return;
+            }
+
+            try {
+                ((ByteArrayFeeder) dataParser.getNonBlockingInputFeeder())
+                        .feedInput(jsonDataChunk, offset, offset + length);
+
+                processAvailableTokens();
+
+                outputGenerator.flush();
+            } catch (Exception e) {
+                throw onFilteringFailure(e);
+            }
+        }
+
+        /**
+         * Signals that all json data is fed, and completes filtered json
+         *
+         * @throws JsonFilteringException if json data is incomplete or can't be filtered
+         */
+        public void endOfInput() throws JsonFilteringException {
+            if (includeAll) {
+                return;
+            }
+
+            try {
+                dataParser.getNonBlockingInputFeeder().endOfInput();
+
+                processAvailableTokens();
+
+                if (!frames.isEmpty() || skippedDepth > 0 || copiedDepth > 0 || lookahead != null) {
+                    throw new JsonFilteringException("Unexpected end of json data");
+                }
+
+                dataParser.close();
+                outputGenerator.close();
+            } catch (Exception e) {
+                throw onFilteringFailure(e);
+            }
+
+            jsonFilteringMetrics.recordTokens(context.outputTokens, context.readTokens - context.outputTokens);
+        }
+
+        /**
+         * @return filtered json produced since previous call (may be empty)
+         */
+        public byte[] drainOutput() {
+            byte[] output = outputStream.toByteArray();
+            outputStream.reset();
+
+            return output;
+        }
+
+        private void processAvailableTokens() throws JsonFilteringException, IOException {
+            JsonToken token;
+
+            while ((token = dataParser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                processToken(token);
+            }
+        }
+
+        private void processToken(JsonToken token) throws JsonFilteringException, IOException {
+            if (skippedDepth > 0) {
+                skippedDepth += getContainerDepthChange(token);
+                return;
+            }
+
+            if (lookahead != null) {
+                //tokens that are held in lookahead buffer are counted when buffer is replayed
+                assertTokenIsValid(token);
+                processLookaheadToken(token);
+                return;
+            }
+
+            context.readTokens++;
+            assertTokenIsValid(token);
+
+            if (copiedDepth > 0) {
+                if (JsonToken.FIELD_NAME.equals(token)) {
+                    context.outputTokens++;
+                    outputGenerator.writeFieldName(tokenParser.currentName());
+                    return;
+                }
+
+                copiedDepth += getContainerDepthChange(token);
+                outputToken(token, tokenParser, outputGenerator, context);
+                return;
+            }
+
+            if (JsonToken.FIELD_NAME.equals(token)) {
+                //field name is processed together with field value
+                return;
+            }
+
+            if (frames.isEmpty()) {
+                processRootToken(token);
+                return;
+            }
+
+            if (JsonToken.END_OBJECT.equals(token) || JsonToken.END_ARRAY.equals(token)) {
+                frames.pop();
+
+                //output END_OBJECT / END_ARRAY
+                outputToken(token, tokenParser, outputGenerator, context);
+                return;
+            }
+
+            NonBlockingFilterFrame frame = frames.peek();
+
+            if (frame.array) {
+                processArrayElementToken(frame, token);
+            } else {
+                processObjectFieldToken(frame, token);
+            }
+        }
+
+        private void processRootToken(JsonToken token) throws JsonFilteringException, IOException {
+            if (rootValueStarted) {
+                //only first root value is filtered, same as for blocking filtering
+                skippedDepth += getContainerDepthChange(token);
+                return;
+            }
+
+            rootValueStarted = true;
+
+            if (JsonToken.START_OBJECT.equals(token)) {
+                assertFilterPatternNodeCorrectness(filterPatternJsonRootNode, JsonNodeType.OBJECT);
+            }
+
+            //output START_OBJECT / START_ARRAY or single value token
+            outputToken(token, tokenParser, outputGenerator, context);
+
+            if (JsonToken.START_OBJECT.equals(token)) {
+                enterObject(filterPatternJsonRootNode);
+            } else if (JsonToken.START_ARRAY.equals(token)) {
+                enterArray(filterPatternJsonRootNode);
+            }
+        }
+
+        private void processObjectFieldToken(NonBlockingFilterFrame frame, JsonToken token)
+                throws JsonFilteringException, IOException {
+            String fieldName = tokenParser.currentName();
+            JsonNode fieldFilterPatternNode;
+
+            if (frame.excludedFieldNames != null) {
+                if (frame.excludedFieldNames.contains(fieldName)) {
+                    skipValue(token);
+                    return;
+                }
+
+                fieldFilterPatternNode = leafToWildcard(frame.filterPatternNode.get(fieldName));
+
+                //fields without nested filter pattern are copied as is
+                if (fieldFilterPatternNode == null || fieldFilterPatternNode.isEmpty()) {
+                    outputToken(token, fieldName, tokenParser, outputGenerator, context);
+                    copiedDepth = getContainerDepthChange(token);
+                    return;
+                }
+            } else {
+                if (!frame.filterPatternNode.has(fieldName)) {
+                    skipValue(token);
+                    return;
+                }
+
+                fieldFilterPatternNode = leafToWildcard(frame.filterPatternNode.get(fieldName));
+            }
+
+            //output START_OBJECT / START_ARRAY or value token
+            outputToken(token, fieldName, tokenParser, outputGenerator, context);
+
+            if (JsonToken.START_OBJECT.equals(token)) {
+                assertFilterPatternNodeCorrectness(fieldFilterPatternNode, JsonNodeType.OBJECT);
+
+                enterObject(fieldFilterPatternNode);
+            } else if (JsonToken.START_ARRAY.equals(token)) {
+                enterArray(fieldFilterPatternNode);
+            }
+        }
+
+        private void processArrayElementToken(NonBlockingFilterFrame frame, JsonToken token)
+                throws JsonFilteringException, IOException {
+            //with predicate, only matching elements count towards slice offset
+            if (frame.skippedElements < frame.offset && frame.elementPredicate == null) {
+                //element before slice offset
+                frame.skippedElements++;
+                skipValue(token);
+                return;
+            }
+
+            if (frame.processedElements == frame.limit) {
+                //element after slice limit
+                skipValue(token);
+                return;
+            }
+
+            if (!WILDCARD_NODE.equals(frame.filterPatternNode)) {
+                frame.onlyAllowedArrayElementsType =
+                        verifyArrayElementType(token, frame.onlyAllowedArrayElementsType, tokenParser.getText());
+            }
+
+            if (frame.elementPredicate != null
+                    && (JsonToken.START_OBJECT.equals(token) || JsonToken.VALUE_NULL.equals(token))) {
+                //null element has no fields to match - it is dropped
+                if (JsonToken.START_OBJECT.equals(token)) {
+                    startLookahead(frame);
+                }
+
+                return;
+            }
+
+            frame.processedElements++;
+
+            switch (token) {
+                case START_OBJECT: {
+                    //output START_OBJECT
+                    outputToken(token, tokenParser, outputGenerator, context);
+
+                    JsonNode objectFilterPatternNode = getFilterPatternNodeForArrayNestedContainer(frame.filterPatternNode);
+
+                    assertFilterPatternNodeCorrectness(objectFilterPatternNode, JsonNodeType.OBJECT);
+
+                    enterObject(objectFilterPatternNode);
+                    break;
+                }
+                case START_ARRAY: {
+                    //output START_ARRAY
+                    outputToken(token, tokenParser, outputGenerator, context);
+
+                    enterArray(getFilterPatternNodeForArrayNestedContainer(frame.filterPatternNode));
+                    break;
+                }
+                default: {
+                    assertFilterPatternNodeIsValidForArrayOfPrimitives(token, frame.filterPatternNode);
+
+                    outputToken(token, tokenParser, outputGenerator, context);
+                }
+            }
+        }
+
+        private void enterObject(JsonNode objectFilterPatternNode) {
+            //consider empty object filter pattern to be a wildcard - so whole object should be returned as is
+            if (WILDCARD_NODE.equals(objectFilterPatternNode) || objectFilterPatternNode.isEmpty()) {
+                copiedDepth = 1;
+                return;
+            }
+
+            frames.push(NonBlockingFilterFrame.forObject(
+                    objectFilterPatternNode, context.getExcludedFieldNames(objectFilterPatternNode)));
+        }
+
+        private void enterArray(JsonNode arrayFilterPatternNode) throws BadFilterPatternException {
+            ArraySlice arraySlice = context.getArraySlice(arrayFilterPatternNode);
+
+            if (arraySlice == null) {
+                assertFilterPatternNodeCorrectness(arrayFilterPatternNode, JsonNodeType.ARRAY);
+
+                arraySlice = new ArraySlice(0, ArraySlice.NO_LIMIT, arrayFilterPatternNode);
+            }
+
+            //consider empty array filter pattern to be a wildcard - so whole array should be returned as is
+            JsonNode arrayElementFilterPatternNode = arraySlice.arrayFilterPatternNode.isEmpty()
+                    ? WILDCARD_NODE
+                    : arraySlice.arrayFilterPatternNode;
+
+            if (WILDCARD_NODE.equals(arrayElementFilterPatternNode)
+                    && arraySlice.offset == 0 && arraySlice.limit == ArraySlice.NO_LIMIT) {
+                copiedDepth = 1;
+                return;
+            }
+
+            frames.push(NonBlockingFilterFrame.forArray(arrayElementFilterPatternNode,
+                    context.getElementPredicate(getFilterPatternNodeForArrayNestedContainer(arrayElementFilterPatternNode)),
+                    arraySlice.offset, arraySlice.limit));
+        }
+
+        /**
+         * Starts reading ahead array element with predicate. Same as in blocking filtering
+         * (see {@link #processObjectNodeWithPredicate(JsonParser, JsonGenerator, ElementPredicate, JsonToken, FilteringContext)}),
+         * only fields that will be output are held in lookahead buffer until predicate is decided
+         */
+        private void startLookahead(NonBlockingFilterFrame frame) throws BadFilterPatternException {
+            JsonNode objectFilterPatternNode = frame.elementPredicate.objectFilterPatternNode;
+            //element before slice offset is only matched, not output
+            boolean inSlice = frame.skippedElements >= frame.offset;
+
+            lookahead = new PredicateLookahead(frame.elementPredicate,
+                    inSlice ? new TokenBuffer(tokenParser) : null,
+                    WILDCARD_NODE.equals(objectFilterPatternNode)
+                            ? null
+                            : context.getExcludedFieldNames(objectFilterPatternNode),
+                    getInputOffset(dataParser.currentLocation()));
+        }
+
+        private void processLookaheadToken(JsonToken token) throws JsonFilteringException, IOException {
+            PredicateLookahead elementLookahead = lookahead;
+
+            if (elementLookahead.bufferedDepth > 0) {
+                //inside buffered field value
+                elementLookahead.lookaheadBuffer.copyCurrentEvent(tokenParser);
+                elementLookahead.bufferedDepth += getContainerDepthChange(token);
+
+                assertLookaheadSize(elementLookahead);
+                return;
+            }
+
+            if (JsonToken.FIELD_NAME.equals(token)) {
+                //field name is processed together with field value
+                return;
+            }
+
+            if (JsonToken.END_OBJECT.equals(token)) {
+                //some predicate fields are missing from element - element is dropped
+                lookahead = null;
+                return;
+            }
+
+            String fieldName = tokenParser.currentName();
+            FieldCondition fieldCondition = elementLookahead.elementPredicate.conditionsByFieldName.get(fieldName);
+
+            //raw value text is taken before value is buffered, so number representation is not affected
+            if (fieldCondition != null && !fieldCondition.matches(token, tokenParser.getText())) {
+                //skip rest of element, including current value
+                lookahead = null;
+                skippedDepth = 1 + getContainerDepthChange(token);
+                return;
+            }
+
+            if (elementLookahead.lookaheadBuffer != null && isObjectFieldOutput(
+                    elementLookahead.elementPredicate.objectFilterPatternNode, elementLookahead.excludedFieldNames,
+                    fieldName)) {
+                elementLookahead.lookaheadBuffer.writeFieldName(fieldName);
+                elementLookahead.lookaheadBuffer.copyCurrentEvent(tokenParser);
+                elementLookahead.bufferedDepth = getContainerDepthChange(token);
+
+                assertLookaheadSize(elementLookahead);
+            } else {
+                skippedDepth = getContainerDepthChange(token);
+            }
+
+            if (fieldCondition != null) {
+                elementLookahead.metConditions.set(fieldCondition.index);
+
+                if (elementLookahead.metConditions.cardinality()
+                        == elementLookahead.elementPredicate.conditionsByFieldName.size()) {
+                    onElementPredicateMatched(elementLookahead);
+                }
+            }
+        }
+
+        private void onElementPredicateMatched(PredicateLookahead elementLookahead)
+                throws JsonFilteringException, IOException {
+            lookahead = null;
+
+            //element's array is on top - element itself is not on stack while it is read ahead
+            NonBlockingFilterFrame frame = frames.peek();
+
+            if (elementLookahead.lookaheadBuffer == null) {
+                frame.skippedElements++;
+                //skip rest of element
+                skippedDepth = 1;
+                return;
+            }
+
+            frame.processedElements++;
+
+            //output START_OBJECT
+            outputToken(JsonToken.START_OBJECT, tokenParser, outputGenerator, context);
 
-                    JsonNode arrayFilterPatternNode =
-                            getFilterPatternNodeForArrayNestedContainer(arrayElementFilterPatternNode);
+            enterObject(elementLookahead.elementPredicate.objectFilterPatternNode);
 
-                    assertFilterPatternNodeCorrectness(arrayFilterPatternNode, JsonNodeType.ARRAY);
+            //release lookahead buffer - continue processing element from buffered fields, then from json data
+            JsonParser liveTokenParser = tokenParser;
+            tokenParser = elementLookahead.lookaheadBuffer.asParser();
 
-                    processArrayNode(dataParser, outputGenerator, arrayFilterPatternNode);
-                    break;
-                }
-                default: {
-                    assertFilterPatternNodeIsValidForArrayOfPrimitives(nextToken, arrayElementFilterPatternNode);
+            try {
+                JsonToken token;
 
-                    if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
-                        outputToken(nextToken, dataParser, outputGenerator);
-                    }
+                while ((token = tokenParser.nextToken()) != null) {
+                    processToken(token);
                 }
+            } finally {
+                tokenParser = liveTokenParser;
             }
         }
 
-        if (!ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
-            //output END_ARRAY
-            outputToken(nextToken, dataParser, outputGenerator);
+        private void assertLookaheadSize(PredicateLookahead elementLookahead) throws JsonFilteringException {
+            if (getInputOffset(dataParser.currentLocation()) - elementLookahead.startOffset > MAX_PREDICATE_LOOKAHEAD_BYTES) {
+                throw new JsonFilteringException(String.format("Array element predicate is not decided within %d " +
+                        "bytes of element. Put predicate fields first or narrow down element filter pattern",
+                        MAX_PREDICATE_LOOKAHEAD_BYTES));
+            }
+        }
+
+        private void skipValue(JsonToken token) {
+            skippedDepth = getContainerDepthChange(token);
+        }
+
+        private JsonFilteringException onFilteringFailure(Exception e) {
+            logFilteringFailure("non-blocking JSON filtration", dataParser.currentLocation(), e);
+
+            try {
+                dataParser.close();
+            } catch (IOException closeException) {
+                log.error("Failed to close JsonParser", closeException);
+            }
+
+            return new JsonFilteringException(e);
         }
     }
 
-    //nested container means 'object inside object' or 'array inside object'
-    private JsonNode getFilterPatternNodeForObjectNestedContainer(JsonNode objectFilterPatternNode, String fieldName) {
-        if (WILDCARD_NODE.equals(objectFilterPatternNode)) {
-            return WILDCARD_NODE;
-        } else if (ABSENT_NODE.equals(objectFilterPatternNode)) {
-            return ABSENT_NODE;
-        } else {
-            return objectFilterPatternNode.has(fieldName) ? objectFilterPatternNode.get(fieldName) : ABSENT_NODE;
+    private void logFilteringFailure(String filtrationDescription, JsonLocation lastProcessedLocation, Exception e) {
+        if (e instanceof BadFilterPatternException) {
+            //filter pattern doesn't match json data - caused by client, so no stack trace (would flood logs)
+            log.warn("Filter pattern doesn't match json data during {}. Last processed token is approximately " +
+                            "at line '{}' column '{}': {}", filtrationDescription,
+                    lastProcessedLocation.getLineNr(), lastProcessedLocation.getColumnNr(), e.getMessage());
+            return;
+        }
+
+        if (e instanceof FilteringLimitExceededException) {
+            //caused by json data size/shape - expected for outliers, no stack trace
+            log.warn("Json data exceeds filtering limits during {}. Last processed token is approximately " +
+                            "at line '{}' column '{}': {}", filtrationDescription,
+                    lastProcessedLocation.getLineNr(), lastProcessedLocation.getColumnNr(), e.getMessage());
+            return;
         }
+
+        log.error("Exception during {}. Last processed token is approximately at line '{}' column '{}'",
+                filtrationDescription, lastProcessedLocation.getLineNr(), lastProcessedLocation.getColumnNr(), e);
     }
 
-    //nested container means 'object inside array' or 'array inside array'
-    private JsonNode getFilterPatternNodeForArrayNestedContainer(JsonNode arrayElementFilterPatternNode) {
-        if (WILDCARD_NODE.equals(arrayElementFilterPatternNode)) {
-            return WILDCARD_NODE;
-        } else if (ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
-            return ABSENT_NODE;
+    private static int getContainerDepthChange(JsonToken token) {
+        if (token.isStructStart()) {
+            return 1;
+        } else if (token.isStructEnd()) {
+            return -1;
         } else {
-            return getFilterPatternForArrayItems(arrayElementFilterPatternNode);
+            return 0;
         }
     }
 
-    private SimpleJsonNodeType verifyArrayElementType(
-            JsonToken token, SimpleJsonNodeType onlyAllowedArrayElementsType, Object fieldValue
-    ) throws JsonFilteringException {
-        SimpleJsonNodeType arrayElementType = getArrayElementType(token);
-
-        //if not yet initialized (now checking just 1st array element)
-        if (onlyAllowedArrayElementsType == null) {
-            return arrayElementType;
+    /**
+     * Object or array that is being filtered by {@link NonBlockingFilter}
+     */
+    private static class NonBlockingFilterFrame {
+        private final boolean array;
+        //object filter pattern, or array element filter pattern (same as filter pattern passed to processArrayNode())
+        private final JsonNode filterPatternNode;
+        //null if object filter pattern is not an exclusion pattern
+        private final Set<String> excludedFieldNames;
+        //predicate of array elements, null if none (or if frame is object)
+        private final ElementPredicate elementPredicate;
+        private final int offset;
+        private final int limit;
+
+        private int skippedElements;
+        private int processedElements;
+        private SimpleJsonNodeType onlyAllowedArrayElementsType;
+
+        private NonBlockingFilterFrame(boolean array, JsonNode filterPatternNode, Set<String> excludedFieldNames,
+                                       ElementPredicate elementPredicate, int offset, int limit) {
+            this.array = array;
+            this.filterPatternNode = filterPatternNode;
+            this.excludedFieldNames = excludedFieldNames;
+            this.elementPredicate = elementPredicate;
+            this.offset = offset;
+            this.limit = limit;
         }
 
-        //if all values were null until now, and now we got a proper value - change it
-        if (SimpleJsonNodeType.NULL.equals(onlyAllowedArrayElementsType)
-                && !SimpleJsonNodeType.NULL.equals(arrayElementType)) {
-            return arrayElementType;
+        private static NonBlockingFilterFrame forObject(JsonNode objectFilterPatternNode, Set<String> excludedFieldNames) {
+            return new NonBlockingFilterFrame(false, objectFilterPatternNode, excludedFieldNames, null, 0,
+                    ArraySlice.NO_LIMIT);
         }
 
-        if (!arrayElementType.equals(onlyAllowedArrayElementsType)
-                && !arrayElementType.equals(SimpleJsonNodeType.NULL)) {
-            throw new JsonFilteringException(
-                    String.format("Array must contain elements of a single type (OBJECT, ARRAY, VALUE). " +
-                            "%s expected. Offending symbol: %s", onlyAllowedArrayElementsType, fieldValue));
+        private static NonBlockingFilterFrame forArray(JsonNode arrayElementFilterPatternNode,
+                                                       ElementPredicate elementPredicate, int offset, int limit) {
+            return new NonBlockingFilterFrame(true, arrayElementFilterPatternNode, null, elementPredicate, offset, limit);
         }
-
-        return onlyAllowedArrayElementsType;
     }
 
-    private SimpleJsonNodeType getArrayElementType(JsonToken nextToken) {
-        switch (nextToken) {
-            case START_OBJECT:
-                return SimpleJsonNodeType.OBJECT;
-            case START_ARRAY:
-                return SimpleJsonNodeType.ARRAY;
-            case VALUE_NULL:
-                return SimpleJsonNodeType.NULL;
-            default:
-                return SimpleJsonNodeType.VALUE;
+    /**
+     * Array element with predicate that is read ahead by {@link NonBlockingFilter} until predicate is decided
+     */
+    private static class PredicateLookahead {
+        private final ElementPredicate elementPredicate;
+        //fields of element that will be output, null if element is only matched (e.g. it is before slice offset)
+        private final TokenBuffer lookaheadBuffer;
+        //null if element filter pattern is not an exclusion pattern
+        private final Set<String> excludedFieldNames;
+        private final long startOffset;
+        private final BitSet metConditions;
+
+        //depth inside field value that is being buffered, 0 if not inside such value
+        private int bufferedDepth;
+
+        private PredicateLookahead(ElementPredicate elementPredicate, TokenBuffer lookaheadBuffer,
+                                   Set<String> excludedFieldNames, long startOffset) {
+            this.elementPredicate = elementPredicate;
+            this.lookaheadBuffer = lookaheadBuffer;
+            this.excludedFieldNames = excludedFieldNames;
+            this.startOffset = startOffset;
+            this.metConditions = new BitSet(elementPredicate.conditionsByFieldName.size());
         }
     }
 
-    private JsonNode getFilterPatternForArrayItems(JsonNode arrayElementFilterPatternNode) {
-        //we expect all items of this array (objects or arrays) to have the same structure
-        //so 1st element of array is expected to contain filter pattern for this structure
-        return arrayElementFilterPatternNode.get(0);
-    }
+    /**
+     * Array slice filter pattern compiled to offset/limit and usual array filter pattern
+     */
+    private static class ArraySlice {
+        private static final int NO_LIMIT = -1;
+        private static final ArraySlice NOT_ARRAY_SLICE = new ArraySlice(0, NO_LIMIT, null);
+
+        private final int offset;
+        private final int limit;
+        private final JsonNode arrayFilterPatternNode;
+
+        private ArraySlice(int offset, int limit, JsonNode arrayFilterPatternNode) {
+            this.offset = offset;
+            this.limit = limit;
+            this.arrayFilterPatternNode = arrayFilterPatternNode;
+        }
 
-    private boolean shouldIncludeObjectField(JsonNode objectFilterPatternNode, String fieldName) {
-        if (ABSENT_NODE.equals(objectFilterPatternNode)) {
-            return false;
+        private static ArraySlice compile(JsonNode filterPatternNode) throws BadFilterPatternException {
+            if (!filterPatternNode.has(ARRAY_SLICE_LIMIT) && !filterPatternNode.has(ARRAY_SLICE_OFFSET)
+                    && !filterPatternNode.has(ARRAY_SLICE_EACH)) {
+                return NOT_ARRAY_SLICE;
+            }
+
+            int offset = 0;
+            int limit = NO_LIMIT;
+            JsonNode elementFilterPatternNode = null;
+            Iterator<Map.Entry<String, JsonNode>> fields = filterPatternNode.fields();
+
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+
+                switch (field.getKey()) {
+                    case ARRAY_SLICE_LIMIT: {
+                        limit = getNonNegativeInt(field.getValue(), filterPatternNode);
+                        break;
+                    }
+                    case ARRAY_SLICE_OFFSET: {
+                        offset = getNonNegativeInt(field.getValue(), filterPatternNode);
+                        break;
+                    }
+                    case ARRAY_SLICE_EACH: {
+                        elementFilterPatternNode = field.getValue();
+                        break;
+                    }
+                    default: {
+                        throw new BadFilterPatternException(String.format(
+                                "Unexpected field '%s' in array slice filter pattern: %s", field.getKey(), filterPatternNode));
+                    }
+                }
+            }
+
+            //no element pattern (or value / empty container) - elements are not filtered
+            JsonNode arrayFilterPatternNode = elementFilterPatternNode == null || elementFilterPatternNode.isValueNode()
+                    || elementFilterPatternNode.isEmpty()
+                    ? WILDCARD_NODE
+                    : JsonNodeFactory.instance.arrayNode().add(elementFilterPatternNode);
+
+            return new ArraySlice(offset, limit, arrayFilterPatternNode);
         }
 
-        return WILDCARD_NODE.equals(objectFilterPatternNode) || objectFilterPatternNode.has(fieldName);
+        private static int getNonNegativeInt(JsonNode valueNode, JsonNode filterPatternNode)
+                throws BadFilterPatternException {
+            if (!valueNode.canConvertToInt() || !valueNode.isIntegralNumber() || valueNode.intValue() < 0) {
+                throw new BadFilterPatternException(
+                        "Array slice offset and limit must be non-negative integers: " + filterPatternNode);
+            }
+
+            return valueNode.intValue();
+        }
     }
 
-    private void outputToken(JsonToken token, JsonParser jsonParser, JsonGenerator outputGenerator) throws IOException {
-        outputToken(token, null, jsonParser, outputGenerator);
+    /**
+     * Array element predicate ("$where") compiled to field conditions, and element filter pattern without predicate
+     */
+    private static class ElementPredicate {
+        private static final ElementPredicate NO_ELEMENT_PREDICATE =
+                new ElementPredicate(Collections.<String, FieldCondition>emptyMap(), null);
+
+        private final Map<String, FieldCondition> conditionsByFieldName;
+        private final JsonNode objectFilterPatternNode;
+
+        private ElementPredicate(Map<String, FieldCondition> conditionsByFieldName, JsonNode objectFilterPatternNode) {
+            this.conditionsByFieldName = conditionsByFieldName;
+            this.objectFilterPatternNode = objectFilterPatternNode;
+        }
+
+        private static ElementPredicate compile(JsonNode objectFilterPatternNode) throws BadFilterPatternException {
+            JsonNode predicateNode = objectFilterPatternNode.get(ELEMENT_PREDICATE);
+
+            if (predicateNode == null) {
+                return NO_ELEMENT_PREDICATE;
+            }
+
+            if (!predicateNode.isObject() || predicateNode.isEmpty()) {
+                throw new BadFilterPatternException(
+                        "Array element predicate must be a non-empty object of field conditions: " + predicateNode);
+            }
+
+            Map<String, FieldCondition> conditionsByFieldName = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> conditions = predicateNode.fields();
+
+            while (conditions.hasNext()) {
+                Map.Entry<String, JsonNode> condition = conditions.next();
+
+                conditionsByFieldName.put(condition.getKey(), FieldCondition.compile(
+                        conditionsByFieldName.size(), condition.getKey(), condition.getValue()));
+            }
+
+            //element filter pattern without predicate
+            ObjectNode elementFilterPatternNode = JsonNodeFactory.instance.objectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = objectFilterPatternNode.fields();
+
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+
+                if (!ELEMENT_PREDICATE.equals(field.getKey())) {
+                    elementFilterPatternNode.set(field.getKey(), field.getValue());
+                }
+            }
+
+            return new ElementPredicate(conditionsByFieldName,
+                    elementFilterPatternNode.isEmpty() ? WILDCARD_NODE : elementFilterPatternNode);
+        }
     }
 
-    private void outputToken(JsonToken token, String fieldName,
-                             JsonParser jsonParser, JsonGenerator outputGenerator) throws IOException {
-        if (fieldName != null) {
-            outputGenerator.writeFieldName(fieldName);
+    /**
+     * Condition on a single scalar field of array element
+     */
+    private static class FieldCondition {
+        private static final String EQ = "$eq";
+        private static final String IN = "$in";
+        private static final String GT = "$gt";
+        private static final String GTE = "$gte";
+        private static final String LT = "$lt";
+        private static final String LTE = "$lte";
+
+        //stands for json null in allowed values
+        private static final Object NULL_VALUE = new Object();
+
+        private final int index;
+        //null if value is not restricted
+        private Set<Object> allowedValues;
+        private BigDecimal min;
+        private boolean minInclusive;
+        private BigDecimal max;
+        private boolean maxInclusive;
+
+        private FieldCondition(int index) {
+            this.index = index;
         }
 
-        switch (token) {
-            case START_OBJECT: {
-                outputGenerator.writeStartObject();
-                break;
+        private static FieldCondition compile(int index, String fieldName, JsonNode conditionNode)
+                throws BadFilterPatternException {
+            FieldCondition fieldCondition = new FieldCondition(index);
+
+            if (!conditionNode.isObject()) {
+                fieldCondition.restrictAllowedValues(
+                        Collections.singleton(toComparableValue(fieldName, conditionNode)));
+                return fieldCondition;
             }
-            case END_OBJECT: {
-                outputGenerator.writeEndObject();
-                break;
+
+            if (conditionNode.isEmpty()) {
+                throw new BadFilterPatternException("Empty condition for field '" + fieldName + "' in array element predicate");
             }
-            case START_ARRAY: {
-                outputGenerator.writeStartArray();
-                break;
+
+            Iterator<Map.Entry<String, JsonNode>> operators = conditionNode.fields();
+
+            while (operators.hasNext()) {
+                Map.Entry<String, JsonNode> operator = operators.next();
+                JsonNode operandNode = operator.getValue();
+
+                switch (operator.getKey()) {
+                    case EQ: {
+                        fieldCondition.restrictAllowedValues(
+                                Collections.singleton(toComparableValue(fieldName, operandNode)));
+                        break;
+                    }
+                    case IN: {
+                        if (!operandNode.isArray()) {
+                            throw new BadFilterPatternException(String.format(
+                                    "'%s' condition for field '%s' must be an array: %s", IN, fieldName, conditionNode));
+                        }
+
+                        Set<Object> values = new HashSet<>();
+
+                        for (JsonNode valueNode : operandNode) {
+                            values.add(toComparableValue(fieldName, valueNode));
+                        }
+
+                        fieldCondition.restrictAllowedValues(values);
+                        break;
+                    }
+                    case GT:
+                    case GTE: {
+                        fieldCondition.min = toNumber(fieldName, operandNode);
+                        fieldCondition.minInclusive = GTE.equals(operator.getKey());
+                        break;
+                    }
+                    case LT:
+                    case LTE: {
+                        fieldCondition.max = toNumber(fieldName, operandNode);
+                        fieldCondition.maxInclusive = LTE.equals(operator.getKey());
+                        break;
+                    }
+                    default: {
+                        throw new BadFilterPatternException(String.format(
+                                "Unexpected operator '%s' in condition for field '%s' of array element predicate",
+                                operator.getKey(), fieldName));
+                    }
+                }
             }
-            case END_ARRAY: {
-                outputGenerator.writeEndArray();
-                break;
+
+            return fieldCondition;
+        }
+
+        /**
+         * @param valueText raw text of value token
+         */
+        private boolean matches(JsonToken valueToken, String valueText) {
+            Object value;
+
+            switch (valueToken) {
+                case VALUE_STRING: {
+                    value = valueText;
+                    break;
+                }
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT: {
+                    try {
+                        value = new BigDecimal(valueText).stripTrailingZeros();
+                    } catch (NumberFormatException e) {
+                        //NaN / Infinity
+                        return false;
+                    }
+                    break;
+                }
+                case VALUE_TRUE: {
+                    value = Boolean.TRUE;
+                    break;
+                }
+                case VALUE_FALSE: {
+                    value = Boolean.FALSE;
+                    break;
+                }
+                case VALUE_NULL: {
+                    value = NULL_VALUE;
+                    break;
+                }
+                default: {
+                    //objects and arrays never match
+                    return false;
+                }
             }
-            case VALUE_STRING: {
-                outputGenerator.writeString(jsonParser.getValueAsString());
-                break;
+
+            if (allowedValues != null && !allowedValues.contains(value)) {
+                return false;
             }
-            case VALUE_NUMBER_INT:
-            case VALUE_NUMBER_FLOAT: {
-                outputGenerator.writeNumber(jsonParser.getValueAsString());
-                break;
+
+            if (min == null && max == null) {
+                return true;
             }
-            case VALUE_TRUE: {
-                outputGenerator.writeBoolean(true);
-                break;
+
+            if (!(value instanceof BigDecimal)) {
+                return false;
             }
-            case VALUE_FALSE: {
-                outputGenerator.writeBoolean(false);
-                break;
+
+            BigDecimal number = (BigDecimal) value;
+
+            if (min != null) {
+                int comparison = number.compareTo(min);
+
+                if (comparison < 0 || (comparison == 0 && !minInclusive)) {
+                    return false;
+                }
             }
-            case VALUE_NULL: {
-                outputGenerator.writeNull();
-                break;
+
+            if (max != null) {
+                int comparison = number.compareTo(max);
+
+                return comparison < 0 || (comparison == 0 && maxInclusive);
             }
-        }
-    }
 
-    private void assertFilterPatternNodeCorrectness(JsonNode filterPatternNode, JsonNodeType expectedType)
-            throws BadFilterPatternException {
-        if (WILDCARD_NODE.equals(filterPatternNode) || ABSENT_NODE.equals(filterPatternNode)) {
-            return;
+            return true;
         }
 
-        if (filterPatternNode == null) {
-            throw new BadFilterPatternException("Filter pattern node is null. Expected type: " + expectedType);
+        private void restrictAllowedValues(Set<Object> values) {
+            if (allowedValues == null) {
+                allowedValues = new HashSet<>(values);
+            } else {
+                allowedValues.retainAll(values);
+            }
         }
 
-        if (!expectedType.equals(filterPatternNode.getNodeType())) {
-            throw new BadFilterPatternException(
-                    String.format("Filter pattern node is not of type %s: %s", expectedType, filterPatternNode));
+        private static Object toComparableValue(String fieldName, JsonNode valueNode) throws BadFilterPatternException {
+            if (valueNode.isTextual()) {
+                return valueNode.textValue();
+            } else if (valueNode.isNumber()) {
+                return valueNode.decimalValue().stripTrailingZeros();
+            } else if (valueNode.isBoolean()) {
+                return valueNode.booleanValue();
+            } else if (valueNode.isNull()) {
+                return NULL_VALUE;
+            }
+
+            throw new BadFilterPatternException(String.format(
+                    "Condition value for field '%s' of array element predicate must be scalar: %s", fieldName, valueNode));
         }
 
-        if (JsonNodeType.ARRAY.equals(expectedType) && filterPatternNode.size() > 1) {
-            throw new BadFilterPatternException("Filter pattern node for ARRAY must contain exactly one element - " +
-                    "as a pattern for all array elements (or just be empty as wildcard)");
+        private static BigDecimal toNumber(String fieldName, JsonNode valueNode) throws BadFilterPatternException {
+            if (!valueNode.isNumber()) {
+                throw new BadFilterPatternException(String.format(
+                        "Range condition value for field '%s' of array element predicate must be a number: %s",
+                        fieldName, valueNode));
+            }
+
+            return valueNode.decimalValue();
         }
     }
 
-    private void assertFilterPatternNodeIsValidForArrayOfPrimitives(JsonToken nextToken, JsonNode arrayElementFilterPatternNode)
-            throws BadFilterPatternException {
-        if (JsonToken.VALUE_NULL.equals(nextToken)) {
-            return;
+    /**
+     * State of a single filtering call
+     */
+    private static class FilteringContext {
+        //tokens read from json data, including FIELD_NAME tokens (excluding tokens of skipped excluded fields)
+        private long readTokens;
+        //tokens written to output, including FIELD_NAME tokens
+        private long outputTokens;
+        //excluded field names per object filter pattern node - so pattern node fields are scanned only once per call,
+        // not for each object of json data (e.g. for each element of array). Null value means "not an exclusion pattern"
+        private Map<JsonNode, Set<String>> excludedFieldNamesByPatternNode;
+
+        //compiled array slices per filter pattern node
+        private Map<JsonNode, ArraySlice> arraySlicesByPatternNode;
+
+        //compiled array element predicates per element filter pattern node
+        private Map<JsonNode, ElementPredicate> elementPredicatesByPatternNode;
+
+        /**
+         * @return compiled predicate if array element filter pattern node has "$where", null otherwise
+         */
+        private ElementPredicate getElementPredicate(JsonNode objectFilterPatternNode) throws BadFilterPatternException {
+            if (objectFilterPatternNode == null || !objectFilterPatternNode.isObject()) {
+                return null;
+            }
+
+            if (elementPredicatesByPatternNode == null) {
+                elementPredicatesByPatternNode = new IdentityHashMap<>();
+            }
+
+            ElementPredicate elementPredicate = elementPredicatesByPatternNode.get(objectFilterPatternNode);
+
+            if (elementPredicate == null) {
+                elementPredicate = ElementPredicate.compile(objectFilterPatternNode);
+                elementPredicatesByPatternNode.put(objectFilterPatternNode, elementPredicate);
+            }
+
+            return elementPredicate != ElementPredicate.NO_ELEMENT_PREDICATE ? elementPredicate : null;
         }
 
-        if (!WILDCARD_NODE.equals(arrayElementFilterPatternNode) && !ABSENT_NODE.equals(arrayElementFilterPatternNode)) {
-            throw new BadFilterPatternException(String.format("Bad filter pattern node for array of primitives: %s",
-                    arrayElementFilterPatternNode));
+        /**
+         * @return compiled array slice if filter pattern node is array slice pattern, null otherwise
+         */
+        private ArraySlice getArraySlice(JsonNode arrayFilterPatternNode) throws BadFilterPatternException {
+            if (arrayFilterPatternNode == null || !arrayFilterPatternNode.isObject()) {
+                return null;
+            }
+
+            if (arraySlicesByPatternNode == null) {
+                arraySlicesByPatternNode = new IdentityHashMap<>();
+            }
+
+            ArraySlice arraySlice = arraySlicesByPatternNode.get(arrayFilterPatternNode);
+
+            if (arraySlice == null) {
+                arraySlice = ArraySlice.compile(arrayFilterPatternNode);
+                arraySlicesByPatternNode.put(arrayFilterPatternNode, arraySlice);
+            }
+
+            return arraySlice != ArraySlice.NOT_ARRAY_SLICE ? arraySlice : null;
         }
-    }
 
-    private void assertTokenIsValid(JsonToken token) throws JsonFilteringException {
-        if (token == JsonToken.NOT_AVAILABLE) {
-            //we are always expecting input json data to be completely loaded and available
-            throw new JsonFilteringException("Got NOT_AVAILABLE token. This should not happen");
+        /**
+         * @return names of fields excluded by object filter pattern, or null if it is not an exclusion pattern.
+         * Empty set for pattern that only has {@link #EXCLUDED_FIELD_PREFIX} marker
+         */
+        private Set<String> getExcludedFieldNames(JsonNode objectFilterPatternNode) {
+            if (excludedFieldNamesByPatternNode == null) {
+                excludedFieldNamesByPatternNode = new IdentityHashMap<>();
+            }
+
+            if (excludedFieldNamesByPatternNode.containsKey(objectFilterPatternNode)) {
+                return excludedFieldNamesByPatternNode.get(objectFilterPatternNode);
+            }
+
+            Set<String> excludedFieldNames = collectExcludedFieldNames(objectFilterPatternNode);
+            excludedFieldNamesByPatternNode.put(objectFilterPatternNode, excludedFieldNames);
+
+            return excludedFieldNames;
         }
 
-        if (UNSUPPORTED_JSON_TOKENS.contains(token)) {
-            throw new JsonFilteringException(token + " json token is not supported");
+        private static Set<String> collectExcludedFieldNames(JsonNode objectFilterPatternNode) {
+            Set<String> excludedFieldNames = null;
+            Iterator<String> patternFieldNames = objectFilterPatternNode.fieldNames();
+
+            while (patternFieldNames.hasNext()) {
+                String patternFieldName = patternFieldNames.next();
+
+                if (patternFieldName.startsWith(EXCLUDED_FIELD_PREFIX)) {
+                    if (excludedFieldNames == null) {
+                        excludedFieldNames = new HashSet<>();
+                    }
+
+                    //bare "-" only switches object to exclusion mode, without excluding anything at this level
+                    if (patternFieldName.length() > EXCLUDED_FIELD_PREFIX.length()) {
+                        excludedFieldNames.add(patternFieldName.substring(EXCLUDED_FIELD_PREFIX.length()));
+                    }
+                }
+            }
+
+            return excludedFieldNames;
         }
     }
 }
@@ -0,0 +1,109 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import io.github.liquidcake.jsonsiever.core.exception.FilteringLimitExceededException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser that stops as soon as json data exceeds {@link FilteringLimits}: nesting depth is checked on each container start,
+ * elapsed time - each {@value #TIME_CHECK_INTERVAL_TOKENS} tokens (so clock is not read on every token)
+ */
+class LimitedJsonParser extends JsonParserDelegate {
+    private static final int TIME_CHECK_INTERVAL_TOKENS = 256;
+
+    private final int maxNestingDepth;
+    private final long maxFilteringMillis;
+    private final long deadlineNanos;
+
+    private int depth;
+    private int tokensSinceTimeCheck;
+
+    LimitedJsonParser(JsonParser dataParser, FilteringLimits filteringLimits) {
+        super(dataParser);
+        this.maxNestingDepth = filteringLimits.getMaxNestingDepth();
+        this.maxFilteringMillis = filteringLimits.getMaxFilteringMillis();
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxFilteringMillis);
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        JsonToken token = delegate.nextToken();
+
+        if (token == null) {
+            return null;
+        }
+
+        if (token.isStructStart()) {
+            depth++;
+
+            if (maxNestingDepth > 0 && depth > maxNestingDepth) {
+                throw new LimitExceededIOException(new FilteringLimitExceededException(
+                        String.format("Nesting depth of json data exceeds %d", maxNestingDepth)));
+            }
+        } else if (token.isStructEnd()) {
+            depth--;
+        }
+
+        if (maxFilteringMillis > 0 && ++tokensSinceTimeCheck >= TIME_CHECK_INTERVAL_TOKENS) {
+            tokensSinceTimeCheck = 0;
+
+            if (System.nanoTime() - deadlineNanos > 0) {
+                throw new LimitExceededIOException(new FilteringLimitExceededException(
+                        String.format("Filtering of json data takes longer than %d ms", maxFilteringMillis)));
+            }
+        }
+
+        return token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        //delegate would skip container without passing its tokens through limit checks
+        JsonToken currentToken = currentToken();
+
+        if (currentToken == null || !currentToken.isStructStart()) {
+            return this;
+        }
+
+        int openContainers = 1;
+
+        while (openContainers > 0) {
+            JsonToken token = nextToken();
+
+            if (token == null) {
+                break;
+            }
+
+            if (token.isStructStart()) {
+                openContainers++;
+            } else if (token.isStructEnd()) {
+                openContainers--;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Carries limit violation through parser methods (which may only throw IOException)
+     */
+    static class LimitExceededIOException extends IOException {
+
+        private LimitExceededIOException(FilteringLimitExceededException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        FilteringLimitExceededException getLimitExceededException() {
+            return (FilteringLimitExceededException) getCause();
+        }
+    }
+}
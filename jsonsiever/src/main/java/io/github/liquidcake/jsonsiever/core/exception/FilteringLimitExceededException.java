@@ -0,0 +1,16 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core.exception;
+
+/**
+ * Json data exceeds {@link io.github.liquidcake.jsonsiever.core.FilteringLimits} - filtering is stopped
+ */
+public class FilteringLimitExceededException extends JsonFilteringException {
+
+    public FilteringLimitExceededException(String message) {
+        super(message);
+    }
+}
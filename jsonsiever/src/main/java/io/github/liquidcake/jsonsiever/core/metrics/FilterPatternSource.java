@@ -0,0 +1,10 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core.metrics;
+
+public enum FilterPatternSource {
+    REGISTERED_ID, HEADER, CLIENT_FILE, DEFAULT_FILE
+}
@@ -0,0 +1,18 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core.metrics;
+
+/**
+ * Reason why original (not filtered) body was returned for endpoint that has filtering configured.
+ * {@link #LIMIT_EXCEEDED} is also recorded if response was rejected because body exceeds endpoint limits, and on filter
+ * pattern resolution - if pattern sent in header exceeds endpoint limits and there is no other pattern for request
+ * (such response is then also counted as {@link #NO_FILTER_PATTERN} when its body is returned as is).
+ * {@link #UNKNOWN_PATTERN_ID} is recorded on filter pattern resolution if client references pattern ID that is not
+ * registered and there is no other pattern (header, file) for request - same as for header pattern exceeding limits
+ */
+public enum FilteringFallbackReason {
+    NO_FILTER_PATTERN, FILTERING_ERROR, LIMIT_EXCEEDED, UNKNOWN_PATTERN_ID
+}
@@ -0,0 +1,189 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simple in-memory {@link JsonFilteringMetrics} implementation based on {@link LongAdder} counters.
+ * Keeps stats per endpoint and per endpoint+client, counters are never reset.
+ * Read stats via {@link #getEndpointStats()} / {@link #getClientStats()} e.g. to export them to monitoring system
+ */
+public class InMemoryJsonFilteringMetrics implements JsonFilteringMetrics {
+
+    /**
+     * Upper bounds (inclusive) of filtering latency histogram buckets, in microseconds.
+     * Last histogram bucket counts everything above the last bound
+     */
+    public static final long[] LATENCY_BUCKET_BOUNDS_MICROS = {
+            50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000
+    };
+
+    private static final String CLIENT_KEY_SEPARATOR = "|";
+
+    private final Map<String, FilteringStats> endpointStats = new ConcurrentHashMap<>();
+    private final Map<String, FilteringStats> clientStats = new ConcurrentHashMap<>();
+
+    private final LongAdder outputTokens = new LongAdder();
+    private final LongAdder skippedTokens = new LongAdder();
+    private final LongAdder headerPatternCacheHits = new LongAdder();
+    private final LongAdder headerPatternCacheMisses = new LongAdder();
+
+    @Override
+    public void recordTokens(long outputTokens, long skippedTokens) {
+        this.outputTokens.add(outputTokens);
+        this.skippedTokens.add(skippedTokens);
+    }
+
+    @Override
+    public void recordFiltering(String endpointPath, String clientId, FilterPatternSource patternSource,
+                                long bytesIn, long bytesOut, long durationNanos) {
+        getStats(endpointStats, endpointPath).recordFiltering(patternSource, bytesIn, bytesOut, durationNanos);
+        getStats(clientStats, endpointPath + CLIENT_KEY_SEPARATOR + clientId)
+                .recordFiltering(patternSource, bytesIn, bytesOut, durationNanos);
+    }
+
+    @Override
+    public void recordHeaderPatternCacheLookup(boolean hit) {
+        (hit ? headerPatternCacheHits : headerPatternCacheMisses).increment();
+    }
+
+    @Override
+    public void recordFallback(String endpointPath, String clientId, FilteringFallbackReason reason) {
+        getStats(endpointStats, endpointPath).recordFallback(reason);
+        getStats(clientStats, endpointPath + CLIENT_KEY_SEPARATOR + clientId).recordFallback(reason);
+    }
+
+    /**
+     * @return stats per endpoint path
+     */
+    public Map<String, FilteringStats> getEndpointStats() {
+        return Collections.unmodifiableMap(endpointStats);
+    }
+
+    /**
+     * @return stats per "endpoint path|client ID"
+     */
+    public Map<String, FilteringStats> getClientStats() {
+        return Collections.unmodifiableMap(clientStats);
+    }
+
+    public long getOutputTokens() {
+        return outputTokens.sum();
+    }
+
+    public long getSkippedTokens() {
+        return skippedTokens.sum();
+    }
+
+    public long getHeaderPatternCacheHits() {
+        return headerPatternCacheHits.sum();
+    }
+
+    public long getHeaderPatternCacheMisses() {
+        return headerPatternCacheMisses.sum();
+    }
+
+    private FilteringStats getStats(Map<String, FilteringStats> statsMap, String key) {
+        FilteringStats stats = statsMap.get(key);
+
+        //avoid computeIfAbsent locking on hot path when stats already exist
+        return stats != null ? stats : statsMap.computeIfAbsent(key, k -> new FilteringStats());
+    }
+
+    public static class FilteringStats {
+        private final LongAdder filteredResponses = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder totalDurationNanos = new LongAdder();
+        private final LongAdder[] latencyHistogram = createAdders(LATENCY_BUCKET_BOUNDS_MICROS.length + 1);
+        private final LongAdder[] patternSources = createAdders(FilterPatternSource.values().length);
+        private final LongAdder[] fallbacks = createAdders(FilteringFallbackReason.values().length);
+
+        private void recordFiltering(FilterPatternSource patternSource, long bytesIn, long bytesOut, long durationNanos) {
+            filteredResponses.increment();
+            this.bytesIn.add(bytesIn);
+            this.bytesOut.add(bytesOut);
+            totalDurationNanos.add(durationNanos);
+            latencyHistogram[getLatencyBucket(durationNanos)].increment();
+
+            if (patternSource != null) {
+                patternSources[patternSource.ordinal()].increment();
+            }
+        }
+
+        private void recordFallback(FilteringFallbackReason reason) {
+            fallbacks[reason.ordinal()].increment();
+        }
+
+        private static int getLatencyBucket(long durationNanos) {
+            long durationMicros = TimeUnit.NANOSECONDS.toMicros(durationNanos);
+
+            for (int i = 0; i < LATENCY_BUCKET_BOUNDS_MICROS.length; i++) {
+                if (durationMicros <= LATENCY_BUCKET_BOUNDS_MICROS[i]) {
+                    return i;
+                }
+            }
+
+            return LATENCY_BUCKET_BOUNDS_MICROS.length;
+        }
+
+        private static LongAdder[] createAdders(int count) {
+            LongAdder[] adders = new LongAdder[count];
+
+            for (int i = 0; i < count; i++) {
+                adders[i] = new LongAdder();
+            }
+
+            return adders;
+        }
+
+        public long getFilteredResponses() {
+            return filteredResponses.sum();
+        }
+
+        public long getBytesIn() {
+            return bytesIn.sum();
+        }
+
+        public long getBytesOut() {
+            return bytesOut.sum();
+        }
+
+        public long getTotalDurationNanos() {
+            return totalDurationNanos.sum();
+        }
+
+        /**
+         * @return counts per latency bucket, see {@link #LATENCY_BUCKET_BOUNDS_MICROS}
+         */
+        public long[] getLatencyHistogram() {
+            return sumAdders(latencyHistogram);
+        }
+
+        public long getPatternSourceCount(FilterPatternSource patternSource) {
+            return patternSources[patternSource.ordinal()].sum();
+        }
+
+        public long getFallbackCount(FilteringFallbackReason reason) {
+            return fallbacks[reason.ordinal()].sum();
+        }
+
+        private static long[] sumAdders(LongAdder[] adders) {
+            long[] result = new long[adders.length];
+
+            for (int i = 0; i < adders.length; i++) {
+                result[i] = adders[i].sum();
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.core.metrics;
+
+/**
+ * Instrumentation SPI - called by json filtering components on each filtering.
+ * All methods are no-op by default, so implementation may override only ones it is interested in.
+ * Implementations must be thread-safe and cheap, since they are called on request path.
+ * <p>
+ * See {@link InMemoryJsonFilteringMetrics} for simple in-memory implementation
+ */
+public interface JsonFilteringMetrics {
+
+    JsonFilteringMetrics NOOP = new JsonFilteringMetrics() {
+    };
+
+    /**
+     * Called by {@link io.github.liquidcake.jsonsiever.core.JsonFilteringService} after each successful filtering
+     *
+     * @param outputTokens  number of json tokens written to filtered output
+     * @param skippedTokens number of json tokens read from json data but filtered out
+     */
+    default void recordTokens(long outputTokens, long skippedTokens) {
+    }
+
+    /**
+     * Called after json body of endpoint response is successfully filtered
+     *
+     * @param endpointPath   path of endpoint as it is configured in settings
+     * @param clientId       client ID that has filter pattern configured for endpoint, or "default"
+     * @param durationNanos  time spent on filtering (not including pattern resolving)
+     */
+    default void recordFiltering(String endpointPath, String clientId, FilterPatternSource patternSource,
+                                 long bytesIn, long bytesOut, long durationNanos) {
+    }
+
+    /**
+     * Called on each lookup of header-based filter pattern in cache of already parsed patterns
+     */
+    default void recordHeaderPatternCacheLookup(boolean hit) {
+    }
+
+    /**
+     * Called when original body is returned for endpoint that has filtering configured
+     */
+    default void recordFallback(String endpointPath, String clientId, FilteringFallbackReason reason) {
+    }
+}
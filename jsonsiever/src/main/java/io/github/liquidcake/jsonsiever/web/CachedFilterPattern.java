@@ -0,0 +1,52 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Filter pattern parsed from header together with its node count, so node limit of endpoint
+ * (<i>maxHeaderPatternNodes</i>) is checked without walking the pattern on each cache lookup
+ */
+public class CachedFilterPattern {
+    private final JsonNode filterPattern;
+    private final int nodeCount;
+
+    public CachedFilterPattern(JsonNode filterPattern) {
+        this.filterPattern = filterPattern;
+        this.nodeCount = countNodes(filterPattern);
+    }
+
+    public JsonNode getFilterPattern() {
+        return filterPattern;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    private static int countNodes(JsonNode filterPattern) {
+        Deque<JsonNode> pendingNodes = new ArrayDeque<>();
+        int nodes = 1;
+
+        pendingNodes.push(filterPattern);
+
+        while (!pendingNodes.isEmpty()) {
+            Iterator<JsonNode> childNodes = pendingNodes.pop().elements();
+
+            while (childNodes.hasNext()) {
+                nodes++;
+                pendingNodes.push(childNodes.next());
+            }
+        }
+
+        return nodes;
+    }
+}
@@ -12,4 +12,18 @@ public interface DynamicJsonFiltersCacheWrapper {
     JsonNode get(String key);
 
     void putIfAbsent(String filterPatternHeaderValue, JsonNode parsedFilterPattern);
+
+    /**
+     * @return cached pattern together with its node count. Default implementation counts nodes on each call -
+     * override it (and {@link #putIfAbsent(String, CachedFilterPattern)}) to keep node count with cached pattern
+     */
+    default CachedFilterPattern getWithNodeCount(String key) {
+        JsonNode filterPattern = get(key);
+
+        return filterPattern != null ? new CachedFilterPattern(filterPattern) : null;
+    }
+
+    default void putIfAbsent(String filterPatternHeaderValue, CachedFilterPattern parsedFilterPattern) {
+        putIfAbsent(filterPatternHeaderValue, parsedFilterPattern.getFilterPattern());
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import jakarta.servlet.ServletRequest;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Fields that will remain in response after filtering, as resolved for current request before controller is called.
+ * Lets application skip loading or computing fields that client will never receive (e.g. choose lighter DB projection).
+ * <p>
+ * Available as request attribute {@link #REQUEST_ATTRIBUTE} (see {@link #fromRequest(ServletRequest)}) or as
+ * controller method argument if {@link FieldSelectionArgumentResolver} is registered.
+ * <p>
+ * Paths are dot-separated field names, "[]" suffix means "elements of array", e.g. "items[].price", "matrix[][].id".
+ * Answers are conservative: if it can't be told from filter pattern that field is filtered out - it is considered selected.
+ * Fields used by array element predicates ("$where") are considered selected, since they are needed for filtering
+ */
+public class FieldSelection {
+    public static final String REQUEST_ATTRIBUTE = FieldSelection.class.getName();
+
+    /**
+     * Selection for requests that are not filtered at all
+     */
+    public static final FieldSelection ALL = new FieldSelection(null);
+
+    private static final String ARRAY_ELEMENTS_SUFFIX = "[]";
+    private static final JsonNode SELECTED_AS_WHOLE_NODE = IntNode.valueOf(1);
+
+    //null if response is not filtered
+    private final ResolvedFilterPattern resolvedFilterPattern;
+
+    public FieldSelection(ResolvedFilterPattern resolvedFilterPattern) {
+        this.resolvedFilterPattern = resolvedFilterPattern;
+    }
+
+    /**
+     * @return selection resolved for request, or {@link #ALL} if request is not filtered
+     */
+    public static FieldSelection fromRequest(ServletRequest request) {
+        Object fieldSelection = request.getAttribute(REQUEST_ATTRIBUTE);
+
+        return fieldSelection instanceof FieldSelection ? (FieldSelection) fieldSelection : ALL;
+    }
+
+    /**
+     * @return true if whole response is returned as is
+     */
+    public boolean isAllSelected() {
+        return resolvedFilterPattern == null || isFullySelectedNode(resolvedFilterPattern.getFilterPattern());
+    }
+
+    /**
+     * @return true if field at path (or some part of it, for objects and arrays) will be present in response
+     */
+    public boolean isSelected(String path) {
+        return isAllSelected() || findFilterPatternNode(path) != null;
+    }
+
+    /**
+     * @return true if field at path will be present in response with all its content (nothing filtered inside it)
+     */
+    public boolean isFullySelected(String path) {
+        if (isAllSelected()) {
+            return true;
+        }
+
+        JsonNode filterPatternNode = findFilterPatternNode(path);
+
+        return filterPatternNode != null && isFullySelectedNode(filterPatternNode);
+    }
+
+    /**
+     * @param path path to object (or array of objects, with "[]" suffix), or empty string for root object
+     * @return names of object fields that will be present in response. Empty if object is not selected, is
+     * {@link #isFullySelected(String) fully selected} or its fields are selected by exclusion ("-field") pattern
+     */
+    public Set<String> getSelectedFields(String path) {
+        if (isAllSelected()) {
+            return Collections.emptySet();
+        }
+
+        JsonNode filterPatternNode = path.isEmpty()
+                ? resolvedFilterPattern.getFilterPattern()
+                : findFilterPatternNode(path);
+
+        if (filterPatternNode == null || !filterPatternNode.isObject() || isFullySelectedNode(filterPatternNode)
+                || hasExcludedFields(filterPatternNode)) {
+            return Collections.emptySet();
+        }
+
+        JsonNode predicateNode = filterPatternNode.get(JsonFilteringService.ELEMENT_PREDICATE);
+
+        if (predicateNode != null && filterPatternNode.size() == 1) {
+            //predicate alone - whole element is selected
+            return Collections.emptySet();
+        }
+
+        Set<String> selectedFields = new LinkedHashSet<>();
+        Iterator<String> fieldNames = filterPatternNode.fieldNames();
+
+        while (fieldNames.hasNext()) {
+            String fieldName = fieldNames.next();
+
+            if (!JsonFilteringService.ELEMENT_PREDICATE.equals(fieldName)) {
+                selectedFields.add(fieldName);
+            }
+        }
+
+        if (predicateNode != null) {
+            //fields used by predicate must be present in data for response to be filtered
+            predicateNode.fieldNames().forEachRemaining(selectedFields::add);
+        }
+
+        return selectedFields;
+    }
+
+    Optional<ResolvedFilterPattern> getResolvedFilterPattern() {
+        return Optional.ofNullable(resolvedFilterPattern);
+    }
+
+    /**
+     * @return filter pattern node for path, or null if path is filtered out. If wildcard or leaf node is met on the way -
+     * it is returned (everything below it is selected)
+     */
+    private JsonNode findFilterPatternNode(String path) {
+        JsonNode node = resolvedFilterPattern.getFilterPattern();
+        int segmentStart = 0;
+
+        while (segmentStart <= path.length()) {
+            int segmentEnd = path.indexOf('.', segmentStart);
+
+            if (segmentEnd < 0) {
+                segmentEnd = path.length();
+            }
+
+            int nameEnd = segmentEnd;
+            int arrayDepth = 0;
+
+            while (nameEnd - segmentStart >= ARRAY_ELEMENTS_SUFFIX.length()
+                    && path.startsWith(ARRAY_ELEMENTS_SUFFIX, nameEnd - ARRAY_ELEMENTS_SUFFIX.length())) {
+                nameEnd -= ARRAY_ELEMENTS_SUFFIX.length();
+                arrayDepth++;
+            }
+
+            if (nameEnd > segmentStart) {
+                if (isFullySelectedNode(node)) {
+                    return node;
+                }
+
+                if (!node.isObject()) {
+                    //pattern doesn't match data structure - can't tell
+                    return node;
+                }
+
+                String fieldName = path.substring(segmentStart, nameEnd);
+                JsonNode fieldNode = node.get(fieldName);
+
+                if (node.has(JsonFilteringService.ELEMENT_PREDICATE) && fieldNode == null) {
+                    //array element pattern with predicate - fields used by predicate are needed to filter response,
+                    // predicate alone means "whole element"
+                    if (node.get(JsonFilteringService.ELEMENT_PREDICATE).has(fieldName) || node.size() == 1) {
+                        return SELECTED_AS_WHOLE_NODE;
+                    }
+                }
+
+                if (hasExcludedFields(node)) {
+                    //exclusion pattern - all fields except excluded ones are selected
+                    if (node.has(JsonFilteringService.EXCLUDED_FIELD_PREFIX + fieldName)) {
+                        return null;
+                    }
+
+                    if (fieldNode == null) {
+                        return SELECTED_AS_WHOLE_NODE;
+                    }
+                }
+
+                node = fieldNode;
+
+                if (node == null) {
+                    return null;
+                }
+            }
+
+            for (int i = 0; i < arrayDepth; i++) {
+                if (isArraySliceNode(node)) {
+                    //array slice pattern ({"$limit": 10, "$each": {...}}) - element pattern is optional
+                    node = node.has(JsonFilteringService.ARRAY_SLICE_EACH)
+                            ? node.get(JsonFilteringService.ARRAY_SLICE_EACH)
+                            : SELECTED_AS_WHOLE_NODE;
+                    continue;
+                }
+
+                if (isFullySelectedNode(node) || !node.isArray()) {
+                    return node;
+                }
+
+                node = node.get(0);
+            }
+
+            segmentStart = segmentEnd + 1;
+        }
+
+        return node;
+    }
+
+    private static boolean isArraySliceNode(JsonNode node) {
+        return node.isObject() && (node.has(JsonFilteringService.ARRAY_SLICE_LIMIT)
+                || node.has(JsonFilteringService.ARRAY_SLICE_OFFSET)
+                || node.has(JsonFilteringService.ARRAY_SLICE_EACH));
+    }
+
+    private static boolean hasExcludedFields(JsonNode objectFilterPatternNode) {
+        Iterator<String> fieldNames = objectFilterPatternNode.fieldNames();
+
+        while (fieldNames.hasNext()) {
+            if (fieldNames.next().startsWith(JsonFilteringService.EXCLUDED_FIELD_PREFIX)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isFullySelectedNode(JsonNode node) {
+        //leaf value (e.g. 1, or "*" for root) or empty container wildcard
+        return !node.isContainerNode() || node.isEmpty();
+    }
+}
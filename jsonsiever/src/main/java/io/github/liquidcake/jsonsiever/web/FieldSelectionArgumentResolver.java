@@ -0,0 +1,43 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import jakarta.servlet.ServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+// @formatter:off
+/**
+ * Resolves {@link FieldSelection} controller method arguments. Register it in Spring MVC configuration e.g.
+ * <pre>
+    {@literal @}Configuration
+    public class WebConfig implements WebMvcConfigurer {
+        {@literal @}Override
+        public void addArgumentResolvers(List&lt;HandlerMethodArgumentResolver&gt; resolvers) {
+            resolvers.add(new FieldSelectionArgumentResolver());
+        }
+    }
+ * </pre>
+ * */
+//@formatter:on
+public class FieldSelectionArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return FieldSelection.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        ServletRequest request = webRequest.getNativeRequest(ServletRequest.class);
+
+        return request != null ? FieldSelection.fromRequest(request) : FieldSelection.ALL;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import io.github.liquidcake.jsonsiever.core.FilterPatternBinaryCodec;
+
+/**
+ * Shared byte-oriented storage of parsed filter patterns (e.g. wrapper around Redis or Memcached), used as L2 cache by
+ * {@link TwoTierDynamicJsonFiltersCacheWrapper}. Values are filter patterns encoded with {@link FilterPatternBinaryCodec}.
+ * <p>
+ * Implementation may hash keys (keys contain filter pattern header values, which may be long) and expire values as needed.
+ * Storage failures should be thrown as runtime exceptions - they are logged and treated as cache miss
+ */
+public interface FilterPatternBinaryStore {
+
+    /**
+     * @return encoded filter pattern, or null if there is none for key
+     */
+    byte[] get(String key);
+
+    void putIfAbsent(String key, byte[] encodedFilterPattern);
+}
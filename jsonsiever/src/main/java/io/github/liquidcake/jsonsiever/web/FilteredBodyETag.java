@@ -0,0 +1,86 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Strong ETag of filtered response body - CRC32C checksum and length of filtered bytes. Filtered body depends on
+ * filter pattern, so ETag is computed from filtered bytes rather than from original body: clients with different
+ * patterns get different ETags for same resource.
+ * <p>
+ * Checksum is updated as filtered bytes are written (see {@link #wrap(OutputStream)}), so body is not read twice
+ */
+public class FilteredBodyETag {
+
+    private final CRC32C checksum = new CRC32C();
+    private long length;
+
+    public void update(byte[] b, int off, int len) {
+        checksum.update(b, off, len);
+        length += len;
+    }
+
+    /**
+     * @return quoted ETag value, e.g. <i>"1f4-8a3c0e12"</i>
+     */
+    public String getValue() {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(checksum.getValue()) + "\"";
+    }
+
+    /**
+     * @return stream that updates checksum with bytes written to given stream. Flush is not passed to given stream,
+     * so response body that fits response buffer is not committed when filtering completes and ETag may still be set
+     */
+    public OutputStream wrap(OutputStream outputStream) {
+        return new FilterOutputStream(outputStream) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                checksum.update(b);
+                length++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                update(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                //body is flushed by caller
+            }
+        };
+    }
+
+    /**
+     * @param ifNoneMatch value of <i>If-None-Match</i> request header, may be null
+     * @return true if header lists given ETag or is <i>*</i> (weak comparison, as required for <i>If-None-Match</i>)
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String requestETag : ifNoneMatch.split(",")) {
+            requestETag = requestETag.trim();
+
+            if (requestETag.startsWith("W/")) {
+                requestETag = requestETag.substring(2);
+            }
+
+            if (requestETag.equals("*") || requestETag.equals(etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
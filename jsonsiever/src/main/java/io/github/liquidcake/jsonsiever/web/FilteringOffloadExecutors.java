@@ -0,0 +1,71 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for filtering of large response bodies outside of servlet container threads,
+ * see {@link JsonResponseBodyFilter#JsonResponseBodyFilter(JsonResponseFilterApplier, Executor)}.
+ * <p>
+ * Filtering is CPU-bound, so number of concurrently filtered bodies should be bounded (e.g. by number of CPU cores)
+ */
+public final class FilteringOffloadExecutors {
+    private static final String THREAD_NAME_PREFIX = "jsonsiever-filter-";
+
+    private FilteringOffloadExecutors() {
+    }
+
+    /**
+     * @param threads       number of filtering threads
+     * @param queueCapacity max number of bodies waiting for filtering thread. When queue is full - task is rejected
+     *                      and body is filtered on container thread as usual
+     * @return fixed thread pool with bounded queue (daemon threads)
+     */
+    public static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+        AtomicInteger threadCounter = new AtomicInteger();
+
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Limits number of concurrently running tasks of passed executor - task waits for permit on thread it is started on.
+     * Intended for executors that start a thread per task cheaply, e.g. virtual threads executor (Java 21+):
+     * <pre>
+     * FilteringOffloadExecutors.newConcurrencyLimitedExecutor(
+     *         Executors.newVirtualThreadPerTaskExecutor(), Runtime.getRuntime().availableProcessors());
+     * </pre>
+     *
+     * @param taskExecutor       executor that runs tasks
+     * @param maxConcurrentTasks max number of tasks running at the same time
+     */
+    public static Executor newConcurrencyLimitedExecutor(Executor taskExecutor, int maxConcurrentTasks) {
+        Semaphore permits = new Semaphore(maxConcurrentTasks);
+
+        return task -> taskExecutor.execute(() -> {
+            permits.acquireUninterruptibly();
+
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import io.github.liquidcake.jsonsiever.core.metrics.FilterPatternSource;
+import jakarta.servlet.ServletRequest;
+
+import java.util.Locale;
+
+/**
+ * Cost breakdown of filtering of single response, to tell at once whether application or filtering is slow:
+ * time spent in application (controller chain, excluding body capture), in body capture, in filter pattern resolution
+ * (parsing of header pattern or cache lookup) and in {@link io.github.liquidcake.jsonsiever.core.JsonFilteringService},
+ * with input and output body sizes.
+ * <p>
+ * Collected only for endpoints with <i>serverTimingEnabled</i> set. Available as request attribute
+ * {@link #REQUEST_ATTRIBUTE} (see {@link #fromRequest(ServletRequest)}) - e.g. for access log, since {@link #toString()}
+ * returns {@link #SERVER_TIMING_HEADER} value - and sent in this header with filtered response
+ * (if response is not committed yet when filtering completes, otherwise header is sent without filtering part)
+ */
+public class FilteringTimings {
+    public static final String REQUEST_ATTRIBUTE = FilteringTimings.class.getName();
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final long startNanos;
+    //-1 until recorded
+    private long appNanos = -1;
+    private long captureNanos;
+    private long patternNanos = -1;
+    private FilterPatternSource patternSource;
+    private long filterNanos = -1;
+    private long inputBytes;
+    private long outputBytes;
+
+    public FilteringTimings() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} when request processing started
+     */
+    public FilteringTimings(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * @return timings collected for request, or null if they are not collected for it
+     */
+    public static FilteringTimings fromRequest(ServletRequest request) {
+        Object filteringTimings = request.getAttribute(REQUEST_ATTRIBUTE);
+
+        return filteringTimings instanceof FilteringTimings ? (FilteringTimings) filteringTimings : null;
+    }
+
+    /**
+     * @param patternSource null if no filter pattern was found for request
+     */
+    public void recordPatternResolution(long nanos, FilterPatternSource patternSource) {
+        this.patternNanos = nanos;
+        this.patternSource = patternSource;
+    }
+
+    public void addCaptureNanos(long nanos) {
+        captureNanos += nanos;
+    }
+
+    /**
+     * Application is done with response - all time since start, except pattern resolution and body capture,
+     * is application time (for async requests - including time between dispatches)
+     */
+    public void markApplicationDone(long nowNanos) {
+        appNanos = Math.max(nowNanos - startNanos - Math.max(patternNanos, 0) - captureNanos, 0);
+    }
+
+    public void recordFiltering(long nanos, long inputBytes, long outputBytes) {
+        this.filterNanos = nanos;
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+    }
+
+    public long getAppNanos() {
+        return appNanos;
+    }
+
+    public long getCaptureNanos() {
+        return captureNanos;
+    }
+
+    public long getPatternNanos() {
+        return patternNanos;
+    }
+
+    public FilterPatternSource getPatternSource() {
+        return patternSource;
+    }
+
+    public long getFilterNanos() {
+        return filterNanos;
+    }
+
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /**
+     * @return {@link #SERVER_TIMING_HEADER} value, e.g.
+     * <i>app;dur=12.345, capture;dur=0.210, pattern;dur=0.050;desc="HEADER", filter;dur=3.100;desc="in=10240 out=512"</i>
+     * (durations in milliseconds, parts that are not recorded yet are omitted)
+     */
+    @Override
+    public String toString() {
+        StringBuilder serverTiming = new StringBuilder();
+
+        if (appNanos >= 0) {
+            appendMetric(serverTiming, "app", appNanos, null);
+        }
+
+        appendMetric(serverTiming, "capture", captureNanos, null);
+
+        if (patternNanos >= 0) {
+            appendMetric(serverTiming, "pattern", patternNanos, patternSource != null ? patternSource.name() : "NONE");
+        }
+
+        if (filterNanos >= 0) {
+            appendMetric(serverTiming, "filter", filterNanos, "in=" + inputBytes + " out=" + outputBytes);
+        }
+
+        return serverTiming.toString();
+    }
+
+    private static void appendMetric(StringBuilder serverTiming, String name, long nanos, String description) {
+        if (serverTiming.length() > 0) {
+            serverTiming.append(", ");
+        }
+
+        serverTiming.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+
+        if (description != null) {
+            serverTiming.append(";desc=\"").append(description).append('"');
+        }
+    }
+}
@@ -7,6 +7,9 @@ package io.github.liquidcake.jsonsiever.web;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidcake.jsonsiever.core.CompactFilterPatternParser;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -16,6 +19,13 @@ import org.yaml.snakeyaml.constructor.Constructor;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Optional;
 
 @Component
@@ -36,7 +46,7 @@ public class JsonFilteringUtils {
                 return Optional.empty();
             }
 
-            return Optional.ofNullable(objectMapper.readTree(inputStream));
+            return Optional.ofNullable(parseFilterPattern(inputStream));
         } catch (IOException e) {
             log.warn("Failed to parse json filter pattern file in classpath: {}", path, e);
 
@@ -44,6 +54,90 @@ public class JsonFilteringUtils {
         }
     }
 
+    public JsonNode parseFilterPattern(InputStream inputStream) throws IOException {
+        return parseFilterPattern(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses filter pattern written either as json or in compact syntax (see {@link CompactFilterPatternParser})
+     * and validates its structure (see {@link JsonFilteringService#validateFilterPattern(JsonNode)})
+     */
+    public JsonNode parseFilterPattern(String filterPattern) throws IOException {
+        try {
+            JsonNode parsedFilterPattern = CompactFilterPatternParser.isCompactFilterPattern(filterPattern)
+                    ? CompactFilterPatternParser.parse(filterPattern)
+                    : objectMapper.readTree(filterPattern);
+
+            //bad pattern is rejected once here, instead of failing on each filtered body
+            JsonFilteringService.validateFilterPattern(parsedFilterPattern);
+
+            return parsedFilterPattern;
+        } catch (BadFilterPatternException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    public Optional<byte[]> readClasspathFileAsBytes(String path) {
+        try (InputStream inputStream = this.getClass().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                return Optional.empty();
+            }
+
+            return Optional.of(inputStream.readAllBytes());
+        } catch (IOException e) {
+            log.warn("Failed to read file in classpath: {}", path, e);
+
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Calculates content hash of filter pattern - lowercase hex SHA-256 of pattern serialized as compact json
+     * (no whitespaces, fields in the same order as in pattern file).
+     * Clients may send this hash instead of registered pattern ID
+     */
+    public String calculateFilterPatternHash(JsonNode filterPattern) {
+        try {
+            byte[] compactJson = objectMapper.writeValueAsBytes(filterPattern);
+
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(compactJson));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to calculate json filter pattern hash", e);
+        }
+    }
+
+    /**
+     * @return last modification time of classpath file, if it is resolved to a filesystem file (not packed into jar etc.)
+     */
+    public Optional<Long> getClasspathFileLastModifiedMillis(String path) {
+        String resourceName = path.startsWith("/") ? path.substring(1) : path;
+        URL resourceUrl = this.getClass().getClassLoader().getResource(resourceName);
+
+        if (resourceUrl == null || !"file".equals(resourceUrl.getProtocol())) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Files.getLastModifiedTime(Path.of(resourceUrl.toURI())).toMillis());
+        } catch (Exception e) {
+            log.warn("Failed to get last modification time of classpath file: {}", path, e);
+
+            return Optional.empty();
+        }
+    }
+
+    public <T> Optional<T> parseYamlAs(String yamlContent, Class<?> clazz) {
+        Yaml yaml = new Yaml(new Constructor(clazz, new LoaderOptions()));
+
+        try {
+            return Optional.ofNullable(yaml.load(yamlContent));
+        } catch (Exception e) {
+            log.warn("Error while parsing json filtering configuration", e);
+
+            return Optional.empty();
+        }
+    }
+
     public <T> Optional<T> readClasspathYamlFileAs(String path, Class<?> clazz) {
         Yaml yaml = new Yaml(new Constructor(clazz, new LoaderOptions()));
 
@@ -5,33 +5,79 @@
 
 package io.github.liquidcake.jsonsiever.web;
 
+import io.github.liquidcake.jsonsiever.core.exception.FilteringLimitExceededException;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.core.metrics.FilteringFallbackReason;
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.AsyncEvent;
 import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Servlet filer to be used. See {@link io.github.liquidcake.jsonsiever.web.config.JsonFilteringConfig}
+ * <p>
+ * If offload executor is set (see {@link FilteringOffloadExecutors}) - bodies of endpoints with
+ * <i>offloadThresholdBytes</i> set, that are not smaller than threshold, are filtered on this executor:
+ * request is switched to async mode and container thread is released while body is filtered
+ * <p>
+ * For async requests body is captured only once: response wrapper created on initial dispatch is kept in request attribute
+ * {@link #ASYNC_RESPONSE_WRAPPER_ATTRIBUTE}, async dispatch writes body into it and filtered body is written directly
+ * to real response
+ * <p>
+ * If body exceeds resource limits of endpoint (see {@link JsonFilteringSettings}) - original body is returned,
+ * or, if endpoint has <i>rejectOnLimitExceeded</i> set, response is rejected with empty body and <i>rejectStatusCode</i>
+ * <p>
+ * If endpoint has <i>etagEnabled</i> set - ETag is computed from filtered body as it is written
+ * (see {@link FilteredBodyETag}). Filtered body that doesn't fit response buffer is already sent to client
+ * when filtering completes, so streamed bodies get ETag only if response buffer is large enough to hold them
+ * <p>
+ * If endpoint has <i>serverTimingEnabled</i> set - filtering cost breakdown of request is collected in request attribute
+ * and sent in Server-Timing header of captured responses (see {@link FilteringTimings})
+ * <p>
+ * Captured body larger than <i>spillThresholdBytes</i> of endpoint is kept in temporary file instead of heap
+ * (see {@link SpillableCaptureBuffer}) and is filtered by streaming engine from memory-mapped file
  */
 public class JsonResponseBodyFilter extends OncePerRequestFilter {
    private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+    public static final String ASYNC_RESPONSE_WRAPPER_ATTRIBUTE =
+            JsonResponseBodyFilter.class.getName() + ".ASYNC_RESPONSE_WRAPPER";
+
     private final JsonResponseFilterApplier jsonResponseFilterApplier;
+    //null if filtering is never offloaded from container threads
+    private final Executor offloadExecutor;
 
     public JsonResponseBodyFilter(JsonResponseFilterApplier jsonResponseFilterApplier) {
+        this(jsonResponseFilterApplier, null);
+    }
+
+    /**
+     * @param offloadExecutor executor for filtering of large bodies (see <i>offloadThresholdBytes</i> endpoint setting).
+     *                        If it rejects task - body is filtered on container thread
+     */
+    public JsonResponseBodyFilter(JsonResponseFilterApplier jsonResponseFilterApplier, Executor offloadExecutor) {
         this.jsonResponseFilterApplier = jsonResponseFilterApplier;
+        this.offloadExecutor = offloadExecutor;
     }
 
     protected boolean shouldNotFilterAsyncDispatch() {
@@ -65,58 +111,400 @@ public class JsonResponseBodyFilter extends OncePerRequestFilter {
         }
 
         /* If we have json filtering settings for this endpoint
-        - proceed with proxy response wrapper and later try to filter response body */
-        
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        - proceed with proxy response wrapper and later try to filter response body.
+        Wrapper decides whether body must be captured at all when body writing starts (based on status and content type) */
+
+        JsonFilteringSettings.Endpoint endpoint = endpointOpt.get();
+        FilteringTimings filteringTimings = getOrCreateFilteringTimings(request, endpoint);
+
+        //resolve filter pattern before controller is called, so application may skip loading fields that will be filtered out
+        jsonResponseFilterApplier.resolveFieldSelection(endpoint, request, requestPathKey);
 
-        chain.doFilter(request, responseWrapper);
+        JsonResponseCaptureWrapper responseWrapper = findAsyncResponseWrapper(request, response);
+
+        if (responseWrapper != null) {
+            //this is a 'second' step of async request processing - response of async dispatch wraps response wrapper
+            // of 'first' step, so body written by controller is captured by 'first' wrapper and is not copied again
+            chain.doFilter(request, response);
+        } else {
+            responseWrapper = new JsonResponseCaptureWrapper(response, endpoint, filteringTimings);
+
+            try {
+                chain.doFilter(request, responseWrapper);
+            } catch (IOException | ServletException | RuntimeException e) {
+                //captured body is never written - release it (and its spill file) right away
+                responseWrapper.discardCapturedBody();
+
+                throw e;
+            }
+        }
 
         if (request.isAsyncStarted()) {
-            //if request is async - this filter will be called 2 times - this is a 'first' time,
-            // and then on 'second' time request.isAsyncStarted() will return false.
-            //At this 'first' step of async request processing (which is not writing data to user yet) - add callback
-            // so our 'first' response wrapper instance will write its body to real response when async processing is complete.
-            //Right now this 'first' wrapper instance has empty body but data will appear inside it after 'second' step of
-            // async request processing finishes (data will be written by controller to 'second' wrapper instance, then we will
-            // filter/write it to 'second' request output stream, and then data will appear also in 'first' wrapper)
-            request.getAsyncContext().addListener(new AsyncListener() {
-                public void onComplete(AsyncEvent asyncEvent) throws IOException {
-                    responseWrapper.copyBodyToResponse();
-                }
+            if (request.getAttribute(ASYNC_RESPONSE_WRAPPER_ATTRIBUTE) == null) {
+                registerAsyncResponseWrapper(request, responseWrapper);
+            }
 
-                public void onTimeout(AsyncEvent asyncEvent) throws IOException {
-                }
+            return;
+        }
 
-                public void onError(AsyncEvent asyncEvent) throws IOException {
-                }
+        request.removeAttribute(ASYNC_RESPONSE_WRAPPER_ATTRIBUTE);
 
-                public void onStartAsync(AsyncEvent asyncEvent) throws IOException {
-                }
-            });
+        if (filteringTimings != null) {
+            filteringTimings.markApplicationDone(System.nanoTime());
+        }
+
+        if (responseWrapper.isBodySizeLimitExceeded()) {
+            recordFallback(request, endpoint, FilteringFallbackReason.LIMIT_EXCEEDED);
+        }
 
+        //if this is a usual sync request, or a 'second' step of processing for async request -
+        // check if body was captured and pick filtering engine based on its size (json expected).
+        //Filtered body is written directly to real response
+        if (responseWrapper.isPassthrough()) {
+            //body is already written to real response as is
             return;
         }
 
-        //if this is a usual sync request, or a 'second' step of processing for async request - get response body (json expected)
-        //from response wrapper and apply json filter to it. Then write filtered response body to real response object
-        //NOTE: we could get inputStream from wrapper and write data directly to outputStream of request. But tests didnt show any RAM saving
-        byte[] originalBody = responseWrapper.getContentAsByteArray();
-        byte[] responseBody;
+        HttpServletResponse rawResponse = responseWrapper.getRawResponse();
+
+        if (responseWrapper.isRejected()) {
+            rejectResponse(rawResponse, endpoint, requestPathKey);
+            return;
+        }
+
+        ResponseFilteringStrategy strategy =
+                ResponseFilteringStrategy.selectForCapturedBody(endpoint, responseWrapper.getContentSize());
+
+        //spilled body is not loaded back to heap - it is filtered from memory-mapped file
+        if (ResponseFilteringStrategy.IN_MEMORY.equals(strategy) && responseWrapper.isContentSpilled()) {
+            strategy = ResponseFilteringStrategy.STREAMING;
+        }
 
-        if (originalBody.length > 0) {
+        if (shouldOffloadFiltering(request, endpoint, strategy, responseWrapper.getContentSize())) {
+            offloadWriteFilteredBody(request, response, rawResponse, responseWrapper, endpoint, requestPathKey, strategy);
+            return;
+        }
+
+        writeFilteredBody(request, rawResponse, responseWrapper, endpoint, requestPathKey, strategy);
+    }
+
+    /**
+     * @return timings of request (created on 'first' step of async request), or null if endpoint doesn't collect them
+     */
+    private FilteringTimings getOrCreateFilteringTimings(HttpServletRequest request,
+                                                         JsonFilteringSettings.Endpoint endpoint) {
+        if (!endpoint.isServerTimingEnabled()) {
+            return null;
+        }
+
+        FilteringTimings filteringTimings = FilteringTimings.fromRequest(request);
+
+        if (filteringTimings == null) {
+            filteringTimings = new FilteringTimings();
+
+            request.setAttribute(FilteringTimings.REQUEST_ATTRIBUTE, filteringTimings);
+        }
+
+        return filteringTimings;
+    }
+
+    /**
+     * @return response wrapper of 'first' step of async request processing, if current response writes into it
+     */
+    private JsonResponseCaptureWrapper findAsyncResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+        Object asyncResponseWrapper = request.getAttribute(ASYNC_RESPONSE_WRAPPER_ATTRIBUTE);
+
+        if (!(asyncResponseWrapper instanceof JsonResponseCaptureWrapper)) {
+            return null;
+        }
+
+        //async processing may be started with original response (startAsync() without arguments) -
+        // then body is not written into 'first' wrapper and must be captured again
+        if (response == asyncResponseWrapper || (response instanceof ServletResponseWrapper
+                && ((ServletResponseWrapper) response).isWrapperFor((ServletResponse) asyncResponseWrapper))) {
+            return (JsonResponseCaptureWrapper) asyncResponseWrapper;
+        }
+
+        return null;
+    }
+
+    /**
+     * If request is async - this filter will be called 2 times - this is a 'first' time, and then on 'second' time
+     * request.isAsyncStarted() will return false. Response wrapper of 'first' step is kept in request attribute,
+     * so 'second' step filters body captured by it.
+     * <p>
+     * If async processing completes without 'second' step (body is written from another thread) - captured body
+     * is written to real response as is on completion
+     */
+    private void registerAsyncResponseWrapper(HttpServletRequest request, JsonResponseCaptureWrapper responseWrapper) {
+        request.setAttribute(ASYNC_RESPONSE_WRAPPER_ATTRIBUTE, responseWrapper);
+
+        request.getAsyncContext().addListener(new AsyncListener() {
+            public void onComplete(AsyncEvent asyncEvent) throws IOException {
+                //no-op if body was already written on 'second' step
+                responseWrapper.copyBodyToResponse();
+            }
+
+            public void onTimeout(AsyncEvent asyncEvent) throws IOException {
+            }
+
+            public void onError(AsyncEvent asyncEvent) throws IOException {
+            }
+
+            public void onStartAsync(AsyncEvent asyncEvent) throws IOException {
+                //request is switched to async mode again (e.g. filtering is offloaded on 'second' step) -
+                // listener must be registered again to get notified on completion
+                asyncEvent.getAsyncContext().addListener(this);
+            }
+        });
+    }
+
+    private boolean shouldOffloadFiltering(HttpServletRequest request, JsonFilteringSettings.Endpoint endpoint,
+                                           ResponseFilteringStrategy strategy, int bodySize) {
+        return offloadExecutor != null
+                && endpoint.getOffloadThresholdBytes() > 0
+                && bodySize >= endpoint.getOffloadThresholdBytes()
+                && !ResponseFilteringStrategy.PASSTHROUGH.equals(strategy)
+                && request.isAsyncSupported();
+    }
+
+    /**
+     * Switches request to async mode and filters body on offload executor, so container thread is released
+     * while body is filtered. If executor rejects task - body is filtered on current thread
+     */
+    private void offloadWriteFilteredBody(HttpServletRequest request, HttpServletResponse response,
+                                          HttpServletResponse rawResponse, JsonResponseCaptureWrapper responseWrapper,
+                                          JsonFilteringSettings.Endpoint endpoint, String requestPathKey,
+                                          ResponseFilteringStrategy strategy) {
+        AsyncContext asyncContext = request.startAsync(request, response);
+
+        Runnable filteringTask = () -> {
             try {
-                responseBody = jsonResponseFilterApplier.applyJsonFilterToResponseBody(
-                        originalBody, endpointOpt.get(), request, requestPathKey);
+                writeFilteredBody(request, rawResponse, responseWrapper, endpoint, requestPathKey, strategy);
             } catch (Exception e) {
-                //in case of any error - default to original body
-                responseBody = originalBody;
+                log.error("Failed to write filtered response body for request '{}'", requestPathKey, e);
+            } finally {
+                asyncContext.complete();
             }
-        } else {
+        };
+
+        try {
+            offloadExecutor.execute(filteringTask);
+        } catch (RejectedExecutionException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Json filtering offload executor is saturated, filtering request '{}' on container thread",
+                        requestPathKey);
+            }
+
+            filteringTask.run();
+        }
+    }
+
+    private void writeFilteredBody(HttpServletRequest request, HttpServletResponse response,
+                                   JsonResponseCaptureWrapper responseWrapper,
+                                   JsonFilteringSettings.Endpoint endpoint, String requestPathKey,
+                                   ResponseFilteringStrategy strategy)
+            throws ServletException, IOException {
+        try {
+            switch (strategy) {
+                case IN_MEMORY: {
+                    writeFilteredInMemory(request, response, responseWrapper, endpoint, requestPathKey);
+                    break;
+                }
+                case STREAMING: {
+                    writeFilteredStreaming(request, response, responseWrapper, endpoint, requestPathKey);
+                    break;
+                }
+                default: {
+                    setServerTimingHeader(request, response);
+                    responseWrapper.copyBodyToResponse();
+                }
+            }
+        } finally {
+            //captured body is not needed anymore, even if request stays async for a while
+            responseWrapper.discardCapturedBody();
+        }
+
+        response.flushBuffer();
+    }
+
+    private void writeFilteredInMemory(HttpServletRequest request, HttpServletResponse response,
+                                       JsonResponseCaptureWrapper responseWrapper,
+                                       JsonFilteringSettings.Endpoint endpoint, String requestPathKey)
+            throws IOException {
+        //NOTE: we could get inputStream from wrapper and write data directly to outputStream of request. But tests didnt show any RAM saving
+        // for small bodies - so streaming engine is only used for bodies above endpoint streaming threshold
+        byte[] originalBody = responseWrapper.getContentAsByteArray();
+        byte[] responseBody;
+
+        try {
+            responseBody = jsonResponseFilterApplier.applyJsonFilterToResponseBody(
+                    originalBody, endpoint, request, requestPathKey);
+        } catch (FilteringLimitExceededException e) {
+            //fallback metrics are recorded by applier
+            rejectResponse(response, endpoint, requestPathKey);
+            return;
+        } catch (Exception e) {
+            //in case of any error - default to original body
             responseBody = originalBody;
+
+            recordFallback(request, endpoint, FilteringFallbackReason.FILTERING_ERROR);
+        }
+
+        setServerTimingHeader(request, response);
+
+        if (isETagEnabled(request, response, endpoint)) {
+            FilteredBodyETag etag = new FilteredBodyETag();
+            etag.update(responseBody, 0, responseBody.length);
+
+            if (applyETag(request, response, etag, requestPathKey)) {
+                return;
+            }
         }
 
         response.setContentLength(responseBody.length);
         response.getOutputStream().write(responseBody);
-        response.flushBuffer();
+    }
+
+    private void writeFilteredStreaming(HttpServletRequest request, HttpServletResponse response,
+                                        JsonResponseCaptureWrapper responseWrapper,
+                                        JsonFilteringSettings.Endpoint endpoint, String requestPathKey)
+            throws ServletException, IOException {
+        //filtered body length is not known upfront - response is sent with chunked encoding
+        //set before body is streamed - filtering part is added after filtering, if response is not committed by then
+        setServerTimingHeader(request, response);
+
+        FilteredBodyETag etag = isETagEnabled(request, response, endpoint) ? new FilteredBodyETag() : null;
+        OutputStream outputStream = etag != null
+                ? etag.wrap(response.getOutputStream())
+                : nonFlushingOutputStream(response.getOutputStream());
+
+        try (InputStream contentInputStream = responseWrapper.getContentInputStream()) {
+            jsonResponseFilterApplier.applyJsonFilterToResponseBody(
+                    contentInputStream, responseWrapper.getContentSize(),
+                    outputStream, endpoint, request, requestPathKey);
+
+            if (!response.isCommitted()) {
+                setServerTimingHeader(request, response);
+            }
+
+            if (etag != null) {
+                applyETag(request, response, etag, requestPathKey);
+            }
+        } catch (FilteringLimitExceededException e) {
+            //fallback metrics are recorded by applier
+            if (response.isCommitted()) {
+                throw new ServletException("Json filtering limit exceeded after response was committed", e);
+            }
+
+            response.resetBuffer();
+
+            if (endpoint.isRejectOnLimitExceeded()) {
+                rejectResponse(response, endpoint, requestPathKey);
+            } else {
+                responseWrapper.copyBodyToResponse();
+            }
+        } catch (JsonFilteringException e) {
+            //fallback metrics are recorded by applier
+            if (response.isCommitted()) {
+                //part of filtered body is already sent to client - original body can't be sent instead
+                throw new ServletException("Json filtering failed after response was committed", e);
+            }
+
+            //drop partially written filtered body and default to original body
+            response.resetBuffer();
+            responseWrapper.copyBodyToResponse();
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+
+            response.resetBuffer();
+            responseWrapper.copyBodyToResponse();
+
+            recordFallback(request, endpoint, FilteringFallbackReason.FILTERING_ERROR);
+        }
+    }
+
+    /**
+     * Json generator flushes its target when closed, also on failure. Flush is not passed to response stream, so
+     * filtered body that fits response buffer doesn't commit response and may still be dropped in favor of original body
+     */
+    private static OutputStream nonFlushingOutputStream(OutputStream outputStream) {
+        return new FilterOutputStream(outputStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                //body is flushed by caller
+            }
+        };
+    }
+
+    private void setServerTimingHeader(HttpServletRequest request, HttpServletResponse response) {
+        FilteringTimings filteringTimings = FilteringTimings.fromRequest(request);
+
+        if (filteringTimings != null) {
+            response.setHeader(FilteringTimings.SERVER_TIMING_HEADER, filteringTimings.toString());
+        }
+    }
+
+    private boolean isETagEnabled(HttpServletRequest request, HttpServletResponse response,
+                                  JsonFilteringSettings.Endpoint endpoint) {
+        return endpoint.isEtagEnabled()
+                && ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))
+                && response.getStatus() == HttpServletResponse.SC_OK;
+    }
+
+    /**
+     * Sets ETag of filtered body and, if it matches <i>If-None-Match</i> request header, drops body and responds
+     * with 304 Not Modified
+     *
+     * @return true if response is replaced with 304 Not Modified
+     */
+    private boolean applyETag(HttpServletRequest request, HttpServletResponse response, FilteredBodyETag etag,
+                              String requestPathKey) {
+        if (response.isCommitted()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Filtered body of request '{}' doesn't fit response buffer, ETag is not set", requestPathKey);
+            }
+
+            return false;
+        }
+
+        String etagValue = etag.getValue();
+
+        response.setHeader(HttpHeaders.ETAG, etagValue);
+
+        if (!FilteredBodyETag.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etagValue)) {
+            return false;
+        }
+
+        response.resetBuffer();
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+        return true;
+    }
+
+    /**
+     * Responds with empty body and reject status of endpoint, instead of body that exceeds endpoint limits
+     */
+    private void rejectResponse(HttpServletResponse response, JsonFilteringSettings.Endpoint endpoint,
+                                String requestPathKey) {
+        if (log.isDebugEnabled()) {
+            log.debug("Response body of request '{}' exceeds json filtering limits, rejecting response", requestPathKey);
+        }
+
+        response.setStatus(endpoint.getRejectStatusCode());
+        response.setContentLength(0);
+    }
+
+    private void recordFallback(HttpServletRequest request, JsonFilteringSettings.Endpoint endpoint,
+                                FilteringFallbackReason reason) {
+        jsonResponseFilterApplier.getJsonFilteringMetrics().recordFallback(endpoint.getPath(),
+                jsonResponseFilterApplier.getMetricsClientId(endpoint, request), reason);
     }
 }
@@ -0,0 +1,462 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Response wrapper that decides whether response body must be captured for filtering when application starts writing it
+ * (see {@link ResponseFilteringStrategy#selectBeforeCapture}). Bodies that will not be filtered (error statuses,
+ * non-json content types, too small declared Content-Length) are written directly to wrapped response,
+ * other bodies are captured in memory.
+ * <p>
+ * Content-Length set by application is held back while body is captured, since filtered body length will differ.
+ * <p>
+ * Body larger than <i>maxBodySizeBytes</i> of endpoint is not captured: as soon as declared or written length exceeds it,
+ * already captured part is written to wrapped response and rest of body is written directly - or, if endpoint rejects
+ * such bodies, body is dropped (see {@link #isRejected()}).
+ * <p>
+ * Body larger than <i>spillThresholdBytes</i> of endpoint is moved from heap to temporary file as it is written
+ * (see {@link SpillableCaptureBuffer}), file is deleted when body is discarded or written to wrapped response.
+ * <p>
+ * For async requests same wrapper captures body written on async dispatch (see {@link JsonResponseBodyFilter})
+ */
+public class JsonResponseCaptureWrapper extends HttpServletResponseWrapper {
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+    private static final int DEFAULT_INITIAL_BUFFER_SIZE = 1024;
+
+    private final JsonFilteringSettings.Endpoint endpoint;
+    //null if filtering timings are not collected for request
+    private final FilteringTimings filteringTimings;
+
+    //null until application starts writing body
+    private ResponseFilteringStrategy strategy;
+    private long declaredContentLength = -1;
+    private SpillableCaptureBuffer captureBuffer;
+    //true once captured body (filtered or as is) is written to wrapped response
+    private boolean bodyWritten;
+    //true if capture was stopped since body exceeds maxBodySizeBytes of endpoint
+    private boolean bodySizeLimitExceeded;
+
+    private CaptureServletOutputStream captureOutputStream;
+    private PrintWriter writer;
+
+    public JsonResponseCaptureWrapper(HttpServletResponse response, JsonFilteringSettings.Endpoint endpoint) {
+        this(response, endpoint, null);
+    }
+
+    /**
+     * @param filteringTimings timings to add body capture time to, may be null
+     */
+    public JsonResponseCaptureWrapper(HttpServletResponse response, JsonFilteringSettings.Endpoint endpoint,
+                                      FilteringTimings filteringTimings) {
+        super(response);
+        this.endpoint = endpoint;
+        this.filteringTimings = filteringTimings;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called on this response");
+        }
+
+        return getCaptureOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (captureOutputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called on this response");
+            }
+
+            String characterEncoding = getCharacterEncoding();
+            Charset charset = characterEncoding != null
+                    ? Charset.forName(characterEncoding)
+                    : StandardCharsets.ISO_8859_1;
+
+            writer = new PrintWriter(new OutputStreamWriter(getCaptureOutputStream(), charset));
+        }
+
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (ResponseFilteringStrategy.PASSTHROUGH.equals(strategy)) {
+            super.setContentLengthLong(len);
+        } else {
+            declaredContentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value.trim()) : -1);
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value.trim()) : -1);
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        switchToPassthrough();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        switchToPassthrough();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        switchToPassthrough();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+
+        //do not commit response while body is captured
+        if (ResponseFilteringStrategy.PASSTHROUGH.equals(strategy)) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+
+        if (captureBuffer != null) {
+            captureBuffer.reset();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+
+        strategy = null;
+        declaredContentLength = -1;
+        releaseCaptureBuffer();
+        bodyWritten = false;
+        bodySizeLimitExceeded = false;
+    }
+
+    /**
+     * @return true if body was (or is being) written directly to wrapped response and nothing is captured
+     */
+    public boolean isPassthrough() {
+        return ResponseFilteringStrategy.PASSTHROUGH.equals(strategy);
+    }
+
+    /**
+     * @return true if body exceeds maxBodySizeBytes of endpoint that rejects such bodies - nothing is captured or written,
+     * response must be rejected
+     */
+    public boolean isRejected() {
+        return ResponseFilteringStrategy.REJECT.equals(strategy);
+    }
+
+    /**
+     * @return true if body was not captured (or was dropped) because it exceeds maxBodySizeBytes of endpoint
+     */
+    public boolean isBodySizeLimitExceeded() {
+        return bodySizeLimitExceeded;
+    }
+
+    public int getContentSize() {
+        flushWriter();
+
+        return captureBuffer != null ? (int) Math.min(captureBuffer.size(), Integer.MAX_VALUE) : 0;
+    }
+
+    /**
+     * @return true if captured body is moved from heap to temporary file (see <i>spillThresholdBytes</i> endpoint setting) -
+     * it should be filtered by streaming engine from {@link #getContentInputStream()}
+     */
+    public boolean isContentSpilled() {
+        return captureBuffer != null && captureBuffer.isSpilled();
+    }
+
+    public byte[] getContentAsByteArray() throws IOException {
+        flushWriter();
+
+        return captureBuffer != null ? captureBuffer.toByteArray() : new byte[0];
+    }
+
+    /**
+     * @return stream over captured body (not a copy - captured body must not be modified while stream is used).
+     * Stream must be closed, since spilled body is read from file
+     */
+    public InputStream getContentInputStream() throws IOException {
+        flushWriter();
+
+        return captureBuffer != null ? captureBuffer.toInputStream() : new ByteArrayInputStream(new byte[0]);
+    }
+
+    /**
+     * Writes captured body (if any) as is to wrapped response
+     */
+    public void copyBodyToResponse() throws IOException {
+        if (isPassthrough() || isRejected() || bodyWritten) {
+            return;
+        }
+
+        flushWriter();
+
+        HttpServletResponse rawResponse = getRawResponse();
+
+        if (captureBuffer != null && captureBuffer.size() > 0) {
+            rawResponse.setContentLengthLong(captureBuffer.size());
+
+            try {
+                captureBuffer.writeTo(rawResponse.getOutputStream());
+            } finally {
+                captureBuffer.reset();
+            }
+        } else if (declaredContentLength >= 0) {
+            rawResponse.setContentLengthLong(declaredContentLength);
+        }
+
+        bodyWritten = true;
+    }
+
+    /**
+     * Releases captured body after it is written (filtered) to wrapped response, so it is never written again
+     */
+    public void discardCapturedBody() {
+        switchToPassthrough();
+        bodyWritten = true;
+    }
+
+    public HttpServletResponse getRawResponse() {
+        return (HttpServletResponse) getResponse();
+    }
+
+    private CaptureServletOutputStream getCaptureOutputStream() {
+        if (captureOutputStream == null) {
+            captureOutputStream = new CaptureServletOutputStream();
+        }
+
+        return captureOutputStream;
+    }
+
+    private ResponseFilteringStrategy getOrSelectStrategy() {
+        if (strategy == null) {
+            strategy = ResponseFilteringStrategy.selectBeforeCapture(
+                    endpoint, getStatus(), getContentType(), declaredContentLength);
+
+            if (ResponseFilteringStrategy.PASSTHROUGH.equals(strategy)) {
+                if (declaredContentLength >= 0) {
+                    super.setContentLengthLong(declaredContentLength);
+                }
+            } else {
+                //if length is known upfront - allocate buffer once (too large body is not captured anyway, see write,
+                // and body above spill threshold is moved to file as soon as it is written)
+                int initialBufferSize = declaredContentLength > 0 && declaredContentLength < Integer.MAX_VALUE
+                        && !ResponseFilteringStrategy.exceedsMaxBodySize(endpoint, declaredContentLength)
+                        && !exceedsSpillThreshold(declaredContentLength)
+                        ? (int) declaredContentLength
+                        : DEFAULT_INITIAL_BUFFER_SIZE;
+
+                captureBuffer = new SpillableCaptureBuffer(initialBufferSize, endpoint.getSpillThresholdBytes());
+            }
+        }
+
+        return strategy;
+    }
+
+    private boolean exceedsSpillThreshold(long bodySize) {
+        return endpoint.getSpillThresholdBytes() > 0 && bodySize > endpoint.getSpillThresholdBytes();
+    }
+
+    private void switchToPassthrough() {
+        strategy = ResponseFilteringStrategy.PASSTHROUGH;
+        releaseCaptureBuffer();
+    }
+
+    private void releaseCaptureBuffer() {
+        if (captureBuffer != null) {
+            //deletes spill file, if any
+            captureBuffer.reset();
+            captureBuffer = null;
+        }
+    }
+
+    private void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    private class CaptureServletOutputStream extends ServletOutputStream {
+        private ServletOutputStream rawOutputStream;
+
+        @Override
+        public void write(int b) throws IOException {
+            ResponseFilteringStrategy currentStrategy = getStrategyForWrite(1);
+
+            if (ResponseFilteringStrategy.PASSTHROUGH.equals(currentStrategy)) {
+                getRawOutputStream().write(b);
+            } else if (!ResponseFilteringStrategy.REJECT.equals(currentStrategy)) {
+                captureBuffer.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ResponseFilteringStrategy currentStrategy = getStrategyForWrite(len);
+
+            if (ResponseFilteringStrategy.PASSTHROUGH.equals(currentStrategy)) {
+                getRawOutputStream().write(b, off, len);
+            } else if (!ResponseFilteringStrategy.REJECT.equals(currentStrategy)) {
+                if (filteringTimings != null) {
+                    long startNanos = System.nanoTime();
+
+                    captureBuffer.write(b, off, len);
+
+                    filteringTimings.addCaptureNanos(System.nanoTime() - startNanos);
+                } else {
+                    captureBuffer.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (ResponseFilteringStrategy.PASSTHROUGH.equals(strategy)) {
+                getRawOutputStream().flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            if (ResponseFilteringStrategy.PASSTHROUGH.equals(strategy)) {
+                try {
+                    return getRawOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                getRawOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to get response output stream", e);
+            }
+        }
+
+        /**
+         * @param length number of bytes about to be written
+         */
+        private ResponseFilteringStrategy getStrategyForWrite(int length) throws IOException {
+            ResponseFilteringStrategy currentStrategy = getOrSelectStrategy();
+
+            if (captureBuffer != null && ResponseFilteringStrategy.exceedsMaxBodySize(
+                    endpoint, Math.max(declaredContentLength, captureBuffer.size() + length))) {
+                stopCapture();
+
+                return strategy;
+            }
+
+            return currentStrategy;
+        }
+
+        /**
+         * Body is too large to be filtered - part of body captured so far is written to wrapped response as is
+         * (or dropped, if endpoint rejects such bodies), rest of body is written directly
+         */
+        private void stopCapture() throws IOException {
+            SpillableCaptureBuffer capturedBody = captureBuffer;
+
+            captureBuffer = null;
+            bodySizeLimitExceeded = true;
+
+            if (endpoint.isRejectOnLimitExceeded()) {
+                strategy = ResponseFilteringStrategy.REJECT;
+                capturedBody.reset();
+                return;
+            }
+
+            strategy = ResponseFilteringStrategy.PASSTHROUGH;
+
+            if (declaredContentLength >= 0) {
+                JsonResponseCaptureWrapper.super.setContentLengthLong(declaredContentLength);
+            }
+
+            try {
+                capturedBody.writeTo(getRawOutputStream());
+            } finally {
+                capturedBody.reset();
+            }
+        }
+
+        private ServletOutputStream getRawOutputStream() throws IOException {
+            if (rawOutputStream == null) {
+                rawOutputStream = JsonResponseCaptureWrapper.super.getOutputStream();
+            }
+
+            return rawOutputStream;
+        }
+    }
+}
@@ -6,35 +6,52 @@
 package io.github.liquidcake.jsonsiever.web;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.FilteringLimitExceededException;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.core.metrics.FilterPatternSource;
+import io.github.liquidcake.jsonsiever.core.metrics.FilteringFallbackReason;
+import io.github.liquidcake.jsonsiever.core.metrics.JsonFilteringMetrics;
 import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Component
 public class JsonResponseFilterApplier {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     private static final String DEFAULT_CLIENT_ID = "default";
+    private static final int REJECTED_FILTER_PATTERNS_CACHE_SIZE = 1000;
 
-    private final ObjectMapper objectMapper;
+    private final JsonFilteringUtils jsonFilteringUtils;
     private final JsonFilteringService jsonFilteringService;
     private final JsonFilteringSettings jsonFilteringSettings;
     private final DynamicJsonFiltersCacheWrapper dynamicJsonFiltersCacheWrapper;
+    private final JsonFilteringMetrics jsonFilteringMetrics;
+    //header values that failed to parse or validate
+    private final RejectedFilterPatternsCache rejectedFilterPatternsCache =
+            new RejectedFilterPatternsCache(REJECTED_FILTER_PATTERNS_CACHE_SIZE);
 
-    public JsonResponseFilterApplier(ObjectMapper objectMapper,
+    public JsonResponseFilterApplier(JsonFilteringUtils jsonFilteringUtils,
                                      JsonFilteringService jsonFilteringService,
                                      JsonFilteringSettings jsonFilteringSettings,
-                                     DynamicJsonFiltersCacheWrapper dynamicJsonFiltersCacheWrapper) {
-        this.objectMapper = objectMapper;
+                                     DynamicJsonFiltersCacheWrapper dynamicJsonFiltersCacheWrapper,
+                                     ObjectProvider<JsonFilteringMetrics> jsonFilteringMetricsProvider) {
+        this.jsonFilteringUtils = jsonFilteringUtils;
         this.jsonFilteringService = jsonFilteringService;
         this.jsonFilteringSettings = jsonFilteringSettings;
         this.dynamicJsonFiltersCacheWrapper = dynamicJsonFiltersCacheWrapper;
+        this.jsonFilteringMetrics = jsonFilteringMetricsProvider.getIfAvailable(() -> JsonFilteringMetrics.NOOP);
     }
 
     public Optional<JsonFilteringSettings.Endpoint> findEndpointFilteringSettings(String requestPathKey) {
@@ -58,72 +75,386 @@ public class JsonResponseFilterApplier {
         return Optional.empty();
     }
 
+    /**
+     * @return filtered json data, or original json data if it can't be filtered
+     * @throws FilteringLimitExceededException if json data exceeds limits of endpoint that rejects such bodies
+     * (<i>rejectOnLimitExceeded</i>)
+     */
     public byte[] applyJsonFilterToResponseBody(
-            byte[] jsonData, JsonFilteringSettings.Endpoint endpoint, HttpServletRequest request, String requestPathKey) {
-        Optional<JsonNode> jsonFilterPatternOpt = Optional.empty();
+            byte[] jsonData, JsonFilteringSettings.Endpoint endpoint, HttpServletRequest request, String requestPathKey)
+            throws FilteringLimitExceededException {
+        Optional<ResolvedFilterPattern> resolvedFilterPatternOpt =
+                getOrResolveFilterPattern(endpoint, request, requestPathKey);
 
-        if (endpoint.isHeaderPatternAllowed()) {
-            String filterPatternHeaderValue = request.getHeader(
-                    jsonFilteringSettings.getJsonsiever().getFilterHeaderName()
-            );
-            jsonFilterPatternOpt = getFilterPatternFromHeader(requestPathKey, filterPatternHeaderValue);
+        if (resolvedFilterPatternOpt.isEmpty()) {
+            log.info("Failed to get json filter pattern for request '{}'", requestPathKey);
+
+            jsonFilteringMetrics.recordFallback(endpoint.getPath(), getMetricsClientId(endpoint, request),
+                    FilteringFallbackReason.NO_FILTER_PATTERN);
+
+            return jsonData;
         }
 
-        if (jsonFilterPatternOpt.isEmpty() && endpoint.isFilePatternAllowed()) {
-            String clientIdHeaderValue = request.getHeader(
-                    jsonFilteringSettings.getJsonsiever().getClientIdHeaderName()
-            );
-            jsonFilterPatternOpt = getFilterPatternFromFile(endpoint, clientIdHeaderValue);
+        ResolvedFilterPattern resolvedFilterPattern = resolvedFilterPatternOpt.get();
+
+        try {
+            long startNanos = System.nanoTime();
+
+            byte[] filteredJsonData = jsonFilteringService.filterJsonFields(
+                    jsonData, resolvedFilterPattern.getFilterPattern(), endpoint.getFilteringLimits());
+
+            long filteringNanos = System.nanoTime() - startNanos;
+
+            jsonFilteringMetrics.recordFiltering(endpoint.getPath(), resolvedFilterPattern.getClientId(),
+                    resolvedFilterPattern.getSource(), jsonData.length, filteredJsonData.length, filteringNanos);
+            recordFilteringTimings(request, filteringNanos, jsonData.length, filteredJsonData.length);
+
+            return filteredJsonData;
+        } catch (FilteringLimitExceededException e) {
+            //logged by filtering service
+            jsonFilteringMetrics.recordFallback(endpoint.getPath(), resolvedFilterPattern.getClientId(),
+                    FilteringFallbackReason.LIMIT_EXCEEDED);
+
+            if (endpoint.isRejectOnLimitExceeded()) {
+                throw e;
+            }
+
+            return jsonData;
+        } catch (Exception e) {
+            logFilteringFailure(requestPathKey, e);
+
+            jsonFilteringMetrics.recordFallback(endpoint.getPath(), resolvedFilterPattern.getClientId(),
+                    FilteringFallbackReason.FILTERING_ERROR);
+
+            return jsonData;
         }
+    }
+
+    /**
+     * Streaming variant of {@link #applyJsonFilterToResponseBody(byte[], JsonFilteringSettings.Endpoint, HttpServletRequest, String)}:
+     * filtered json is written to output stream as it is generated. If no filter pattern is found - json data is copied as is.
+     *
+     * @throws JsonFilteringException if filtering failed ({@link FilteringLimitExceededException} if json data exceeds
+     * endpoint limits). Some part of filtered json may already be written to output stream by then, so caller is
+     * responsible for fallback
+     */
+    public void applyJsonFilterToResponseBody(
+            InputStream jsonDataInputStream, long jsonDataSize, OutputStream outputStream,
+            JsonFilteringSettings.Endpoint endpoint, HttpServletRequest request, String requestPathKey)
+            throws JsonFilteringException, IOException {
+        Optional<ResolvedFilterPattern> resolvedFilterPatternOpt =
+                getOrResolveFilterPattern(endpoint, request, requestPathKey);
 
-        if (jsonFilterPatternOpt.isEmpty()) {
+        if (resolvedFilterPatternOpt.isEmpty()) {
             log.info("Failed to get json filter pattern for request '{}'", requestPathKey);
 
-            return jsonData;
+            jsonFilteringMetrics.recordFallback(endpoint.getPath(), getMetricsClientId(endpoint, request),
+                    FilteringFallbackReason.NO_FILTER_PATTERN);
+
+            jsonDataInputStream.transferTo(outputStream);
+
+            return;
         }
 
+        ResolvedFilterPattern resolvedFilterPattern = resolvedFilterPatternOpt.get();
+        CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+
         try {
-            return jsonFilteringService.filterJsonFields(jsonData, jsonFilterPatternOpt.get());
-        } catch (Exception e) {
-            log.warn("Failed to apply json filter to response body, returning original body", e);
+            long startNanos = System.nanoTime();
 
-            return jsonData;
+            jsonFilteringService.filterJsonFields(jsonDataInputStream, countingOutputStream,
+                    resolvedFilterPattern.getFilterPattern(), endpoint.getFilteringLimits());
+
+            long filteringNanos = System.nanoTime() - startNanos;
+
+            jsonFilteringMetrics.recordFiltering(endpoint.getPath(), resolvedFilterPattern.getClientId(),
+                    resolvedFilterPattern.getSource(), jsonDataSize, countingOutputStream.getCount(), filteringNanos);
+            recordFilteringTimings(request, filteringNanos, jsonDataSize, countingOutputStream.getCount());
+        } catch (FilteringLimitExceededException e) {
+            //logged by filtering service
+            jsonFilteringMetrics.recordFallback(endpoint.getPath(), resolvedFilterPattern.getClientId(),
+                    FilteringFallbackReason.LIMIT_EXCEEDED);
+
+            throw e;
+        } catch (JsonFilteringException e) {
+            logFilteringFailure(requestPathKey, e);
+
+            jsonFilteringMetrics.recordFallback(endpoint.getPath(), resolvedFilterPattern.getClientId(),
+                    FilteringFallbackReason.FILTERING_ERROR);
+
+            throw e;
         }
     }
 
-    private Optional<JsonNode> getFilterPatternFromFile(
-            JsonFilteringSettings.Endpoint endpoint, String clientIdHeaderValue) {
+    /**
+     * Resolves filter pattern for request and exposes it to application as {@link FieldSelection} request attribute,
+     * so it is resolved only once per request
+     */
+    public FieldSelection resolveFieldSelection(
+            JsonFilteringSettings.Endpoint endpoint, HttpServletRequest request, String requestPathKey) {
+        Object previouslyResolvedFieldSelection = request.getAttribute(FieldSelection.REQUEST_ATTRIBUTE);
+
+        //on async dispatch selection is already resolved
+        if (previouslyResolvedFieldSelection instanceof FieldSelection) {
+            return (FieldSelection) previouslyResolvedFieldSelection;
+        }
 
-        Optional<JsonNode> filterPatternForClientOpt = Optional.empty();
+        long startNanos = System.nanoTime();
 
-        if (clientIdHeaderValue != null && !clientIdHeaderValue.trim().isEmpty()) {
-            filterPatternForClientOpt = Optional.ofNullable(
-                    endpoint.getFilePatternPerClient().get(clientIdHeaderValue)
-            );
+        Optional<ResolvedFilterPattern> resolvedFilterPatternOpt = resolveFilterPattern(endpoint, request, requestPathKey);
+
+        FilteringTimings filteringTimings = FilteringTimings.fromRequest(request);
+
+        if (filteringTimings != null) {
+            filteringTimings.recordPatternResolution(System.nanoTime() - startNanos,
+                    resolvedFilterPatternOpt.map(ResolvedFilterPattern::getSource).orElse(null));
         }
 
-        if (filterPatternForClientOpt.isEmpty()) {
-            filterPatternForClientOpt = Optional.ofNullable(
-                    endpoint.getFilePatternPerClient().get(DEFAULT_CLIENT_ID)
+        FieldSelection fieldSelection = new FieldSelection(resolvedFilterPatternOpt.orElse(null));
+
+        request.setAttribute(FieldSelection.REQUEST_ATTRIBUTE, fieldSelection);
+
+        return fieldSelection;
+    }
+
+    /**
+     * Resolves filter pattern for request. Priority: registered pattern ID header, pattern header,
+     * client-specific pattern file, default pattern file
+     */
+    public Optional<ResolvedFilterPattern> resolveFilterPattern(
+            JsonFilteringSettings.Endpoint endpoint, HttpServletRequest request, String requestPathKey) {
+        return resolveFilterPattern(endpoint, request::getHeader, requestPathKey);
+    }
+
+    /**
+     * Same as {@link #resolveFilterPattern(JsonFilteringSettings.Endpoint, HttpServletRequest, String)}, for requests
+     * that are not servlet requests (e.g. reactive)
+     *
+     * @param requestHeaders request header value by header name
+     */
+    public Optional<ResolvedFilterPattern> resolveFilterPattern(
+            JsonFilteringSettings.Endpoint endpoint, Function<String, String> requestHeaders, String requestPathKey) {
+        String metricsClientId = getMetricsClientId(endpoint, requestHeaders);
+        //why filter pattern sent by client is not used - recorded as fallback only if there is no other pattern for request
+        FilteringFallbackReason headerPatternFallbackReason = null;
+
+        if (endpoint.isHeaderPatternAllowed()) {
+            String patternIdHeaderValue = getHeaderIfConfigured(
+                    requestHeaders, jsonFilteringSettings.getJsonsiever().getPatternIdHeaderName()
             );
+
+            if (patternIdHeaderValue != null && !patternIdHeaderValue.trim().isEmpty()) {
+                Optional<JsonNode> registeredFilterPatternOpt =
+                        getRegisteredFilterPattern(requestPathKey, patternIdHeaderValue);
+
+                if (registeredFilterPatternOpt.isPresent()) {
+                    return Optional.of(new ResolvedFilterPattern(
+                            registeredFilterPatternOpt.get(), FilterPatternSource.REGISTERED_ID, metricsClientId));
+                }
+
+                headerPatternFallbackReason = FilteringFallbackReason.UNKNOWN_PATTERN_ID;
+            }
+
+            String filterPatternHeaderValue = requestHeaders.apply(
+                    jsonFilteringSettings.getJsonsiever().getFilterHeaderName()
+            );
+
+            if (exceedsHeaderPatternSize(endpoint, requestPathKey, filterPatternHeaderValue)) {
+                headerPatternFallbackReason = FilteringFallbackReason.LIMIT_EXCEEDED;
+            } else {
+                Optional<CachedFilterPattern> headerFilterPatternOpt =
+                        getFilterPatternFromHeader(requestPathKey, filterPatternHeaderValue);
+
+                if (headerFilterPatternOpt.isPresent()) {
+                    if (!exceedsHeaderPatternNodes(endpoint, requestPathKey, headerFilterPatternOpt.get())) {
+                        return Optional.of(new ResolvedFilterPattern(
+                                headerFilterPatternOpt.get().getFilterPattern(), FilterPatternSource.HEADER, metricsClientId));
+                    }
+
+                    headerPatternFallbackReason = FilteringFallbackReason.LIMIT_EXCEEDED;
+                }
+            }
+        }
+
+        Optional<ResolvedFilterPattern> resolvedFilterPatternOpt = endpoint.isFilePatternAllowed()
+                ? getFilterPatternFromFile(endpoint, metricsClientId)
+                : Optional.empty();
+
+        if (resolvedFilterPatternOpt.isEmpty() && headerPatternFallbackReason != null) {
+            jsonFilteringMetrics.recordFallback(endpoint.getPath(), metricsClientId, headerPatternFallbackReason);
+        }
+
+        return resolvedFilterPatternOpt;
+    }
+
+    /**
+     * @return client ID from request header if endpoint has filter pattern file for this client,
+     * or default client ID otherwise (so metrics are not polluted with arbitrary client IDs)
+     */
+    public String getMetricsClientId(JsonFilteringSettings.Endpoint endpoint, HttpServletRequest request) {
+        return getMetricsClientId(endpoint, request::getHeader);
+    }
+
+    /**
+     * @param requestHeaders request header value by header name
+     * @see #getMetricsClientId(JsonFilteringSettings.Endpoint, HttpServletRequest)
+     */
+    public String getMetricsClientId(JsonFilteringSettings.Endpoint endpoint, Function<String, String> requestHeaders) {
+        String clientIdHeaderValue = getHeaderIfConfigured(
+                requestHeaders, jsonFilteringSettings.getJsonsiever().getClientIdHeaderName()
+        );
+
+        if (clientIdHeaderValue != null && endpoint.getFilePatternPerClient().containsKey(clientIdHeaderValue)) {
+            return clientIdHeaderValue;
         }
 
-        return filterPatternForClientOpt;
+        return DEFAULT_CLIENT_ID;
+    }
+
+    public JsonFilteringMetrics getJsonFilteringMetrics() {
+        return jsonFilteringMetrics;
     }
 
-    private Optional<JsonNode> getFilterPatternFromHeader(String requestPathKey, String filterPatternHeaderValue) {
+    private Optional<ResolvedFilterPattern> getOrResolveFilterPattern(
+            JsonFilteringSettings.Endpoint endpoint, HttpServletRequest request, String requestPathKey) {
+        Object fieldSelection = request.getAttribute(FieldSelection.REQUEST_ATTRIBUTE);
+
+        if (fieldSelection instanceof FieldSelection) {
+            return ((FieldSelection) fieldSelection).getResolvedFilterPattern();
+        }
+
+        return resolveFilterPattern(endpoint, request, requestPathKey);
+    }
+
+    private static void recordFilteringTimings(HttpServletRequest request, long filteringNanos,
+                                               long inputBytes, long outputBytes) {
+        FilteringTimings filteringTimings = FilteringTimings.fromRequest(request);
+
+        if (filteringTimings != null) {
+            filteringTimings.recordFiltering(filteringNanos, inputBytes, outputBytes);
+        }
+    }
+
+    private void logFilteringFailure(String requestPathKey, Exception e) {
+        //stack trace only on debug level - single broken client would flood logs otherwise
+        log.warn("Failed to apply json filter to response body of request '{}', returning original body: {}",
+                requestPathKey, e.toString());
+        if (log.isDebugEnabled()) {
+            log.debug("Json filtering failure for request '{}'", requestPathKey, e);
+        }
+    }
+
+    private Optional<ResolvedFilterPattern> getFilterPatternFromFile(
+            JsonFilteringSettings.Endpoint endpoint, String clientId) {
+
+        if (!DEFAULT_CLIENT_ID.equals(clientId)) {
+            JsonNode filterPatternForClient = endpoint.getFilePatternPerClient().get(clientId);
+
+            if (filterPatternForClient != null) {
+                return Optional.of(new ResolvedFilterPattern(filterPatternForClient, FilterPatternSource.CLIENT_FILE, clientId));
+            }
+        }
+
+        return Optional.ofNullable(endpoint.getFilePatternPerClient().get(DEFAULT_CLIENT_ID))
+                .map(filterPattern -> new ResolvedFilterPattern(filterPattern, FilterPatternSource.DEFAULT_FILE, clientId));
+    }
+
+    private Optional<JsonNode> getRegisteredFilterPattern(String requestPathKey, String patternIdHeaderValue) {
+        Optional<JsonNode> registeredFilterPatternOpt =
+                jsonFilteringSettings.findRegisteredFilterPattern(patternIdHeaderValue.trim());
+
+        if (registeredFilterPatternOpt.isEmpty()) {
+            //header value is client-controlled - don't let it flood logs, unknown IDs are visible in metrics.
+            // Not cached as rejected: pattern may be registered later
+            log.debug("Registered json filter pattern '{}' not found for request {}", patternIdHeaderValue, requestPathKey);
+        }
+
+        return registeredFilterPatternOpt;
+    }
+
+    private String getHeaderIfConfigured(Function<String, String> requestHeaders, String headerName) {
+        return headerName != null ? requestHeaders.apply(headerName) : null;
+    }
+
+    /**
+     * Too large value is not even looked up in cache - it is never parsed. Value that exceeded limit of endpoint
+     * is remembered by endpoint, so next time it is rejected with single lookup, without measuring and logging it again
+     */
+    private boolean exceedsHeaderPatternSize(JsonFilteringSettings.Endpoint endpoint, String requestPathKey,
+                                             String filterPatternHeaderValue) {
+        int maxHeaderPatternSizeBytes = endpoint.getMaxHeaderPatternSizeBytes();
+
+        //each char takes at most 3 bytes in UTF-8, so short value fits limit whatever chars it has
+        if (maxHeaderPatternSizeBytes <= 0 || filterPatternHeaderValue == null
+                || (long) filterPatternHeaderValue.length() * 3 <= maxHeaderPatternSizeBytes) {
+            return false;
+        }
+
+        RejectedFilterPatternsCache oversizedHeaderPatterns = endpoint.getOversizedHeaderPatterns();
+
+        if (oversizedHeaderPatterns.isRejected(filterPatternHeaderValue)) {
+            return true;
+        }
+
+        if (!exceedsUtf8Size(filterPatternHeaderValue, maxHeaderPatternSizeBytes)) {
+            return false;
+        }
+
+        //header value is client-controlled - don't let it flood logs, ignored values are visible in metrics
+        if (log.isDebugEnabled()) {
+            log.debug("Json filter pattern header value for request {} is larger than {} bytes, ignoring it",
+                    requestPathKey, maxHeaderPatternSizeBytes);
+        }
+
+        oversizedHeaderPatterns.reject(filterPatternHeaderValue);
+
+        return true;
+    }
+
+    /**
+     * Parsed pattern is cached for all endpoints, so node limit of particular endpoint is checked on each lookup -
+     * against node count cached with pattern
+     */
+    private boolean exceedsHeaderPatternNodes(JsonFilteringSettings.Endpoint endpoint, String requestPathKey,
+                                              CachedFilterPattern filterPattern) {
+        if (endpoint.getMaxHeaderPatternNodes() <= 0 || filterPattern.getNodeCount() <= endpoint.getMaxHeaderPatternNodes()) {
+            return false;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Json filter pattern from header for request {} has {} nodes (max is {}), ignoring it",
+                    requestPathKey, filterPattern.getNodeCount(), endpoint.getMaxHeaderPatternNodes());
+        }
+
+        return true;
+    }
+
+    private Optional<CachedFilterPattern> getFilterPatternFromHeader(String requestPathKey, String filterPatternHeaderValue) {
         if (filterPatternHeaderValue == null || filterPatternHeaderValue.trim().isEmpty()) {
             return Optional.empty();
         }
 
-        JsonNode previouslyParsedFilterPattern = dynamicJsonFiltersCacheWrapper.get(filterPatternHeaderValue);
+        //same bad value is usually sent by all requests of some client - it is rejected with single lookup,
+        // without cache lookup (which may be a remote call), parsing and logging
+        if (rejectedFilterPatternsCache.isRejected(filterPatternHeaderValue)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Json filter pattern header value for request {} was rejected before", requestPathKey);
+            }
+
+            return Optional.empty();
+        }
+
+        CachedFilterPattern previouslyParsedFilterPattern =
+                dynamicJsonFiltersCacheWrapper.getWithNodeCount(filterPatternHeaderValue);
+
+        jsonFilteringMetrics.recordHeaderPatternCacheLookup(previouslyParsedFilterPattern != null);
 
         if (previouslyParsedFilterPattern != null) {
             return Optional.of(previouslyParsedFilterPattern);
         }
 
         try {
-            final JsonNode parsedFilterPattern = objectMapper.readTree(filterPatternHeaderValue);
+            final JsonNode parsedFilterPattern = jsonFilteringUtils.parseFilterPattern(filterPatternHeaderValue);
 
             if (parsedFilterPattern == null) {
                 log.warn("Failed to parse header with json filter pattern value for request {} (parsed as null)",
@@ -132,23 +463,79 @@ public class JsonResponseFilterApplier {
                     log.debug("Request {}, Header: '{}'", requestPathKey, filterPatternHeaderValue);
                 }
 
+                rejectedFilterPatternsCache.reject(filterPatternHeaderValue);
+
                 return Optional.empty();
             }
 
+            CachedFilterPattern cachedFilterPattern = new CachedFilterPattern(parsedFilterPattern);
+
             //value may be present or absent in cache at any different moments without any strict conditions -
             // consumer will just use value if it is already present and create/store its own copy if value is (seems to be) absent.
             // No concurrency issues between get/put will happen since 2 values for same key will always be equal and will be used readonly
-            dynamicJsonFiltersCacheWrapper.putIfAbsent(filterPatternHeaderValue, parsedFilterPattern);
+            dynamicJsonFiltersCacheWrapper.putIfAbsent(filterPatternHeaderValue, cachedFilterPattern);
 
-            return Optional.of(parsedFilterPattern);
+            return Optional.of(cachedFilterPattern);
 
         } catch (Exception e) {
-            log.warn("Failed to parse header with json filter pattern value for request {}", requestPathKey);
+            log.warn("Failed to parse header with json filter pattern value for request {}: {}", requestPathKey,
+                    e.getMessage());
             if (log.isDebugEnabled()) {
                 log.debug("Request {}, Header: '{}'", requestPathKey, filterPatternHeaderValue, e);
             }
 
+            rejectedFilterPatternsCache.reject(filterPatternHeaderValue);
+
             return Optional.empty();
         }
     }
+
+    /**
+     * @return true if UTF-8 encoding of value is larger than given size. Value is not encoded - chars are only counted
+     * until size is exceeded
+     */
+    private static boolean exceedsUtf8Size(String value, int maxBytes) {
+        if (value.length() > maxBytes) {
+            return true;
+        }
+
+        int bytes = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            //surrogate pair (char outside BMP) takes 4 bytes - 2 per each of its chars
+            bytes += c < 0x80 ? 1 : (c < 0x800 || Character.isSurrogate(c) ? 2 : 3);
+
+            if (bytes > maxBytes) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
 }
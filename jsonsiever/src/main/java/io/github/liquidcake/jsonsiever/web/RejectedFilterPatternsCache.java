@@ -0,0 +1,41 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of filter pattern header values that failed to parse or validate, so that repeated requests with the same
+ * bad value are rejected with a single lookup, without parsing it again and without logging each time.
+ * When cache is full - least recently used value is evicted
+ */
+public class RejectedFilterPatternsCache {
+    private final Map<String, Boolean> rejectedFilterPatterns;
+
+    public RejectedFilterPatternsCache(int maxSize) {
+        //access-ordered map evicts least recently used value
+        this.rejectedFilterPatterns = Collections.synchronizedMap(new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public boolean isRejected(String filterPatternHeaderValue) {
+        return rejectedFilterPatterns.get(filterPatternHeaderValue) != null;
+    }
+
+    public void reject(String filterPatternHeaderValue) {
+        rejectedFilterPatterns.put(filterPatternHeaderValue, Boolean.TRUE);
+    }
+
+    public int size() {
+        return rejectedFilterPatterns.size();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.metrics.FilterPatternSource;
+
+/**
+ * Filter pattern resolved for particular request, together with info on where it came from
+ */
+public class ResolvedFilterPattern {
+    private final JsonNode filterPattern;
+    private final FilterPatternSource source;
+    private final String clientId;
+
+    public ResolvedFilterPattern(JsonNode filterPattern, FilterPatternSource source, String clientId) {
+        this.filterPattern = filterPattern;
+        this.source = source;
+        this.clientId = clientId;
+    }
+
+    public JsonNode getFilterPattern() {
+        return filterPattern;
+    }
+
+    public FilterPatternSource getSource() {
+        return source;
+    }
+
+    /**
+     * @return client ID that has filter pattern configured for endpoint, or default client ID
+     */
+    public String getClientId() {
+        return clientId;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How response of endpoint with json filtering settings is handled.
+ * <p>
+ * Decision is made in 2 steps: {@link #selectBeforeCapture} - when response body starts being written
+ * (status and Content-Type are known by then), so responses that will never be filtered are written directly to client
+ * without capture buffering; and {@link #selectForCapturedBody} - when captured body size is known, before any parsing
+ */
+public enum ResponseFilteringStrategy {
+    /**
+     * Response is written to client as is
+     */
+    PASSTHROUGH,
+    /**
+     * Body is captured, filtered into byte array and written to client with Content-Length
+     */
+    IN_MEMORY,
+    /**
+     * Body is captured and filtered json is written directly to client as it is generated
+     */
+    STREAMING,
+    /**
+     * Body exceeds <i>maxBodySizeBytes</i> of endpoint that rejects such bodies (<i>rejectOnLimitExceeded</i>) -
+     * body is dropped as it is written and response is rejected. Not returned by select methods, set by
+     * {@link JsonResponseCaptureWrapper} when it stops capture
+     */
+    REJECT;
+
+    private static final String CONTENT_TYPE_WILDCARD = "*";
+
+    /**
+     * @param declaredContentLength Content-Length set by application for response, or -1 if unknown
+     * @return {@link #PASSTHROUGH} if response must not be filtered, otherwise preliminary engine
+     * (based on declared length, if any) - body should be captured
+     */
+    public static ResponseFilteringStrategy selectBeforeCapture(JsonFilteringSettings.Endpoint endpoint,
+                                                                int status, String contentType,
+                                                                long declaredContentLength) {
+        if (!isStatusFiltered(endpoint, status) || !isContentTypeFiltered(endpoint, contentType)) {
+            return PASSTHROUGH;
+        }
+
+        return declaredContentLength >= 0 ? selectForCapturedBody(endpoint, declaredContentLength) : IN_MEMORY;
+    }
+
+    public static ResponseFilteringStrategy selectForCapturedBody(JsonFilteringSettings.Endpoint endpoint,
+                                                                  long bodySize) {
+        if (bodySize == 0 || bodySize < endpoint.getMinBodySizeBytes()) {
+            return PASSTHROUGH;
+        }
+
+        if (endpoint.getStreamingThresholdBytes() > 0 && bodySize >= endpoint.getStreamingThresholdBytes()) {
+            return STREAMING;
+        }
+
+        return IN_MEMORY;
+    }
+
+    /**
+     * @return true if body of this size must not be captured and filtered (see <i>maxBodySizeBytes</i> endpoint setting)
+     */
+    public static boolean exceedsMaxBodySize(JsonFilteringSettings.Endpoint endpoint, long bodySize) {
+        return endpoint.getMaxBodySizeBytes() > 0 && bodySize > endpoint.getMaxBodySizeBytes();
+    }
+
+    static boolean isStatusFiltered(JsonFilteringSettings.Endpoint endpoint, int status) {
+        List<Integer> filteredStatusCodes = endpoint.getFilteredStatusCodes();
+
+        if (filteredStatusCodes == null || filteredStatusCodes.isEmpty()) {
+            return status >= 200 && status < 300;
+        }
+
+        return filteredStatusCodes.contains(status);
+    }
+
+    static boolean isContentTypeFiltered(JsonFilteringSettings.Endpoint endpoint, String contentType) {
+        List<String> filteredContentTypes = endpoint.getFilteredContentTypes();
+
+        if (filteredContentTypes == null || filteredContentTypes.isEmpty()) {
+            return true;
+        }
+
+        if (contentType == null) {
+            return false;
+        }
+
+        //drop parameters e.g. "application/json;charset=UTF-8"
+        int parametersIdx = contentType.indexOf(';');
+        String mediaType = (parametersIdx >= 0 ? contentType.substring(0, parametersIdx) : contentType)
+                .trim().toLowerCase(Locale.ROOT);
+
+        for (String filteredContentType : filteredContentTypes) {
+            if (mediaTypeMatches(filteredContentType.toLowerCase(Locale.ROOT), mediaType)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //supports exact match, "type/*", "*/*" and "type/*+suffix" patterns
+    private static boolean mediaTypeMatches(String pattern, String mediaType) {
+        int patternSlashIdx = pattern.indexOf('/');
+        int mediaTypeSlashIdx = mediaType.indexOf('/');
+
+        if (patternSlashIdx < 0 || mediaTypeSlashIdx < 0) {
+            return pattern.equals(mediaType);
+        }
+
+        String patternType = pattern.substring(0, patternSlashIdx);
+        String patternSubtype = pattern.substring(patternSlashIdx + 1);
+        String type = mediaType.substring(0, mediaTypeSlashIdx);
+        String subtype = mediaType.substring(mediaTypeSlashIdx + 1);
+
+        if (!CONTENT_TYPE_WILDCARD.equals(patternType) && !patternType.equals(type)) {
+            return false;
+        }
+
+        if (CONTENT_TYPE_WILDCARD.equals(patternSubtype)) {
+            return true;
+        }
+
+        if (patternSubtype.startsWith(CONTENT_TYPE_WILDCARD + "+")) {
+            return subtype.endsWith(patternSubtype.substring(1));
+        }
+
+        return patternSubtype.equals(subtype);
+    }
+}
@@ -12,19 +12,32 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is a simple in-memory cache that does not have expiration or size control.
- * Substitute this bean with your own implementation if needed (e.g. create a simple wrapper around Redis)
+ * Substitute this bean with your own implementation if needed - e.g. {@link TwoTierDynamicJsonFiltersCacheWrapper}
+ * over Redis-backed {@link FilterPatternBinaryStore}, so patterns parsed by one instance are shared by all of them
  */
 public class SimpleInMemoryDynamicJsonFiltersCacheWrapper implements DynamicJsonFiltersCacheWrapper {
     //concurrent map provides basic concurrency safety and this enough for us
-    private final Map<String, JsonNode> parsedFilterPatternsFromHeaderCache = new ConcurrentHashMap<>();
+    private final Map<String, CachedFilterPattern> parsedFilterPatternsFromHeaderCache = new ConcurrentHashMap<>();
 
     @Override
     public JsonNode get(String key) {
-        return parsedFilterPatternsFromHeaderCache.get(key);
+        CachedFilterPattern cachedFilterPattern = parsedFilterPatternsFromHeaderCache.get(key);
+
+        return cachedFilterPattern != null ? cachedFilterPattern.getFilterPattern() : null;
     }
 
     @Override
     public void putIfAbsent(String filterPatternHeaderValue, JsonNode parsedFilterPattern) {
+        putIfAbsent(filterPatternHeaderValue, new CachedFilterPattern(parsedFilterPattern));
+    }
+
+    @Override
+    public CachedFilterPattern getWithNodeCount(String key) {
+        return parsedFilterPatternsFromHeaderCache.get(key);
+    }
+
+    @Override
+    public void putIfAbsent(String filterPatternHeaderValue, CachedFilterPattern parsedFilterPattern) {
         parsedFilterPatternsFromHeaderCache.putIfAbsent(filterPatternHeaderValue, parsedFilterPattern);
     }
 }
@@ -0,0 +1,285 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffer of captured response body that keeps body on heap until it exceeds spill threshold, then moves it to
+ * temporary file (in <i>java.io.tmpdir</i>) and writes rest of body there. Spilled body is read from memory-mapped
+ * file ({@link #toInputStream()}), so huge body is never held on heap.
+ * <p>
+ * Temporary file is deleted by {@link #reset()}, which must be called once body is not needed.
+ * If temporary file can't be created - body stays on heap
+ */
+public class SpillableCaptureBuffer extends OutputStream {
+    private static final Logger log = LoggerFactory.getLogger(SpillableCaptureBuffer.class);
+
+    private static final int SPILL_FILE_WRITE_BUFFER_SIZE = 64 * 1024;
+    //spilled body is mapped window by window, so body of any size is read without mapping it at once
+    private static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    //non-positive - body is never spilled
+    private final long spillThresholdBytes;
+
+    private HeapBuffer heapBuffer;
+    //null until body is spilled
+    private Path spillFile;
+    private OutputStream spillFileOutputStream;
+    private long spilledSize;
+
+    public SpillableCaptureBuffer(int initialSize, long spillThresholdBytes) {
+        this.spillThresholdBytes = spillThresholdBytes;
+        this.heapBuffer = new HeapBuffer(initialSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (spillFile == null && shouldSpill(1)) {
+            spill();
+        }
+
+        if (spillFile != null) {
+            spillFileOutputStream.write(b);
+            spilledSize++;
+        } else {
+            heapBuffer.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (spillFile == null && shouldSpill(len)) {
+            spill();
+        }
+
+        if (spillFile != null) {
+            spillFileOutputStream.write(b, off, len);
+            spilledSize += len;
+        } else {
+            heapBuffer.write(b, off, len);
+        }
+    }
+
+    public long size() {
+        return spillFile != null ? spilledSize : heapBuffer.size();
+    }
+
+    /**
+     * @return true if body is moved to temporary file
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * @return temporary file with body, or null if body is not spilled
+     */
+    public Path getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * @return stream over body - over heap buffer (not a copy) or over memory-mapped temporary file. Body must not be
+     * written while stream is used
+     */
+    public InputStream toInputStream() throws IOException {
+        if (spillFile == null) {
+            return heapBuffer.toInputStream();
+        }
+
+        spillFileOutputStream.flush();
+
+        return new MappedFileInputStream(spillFile, spilledSize);
+    }
+
+    /**
+     * @return copy of body on heap - avoid for spilled body
+     */
+    public byte[] toByteArray() throws IOException {
+        if (spillFile == null) {
+            return heapBuffer.toByteArray();
+        }
+
+        spillFileOutputStream.flush();
+
+        return Files.readAllBytes(spillFile);
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (spillFile == null) {
+            heapBuffer.writeTo(outputStream);
+
+            return;
+        }
+
+        try (InputStream inputStream = toInputStream()) {
+            inputStream.transferTo(outputStream);
+        }
+    }
+
+    /**
+     * Drops body, deleting temporary file if body is spilled - buffer may be written again. Safe to call several times
+     */
+    public void reset() {
+        if (spillFile == null) {
+            heapBuffer.reset();
+
+            return;
+        }
+
+        try {
+            spillFileOutputStream.close();
+        } catch (IOException e) {
+            log.warn("Failed to close captured body spill file {}: {}", spillFile, e.toString());
+        }
+
+        try {
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete captured body spill file {}: {}", spillFile, e.toString());
+        }
+
+        spillFile = null;
+        spillFileOutputStream = null;
+        spilledSize = 0;
+    }
+
+    private boolean shouldSpill(int length) {
+        return spillThresholdBytes > 0 && (long) heapBuffer.size() + length > spillThresholdBytes;
+    }
+
+    private void spill() {
+        Path file;
+        OutputStream fileOutputStream;
+
+        try {
+            file = Files.createTempFile("jsonsiever-body-", ".json");
+            fileOutputStream = new BufferedOutputStream(Files.newOutputStream(file), SPILL_FILE_WRITE_BUFFER_SIZE);
+        } catch (IOException e) {
+            log.warn("Failed to create captured body spill file, keeping body on heap: {}", e.toString());
+
+            return;
+        }
+
+        try {
+            heapBuffer.writeTo(fileOutputStream);
+        } catch (IOException e) {
+            log.warn("Failed to spill captured body to file {}, keeping body on heap: {}", file, e.toString());
+
+            try {
+                fileOutputStream.close();
+                Files.deleteIfExists(file);
+            } catch (IOException closeException) {
+                log.warn("Failed to delete captured body spill file {}: {}", file, closeException.toString());
+            }
+
+            return;
+        }
+
+        spillFile = file;
+        spillFileOutputStream = fileOutputStream;
+        spilledSize = heapBuffer.size();
+        //heap copy is released right away - that's the point of spilling
+        heapBuffer = new HeapBuffer(0);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Captured body of {} bytes is spilled to file {}", spilledSize, spillFile);
+        }
+    }
+
+    /**
+     * Exposes buffered bytes as input stream without copying
+     */
+    private static class HeapBuffer extends ByteArrayOutputStream {
+        private HeapBuffer(int initialSize) {
+            super(initialSize);
+        }
+
+        private InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /**
+     * Reads file through memory-mapped windows of {@link #MAPPED_WINDOW_SIZE} bytes
+     */
+    private static class MappedFileInputStream extends InputStream {
+        private final FileChannel fileChannel;
+        private final long size;
+
+        private MappedByteBuffer window;
+        private long windowPosition;
+
+        private MappedFileInputStream(Path file, long size) throws IOException {
+            this.fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!hasRemaining()) {
+                return -1;
+            }
+
+            return window.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!hasRemaining()) {
+                return -1;
+            }
+
+            int readLength = Math.min(len, window.remaining());
+
+            window.get(b, off, readLength);
+
+            return readLength;
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            fileChannel.close();
+        }
+
+        private boolean hasRemaining() throws IOException {
+            if (window != null && window.hasRemaining()) {
+                return true;
+            }
+
+            long nextWindowPosition = window != null ? windowPosition + window.capacity() : 0;
+
+            if (nextWindowPosition >= size) {
+                return false;
+            }
+
+            windowPosition = nextWindowPosition;
+            window = fileChannel.map(FileChannel.MapMode.READ_ONLY, windowPosition,
+                    Math.min(MAPPED_WINDOW_SIZE, size - windowPosition));
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.FilterPatternBinaryCodec;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Two-tier cache of filter patterns parsed from header: bounded in-process L1 (least recently used pattern is evicted)
+ * over shared L2 {@link FilterPatternBinaryStore}. Patterns are kept in L2 in compact binary form
+ * (see {@link FilterPatternBinaryCodec}), so pattern is restored from L2 without json parsing - freshly started instance
+ * picks up patterns already parsed by other instances instead of parsing each of them again.
+ * <p>
+ * L2 keys are prefixed with binary format version, so instances with different format versions don't read each other's
+ * patterns. L2 failures and undecodable L2 values are logged and treated as cache miss - pattern is then parsed from header
+ */
+public class TwoTierDynamicJsonFiltersCacheWrapper implements DynamicJsonFiltersCacheWrapper {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    public static final int DEFAULT_L1_MAX_SIZE = 10_000;
+
+    private static final String L2_KEY_PREFIX = "jsonsiever:v" + FilterPatternBinaryCodec.FORMAT_VERSION + ":";
+    private static final FilterPatternBinaryCodec FILTER_PATTERN_CODEC = new FilterPatternBinaryCodec();
+
+    private final FilterPatternBinaryStore l2Store;
+    private final Map<String, CachedFilterPattern> l1Cache;
+
+    public TwoTierDynamicJsonFiltersCacheWrapper(FilterPatternBinaryStore l2Store) {
+        this(l2Store, DEFAULT_L1_MAX_SIZE);
+    }
+
+    public TwoTierDynamicJsonFiltersCacheWrapper(FilterPatternBinaryStore l2Store, int l1MaxSize) {
+        this.l2Store = l2Store;
+        //access-ordered map evicts least recently used pattern
+        this.l1Cache = Collections.synchronizedMap(new LinkedHashMap<String, CachedFilterPattern>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedFilterPattern> eldest) {
+                return size() > l1MaxSize;
+            }
+        });
+    }
+
+    @Override
+    public JsonNode get(String key) {
+        CachedFilterPattern cachedFilterPattern = getWithNodeCount(key);
+
+        return cachedFilterPattern != null ? cachedFilterPattern.getFilterPattern() : null;
+    }
+
+    @Override
+    public void putIfAbsent(String filterPatternHeaderValue, JsonNode parsedFilterPattern) {
+        putIfAbsent(filterPatternHeaderValue, new CachedFilterPattern(parsedFilterPattern));
+    }
+
+    @Override
+    public CachedFilterPattern getWithNodeCount(String key) {
+        CachedFilterPattern cachedFilterPattern = l1Cache.get(key);
+
+        if (cachedFilterPattern != null) {
+            return cachedFilterPattern;
+        }
+
+        JsonNode filterPattern = getFromL2(key);
+
+        if (filterPattern == null) {
+            return null;
+        }
+
+        //node count is not kept in L2 - it is counted once, when pattern is restored to L1
+        cachedFilterPattern = new CachedFilterPattern(filterPattern);
+
+        l1Cache.put(key, cachedFilterPattern);
+
+        return cachedFilterPattern;
+    }
+
+    @Override
+    public void putIfAbsent(String filterPatternHeaderValue, CachedFilterPattern parsedFilterPattern) {
+        l1Cache.putIfAbsent(filterPatternHeaderValue, parsedFilterPattern);
+
+        byte[] encodedFilterPattern;
+
+        try {
+            encodedFilterPattern = FILTER_PATTERN_CODEC.encode(parsedFilterPattern.getFilterPattern());
+        } catch (BadFilterPatternException e) {
+            log.warn("Failed to encode filter pattern for L2 cache: {}", e.getMessage());
+
+            return;
+        }
+
+        try {
+            l2Store.putIfAbsent(L2_KEY_PREFIX + filterPatternHeaderValue, encodedFilterPattern);
+        } catch (RuntimeException e) {
+            log.warn("Failed to store filter pattern in L2 cache: {}", e.toString());
+        }
+    }
+
+    public int getL1Size() {
+        return l1Cache.size();
+    }
+
+    private JsonNode getFromL2(String key) {
+        byte[] encodedFilterPattern;
+
+        try {
+            encodedFilterPattern = l2Store.get(L2_KEY_PREFIX + key);
+        } catch (RuntimeException e) {
+            log.warn("Failed to get filter pattern from L2 cache: {}", e.toString());
+
+            return null;
+        }
+
+        if (encodedFilterPattern == null) {
+            return null;
+        }
+
+        try {
+            JsonNode filterPattern = FILTER_PATTERN_CODEC.decode(encodedFilterPattern);
+
+            //L2 is shared with other instances - pattern is not trusted more than header it came from
+            JsonFilteringService.validateFilterPattern(filterPattern);
+
+            return filterPattern;
+        } catch (JsonFilteringException e) {
+            log.warn("Failed to decode filter pattern from L2 cache, ignoring it: {}", e.getMessage());
+
+            return null;
+        }
+    }
+}
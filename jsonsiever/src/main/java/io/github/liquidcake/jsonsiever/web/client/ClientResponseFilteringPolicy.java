@@ -0,0 +1,32 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.Locale;
+
+/**
+ * Which upstream responses are filtered by client interceptors: only successful responses with json body
+ * (e.g. "application/json", "application/problem+json"). Error responses are left as is, so application
+ * may read error details
+ */
+final class ClientResponseFilteringPolicy {
+
+    private ClientResponseFilteringPolicy() {
+    }
+
+    static boolean isFiltered(HttpStatusCode statusCode, HttpHeaders headers) {
+        if (!statusCode.is2xxSuccessful()) {
+            return false;
+        }
+
+        String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json");
+    }
+}
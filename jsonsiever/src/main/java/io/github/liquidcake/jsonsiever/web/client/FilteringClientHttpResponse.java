@@ -0,0 +1,66 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.client;
+
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Upstream response with body filtered as it is read. Content-Length of upstream response is dropped,
+ * since filtered body length is unknown until body is read
+ */
+class FilteringClientHttpResponse implements ClientHttpResponse {
+    private final ClientHttpResponse delegate;
+    private final JsonFilteringService.NonBlockingFilter nonBlockingFilter;
+
+    private HttpHeaders headers;
+    private InputStream body;
+
+    FilteringClientHttpResponse(ClientHttpResponse delegate, JsonFilteringService.NonBlockingFilter nonBlockingFilter) {
+        this.delegate = delegate;
+        this.nonBlockingFilter = nonBlockingFilter;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+        return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        if (headers == null) {
+            headers = new HttpHeaders();
+            headers.putAll(delegate.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        return headers;
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        if (body == null) {
+            body = new FilteringInputStream(delegate.getBody(), nonBlockingFilter);
+        }
+
+        return body;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.client;
+
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream of filtered json: json is read from upstream stream chunk by chunk (as much as application reads)
+ * and filtered with {@link JsonFilteringService.NonBlockingFilter}, so whole upstream body is never held in memory
+ * (array elements filtered with "$where" predicate are read ahead until predicate is decided, within
+ * {@link JsonFilteringService#MAX_PREDICATE_LOOKAHEAD_BYTES} bytes per element)
+ */
+class FilteringInputStream extends InputStream {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final byte[] NO_OUTPUT = new byte[0];
+
+    private final InputStream upstreamInputStream;
+    private final JsonFilteringService.NonBlockingFilter nonBlockingFilter;
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    //filtered json that is not read by application yet
+    private byte[] output = NO_OUTPUT;
+    private int outputPosition;
+    private boolean endOfInput;
+
+    FilteringInputStream(InputStream upstreamInputStream, JsonFilteringService.NonBlockingFilter nonBlockingFilter) {
+        this.upstreamInputStream = upstreamInputStream;
+        this.nonBlockingFilter = nonBlockingFilter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureOutputAvailable()) {
+            return -1;
+        }
+
+        return output[outputPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!ensureOutputAvailable()) {
+            return -1;
+        }
+
+        int length = Math.min(len, output.length - outputPosition);
+
+        System.arraycopy(output, outputPosition, b, off, length);
+        outputPosition += length;
+
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return output.length - outputPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        upstreamInputStream.close();
+    }
+
+    /**
+     * @return false if whole filtered json is read
+     */
+    private boolean ensureOutputAvailable() throws IOException {
+        //chunk may produce no filtered output (e.g. it only contains skipped fields) - read until there is some
+        while (outputPosition >= output.length) {
+            if (endOfInput) {
+                return false;
+            }
+
+            int readBytes = upstreamInputStream.read(readBuffer);
+
+            try {
+                if (readBytes < 0) {
+                    endOfInput = true;
+                    nonBlockingFilter.endOfInput();
+                } else {
+                    nonBlockingFilter.feedInput(readBuffer, 0, readBytes);
+                }
+            } catch (JsonFilteringException e) {
+                throw new IOException("Failed to filter json response body", e);
+            }
+
+            output = nonBlockingFilter.drainOutput();
+            outputPosition = 0;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * RestTemplate / RestClient interceptor that filters json body of upstream response as application reads it, so
+ * application deserializes already filtered (smaller) json, e.g.
+ * <pre>
+ * RestClient.builder()
+ *         .requestInterceptor(new JsonFilteringClientHttpRequestInterceptor(jsonFilteringService, filterPattern))
+ *         .build();
+ * </pre>
+ * Only successful responses with json Content-Type are filtered. Upstream body is read and filtered chunk by chunk
+ * (see {@link JsonFilteringService.NonBlockingFilter}), it is never held in memory as a whole - only array elements
+ * filtered with "$where" predicate are read ahead, up to {@link JsonFilteringService#MAX_PREDICATE_LOOKAHEAD_BYTES}
+ * bytes per element.
+ * If upstream json can't be filtered - reading of response body fails with {@link IOException}
+ */
+public class JsonFilteringClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+    private final JsonFilteringService jsonFilteringService;
+    private final Function<HttpRequest, JsonNode> filterPatternResolver;
+
+    /**
+     * @param filterPattern filter pattern applied to all responses
+     */
+    public JsonFilteringClientHttpRequestInterceptor(JsonFilteringService jsonFilteringService, JsonNode filterPattern) {
+        this(jsonFilteringService, request -> filterPattern);
+    }
+
+    /**
+     * @param filterPatternResolver filter pattern for request, or null if response must not be filtered
+     */
+    public JsonFilteringClientHttpRequestInterceptor(JsonFilteringService jsonFilteringService,
+                                                     Function<HttpRequest, JsonNode> filterPatternResolver) {
+        this.jsonFilteringService = jsonFilteringService;
+        this.filterPatternResolver = filterPatternResolver;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        JsonNode filterPattern = filterPatternResolver.apply(request);
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (filterPattern == null
+                || !ClientResponseFilteringPolicy.isFiltered(response.getStatusCode(), response.getHeaders())) {
+            return response;
+        }
+
+        try {
+            return new FilteringClientHttpResponse(response, jsonFilteringService.newNonBlockingFilter(filterPattern));
+        } catch (JsonFilteringException e) {
+            response.close();
+
+            throw new IOException("Failed to start filtering of json response body", e);
+        }
+    }
+}
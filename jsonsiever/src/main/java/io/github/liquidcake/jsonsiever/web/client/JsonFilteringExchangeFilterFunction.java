@@ -0,0 +1,87 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.web.reactive.DataBufferJsonFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * WebClient filter that filters json body of upstream response as it streams in, so application decodes already
+ * filtered (smaller) json, e.g.
+ * <pre>
+ * WebClient.builder()
+ *         .filter(new JsonFilteringExchangeFilterFunction(jsonFilteringService, filterPattern))
+ *         .build();
+ * </pre>
+ * Only successful responses with json Content-Type are filtered. Each body chunk is filtered and released as it arrives
+ * (see {@link DataBufferJsonFilter}), without blocking. If upstream json can't be filtered - response body
+ * terminates with {@link JsonFilteringException}
+ */
+public class JsonFilteringExchangeFilterFunction implements ExchangeFilterFunction {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final JsonFilteringService jsonFilteringService;
+    private final Function<ClientRequest, JsonNode> filterPatternResolver;
+
+    /**
+     * @param filterPattern filter pattern applied to all responses
+     */
+    public JsonFilteringExchangeFilterFunction(JsonFilteringService jsonFilteringService, JsonNode filterPattern) {
+        this(jsonFilteringService, request -> filterPattern);
+    }
+
+    /**
+     * @param filterPatternResolver filter pattern for request, or null if response must not be filtered
+     */
+    public JsonFilteringExchangeFilterFunction(JsonFilteringService jsonFilteringService,
+                                               Function<ClientRequest, JsonNode> filterPatternResolver) {
+        this.jsonFilteringService = jsonFilteringService;
+        this.filterPatternResolver = filterPatternResolver;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        JsonNode filterPattern = filterPatternResolver.apply(request);
+
+        if (filterPattern == null) {
+            return next.exchange(request);
+        }
+
+        return next.exchange(request).map(response -> {
+            if (!ClientResponseFilteringPolicy.isFiltered(response.statusCode(), response.headers().asHttpHeaders())) {
+                return response;
+            }
+
+            DataBufferJsonFilter.Listener failureLogger = new DataBufferJsonFilter.Listener() {
+                @Override
+                public void onFailure(JsonFilteringException e) {
+                    log.warn("Failed to filter json response body of {} {}: {}", request.method(), request.url(),
+                            e.toString());
+                }
+            };
+
+            return response.mutate()
+                    //filtered body length is unknown until body is filtered
+                    .headers(headers -> headers.remove(HttpHeaders.CONTENT_LENGTH))
+                    .body(body -> DataBufferJsonFilter.filter(body, jsonFilteringService, filterPattern,
+                            DefaultDataBufferFactory.sharedInstance, failureLogger))
+                    .build();
+        });
+    }
+}
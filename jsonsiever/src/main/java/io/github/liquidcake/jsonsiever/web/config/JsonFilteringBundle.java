@@ -0,0 +1,124 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.FilterPatternBinaryCodec;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precompiled json filtering bundle - settings file content together with all filter patterns it references,
+ * encoded with {@link FilterPatternBinaryCodec}. Built at build time by {@link JsonFilteringBundleBuilder}
+ * and loaded by {@link JsonFilteringSettings} with a single read instead of parsing each pattern file.
+ * <p>
+ * Format: magic bytes, format version, settings yaml, pattern count, then (pattern file path, encoded pattern) pairs.
+ * Settings are kept as yaml text since it is small - this keeps bundle format independent of settings structure
+ */
+public class JsonFilteringBundle {
+
+    private static final byte[] MAGIC = "JSIEVBDL".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 1;
+
+    private static final FilterPatternBinaryCodec FILTER_PATTERN_CODEC = new FilterPatternBinaryCodec();
+
+    private final String settingsYaml;
+    private final Map<String, JsonNode> filterPatternsByPath;
+
+    public JsonFilteringBundle(String settingsYaml, Map<String, JsonNode> filterPatternsByPath) {
+        this.settingsYaml = settingsYaml;
+        this.filterPatternsByPath = filterPatternsByPath;
+    }
+
+    public byte[] encode() throws JsonFilteringException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(byteArrayOutputStream)) {
+            out.write(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+
+            writeBytes(out, settingsYaml.getBytes(StandardCharsets.UTF_8));
+
+            out.writeInt(filterPatternsByPath.size());
+
+            for (Map.Entry<String, JsonNode> entry : filterPatternsByPath.entrySet()) {
+                writeBytes(out, entry.getKey().getBytes(StandardCharsets.UTF_8));
+                writeBytes(out, FILTER_PATTERN_CODEC.encode(entry.getValue()));
+            }
+        } catch (IOException e) {
+            throw new JsonFilteringException("Failed to encode json filtering bundle", e);
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    public static JsonFilteringBundle decode(byte[] bundleBytes) throws JsonFilteringException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bundleBytes))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new JsonFilteringException("Not a json filtering bundle");
+            }
+
+            int formatVersion = in.readInt();
+
+            if (formatVersion != FORMAT_VERSION) {
+                throw new JsonFilteringException("Unsupported json filtering bundle format version: " + formatVersion);
+            }
+
+            String settingsYaml = new String(readBytes(in), StandardCharsets.UTF_8);
+
+            int patternsCount = in.readInt();
+            Map<String, JsonNode> filterPatternsByPath = new LinkedHashMap<>();
+
+            for (int i = 0; i < patternsCount; i++) {
+                String path = new String(readBytes(in), StandardCharsets.UTF_8);
+
+                filterPatternsByPath.put(path, FILTER_PATTERN_CODEC.decode(readBytes(in)));
+            }
+
+            return new JsonFilteringBundle(settingsYaml, filterPatternsByPath);
+        } catch (IOException e) {
+            throw new JsonFilteringException("Failed to decode json filtering bundle", e);
+        }
+    }
+
+    public String getSettingsYaml() {
+        return settingsYaml;
+    }
+
+    public Map<String, JsonNode> getFilterPatternsByPath() {
+        return filterPatternsByPath;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Bad length in json filtering bundle: " + length);
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.web.JsonFilteringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Build-time tool that reads settings file {@link JsonFilteringSettings#JSON_FILTERS_CONFIG_FILE} and all filter pattern
+ * files it references from resources directory, validates them and writes precompiled {@link JsonFilteringBundle}.
+ * Fails (exits with non-zero code) if settings or any of referenced pattern files can't be loaded.
+ * <p>
+ * Usage: <pre>JsonFilteringBundleBuilder &lt;resources dir&gt; [&lt;output bundle file&gt;]</pre>
+ * By default bundle is written as {@link JsonFilteringSettings#JSON_FILTERS_BUNDLE_FILE} into resources dir.
+ * See <i>buildJsonFilteringBundle</i> task in jsonsiever build.gradle
+ */
+public class JsonFilteringBundleBuilder {
+
+    private final JsonFilteringUtils jsonFilteringUtils;
+
+    public JsonFilteringBundleBuilder(JsonFilteringUtils jsonFilteringUtils) {
+        this.jsonFilteringUtils = jsonFilteringUtils;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: JsonFilteringBundleBuilder <resources dir> [<output bundle file>]");
+            System.exit(2);
+        }
+
+        Path resourcesDir = Path.of(args[0]);
+        Path outputFile = args.length == 2
+                ? Path.of(args[1])
+                : resourcesDir.resolve(JsonFilteringSettings.JSON_FILTERS_BUNDLE_FILE);
+
+        try {
+            JsonFilteringBundleBuilder bundleBuilder =
+                    new JsonFilteringBundleBuilder(new JsonFilteringUtils(new ObjectMapper()));
+
+            int patternsCount = bundleBuilder.buildBundle(resourcesDir, outputFile);
+
+            System.out.printf("Json filtering bundle with %d filter patterns written to %s%n", patternsCount, outputFile);
+        } catch (Exception e) {
+            System.err.println("Failed to build json filtering bundle: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return number of filter patterns written to bundle
+     */
+    public int buildBundle(Path resourcesDir, Path outputFile) throws IOException, JsonFilteringException {
+        Path settingsFile = resourcesDir.resolve(JsonFilteringSettings.JSON_FILTERS_CONFIG_FILE);
+        String settingsYaml = Files.readString(settingsFile, StandardCharsets.UTF_8);
+
+        Optional<JsonFilteringSettings.JsonSiever> settingsOpt =
+                jsonFilteringUtils.parseYamlAs(settingsYaml, JsonFilteringSettings.JsonSiever.class);
+
+        if (settingsOpt.isEmpty()) {
+            throw new JsonFilteringException("Failed to parse settings file " + settingsFile);
+        }
+
+        Map<String, JsonNode> filterPatternsByPath = new LinkedHashMap<>();
+
+        for (String filePath : JsonFilteringSettings.collectFilterPatternPaths(settingsOpt.get())) {
+            Path patternFile = resourcesDir.resolve(filePath.startsWith("/") ? filePath.substring(1) : filePath);
+
+            filterPatternsByPath.put(filePath, readFilterPattern(patternFile));
+        }
+
+        byte[] bundleBytes = new JsonFilteringBundle(settingsYaml, filterPatternsByPath).encode();
+
+        if (outputFile.getParent() != null) {
+            Files.createDirectories(outputFile.getParent());
+        }
+        Files.write(outputFile, bundleBytes);
+
+        return filterPatternsByPath.size();
+    }
+
+    private JsonNode readFilterPattern(Path patternFile) throws IOException, JsonFilteringException {
+        try (InputStream inputStream = Files.newInputStream(patternFile)) {
+            JsonNode filterPattern = jsonFilteringUtils.parseFilterPattern(inputStream);
+
+            if (filterPattern == null || filterPattern.isMissingNode()) {
+                throw new JsonFilteringException("Filter pattern file is empty: " + patternFile);
+            }
+
+            return filterPattern;
+        } catch (IOException e) {
+            throw new JsonFilteringException("Failed to parse filter pattern file " + patternFile + ": " + e.getMessage(), e);
+        }
+    }
+}
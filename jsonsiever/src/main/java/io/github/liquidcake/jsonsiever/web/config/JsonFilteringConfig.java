@@ -5,8 +5,11 @@
 
 package io.github.liquidcake.jsonsiever.web.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.metrics.JsonFilteringMetrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -33,10 +36,22 @@ import org.springframework.context.annotation.Configuration;
 
     {@literal @}Bean
     public DynamicJsonFiltersCacheWrapper simpleInMemoryDynamicJsonFiltersCacheWrapper() {
-        //provide your own implementation if needed - e.g. wrapper to Redis cache etc
+        //provide your own implementation if needed - e.g. TwoTierDynamicJsonFiltersCacheWrapper over Redis
         return new SimpleInMemoryDynamicJsonFiltersCacheWrapper();
     }
  * </pre>
+ * To filter large bodies outside of container threads - pass offload executor to filter, e.g.
+ * <pre>new JsonResponseBodyFilter(jsonResponseFilterApplier, FilteringOffloadExecutors.newBoundedExecutor(4, 100))</pre>
+ * and set <i>offloadThresholdBytes</i> for endpoints (see {@link io.github.liquidcake.jsonsiever.web.FilteringOffloadExecutors})
+ * <p>
+ * For Spring WebFlux application - declare {@link io.github.liquidcake.jsonsiever.web.reactive.JsonResponseBodyWebFilter}
+ * bean instead of servlet filter
+ * <p>
+ * Jackson read constraints of filtered json data are taken from <i>streamReadConstraints</i> settings section
+ * (see {@link JsonFilteringSettings})
+ * <p>
+ * Optionally declare {@link JsonFilteringMetrics} bean (e.g. {@link io.github.liquidcake.jsonsiever.core.metrics.InMemoryJsonFilteringMetrics})
+ * to collect filtering metrics, otherwise metrics are not collected
  * */
 //@formatter:on
 @Configuration
@@ -44,8 +59,19 @@ import org.springframework.context.annotation.Configuration;
 public class JsonFilteringConfig {
 
     @Bean
-    public JsonFilteringService jsonFilteringService() {
+    public JsonFilteringService jsonFilteringService(JsonFilteringSettings jsonFilteringSettings,
+                                                     ObjectProvider<JsonFilteringMetrics> jsonFilteringMetricsProvider) {
         //create new ObjectMapper instance to get default JsonFactory from it
-        return new JsonFilteringService(new ObjectMapper().getFactory());
+        JsonFactory jsonFactory = new ObjectMapper().getFactory();
+
+        JsonFilteringSettings.StreamReadConstraintsSettings streamReadConstraints =
+                jsonFilteringSettings.getJsonsiever().getStreamReadConstraints();
+
+        if (streamReadConstraints != null) {
+            jsonFactory.setStreamReadConstraints(streamReadConstraints.toStreamReadConstraints());
+        }
+
+        return new JsonFilteringService(jsonFactory,
+                jsonFilteringMetricsProvider.getIfAvailable(() -> JsonFilteringMetrics.NOOP));
     }
 }
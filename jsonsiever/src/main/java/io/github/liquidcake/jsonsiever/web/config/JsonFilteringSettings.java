@@ -5,17 +5,25 @@
 
 package io.github.liquidcake.jsonsiever.web.config;
 
+import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.FilteringLimits;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
 import jakarta.annotation.PostConstruct;
 import io.github.liquidcake.jsonsiever.web.JsonFilteringUtils;
+import io.github.liquidcake.jsonsiever.web.RejectedFilterPatternsCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,6 +34,9 @@ import java.util.regex.Pattern;
  * <pre>
  * filterHeaderName: "X-json-filter-pattern"
  * clientIdHeaderName: "X-client-id"
+ * patternIdHeaderName: "X-json-filter-pattern-id"
+ * registeredPatternPaths:
+ *   cats-short: "/json-filters/registered/cats-short.json"
  * endpoints:
  *   - path: "GET_/get-cats"
  *     regexpPath: false
@@ -39,16 +50,56 @@ import java.util.regex.Pattern;
  * e.g. <pre>/json-filters/get_get-cats/our-mobile-app.json</pre>
  * Content of filter pattern file would be a json "mask" - e.g. to return only "name" from {"name": "Cat", age: 5}
  * you would use filter pattern {"name": 1}. More details on filter patterns in {@link io.github.liquidcake.jsonsiever.core.JsonFilteringService}
+ * <p>
+ * Patterns listed under <i>registeredPatternPaths</i> (or registered in runtime via
+ * {@link #registerFilterPattern(String, JsonNode)}) are loaded ahead of time, so clients may send just a short pattern ID
+ * (or pattern content hash, see {@link JsonFilteringUtils#calculateFilterPatternHash(JsonNode)})
+ * in <i>patternIdHeaderName</i> header instead of full filter pattern json.
+ * Pattern ID header is allowed for endpoints that have <i>headerPatternAllowed</i> enabled
+ * <p>
+ * If <i>hotReloadEnabled</i> is set - settings file and all pattern files are polled for changes each
+ * <i>hotReloadPollIntervalMillis</i> (see {@link JsonFilteringSettingsWatcher}) and reloaded in background.
+ * Only files resolved to filesystem (e.g. exploded classpath directory) are watched, files packed into jar are not
+ * <p>
+ * If precompiled bundle {@link #JSON_FILTERS_BUNDLE_FILE} (see {@link JsonFilteringBundleBuilder}) is present in classpath -
+ * settings and all filter patterns are loaded from it with a single read, and settings/pattern files are ignored.
+ * Otherwise, pattern files are loaded in parallel
+ * <p>
+ * Endpoint may set resource limits for filtering: <i>maxBodySizeBytes</i>, <i>maxNestingDepth</i>,
+ * <i>maxFilteringTimeMillis</i> (body exceeding them is returned as is, or rejected with <i>rejectStatusCode</i>
+ * if <i>rejectOnLimitExceeded</i> is set) and <i>maxHeaderPatternSizeBytes</i>, <i>maxHeaderPatternNodes</i>
+ * (larger filter pattern sent in header is ignored, as if header was not sent). Jackson parser limits for all filtered
+ * json data may be set in <i>streamReadConstraints</i> section, e.g.
+ * <pre>
+ * streamReadConstraints:
+ *   maxNestingDepth: 200
+ *   maxStringLength: 1000000
+ * </pre>
+ * <p>
+ * Endpoint with <i>etagEnabled</i> set responds to GET/HEAD requests with ETag computed from filtered body
+ * (see {@link io.github.liquidcake.jsonsiever.web.FilteredBodyETag}), and with 304 Not Modified if request
+ * <i>If-None-Match</i> header matches it
+ * <p>
+ * Filtering engine may be warmed up on startup with endpoint filter patterns, see <i>warmup</i> section and
+ * {@link JsonFilteringWarmup}
+ * <p>
+ * Endpoint with <i>serverTimingEnabled</i> set collects per-request filtering cost breakdown, see
+ * {@link io.github.liquidcake.jsonsiever.web.FilteringTimings}
  * */
 @Component
 public class JsonFilteringSettings {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     public final static String JSON_FILTERS_CONFIG_FILE = "json-filtering-settings.yml";
+    public final static String JSON_FILTERS_BUNDLE_FILE = "json-filtering-settings.bundle";
 
     private final JsonFilteringUtils jsonFilteringUtils;
 
-    private JsonSiever jsonsiever;
+    //immutable settings snapshot - replaced as a whole on reload, never modified after it is published
+    private volatile JsonSiever jsonsiever;
+
+    //patterns registered in runtime via API (by pattern ID as well as by pattern content hash) - survive settings reload
+    private final Map<String, JsonNode> registeredFilterPatterns = new ConcurrentHashMap<>();
 
     public JsonFilteringSettings(JsonFilteringUtils jsonFilteringUtils) {
         this.jsonFilteringUtils = jsonFilteringUtils;
@@ -56,52 +107,238 @@ public class JsonFilteringSettings {
 
     @PostConstruct
     public void initProperties() {
+        //on startup settings are published even if some pattern files are broken - there is nothing to fall back to
+        jsonsiever = loadSettings(false).orElseGet(JsonSiever::new);
+    }
+
+    /**
+     * Loads settings file and all filter pattern files it references into a new settings snapshot, and publishes it
+     * with a single reference swap. Request threads never wait for reload - they keep using previous snapshot until
+     * new one is published. If settings file or any filter pattern file it references can't be loaded - previous
+     * snapshot is kept, so half-edited pattern file doesn't silently disable filtering for its endpoints.
+     *
+     * @return true if new settings snapshot was published
+     */
+    public boolean reloadProperties() {
+        Optional<JsonSiever> reloadedSettingsOpt = loadSettings(true);
+
+        if (reloadedSettingsOpt.isEmpty()) {
+            log.warn("Failed to reload json filtering settings, keeping previously loaded settings");
+
+            return false;
+        }
+
+        jsonsiever = reloadedSettingsOpt.get();
+
+        log.info("Reloaded json filtering settings");
+
+        return true;
+    }
+
+    /**
+     * @param requireAllFilterPatterns if true - settings are not loaded if any referenced filter pattern is missing or broken
+     */
+    private Optional<JsonSiever> loadSettings(boolean requireAllFilterPatterns) {
+        Optional<byte[]> bundleBytesOpt = jsonFilteringUtils.readClasspathFileAsBytes("/" + JSON_FILTERS_BUNDLE_FILE);
+
+        if (bundleBytesOpt.isPresent()) {
+            return loadSettingsFromBundle(bundleBytesOpt.get(), requireAllFilterPatterns);
+        }
+
         Optional<JsonSiever> parsedSettingsOpt =
                 jsonFilteringUtils.readClasspathYamlFileAs(JSON_FILTERS_CONFIG_FILE, JsonSiever.class);
 
         if (parsedSettingsOpt.isEmpty()) {
-            jsonsiever = new JsonSiever();
+            return Optional.empty();
+        }
+
+        JsonSiever loadedSettings = parsedSettingsOpt.get();
+
+        //pattern files are independent of each other - parse them in parallel since there may be thousands of them
+        Map<String, JsonNode> filterPatternsByPath = new ConcurrentHashMap<>();
+
+        collectFilterPatternPaths(loadedSettings).parallelStream().forEach(filePath ->
+                jsonFilteringUtils.readClasspathFileAsJsonNode(filePath)
+                        .ifPresent(filterPattern -> filterPatternsByPath.put(filePath, filterPattern))
+        );
+
+        if (!applyFilterPatterns(loadedSettings, filterPatternsByPath) && requireAllFilterPatterns) {
+            return Optional.empty();
+        }
+
+        return Optional.of(loadedSettings);
+    }
+
+    private Optional<JsonSiever> loadSettingsFromBundle(byte[] bundleBytes, boolean requireAllFilterPatterns) {
+        JsonFilteringBundle bundle;
+
+        try {
+            bundle = JsonFilteringBundle.decode(bundleBytes);
+        } catch (Exception e) {
+            log.warn("Failed to load json filtering bundle: {}", JSON_FILTERS_BUNDLE_FILE, e);
+
+            return Optional.empty();
+        }
+
+        Optional<JsonSiever> parsedSettingsOpt =
+                jsonFilteringUtils.parseYamlAs(bundle.getSettingsYaml(), JsonSiever.class);
+
+        if (parsedSettingsOpt.isEmpty()) {
+            return Optional.empty();
+        }
 
-            return;
+        if (!applyFilterPatterns(parsedSettingsOpt.get(), bundle.getFilterPatternsByPath()) && requireAllFilterPatterns) {
+            return Optional.empty();
         }
 
-        jsonsiever = parsedSettingsOpt.get();
+        log.info("Loaded json filtering settings from bundle {}", JSON_FILTERS_BUNDLE_FILE);
+
+        return parsedSettingsOpt;
+    }
 
-        if (jsonsiever.endpoints != null) {
-            for (Endpoint endpoint : jsonsiever.endpoints) {
+    /**
+     * @return false if some of filter patterns referenced by settings are missing
+     */
+    private boolean applyFilterPatterns(JsonSiever loadedSettings, Map<String, JsonNode> filterPatternsByPath) {
+        boolean allFilterPatternsLoaded = true;
+
+        if (loadedSettings.registeredPatternPaths != null) {
+            for (Map.Entry<String, String> entry : loadedSettings.registeredPatternPaths.entrySet()) {
+                String patternId = entry.getKey();
+                JsonNode filterPattern = filterPatternsByPath.get(entry.getValue());
+
+                if (filterPattern != null) {
+                    loadedSettings.registeredFilterPatterns.put(patternId, filterPattern);
+                    loadedSettings.registeredFilterPatterns.put(
+                            jsonFilteringUtils.calculateFilterPatternHash(filterPattern), filterPattern);
+
+                    log.info("Loaded registered json filter pattern {}", patternId);
+                } else {
+                    log.warn("Failed to load registered json filter pattern {}", patternId);
+                    allFilterPatternsLoaded = false;
+                }
+            }
+        }
+
+        if (loadedSettings.endpoints != null) {
+            for (Endpoint endpoint : loadedSettings.endpoints) {
                 if (endpoint.isRegexpPath() && endpoint.getPath() != null) {
                     endpoint.pattern = Pattern.compile(endpoint.getPath(), Pattern.CASE_INSENSITIVE);
                 }
 
+                endpoint.filteringLimits =
+                        new FilteringLimits(endpoint.getMaxNestingDepth(), endpoint.getMaxFilteringTimeMillis());
+
                 if (endpoint.getFilePatternPathPerClient() != null) {
                     for (Map.Entry<String, String> entry : endpoint.getFilePatternPathPerClient().entrySet()) {
                         String clientId = entry.getKey();
-                        String filePath = entry.getValue();
-
-                        Optional<JsonNode> parsedJsonFilterPatternOpt = jsonFilteringUtils.readClasspathFileAsJsonNode(filePath);
+                        JsonNode filterPattern = filterPatternsByPath.get(entry.getValue());
 
-                        if (parsedJsonFilterPatternOpt.isPresent()) {
-                            endpoint.filePatternPerClient.put(clientId, parsedJsonFilterPatternOpt.get());
+                        if (filterPattern != null) {
+                            endpoint.filePatternPerClient.put(clientId, filterPattern);
 
                             log.info("Loaded json filter pattern for endpoint {} client {}", endpoint.path, clientId);
                         } else {
                             log.warn("Failed to load json filter pattern for endpoint {} client {}", endpoint.path, clientId);
+                            allFilterPatternsLoaded = false;
                         }
                     }
                 }
             }
         }
+
+        return allFilterPatternsLoaded;
+    }
+
+    /**
+     * @return classpath paths of all filter pattern files referenced by settings
+     */
+    static Set<String> collectFilterPatternPaths(JsonSiever settings) {
+        Set<String> filePaths = new LinkedHashSet<>();
+
+        if (settings.registeredPatternPaths != null) {
+            filePaths.addAll(settings.registeredPatternPaths.values());
+        }
+
+        if (settings.endpoints != null) {
+            for (Endpoint endpoint : settings.endpoints) {
+                if (endpoint.getFilePatternPathPerClient() != null) {
+                    filePaths.addAll(endpoint.getFilePatternPathPerClient().values());
+                }
+            }
+        }
+
+        return filePaths;
     }
 
     public JsonSiever getJsonsiever() {
         return jsonsiever;
     }
 
+    /**
+     * Registers filter pattern so clients may reference it by pattern ID or by pattern content hash
+     *
+     * @return content hash of registered pattern
+     * @throws IllegalArgumentException if filter pattern is invalid (see {@link JsonFilteringService#validateFilterPattern(JsonNode)})
+     */
+    public String registerFilterPattern(String patternId, JsonNode filterPattern) {
+        try {
+            JsonFilteringService.validateFilterPattern(filterPattern);
+        } catch (BadFilterPatternException e) {
+            throw new IllegalArgumentException(
+                    String.format("Bad filter pattern '%s': %s", patternId, e.getMessage()), e);
+        }
+
+        String patternHash = jsonFilteringUtils.calculateFilterPatternHash(filterPattern);
+
+        registeredFilterPatterns.put(patternId, filterPattern);
+        registeredFilterPatterns.put(patternHash, filterPattern);
+
+        return patternHash;
+    }
+
+    /**
+     * @param patternIdOrHash registered pattern ID or pattern content hash
+     */
+    public Optional<JsonNode> findRegisteredFilterPattern(String patternIdOrHash) {
+        JsonNode filterPattern = jsonsiever.registeredFilterPatterns.get(patternIdOrHash);
+
+        if (filterPattern == null) {
+            filterPattern = registeredFilterPatterns.get(patternIdOrHash);
+        }
+
+        return Optional.ofNullable(filterPattern);
+    }
+
+    /**
+     * @return classpath paths of settings file and all filter pattern files referenced by current settings snapshot
+     */
+    public Set<String> getWatchedFilePaths() {
+        Set<String> filePaths = new LinkedHashSet<>();
+
+        filePaths.add(JSON_FILTERS_CONFIG_FILE);
+        filePaths.add(JSON_FILTERS_BUNDLE_FILE);
+        filePaths.addAll(collectFilterPatternPaths(jsonsiever));
+
+        return filePaths;
+    }
+
     public static class JsonSiever {
 
         private String filterHeaderName;
         private String clientIdHeaderName;
+        private String patternIdHeaderName;
+        private Map<String, String> registeredPatternPaths;
+        private boolean hotReloadEnabled;
+        private long hotReloadPollIntervalMillis = 5000;
         private List<Endpoint> endpoints;
+        //applied once on startup (settings reload doesn't change them)
+        private StreamReadConstraintsSettings streamReadConstraints;
+        //applied once on startup (settings reload doesn't change it)
+        private WarmupSettings warmup;
+
+        //additional properties
+        private final Map<String, JsonNode> registeredFilterPatterns = new HashMap<>();
 
         public String getFilterHeaderName() {
             return filterHeaderName;
@@ -119,6 +356,38 @@ public class JsonFilteringSettings {
             this.clientIdHeaderName = clientIdHeaderName;
         }
 
+        public String getPatternIdHeaderName() {
+            return patternIdHeaderName;
+        }
+
+        public void setPatternIdHeaderName(String patternIdHeaderName) {
+            this.patternIdHeaderName = patternIdHeaderName;
+        }
+
+        public Map<String, String> getRegisteredPatternPaths() {
+            return registeredPatternPaths;
+        }
+
+        public void setRegisteredPatternPaths(Map<String, String> registeredPatternPaths) {
+            this.registeredPatternPaths = registeredPatternPaths;
+        }
+
+        public boolean isHotReloadEnabled() {
+            return hotReloadEnabled;
+        }
+
+        public void setHotReloadEnabled(boolean hotReloadEnabled) {
+            this.hotReloadEnabled = hotReloadEnabled;
+        }
+
+        public long getHotReloadPollIntervalMillis() {
+            return hotReloadPollIntervalMillis;
+        }
+
+        public void setHotReloadPollIntervalMillis(long hotReloadPollIntervalMillis) {
+            this.hotReloadPollIntervalMillis = hotReloadPollIntervalMillis;
+        }
+
         public List<Endpoint> getEndpoints() {
             return endpoints;
         }
@@ -126,18 +395,198 @@ public class JsonFilteringSettings {
         public void setEndpoints(List<Endpoint> endpoints) {
             this.endpoints = endpoints;
         }
+
+        public StreamReadConstraintsSettings getStreamReadConstraints() {
+            return streamReadConstraints;
+        }
+
+        public void setStreamReadConstraints(StreamReadConstraintsSettings streamReadConstraints) {
+            this.streamReadConstraints = streamReadConstraints;
+        }
+
+        public WarmupSettings getWarmup() {
+            return warmup;
+        }
+
+        public void setWarmup(WarmupSettings warmup) {
+            this.warmup = warmup;
+        }
+    }
+
+    /**
+     * Startup warm-up of filtering engine, see {@link JsonFilteringWarmup}
+     */
+    public static class WarmupSettings {
+        public static final int DEFAULT_ITERATIONS = 10_000;
+        public static final long DEFAULT_MAX_DURATION_MILLIS = 10_000;
+
+        private boolean enabled;
+        //times each endpoint filter pattern is applied to its sample
+        private int iterations = DEFAULT_ITERATIONS;
+        //warm-up is stopped after this time, even if not all iterations are done
+        private long maxDurationMillis = DEFAULT_MAX_DURATION_MILLIS;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public long getMaxDurationMillis() {
+            return maxDurationMillis;
+        }
+
+        public void setMaxDurationMillis(long maxDurationMillis) {
+            this.maxDurationMillis = maxDurationMillis;
+        }
+    }
+
+    /**
+     * Jackson {@link StreamReadConstraints} for parser of filtered json data. Non-positive value keeps Jackson default
+     */
+    public static class StreamReadConstraintsSettings {
+        private int maxNestingDepth;
+        private long maxDocumentLength;
+        private int maxStringLength;
+        private int maxNumberLength;
+        private int maxNameLength;
+
+        public StreamReadConstraints toStreamReadConstraints() {
+            StreamReadConstraints.Builder builder = StreamReadConstraints.builder();
+
+            if (maxNestingDepth > 0) {
+                builder.maxNestingDepth(maxNestingDepth);
+            }
+
+            if (maxDocumentLength > 0) {
+                builder.maxDocumentLength(maxDocumentLength);
+            }
+
+            if (maxStringLength > 0) {
+                builder.maxStringLength(maxStringLength);
+            }
+
+            if (maxNumberLength > 0) {
+                builder.maxNumberLength(maxNumberLength);
+            }
+
+            if (maxNameLength > 0) {
+                builder.maxNameLength(maxNameLength);
+            }
+
+            return builder.build();
+        }
+
+        public int getMaxNestingDepth() {
+            return maxNestingDepth;
+        }
+
+        public void setMaxNestingDepth(int maxNestingDepth) {
+            this.maxNestingDepth = maxNestingDepth;
+        }
+
+        public long getMaxDocumentLength() {
+            return maxDocumentLength;
+        }
+
+        public void setMaxDocumentLength(long maxDocumentLength) {
+            this.maxDocumentLength = maxDocumentLength;
+        }
+
+        public int getMaxStringLength() {
+            return maxStringLength;
+        }
+
+        public void setMaxStringLength(int maxStringLength) {
+            this.maxStringLength = maxStringLength;
+        }
+
+        public int getMaxNumberLength() {
+            return maxNumberLength;
+        }
+
+        public void setMaxNumberLength(int maxNumberLength) {
+            this.maxNumberLength = maxNumberLength;
+        }
+
+        public int getMaxNameLength() {
+            return maxNameLength;
+        }
+
+        public void setMaxNameLength(int maxNameLength) {
+            this.maxNameLength = maxNameLength;
+        }
     }
 
     public static class Endpoint {
+        public static final List<String> DEFAULT_FILTERED_CONTENT_TYPES =
+                List.of("application/json", "application/*+json");
+        //streaming engine is disabled by default - see streamingThresholdBytes
+        public static final int DEFAULT_STREAMING_THRESHOLD_BYTES = 0;
+        public static final int DEFAULT_REJECT_STATUS_CODE = 422;
+        private static final int OVERSIZED_HEADER_PATTERNS_CACHE_SIZE = 100;
+
         private String path;
         private boolean regexpPath;
         private boolean headerPatternAllowed;
         private boolean filePatternAllowed;
         private Map<String, String> filePatternPathPerClient;
+        //response is filtered only if its status is in this list (any 2xx status if list is not set)
+        private List<Integer> filteredStatusCodes;
+        //response is filtered only if its Content-Type matches one of these media types, e.g. "application/json",
+        // "application/*+json" (parameters like charset are ignored)
+        private List<String> filteredContentTypes = DEFAULT_FILTERED_CONTENT_TYPES;
+        //bodies smaller than this are passed through as is - filtering them is not worth parse overhead
+        private int minBodySizeBytes = 0;
+        //bodies of this size and larger are filtered by streaming engine, writing filtered json directly to response
+        // instead of building filtered byte array first (non-positive value disables streaming engine).
+        // Response is committed as filtered json is written, so if filtering fails after that - response is terminated
+        // with truncated body instead of falling back to original body
+        private int streamingThresholdBytes = DEFAULT_STREAMING_THRESHOLD_BYTES;
+        //bodies of this size and larger are filtered on offload executor (if it is set for JsonResponseBodyFilter),
+        // releasing container thread while filtering runs (non-positive value disables offloading)
+        private int offloadThresholdBytes = 0;
+        //captured bodies larger than this are moved from heap to temporary file and filtered by streaming engine
+        // from memory-mapped file (non-positive value disables spilling)
+        private int spillThresholdBytes = 0;
+        //bodies larger than this are not captured and filtered (non-positive value - no limit)
+        private int maxBodySizeBytes = 0;
+        //filtering of json data nested deeper than this is stopped (non-positive value - no limit)
+        private int maxNestingDepth = 0;
+        //filtering of single body that takes longer than this is stopped (non-positive value - no limit)
+        private long maxFilteringTimeMillis = 0;
+        //if body exceeds limits above - response is rejected with rejectStatusCode, otherwise original body is returned
+        private boolean rejectOnLimitExceeded;
+        private int rejectStatusCode = DEFAULT_REJECT_STATUS_CODE;
+        //filter pattern header values larger than this (in UTF-8 bytes) are ignored without parsing (non-positive value - no limit)
+        private int maxHeaderPatternSizeBytes = 0;
+        //filter patterns from header with more nodes than this are ignored (non-positive value - no limit)
+        private int maxHeaderPatternNodes = 0;
+        //filtered GET/HEAD responses get ETag of filtered body, and 304 Not Modified if it matches If-None-Match
+        private boolean etagEnabled;
+        //classpath path of sample response body used for startup warm-up (sample is generated from filter patterns if not set)
+        private String warmupSamplePath;
+        //filtered responses get Server-Timing header with filtering cost breakdown (also kept in request attribute)
+        private boolean serverTimingEnabled;
 
         //additional properties
         private Pattern pattern;
+        private FilteringLimits filteringLimits = FilteringLimits.NONE;
         private final Map<String, JsonNode> filePatternPerClient = new HashMap<>();
+        //header values that exceeded maxHeaderPatternSizeBytes - kept per endpoint since limits of endpoints differ,
+        // dropped together with settings snapshot on reload
+        private final RejectedFilterPatternsCache oversizedHeaderPatterns =
+                new RejectedFilterPatternsCache(OVERSIZED_HEADER_PATTERNS_CACHE_SIZE);
 
         public boolean pathMatches(String path) {
             if (pattern == null) {
@@ -188,12 +637,151 @@ public class JsonFilteringSettings {
             this.filePatternPathPerClient = filePatternPathPerClient;
         }
 
+        public List<Integer> getFilteredStatusCodes() {
+            return filteredStatusCodes;
+        }
+
+        public void setFilteredStatusCodes(List<Integer> filteredStatusCodes) {
+            this.filteredStatusCodes = filteredStatusCodes;
+        }
+
+        public List<String> getFilteredContentTypes() {
+            return filteredContentTypes;
+        }
+
+        public void setFilteredContentTypes(List<String> filteredContentTypes) {
+            this.filteredContentTypes = filteredContentTypes;
+        }
+
+        public int getMinBodySizeBytes() {
+            return minBodySizeBytes;
+        }
+
+        public void setMinBodySizeBytes(int minBodySizeBytes) {
+            this.minBodySizeBytes = minBodySizeBytes;
+        }
+
+        public int getStreamingThresholdBytes() {
+            return streamingThresholdBytes;
+        }
+
+        public void setStreamingThresholdBytes(int streamingThresholdBytes) {
+            this.streamingThresholdBytes = streamingThresholdBytes;
+        }
+
+        public int getOffloadThresholdBytes() {
+            return offloadThresholdBytes;
+        }
+
+        public void setOffloadThresholdBytes(int offloadThresholdBytes) {
+            this.offloadThresholdBytes = offloadThresholdBytes;
+        }
+
+        public int getSpillThresholdBytes() {
+            return spillThresholdBytes;
+        }
+
+        public void setSpillThresholdBytes(int spillThresholdBytes) {
+            this.spillThresholdBytes = spillThresholdBytes;
+        }
+
+        public int getMaxBodySizeBytes() {
+            return maxBodySizeBytes;
+        }
+
+        public void setMaxBodySizeBytes(int maxBodySizeBytes) {
+            this.maxBodySizeBytes = maxBodySizeBytes;
+        }
+
+        public int getMaxNestingDepth() {
+            return maxNestingDepth;
+        }
+
+        public void setMaxNestingDepth(int maxNestingDepth) {
+            this.maxNestingDepth = maxNestingDepth;
+        }
+
+        public long getMaxFilteringTimeMillis() {
+            return maxFilteringTimeMillis;
+        }
+
+        public void setMaxFilteringTimeMillis(long maxFilteringTimeMillis) {
+            this.maxFilteringTimeMillis = maxFilteringTimeMillis;
+        }
+
+        public boolean isRejectOnLimitExceeded() {
+            return rejectOnLimitExceeded;
+        }
+
+        public void setRejectOnLimitExceeded(boolean rejectOnLimitExceeded) {
+            this.rejectOnLimitExceeded = rejectOnLimitExceeded;
+        }
+
+        public int getRejectStatusCode() {
+            return rejectStatusCode;
+        }
+
+        public void setRejectStatusCode(int rejectStatusCode) {
+            this.rejectStatusCode = rejectStatusCode;
+        }
+
+        public int getMaxHeaderPatternSizeBytes() {
+            return maxHeaderPatternSizeBytes;
+        }
+
+        public void setMaxHeaderPatternSizeBytes(int maxHeaderPatternSizeBytes) {
+            this.maxHeaderPatternSizeBytes = maxHeaderPatternSizeBytes;
+        }
+
+        public int getMaxHeaderPatternNodes() {
+            return maxHeaderPatternNodes;
+        }
+
+        public void setMaxHeaderPatternNodes(int maxHeaderPatternNodes) {
+            this.maxHeaderPatternNodes = maxHeaderPatternNodes;
+        }
+
+        public boolean isEtagEnabled() {
+            return etagEnabled;
+        }
+
+        public void setEtagEnabled(boolean etagEnabled) {
+            this.etagEnabled = etagEnabled;
+        }
+
+        public String getWarmupSamplePath() {
+            return warmupSamplePath;
+        }
+
+        public void setWarmupSamplePath(String warmupSamplePath) {
+            this.warmupSamplePath = warmupSamplePath;
+        }
+
+        public boolean isServerTimingEnabled() {
+            return serverTimingEnabled;
+        }
+
+        public void setServerTimingEnabled(boolean serverTimingEnabled) {
+            this.serverTimingEnabled = serverTimingEnabled;
+        }
+
         public Pattern getPattern() {
             return pattern;
         }
 
+        /**
+         * @return limits for filtering of body, see <i>maxNestingDepth</i>, <i>maxFilteringTimeMillis</i>
+         */
+        public FilteringLimits getFilteringLimits() {
+            return filteringLimits;
+        }
+
         public Map<String, JsonNode> getFilePatternPerClient() {
             return filePatternPerClient;
         }
+
+        public RejectedFilterPatternsCache getOversizedHeaderPatterns() {
+            return oversizedHeaderPatterns;
+        }
     }
 }
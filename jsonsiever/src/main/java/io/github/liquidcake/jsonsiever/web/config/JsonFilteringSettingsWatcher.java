@@ -0,0 +1,115 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.config;
+
+import io.github.liquidcake.jsonsiever.web.JsonFilteringUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls settings file and filter pattern files for changes (if <i>hotReloadEnabled</i> is set in settings file)
+ * and triggers {@link JsonFilteringSettings#reloadProperties()} in background thread when any of them is changed.
+ * <br>
+ * Reloaded settings are published as a new immutable snapshot, so request threads never take a lock
+ */
+@Component
+public class JsonFilteringSettingsWatcher {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final JsonFilteringSettings jsonFilteringSettings;
+    private final JsonFilteringUtils jsonFilteringUtils;
+
+    //accessed only by watcher thread
+    private Map<String, Long> lastModifiedMillisPerPath = new HashMap<>();
+
+    private ScheduledExecutorService watcherExecutor;
+
+    public JsonFilteringSettingsWatcher(JsonFilteringSettings jsonFilteringSettings,
+                                        JsonFilteringUtils jsonFilteringUtils) {
+        this.jsonFilteringSettings = jsonFilteringSettings;
+        this.jsonFilteringUtils = jsonFilteringUtils;
+    }
+
+    @PostConstruct
+    public void startWatching() {
+        JsonFilteringSettings.JsonSiever settings = jsonFilteringSettings.getJsonsiever();
+
+        if (!settings.isHotReloadEnabled()) {
+            return;
+        }
+
+        lastModifiedMillisPerPath = collectLastModifiedMillis();
+
+        if (lastModifiedMillisPerPath.isEmpty()) {
+            log.warn("Json filtering settings hot reload is enabled but none of settings files is resolved to filesystem");
+        }
+
+        watcherExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jsonsiever-settings-watcher");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        long pollIntervalMillis = Math.max(settings.getHotReloadPollIntervalMillis(), 100);
+
+        watcherExecutor.scheduleWithFixedDelay(
+                this::reloadIfChanged, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+
+        log.info("Started watching json filtering settings for changes each {} ms", pollIntervalMillis);
+    }
+
+    @PreDestroy
+    public void stopWatching() {
+        if (watcherExecutor != null) {
+            watcherExecutor.shutdownNow();
+        }
+    }
+
+    void reloadIfChanged() {
+        try {
+            Map<String, Long> currentLastModifiedMillisPerPath = collectLastModifiedMillis();
+
+            if (currentLastModifiedMillisPerPath.equals(lastModifiedMillisPerPath)) {
+                return;
+            }
+
+            log.info("Json filtering settings or filter pattern files changed, reloading");
+
+            if (jsonFilteringSettings.reloadProperties()) {
+                //reloaded settings may reference different set of pattern files
+                currentLastModifiedMillisPerPath = collectLastModifiedMillis();
+            }
+
+            lastModifiedMillisPerPath = currentLastModifiedMillisPerPath;
+        } catch (Exception e) {
+            //never let exception cancel scheduled task
+            log.error("Failed to reload json filtering settings", e);
+        }
+    }
+
+    private Map<String, Long> collectLastModifiedMillis() {
+        Map<String, Long> result = new HashMap<>();
+
+        for (String filePath : jsonFilteringSettings.getWatchedFilePaths()) {
+            Optional<Long> lastModifiedMillisOpt = jsonFilteringUtils.getClasspathFileLastModifiedMillis(filePath);
+
+            lastModifiedMillisOpt.ifPresent(lastModifiedMillis -> result.put(filePath, lastModifiedMillis));
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.FilterPatternSampleGenerator;
+import io.github.liquidcake.jsonsiever.core.FilteringLimits;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.core.metrics.JsonFilteringMetrics;
+import io.github.liquidcake.jsonsiever.web.JsonFilteringUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Warms up filtering engine on startup (if <i>warmup</i> section of settings is enabled): each filter pattern file
+ * of each endpoint is applied many times to sample response body of endpoint (<i>warmupSamplePath</i>, or sample generated
+ * from pattern shape, see {@link FilterPatternSampleGenerator}), so hot paths of engine are JIT-compiled before
+ * application takes traffic rather than while serving first requests.
+ * <p>
+ * Warm-up runs on startup thread (application context is not ready until it is done), is bounded by <i>iterations</i>
+ * and <i>maxDurationMillis</i> and is not counted in filtering metrics. Settings reload doesn't repeat it
+ */
+@Component
+public class JsonFilteringWarmup {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final JsonFilteringSettings jsonFilteringSettings;
+    private final JsonFilteringService jsonFilteringService;
+    private final JsonFilteringUtils jsonFilteringUtils;
+
+    public JsonFilteringWarmup(JsonFilteringSettings jsonFilteringSettings, JsonFilteringService jsonFilteringService,
+                               JsonFilteringUtils jsonFilteringUtils) {
+        this.jsonFilteringSettings = jsonFilteringSettings;
+        this.jsonFilteringService = jsonFilteringService;
+        this.jsonFilteringUtils = jsonFilteringUtils;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        JsonFilteringSettings.WarmupSettings warmupSettings = jsonFilteringSettings.getJsonsiever().getWarmup();
+
+        if (warmupSettings == null || !warmupSettings.isEnabled()) {
+            return;
+        }
+
+        List<WarmupCase> warmupCases = collectWarmupCases(jsonFilteringSettings.getJsonsiever());
+        int patternsCount = warmupCases.size();
+
+        if (warmupCases.isEmpty()) {
+            log.info("Json filtering warm-up is enabled but no endpoint has filter pattern files");
+
+            return;
+        }
+
+        JsonFilteringService warmupFilteringService = jsonFilteringService.withMetrics(JsonFilteringMetrics.NOOP);
+
+        long startMillis = System.currentTimeMillis();
+        long deadlineMillis = startMillis + warmupSettings.getMaxDurationMillis();
+        int iteration = 0;
+
+        while (iteration < warmupSettings.getIterations() && !warmupCases.isEmpty()
+                && System.currentTimeMillis() < deadlineMillis) {
+            Iterator<WarmupCase> warmupCasesIterator = warmupCases.iterator();
+
+            while (warmupCasesIterator.hasNext()) {
+                WarmupCase warmupCase = warmupCasesIterator.next();
+
+                try {
+                    //responses are filtered by both in-memory and streaming engine entry points - warm up both
+                    if (iteration % 2 == 0) {
+                        warmupFilteringService.filterJsonFields(
+                                warmupCase.sample, warmupCase.filterPattern, warmupCase.filteringLimits);
+                    } else {
+                        warmupFilteringService.filterJsonFields(new ByteArrayInputStream(warmupCase.sample),
+                                OutputStream.nullOutputStream(), warmupCase.filterPattern, warmupCase.filteringLimits);
+                    }
+                } catch (JsonFilteringException e) {
+                    log.warn("Failed to warm up json filtering with filter pattern of endpoint {}, skipping it: {}",
+                            warmupCase.endpointPath, e.toString());
+
+                    warmupCasesIterator.remove();
+                }
+            }
+
+            iteration++;
+        }
+
+        log.info("Warmed up json filtering engine with {} filter patterns: {} iterations in {} ms",
+                patternsCount, iteration, System.currentTimeMillis() - startMillis);
+    }
+
+    private List<WarmupCase> collectWarmupCases(JsonFilteringSettings.JsonSiever settings) {
+        List<WarmupCase> warmupCases = new ArrayList<>();
+
+        if (settings.getEndpoints() == null) {
+            return warmupCases;
+        }
+
+        for (JsonFilteringSettings.Endpoint endpoint : settings.getEndpoints()) {
+            byte[] endpointSample = readEndpointSample(endpoint).orElse(null);
+
+            for (Map.Entry<String, JsonNode> entry : endpoint.getFilePatternPerClient().entrySet()) {
+                JsonNode filterPattern = entry.getValue();
+                byte[] sample = endpointSample != null
+                        ? endpointSample
+                        : FilterPatternSampleGenerator.generateSample(filterPattern).toString()
+                                .getBytes(StandardCharsets.UTF_8);
+
+                warmupCases.add(new WarmupCase(endpoint.getPath(), filterPattern, sample, endpoint.getFilteringLimits()));
+            }
+        }
+
+        return warmupCases;
+    }
+
+    private Optional<byte[]> readEndpointSample(JsonFilteringSettings.Endpoint endpoint) {
+        if (endpoint.getWarmupSamplePath() == null) {
+            return Optional.empty();
+        }
+
+        Optional<byte[]> sampleOpt = jsonFilteringUtils.readClasspathFileAsBytes(endpoint.getWarmupSamplePath());
+
+        if (sampleOpt.isEmpty()) {
+            log.warn("Failed to load json filtering warm-up sample {} of endpoint {}, generating sample from filter patterns",
+                    endpoint.getWarmupSamplePath(), endpoint.getPath());
+        }
+
+        return sampleOpt;
+    }
+
+    private static class WarmupCase {
+        private final String endpointPath;
+        private final JsonNode filterPattern;
+        private final byte[] sample;
+        private final FilteringLimits filteringLimits;
+
+        private WarmupCase(String endpointPath, JsonNode filterPattern, byte[] sample, FilteringLimits filteringLimits) {
+            this.endpointPath = endpointPath;
+            this.filterPattern = filterPattern;
+            this.sample = sample;
+            this.filteringLimits = filteringLimits;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+/**
+ * Filters reactive json body chunk by chunk with {@link JsonFilteringService.NonBlockingFilter}: each incoming
+ * {@link DataBuffer} is released as soon as it is fed to filter, filtered part of json is emitted right away.
+ * Used both for server responses ({@link JsonResponseBodyWebFilter}) and for responses received by WebClient
+ * ({@link io.github.liquidcake.jsonsiever.web.client.JsonFilteringExchangeFilterFunction})
+ */
+public final class DataBufferJsonFilter {
+
+    private DataBufferJsonFilter() {
+    }
+
+    /**
+     * Notified when whole body is filtered or filtering fails
+     */
+    public interface Listener {
+        Listener NOOP = new Listener() {
+        };
+
+        default void onFiltered(long inputBytes, long outputBytes, long filteringNanos) {
+        }
+
+        default void onFailure(JsonFilteringException e) {
+        }
+    }
+
+    /**
+     * @return filtered body. Terminates with {@link JsonFilteringException} if json can't be filtered - part of filtered
+     * body may already be emitted by then
+     */
+    public static Flux<DataBuffer> filter(Publisher<? extends DataBuffer> body, JsonFilteringService jsonFilteringService,
+                                          JsonNode filterPattern, DataBufferFactory bufferFactory, Listener listener) {
+        return Flux.defer(() -> {
+            BodyFilteringState state = new BodyFilteringState();
+
+            Flux<DataBuffer> filteredChunks = Flux.<DataBuffer>from(body).<DataBuffer>handle((dataBuffer, sink) -> {
+                byte[] chunk = new byte[dataBuffer.readableByteCount()];
+                dataBuffer.read(chunk);
+                DataBufferUtils.release(dataBuffer);
+
+                try {
+                    long startNanos = System.nanoTime();
+
+                    if (state.nonBlockingFilter == null) {
+                        state.nonBlockingFilter = jsonFilteringService.newNonBlockingFilter(filterPattern);
+                    }
+
+                    state.nonBlockingFilter.feedInput(chunk, 0, chunk.length);
+                    state.inputSize += chunk.length;
+
+                    emitFilteredOutput(state, bufferFactory, sink);
+
+                    state.filteringNanos += System.nanoTime() - startNanos;
+                } catch (JsonFilteringException e) {
+                    listener.onFailure(e);
+
+                    sink.error(e);
+                }
+            });
+
+            Mono<DataBuffer> filteredBodyEnd = Mono.create(sink -> {
+                if (state.nonBlockingFilter == null) {
+                    //empty body is not filtered
+                    sink.success();
+                    return;
+                }
+
+                try {
+                    long startNanos = System.nanoTime();
+
+                    state.nonBlockingFilter.endOfInput();
+
+                    byte[] output = state.nonBlockingFilter.drainOutput();
+                    state.outputSize += output.length;
+                    state.filteringNanos += System.nanoTime() - startNanos;
+
+                    listener.onFiltered(state.inputSize, state.outputSize, state.filteringNanos);
+
+                    if (output.length > 0) {
+                        sink.success(bufferFactory.wrap(output));
+                    } else {
+                        sink.success();
+                    }
+                } catch (JsonFilteringException e) {
+                    listener.onFailure(e);
+
+                    sink.error(e);
+                }
+            });
+
+            return filteredChunks.concatWith(filteredBodyEnd);
+        });
+    }
+
+    private static void emitFilteredOutput(BodyFilteringState state, DataBufferFactory bufferFactory,
+                                           SynchronousSink<DataBuffer> sink) {
+        byte[] output = state.nonBlockingFilter.drainOutput();
+
+        if (output.length > 0) {
+            state.outputSize += output.length;
+            sink.next(bufferFactory.wrap(output));
+        }
+    }
+
+    /**
+     * Filtering progress of single body
+     */
+    private static class BodyFilteringState {
+        //created on first body chunk
+        private JsonFilteringService.NonBlockingFilter nonBlockingFilter;
+        private long inputSize;
+        private long outputSize;
+        private long filteringNanos;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.reactive;
+
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.core.metrics.FilteringFallbackReason;
+import io.github.liquidcake.jsonsiever.web.FieldSelection;
+import io.github.liquidcake.jsonsiever.web.JsonResponseFilterApplier;
+import io.github.liquidcake.jsonsiever.web.ResolvedFilterPattern;
+import io.github.liquidcake.jsonsiever.web.ResponseFilteringStrategy;
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Spring WebFlux filter to be used instead of {@link io.github.liquidcake.jsonsiever.web.JsonResponseBodyFilter}
+ * in reactive applications, e.g.
+ * <pre>
+ *    &#64;Bean
+ *    public JsonResponseBodyWebFilter jsonResponseBodyWebFilter(
+ *            JsonResponseFilterApplier jsonResponseFilterApplier, JsonFilteringService jsonFilteringService) {
+ *        return new JsonResponseBodyWebFilter(jsonResponseFilterApplier, jsonFilteringService);
+ *    }
+ * </pre>
+ * Response body is not captured: each body chunk ({@link DataBuffer}) is filtered as it is written by application
+ * and filtered part is passed on right away (see {@link JsonFilteringService.NonBlockingFilter}), so event loop thread
+ * is never blocked and memory usage doesn't depend on body size. Only array elements filtered with "$where" predicate
+ * are read ahead until predicate is decided - up to {@link JsonFilteringService#MAX_PREDICATE_LOOKAHEAD_BYTES} bytes
+ * per element, larger lookahead fails filtering.
+ * <p>
+ * Since part of filtered body may already be sent to client when filtering fails (e.g. on malformed json) -
+ * response is terminated with error in this case, original body is not returned.
+ * <p>
+ * Of endpoint resource limits, <i>maxBodySizeBytes</i> is applied to bodies with declared Content-Length, header filter
+ * pattern limits are applied as for servlet filter. Chunks are filtered as they come, so depth and time limits are not applied.
+ * <p>
+ * {@link FieldSelection} resolved for request is available as exchange attribute {@link FieldSelection#REQUEST_ATTRIBUTE},
+ * see {@link #getFieldSelection(ServerWebExchange)}
+ */
+public class JsonResponseBodyWebFilter implements WebFilter {
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final JsonResponseFilterApplier jsonResponseFilterApplier;
+    private final JsonFilteringService jsonFilteringService;
+
+    public JsonResponseBodyWebFilter(JsonResponseFilterApplier jsonResponseFilterApplier,
+                                     JsonFilteringService jsonFilteringService) {
+        this.jsonResponseFilterApplier = jsonResponseFilterApplier;
+        this.jsonFilteringService = jsonFilteringService;
+    }
+
+    /**
+     * @return selection resolved for request, or {@link FieldSelection#ALL} if request is not filtered
+     */
+    public static FieldSelection getFieldSelection(ServerWebExchange exchange) {
+        Object fieldSelection = exchange.getAttributes().get(FieldSelection.REQUEST_ATTRIBUTE);
+
+        return fieldSelection instanceof FieldSelection ? (FieldSelection) fieldSelection : FieldSelection.ALL;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        String requestPathKey = String.format("%s_%s",
+                request.getMethod().name(),
+                URLDecoder.decode(request.getURI().getRawPath(), StandardCharsets.UTF_8));
+
+        Optional<JsonFilteringSettings.Endpoint> endpointOpt =
+                jsonResponseFilterApplier.findEndpointFilteringSettings(requestPathKey);
+
+        if (endpointOpt.isEmpty()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Json filter configuration for request '{}' not found", requestPathKey);
+            }
+
+            return chain.filter(exchange);
+        }
+
+        JsonFilteringSettings.Endpoint endpoint = endpointOpt.get();
+        HttpHeaders requestHeaders = request.getHeaders();
+
+        //resolve filter pattern before controller is called, so application may skip loading fields that will be filtered out
+        Optional<ResolvedFilterPattern> resolvedFilterPatternOpt =
+                jsonResponseFilterApplier.resolveFilterPattern(endpoint, requestHeaders::getFirst, requestPathKey);
+
+        exchange.getAttributes().put(FieldSelection.REQUEST_ATTRIBUTE,
+                new FieldSelection(resolvedFilterPatternOpt.orElse(null)));
+
+        FilteringResponseDecorator responseDecorator = new FilteringResponseDecorator(exchange.getResponse(),
+                endpoint, resolvedFilterPatternOpt, requestHeaders, requestPathKey);
+
+        return chain.filter(exchange.mutate().response(responseDecorator).build());
+    }
+
+    /**
+     * Filters response body chunks as they are written, if status / Content-Type / Content-Length of response
+     * allow filtering (see {@link ResponseFilteringStrategy#selectBeforeCapture})
+     */
+    private class FilteringResponseDecorator extends ServerHttpResponseDecorator {
+        private final JsonFilteringSettings.Endpoint endpoint;
+        //empty if no filter pattern was found for request
+        private final Optional<ResolvedFilterPattern> resolvedFilterPatternOpt;
+        private final HttpHeaders requestHeaders;
+        private final String requestPathKey;
+
+        private FilteringResponseDecorator(ServerHttpResponse delegate, JsonFilteringSettings.Endpoint endpoint,
+                                           Optional<ResolvedFilterPattern> resolvedFilterPatternOpt,
+                                           HttpHeaders requestHeaders, String requestPathKey) {
+            super(delegate);
+            this.endpoint = endpoint;
+            this.resolvedFilterPatternOpt = resolvedFilterPatternOpt;
+            this.requestHeaders = requestHeaders;
+            this.requestPathKey = requestPathKey;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode statusCode = getStatusCode();
+            HttpHeaders responseHeaders = getHeaders();
+
+            ResponseFilteringStrategy strategy = ResponseFilteringStrategy.selectBeforeCapture(endpoint,
+                    statusCode != null ? statusCode.value() : 200,
+                    responseHeaders.getFirst(HttpHeaders.CONTENT_TYPE),
+                    responseHeaders.getContentLength());
+
+            if (ResponseFilteringStrategy.PASSTHROUGH.equals(strategy)) {
+                return super.writeWith(body);
+            }
+
+            //body size is only known upfront if it is declared - chunks of undeclared length are not counted
+            if (ResponseFilteringStrategy.exceedsMaxBodySize(endpoint, responseHeaders.getContentLength())) {
+                jsonResponseFilterApplier.getJsonFilteringMetrics().recordFallback(endpoint.getPath(),
+                        jsonResponseFilterApplier.getMetricsClientId(endpoint, requestHeaders::getFirst),
+                        FilteringFallbackReason.LIMIT_EXCEEDED);
+
+                if (!endpoint.isRejectOnLimitExceeded()) {
+                    return super.writeWith(body);
+                }
+
+                setStatusCode(HttpStatusCode.valueOf(endpoint.getRejectStatusCode()));
+                responseHeaders.setContentLength(0);
+
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(this::setComplete));
+            }
+
+            if (resolvedFilterPatternOpt.isEmpty()) {
+                log.info("Failed to get json filter pattern for request '{}'", requestPathKey);
+
+                jsonResponseFilterApplier.getJsonFilteringMetrics().recordFallback(endpoint.getPath(),
+                        jsonResponseFilterApplier.getMetricsClientId(endpoint, requestHeaders::getFirst),
+                        FilteringFallbackReason.NO_FILTER_PATTERN);
+
+                return super.writeWith(body);
+            }
+
+            //filtered body length is unknown until body is filtered - response is sent in chunks
+            responseHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+
+            ResolvedFilterPattern resolvedFilterPattern = resolvedFilterPatternOpt.get();
+
+            return super.writeWith(DataBufferJsonFilter.filter(body, jsonFilteringService,
+                    resolvedFilterPattern.getFilterPattern(), bufferFactory(), new DataBufferJsonFilter.Listener() {
+                        @Override
+                        public void onFiltered(long inputBytes, long outputBytes, long filteringNanos) {
+                            jsonResponseFilterApplier.getJsonFilteringMetrics().recordFiltering(endpoint.getPath(),
+                                    resolvedFilterPattern.getClientId(), resolvedFilterPattern.getSource(),
+                                    inputBytes, outputBytes, filteringNanos);
+                        }
+
+                        @Override
+                        public void onFailure(JsonFilteringException e) {
+                            onFilteringFailure(resolvedFilterPattern, e);
+                        }
+                    }));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            //chunks are filtered and passed on as they come anyway
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+
+        private void onFilteringFailure(ResolvedFilterPattern resolvedFilterPattern, JsonFilteringException e) {
+            //stack trace only on debug level - single broken client would flood logs otherwise
+            log.warn("Failed to apply json filter to response body of request '{}', terminating response: {}",
+                    requestPathKey, e.toString());
+            if (log.isDebugEnabled()) {
+                log.debug("Json filtering failure for request '{}'", requestPathKey, e);
+            }
+
+            jsonResponseFilterApplier.getJsonFilteringMetrics().recordFallback(endpoint.getPath(),
+                    resolvedFilterPattern.getClientId(), FilteringFallbackReason.FILTERING_ERROR);
+        }
+    }
+}
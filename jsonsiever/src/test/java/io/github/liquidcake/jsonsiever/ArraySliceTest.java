@@ -0,0 +1,79 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ArraySliceTest extends BaseTest {
+
+    /**
+     * Only elements within slice are returned, element pattern ("$each") is applied to them
+     */
+    @Test
+    public void test_arraySlice() throws Exception {
+        String mockData = "{\"name\": \"orange\", \"items\": [{\"id\": 1, \"x\": [1]}, {\"id\": 2, \"x\": {\"y\": 1}}, " +
+                "{\"id\": 3}, {\"id\": 4}], \"after\": true}";
+
+        assertFiltered(mockData, "{\"items\": {\"$limit\": 2, \"$each\": {\"id\": 1}}, \"after\": 1}",
+                "{\"items\": [{\"id\": 1}, {\"id\": 2}], \"after\": true}");
+
+        assertFiltered(mockData, "{\"items\": {\"$offset\": 1, \"$limit\": 2}}",
+                "{\"items\": [{\"id\": 2, \"x\": {\"y\": 1}}, {\"id\": 3}]}");
+
+        assertFiltered(mockData, "{\"items\": {\"$offset\": 3, \"$each\": {\"id\": 1}}}", "{\"items\": [{\"id\": 4}]}");
+        assertFiltered(mockData, "{\"items\": {\"$offset\": 10}, \"name\": 1}", "{\"name\": \"orange\", \"items\": []}");
+        assertFiltered(mockData, "{\"items\": {\"$limit\": 0}, \"after\": 1}", "{\"items\": [], \"after\": true}");
+    }
+
+    /**
+     * Slices of root array and nested arrays, slices inside exclusion pattern
+     */
+    @Test
+    public void test_nestedArraySlices() throws Exception {
+        assertFiltered("[[1, 2, 3], [4, 5, 6], [7]]", "{\"$limit\": 2, \"$each\": {\"$offset\": 1, \"$limit\": 1}}",
+                "[[2], [5]]");
+
+        assertFiltered("[{\"id\": 1, \"tags\": [\"a\", \"b\"]}, {\"id\": 2, \"tags\": []}]",
+                "[{\"tags\": {\"$limit\": 1}}]", "[{\"tags\": [\"a\"]}, {\"tags\": []}]");
+
+        assertFiltered("{\"debug\": 1, \"name\": \"a\", \"items\": [{\"id\": 1}, {\"id\": 2}]}",
+                "{\"-debug\": 1, \"items\": {\"$limit\": 1}}", "{\"name\": \"a\", \"items\": [{\"id\": 1}]}");
+    }
+
+    @Test
+    public void test_badArraySlice() throws Exception {
+        byte[] mockData = "{\"items\": [1, 2]}".getBytes();
+
+        for (String filterPattern : new String[] {
+                "{\"items\": {\"$limit\": -1}}",
+                "{\"items\": {\"$limit\": 1.5}}",
+                "{\"items\": {\"$offset\": \"1\"}}",
+                "{\"items\": {\"$limit\": 1, \"id\": 1}}"}) {
+            JsonFilteringException e = Assertions.assertThrows(JsonFilteringException.class,
+                    () -> jsonFilteringService.filterJsonFields(mockData, TestUtils.stringToJsonNode(filterPattern)),
+                    filterPattern);
+
+            Assertions.assertInstanceOf(BadFilterPatternException.class, e.getCause());
+        }
+    }
+
+    private void assertFiltered(String mockData, String filterPattern, String expected) throws Exception {
+        byte[] filteredJsonBytes = jsonFilteringService.filterJsonFields(
+                mockData.getBytes(), TestUtils.stringToJsonNode(filterPattern));
+
+        JsonNode parsedExpected = TestUtils.stringToJsonNode(expected);
+        JsonNode parsedResult = TestUtils.stringToJsonNode(new String(filteredJsonBytes, StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(parsedExpected, parsedResult);
+    }
+}
@@ -11,7 +11,10 @@ import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
 import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
 import org.junit.jupiter.api.Assertions;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static io.github.liquidcake.jsonsiever.util.TestUtils.*;
 
@@ -33,5 +36,42 @@ public abstract class BaseTest {
         JsonNode parsedResult = stringToJsonNode(filteredJson);
 
         Assertions.assertEquals(prettyPrintJsonNode(parsedExpected), prettyPrintJsonNode(parsedResult));
+
+        //streaming engine must produce exactly the same output
+        ByteArrayOutputStream streamedOutput = new ByteArrayOutputStream();
+        jsonFilteringService.filterJsonFields(
+                new ByteArrayInputStream(mockData.getBytes()), streamedOutput, stringToJsonNode(filterPatternJson));
+
+        Assertions.assertArrayEquals(filteredJsonBytes, streamedOutput.toByteArray());
+
+        //shared pass for several filter patterns must produce exactly the same output for each of them
+        List<byte[]> sharedPassResults = jsonFilteringService.filterJsonFieldsForEachPattern(mockData.getBytes(), List.of(
+                stringToJsonNode(filterPatternJson), stringToJsonNode("{}"), stringToJsonNode(filterPatternJson)));
+
+        Assertions.assertArrayEquals(filteredJsonBytes, sharedPassResults.get(0));
+        Assertions.assertArrayEquals(mockData.getBytes(), sharedPassResults.get(1));
+        Assertions.assertArrayEquals(filteredJsonBytes, sharedPassResults.get(2));
+
+        //non-blocking engine must produce exactly the same output, wherever chunks end
+        for (int chunkSize : new int[] {1, 7, 4096}) {
+            Assertions.assertArrayEquals(filteredJsonBytes,
+                    filterNonBlocking(mockData.getBytes(), stringToJsonNode(filterPatternJson), chunkSize));
+        }
+    }
+
+    protected byte[] filterNonBlocking(byte[] jsonData, JsonNode filterPattern, int chunkSize)
+            throws JsonFilteringException {
+        JsonFilteringService.NonBlockingFilter nonBlockingFilter = jsonFilteringService.newNonBlockingFilter(filterPattern);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        for (int offset = 0; offset < jsonData.length; offset += chunkSize) {
+            nonBlockingFilter.feedInput(jsonData, offset, Math.min(chunkSize, jsonData.length - offset));
+            output.writeBytes(nonBlockingFilter.drainOutput());
+        }
+
+        nonBlockingFilter.endOfInput();
+        output.writeBytes(nonBlockingFilter.drainOutput());
+
+        return output.toByteArray();
     }
 }
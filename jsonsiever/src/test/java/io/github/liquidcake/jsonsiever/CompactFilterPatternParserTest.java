@@ -0,0 +1,123 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.core.CompactFilterPatternParser;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class CompactFilterPatternParserTest extends BaseTest {
+
+    /**
+     * Compact pattern is compiled into same structure as equivalent json pattern
+     */
+    @Test
+    public void test_compactPatternStructure() throws Exception {
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("{\"name\": 1, \"stats\": {\"str\": 1}, \"items\": [{\"id\": 1}], \"meta\": {}}"),
+                CompactFilterPatternParser.parse("name,stats.str,items[].id,meta.*"));
+
+        //whitespaces, nested arrays, wildcard arrays
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("{\"matrix\": [[{\"id\": 1, \"code\": 1}]], \"tags\": []}"),
+                CompactFilterPatternParser.parse(" matrix[][].id , matrix[][].code, tags[] "));
+
+        //root array
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("[{\"id\": 1, \"address\": {\"city\": 1}}]"),
+                CompactFilterPatternParser.parse("[].id,[].address.city"));
+
+        //whole field wins over its sub-fields, wildcard wins over listed fields
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("{\"stats\": 1, \"meta\": {}}"),
+                CompactFilterPatternParser.parse("stats.str,stats,meta.a,meta.*,meta.b"));
+
+        Assertions.assertEquals(TestUtils.stringToJsonNode("\"*\""), CompactFilterPatternParser.parse("*"));
+
+        //exclusion
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode(
+                        "{\"-debug\": 1, \"-\": 1, \"stats\": {\"-audit\": 1}, \"items\": [{\"-raw\": 1}]}"),
+                CompactFilterPatternParser.parse("-debug,-stats.audit,-items[].raw"));
+
+        //nested-only exclusion switches all objects on the way to exclusion mode
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("{\"-\": 1, \"items\": [{\"-\": 1, \"stock\": {\"-raw\": 1}}]}"),
+                CompactFilterPatternParser.parse("-items[].stock.raw"));
+
+        //nothing is excluded from field that is already included as a whole
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("{\"stats\": 1}"),
+                CompactFilterPatternParser.parse("stats,-stats.audit"));
+    }
+
+    /**
+     * Json and compact syntax are told apart by first character
+     */
+    @Test
+    public void test_syntaxDetection() {
+        Assertions.assertTrue(CompactFilterPatternParser.isCompactFilterPattern("name,age"));
+        Assertions.assertTrue(CompactFilterPatternParser.isCompactFilterPattern("*"));
+        Assertions.assertTrue(CompactFilterPatternParser.isCompactFilterPattern(" [].id"));
+
+        Assertions.assertFalse(CompactFilterPatternParser.isCompactFilterPattern("{\"name\": 1}"));
+        Assertions.assertFalse(CompactFilterPatternParser.isCompactFilterPattern("[{\"name\": 1}]"));
+        Assertions.assertFalse(CompactFilterPatternParser.isCompactFilterPattern("[]"));
+        Assertions.assertFalse(CompactFilterPatternParser.isCompactFilterPattern("\"*\""));
+        Assertions.assertFalse(CompactFilterPatternParser.isCompactFilterPattern("  "));
+    }
+
+    /**
+     * Malformed compact patterns are rejected
+     */
+    @Test
+    public void test_badCompactPatterns() {
+        String[] badPatterns = {
+                "name,", "name..str", "items[.id", "items[]x", "items.*.id", "items[].id,items.id", "name,[].id", "", "-*", "-[]"
+        };
+
+        for (String badPattern : badPatterns) {
+            Assertions.assertThrows(BadFilterPatternException.class, () -> CompactFilterPatternParser.parse(badPattern),
+                    "pattern: " + badPattern);
+        }
+    }
+
+    /**
+     * Field included by name only (without sub-fields) is returned as a whole, whatever its value is
+     */
+    @Test
+    public void test_filterWithCompactPattern() throws Exception {
+        String mockData = "{\"name\": \"orange\", \"age\": 5, \"stats\": {\"str\": 8, \"agi\": 10}, " +
+                "\"kittens\": [{\"name\": \"a\", \"age\": 1}, {\"name\": \"b\", \"age\": 2}], \"tags\": [1, 2]}";
+
+        byte[] filteredJsonBytes = jsonFilteringService.filterJsonFields(mockData.getBytes(),
+                CompactFilterPatternParser.parse("name,stats,kittens[].name,tags"));
+
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("{\"name\": \"orange\", \"stats\": {\"str\": 8, \"agi\": 10}, " +
+                        "\"kittens\": [{\"name\": \"a\"}, {\"name\": \"b\"}], \"tags\": [1, 2]}"),
+                TestUtils.stringToJsonNode(new String(filteredJsonBytes, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Excluding only nested field keeps all other fields of parent objects
+     */
+    @Test
+    public void test_filterWithNestedOnlyExclusion() throws Exception {
+        String mockData = "{\"name\": \"a\", \"debug\": 1, \"stats\": {\"audit\": 1, \"x\": 2}}";
+
+        byte[] filteredJsonBytes = jsonFilteringService.filterJsonFields(mockData.getBytes(),
+                CompactFilterPatternParser.parse("-stats.audit"));
+
+        Assertions.assertEquals(
+                TestUtils.stringToJsonNode("{\"name\": \"a\", \"debug\": 1, \"stats\": {\"x\": 2}}"),
+                TestUtils.stringToJsonNode(new String(filteredJsonBytes, StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ElementPredicateTest extends BaseTest {
+    private static final String ITEMS = "{\"items\": [" +
+            "{\"id\": 1, \"status\": \"active\", \"price\": 5.50, \"tags\": [\"a\"]}, " +
+            "{\"id\": 2, \"status\": \"deleted\", \"price\": 10}, " +
+            "{\"id\": 3, \"price\": 20.0, \"status\": \"active\", \"meta\": {\"x\": 1}}, " +
+            "null, " +
+            "{\"id\": 4, \"status\": \"new\", \"price\": 100}, " +
+            "{\"id\": 5, \"price\": 1}" +
+            "], \"total\": 6}";
+
+    /**
+     * Equality, membership and range conditions - elements that don't match (or miss predicate field) are dropped
+     */
+    @Test
+    public void test_elementPredicate() throws Exception {
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"status\": \"active\"}, \"id\": 1}], \"total\": 1}",
+                "{\"items\": [{\"id\": 1}, {\"id\": 3}], \"total\": 6}");
+
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"status\": {\"$in\": [\"new\", \"deleted\"]}}, \"id\": 1}]}",
+                "{\"items\": [{\"id\": 2}, {\"id\": 4}]}");
+
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"price\": {\"$gte\": 10, \"$lt\": 100}}, \"id\": 1}]}",
+                "{\"items\": [{\"id\": 2}, {\"id\": 3}]}");
+
+        //numbers are compared by value, several conditions must all match
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"price\": 20, \"status\": {\"$eq\": \"active\"}}, \"id\": 1}]}",
+                "{\"items\": [{\"id\": 3}]}");
+
+        //predicate alone - whole matching elements are returned, number representation is kept
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"id\": 1}}]}",
+                "{\"items\": [{\"id\": 1, \"status\": \"active\", \"price\": 5.50, \"tags\": [\"a\"]}]}");
+
+        byte[] filteredJsonBytes = jsonFilteringService.filterJsonFields(ITEMS.getBytes(),
+                TestUtils.stringToJsonNode("{\"items\": [{\"$where\": {\"id\": 1}, \"price\": 1}]}"));
+        Assertions.assertTrue(new String(filteredJsonBytes, StandardCharsets.UTF_8).contains("5.50"));
+    }
+
+    /**
+     * Predicate fields may be output or not, fields before and after predicate fields are output in original order,
+     * nested patterns and exclusions inside element pattern are applied
+     */
+    @Test
+    public void test_elementPredicateWithNestedPatterns() throws Exception {
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"status\": \"active\"}, \"-status\": 1, \"-price\": 1}]}",
+                "{\"items\": [{\"id\": 1, \"tags\": [\"a\"]}, {\"id\": 3, \"meta\": {\"x\": 1}}]}");
+
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"id\": 3}, \"meta\": {\"x\": 1}, \"status\": 1}]}",
+                "{\"items\": [{\"status\": \"active\", \"meta\": {\"x\": 1}}]}");
+
+        //nested arrays with predicates at both levels
+        assertFiltered("[{\"ok\": true, \"rows\": [{\"v\": 1}, {\"v\": 2}]}, {\"ok\": false, \"rows\": [{\"v\": 1}]}]",
+                "[{\"$where\": {\"ok\": true}, \"rows\": [{\"$where\": {\"v\": {\"$gt\": 1}}}]}]",
+                "[{\"rows\": [{\"v\": 2}]}]");
+
+        //containers never match
+        assertFiltered(ITEMS, "{\"items\": [{\"$where\": {\"tags\": \"a\"}}]}", "{\"items\": []}");
+    }
+
+    /**
+     * Predicate is applied before slice offset and limit
+     */
+    @Test
+    public void test_elementPredicateWithArraySlice() throws Exception {
+        assertFiltered(ITEMS, "{\"items\": {\"$limit\": 1, \"$each\": {\"$where\": {\"status\": \"active\"}, \"id\": 1}}}",
+                "{\"items\": [{\"id\": 1}]}");
+
+        assertFiltered(ITEMS, "{\"items\": {\"$offset\": 1, \"$each\": {\"$where\": {\"price\": {\"$lte\": 20}}, \"id\": 1}}}",
+                "{\"items\": [{\"id\": 2}, {\"id\": 3}, {\"id\": 5}]}");
+    }
+
+    /**
+     * Lookahead buffer is bounded - only fields that will be output are buffered
+     */
+    @Test
+    public void test_elementPredicateLookaheadLimit() throws Exception {
+        String bigValue = "x".repeat(JsonFilteringService.MAX_PREDICATE_LOOKAHEAD_BYTES);
+        String mockData = "[{\"id\": 1, \"big\": \"" + bigValue + "\", \"status\": \"active\"}]";
+
+        //not output field is skipped, not buffered
+        assertFiltered(mockData, "[{\"$where\": {\"status\": \"active\"}, \"id\": 1}]", "[{\"id\": 1}]");
+
+        Assertions.assertThrows(JsonFilteringException.class, () -> jsonFilteringService.filterJsonFields(
+                mockData.getBytes(), TestUtils.stringToJsonNode("[{\"$where\": {\"status\": \"active\"}}]")));
+    }
+
+    @Test
+    public void test_badElementPredicate() throws Exception {
+        for (String filterPattern : new String[] {
+                "{\"items\": [{\"$where\": {}}]}",
+                "{\"items\": [{\"$where\": 1}]}",
+                "{\"items\": [{\"$where\": {\"status\": {\"$like\": \"a\"}}}]}",
+                "{\"items\": [{\"$where\": {\"status\": {\"$in\": \"a\"}}}]}",
+                "{\"items\": [{\"$where\": {\"price\": {\"$gt\": \"10\"}}}]}",
+                "{\"items\": [{\"$where\": {\"status\": [\"a\"]}}]}"}) {
+            JsonFilteringException e = Assertions.assertThrows(JsonFilteringException.class,
+                    () -> jsonFilteringService.filterJsonFields(ITEMS.getBytes(), TestUtils.stringToJsonNode(filterPattern)),
+                    filterPattern);
+
+            Assertions.assertInstanceOf(BadFilterPatternException.class, e.getCause());
+        }
+    }
+
+    private void assertFiltered(String mockData, String filterPattern, String expected) throws Exception {
+        byte[] filteredJsonBytes = jsonFilteringService.filterJsonFields(
+                mockData.getBytes(), TestUtils.stringToJsonNode(filterPattern));
+
+        JsonNode parsedExpected = TestUtils.stringToJsonNode(expected);
+        JsonNode parsedResult = TestUtils.stringToJsonNode(new String(filteredJsonBytes, StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(parsedExpected, parsedResult);
+    }
+}
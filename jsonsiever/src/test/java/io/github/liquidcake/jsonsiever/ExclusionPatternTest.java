@@ -0,0 +1,78 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ExclusionPatternTest extends BaseTest {
+
+    /**
+     * Excluded fields are dropped, all other fields (including nested objects and arrays) are copied as is
+     */
+    @Test
+    public void test_excludeFields() throws Exception {
+        String mockData = "{\"name\": \"orange\", \"price\": 1.10, \"debug\": {\"trace\": [1, {\"a\": null}]}, " +
+                "\"audit\": [{\"who\": \"me\"}], \"stats\": {\"str\": 8, \"agi\": 10}, \"tags\": [\"a\", \"b\"]}";
+
+        assertFiltered(mockData, "{\"-debug\": 1, \"-audit\": 1}",
+                "{\"name\": \"orange\", \"price\": 1.10, \"stats\": {\"str\": 8, \"agi\": 10}, \"tags\": [\"a\", \"b\"]}");
+
+        //number representation is kept for copied values
+        byte[] filteredJsonBytes = jsonFilteringService.filterJsonFields(
+                mockData.getBytes(), TestUtils.stringToJsonNode("{\"-debug\": 1}"));
+        Assertions.assertTrue(new String(filteredJsonBytes, StandardCharsets.UTF_8).contains("1.10"));
+    }
+
+    /**
+     * Fields with nested pattern inside exclusion pattern are filtered by it - both inclusion and exclusion nested patterns
+     */
+    @Test
+    public void test_nestedPatternsInsideExclusion() throws Exception {
+        String mockData = "{\"name\": \"orange\", \"debug\": 1, \"stats\": {\"str\": 8, \"agi\": 10, \"audit\": {}}, " +
+                "\"kittens\": [{\"name\": \"a\", \"age\": 1, \"debug\": 1}, {\"name\": \"b\", \"age\": 2, \"debug\": 2}]}";
+
+        assertFiltered(mockData, "{\"-debug\": 1, \"stats\": {\"-audit\": 1}, \"kittens\": [{\"name\": 1}]}",
+                "{\"name\": \"orange\", \"stats\": {\"str\": 8, \"agi\": 10}, \"kittens\": [{\"name\": \"a\"}, {\"name\": \"b\"}]}");
+
+        //exclusion pattern for array elements, inside inclusion pattern
+        assertFiltered(mockData, "{\"kittens\": [{\"-debug\": 1}]}",
+                "{\"kittens\": [{\"name\": \"a\", \"age\": 1}, {\"name\": \"b\", \"age\": 2}]}");
+
+        //root array
+        assertFiltered("[{\"id\": 1, \"debug\": [1, 2]}, {\"id\": 2}]", "[{\"-debug\": 1}]", "[{\"id\": 1}, {\"id\": 2}]");
+    }
+
+    /**
+     * Bare "-" switches object to exclusion mode without excluding any of its own fields
+     */
+    @Test
+    public void test_exclusionModeMarker() throws Exception {
+        String mockData = "{\"name\": \"orange\", \"debug\": 1, \"stats\": {\"str\": 8, \"audit\": {}}}";
+
+        assertFiltered(mockData, "{\"-\": 1, \"stats\": {\"-audit\": 1}}",
+                "{\"name\": \"orange\", \"debug\": 1, \"stats\": {\"str\": 8}}");
+
+        //without marker only listed fields are kept
+        assertFiltered(mockData, "{\"stats\": {\"-audit\": 1}}", "{\"stats\": {\"str\": 8}}");
+
+        assertFiltered(mockData, "{\"-\": 1}", mockData);
+    }
+
+    private void assertFiltered(String mockData, String filterPattern, String expected) throws Exception {
+        byte[] filteredJsonBytes = jsonFilteringService.filterJsonFields(
+                mockData.getBytes(), TestUtils.stringToJsonNode(filterPattern));
+
+        JsonNode parsedExpected = TestUtils.stringToJsonNode(expected);
+        JsonNode parsedResult = TestUtils.stringToJsonNode(new String(filteredJsonBytes, StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(parsedExpected, parsedResult);
+    }
+}
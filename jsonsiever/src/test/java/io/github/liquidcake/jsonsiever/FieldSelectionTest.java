@@ -0,0 +1,113 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.core.metrics.FilterPatternSource;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import io.github.liquidcake.jsonsiever.web.FieldSelection;
+import io.github.liquidcake.jsonsiever.web.ResolvedFilterPattern;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+public class FieldSelectionTest {
+
+    /**
+     * Nested objects, arrays and wildcards are resolved from filter pattern
+     */
+    @Test
+    public void test_isSelected() {
+        FieldSelection fieldSelection = fieldSelection(
+                "{\"name\": 1, \"stats\": {\"str\": 1}, \"items\": [{\"id\": 1, \"tags\": []}], \"meta\": {}}");
+
+        Assertions.assertFalse(fieldSelection.isAllSelected());
+
+        Assertions.assertTrue(fieldSelection.isSelected("name"));
+        Assertions.assertTrue(fieldSelection.isSelected("stats"));
+        Assertions.assertTrue(fieldSelection.isSelected("stats.str"));
+        Assertions.assertFalse(fieldSelection.isSelected("stats.agi"));
+        Assertions.assertFalse(fieldSelection.isSelected("age"));
+
+        Assertions.assertTrue(fieldSelection.isSelected("items[].id"));
+        Assertions.assertFalse(fieldSelection.isSelected("items[].price"));
+        Assertions.assertTrue(fieldSelection.isSelected("items[].tags[]"));
+
+        //everything inside wildcard is selected
+        Assertions.assertTrue(fieldSelection.isSelected("meta.anything.deeper"));
+        Assertions.assertTrue(fieldSelection.isFullySelected("meta"));
+        Assertions.assertFalse(fieldSelection.isFullySelected("stats"));
+        Assertions.assertTrue(fieldSelection.isFullySelected("stats.str"));
+
+        Assertions.assertEquals(Set.of("name", "stats", "items", "meta"), fieldSelection.getSelectedFields(""));
+        Assertions.assertEquals(Set.of("id", "tags"), fieldSelection.getSelectedFields("items[]"));
+        Assertions.assertEquals(Set.of(), fieldSelection.getSelectedFields("meta"));
+    }
+
+    /**
+     * Exclusion patterns select everything except excluded fields
+     */
+    @Test
+    public void test_exclusionSelection() {
+        FieldSelection fieldSelection = fieldSelection("{\"-debug\": 1, \"stats\": {\"-audit\": 1}}");
+
+        Assertions.assertFalse(fieldSelection.isAllSelected());
+        Assertions.assertTrue(fieldSelection.isSelected("name"));
+        Assertions.assertTrue(fieldSelection.isFullySelected("name"));
+        Assertions.assertFalse(fieldSelection.isSelected("debug"));
+        Assertions.assertFalse(fieldSelection.isSelected("debug.trace"));
+        Assertions.assertTrue(fieldSelection.isSelected("stats.str"));
+        Assertions.assertFalse(fieldSelection.isFullySelected("stats"));
+        Assertions.assertFalse(fieldSelection.isSelected("stats.audit"));
+        Assertions.assertEquals(Set.of(), fieldSelection.getSelectedFields(""));
+    }
+
+    /**
+     * Include-all patterns and unfiltered requests select everything
+     */
+    @Test
+    public void test_allSelected() {
+        Assertions.assertTrue(FieldSelection.ALL.isAllSelected());
+        Assertions.assertTrue(FieldSelection.ALL.isSelected("any.path[].here"));
+
+        Assertions.assertTrue(fieldSelection("\"*\"").isAllSelected());
+        Assertions.assertTrue(fieldSelection("{}").isSelected("name"));
+        Assertions.assertTrue(fieldSelection("[]").isSelected("[].name"));
+
+        FieldSelection arraySelection = fieldSelection("[[{\"id\": 1}]]");
+        Assertions.assertTrue(arraySelection.isSelected("[][].id"));
+        Assertions.assertFalse(arraySelection.isSelected("[][].name"));
+    }
+
+    @Test
+    public void test_arraySlice() {
+        FieldSelection fieldSelection = fieldSelection(
+                "{\"items\": {\"$limit\": 2, \"$each\": {\"id\": 1}}, \"tags\": {\"$offset\": 1}}");
+
+        Assertions.assertTrue(fieldSelection.isSelected("items[].id"));
+        Assertions.assertFalse(fieldSelection.isSelected("items[].price"));
+        Assertions.assertTrue(fieldSelection.isFullySelected("tags[]"));
+        Assertions.assertFalse(fieldSelection.isFullySelected("items[]"));
+    }
+
+    @Test
+    public void test_elementPredicate() {
+        FieldSelection fieldSelection = fieldSelection(
+                "{\"items\": [{\"$where\": {\"status\": \"active\"}, \"id\": 1}], \"rows\": [{\"$where\": {\"ok\": true}}]}");
+
+        Assertions.assertTrue(fieldSelection.isSelected("items[].id"));
+        Assertions.assertTrue(fieldSelection.isSelected("items[].status"));
+        Assertions.assertFalse(fieldSelection.isSelected("items[].price"));
+        Assertions.assertEquals(Set.of("id", "status"), fieldSelection.getSelectedFields("items[]"));
+        Assertions.assertTrue(fieldSelection.isSelected("rows[].name"));
+        Assertions.assertTrue(fieldSelection.getSelectedFields("rows[]").isEmpty());
+    }
+
+    private FieldSelection fieldSelection(String filterPattern) {
+        return new FieldSelection(new ResolvedFilterPattern(
+                TestUtils.stringToJsonNode(filterPattern), FilterPatternSource.HEADER, "default"));
+    }
+}
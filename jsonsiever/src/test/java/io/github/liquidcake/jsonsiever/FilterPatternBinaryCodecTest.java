@@ -0,0 +1,81 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.FilterPatternBinaryCodec;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class FilterPatternBinaryCodecTest {
+
+    private final FilterPatternBinaryCodec codec = new FilterPatternBinaryCodec();
+
+    /**
+     * Encoded pattern is decoded back to equal pattern
+     */
+    @Test
+    public void test_roundTrip() throws Exception {
+        String[] filterPatterns = {
+                "{}",
+                "[]",
+                "\"*\"",
+                "{\"name\": 1, \"stats\": {\"str\": 1, \"agi\": -100000}, \"items\": [{\"name\": 1, \"tags\": []}]}",
+                "[[{\"name\": 1, \"price\": 1.5, \"big\": 123456789012345678901234567890, \"flag\": true, \"none\": null}]]"
+        };
+
+        for (String filterPattern : filterPatterns) {
+            JsonNode filterPatternNode = TestUtils.stringToJsonNode(filterPattern);
+
+            JsonNode decoded = codec.decode(codec.encode(filterPatternNode));
+
+            Assertions.assertEquals(filterPatternNode, decoded);
+        }
+    }
+
+    /**
+     * Real filter pattern file is encoded into compact form
+     */
+    @Test
+    public void test_encodedPatternIsCompact() throws Exception {
+        String filterPattern = TestUtils.readClasspathFileAsString(
+                "/mock/patterns/ComplexStructureTest/testComplexStructure_applyFieldFiltersOnDifferentLevels.json");
+        JsonNode filterPatternNode = TestUtils.stringToJsonNode(filterPattern);
+
+        byte[] encoded = codec.encode(filterPatternNode);
+
+        Assertions.assertTrue(encoded.length < filterPatternNode.toString().length());
+        Assertions.assertEquals(filterPatternNode, codec.decode(encoded));
+    }
+
+    /**
+     * Truncated or unknown data is rejected
+     */
+    @Test
+    public void test_badEncodedData() throws Exception {
+        byte[] encoded = codec.encode(TestUtils.stringToJsonNode("{\"name\": 1, \"stats\": {\"str\": 1}}"));
+
+        try {
+            codec.decode(Arrays.copyOf(encoded, encoded.length - 3));
+            Assertions.fail("should throw");
+        } catch (Exception e) {
+            Assertions.assertInstanceOf(JsonFilteringException.class, e);
+        }
+
+        encoded[0] = 99;
+
+        try {
+            codec.decode(encoded);
+            Assertions.fail("should throw");
+        } catch (Exception e) {
+            Assertions.assertInstanceOf(JsonFilteringException.class, e);
+        }
+    }
+}
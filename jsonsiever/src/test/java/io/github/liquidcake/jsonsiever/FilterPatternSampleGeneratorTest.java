@@ -0,0 +1,65 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.FilterPatternSampleGenerator;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class FilterPatternSampleGeneratorTest extends BaseTest {
+
+    /**
+     * Generated sample is filtered by its pattern without errors, and has both included and filtered out fields
+     */
+    @Test
+    public void test_sampleMatchesPattern() throws Exception {
+        String[] filterPatterns = {
+                "\"*\"",
+                "{}",
+                "[[{\"id\": 1}]]",
+                "{\"name\": 1, \"stats\": {\"agi\": 1}, \"kittens\": [{\"name\": 1, \"tags\": []}]}",
+                "{\"-debug\": 1, \"stats\": {\"-audit\": 1}}",
+                "{\"items\": {\"$offset\": 1, \"$limit\": 2, \"$each\": {\"id\": 1}}}",
+                "{\"items\": [{\"$where\": {\"status\": \"active\"}, \"id\": 1}]}"
+        };
+
+        for (String filterPattern : filterPatterns) {
+            JsonNode filterPatternNode = TestUtils.stringToJsonNode(filterPattern);
+            byte[] sample = FilterPatternSampleGenerator.generateSample(filterPatternNode).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+
+            Assertions.assertNotNull(jsonFilteringService.filterJsonFields(sample, filterPatternNode));
+        }
+    }
+
+    @Test
+    public void test_sampleShape() throws Exception {
+        JsonNode filterPattern = TestUtils.stringToJsonNode(
+                "{\"name\": 1, \"kittens\": [{\"name\": 1}], \"meta\": {}}");
+
+        JsonNode sample = FilterPatternSampleGenerator.generateSample(filterPattern);
+
+        Assertions.assertTrue(sample.has("name"));
+        Assertions.assertTrue(sample.get("meta").isObject() && sample.get("meta").size() > 0);
+        Assertions.assertEquals(FilterPatternSampleGenerator.SAMPLE_ARRAY_SIZE, sample.get("kittens").size());
+
+        JsonNode filtered = TestUtils.stringToJsonNode(new String(jsonFilteringService.filterJsonFields(
+                sample.toString().getBytes(StandardCharsets.UTF_8), filterPattern), StandardCharsets.UTF_8));
+
+        //field not listed in pattern is filtered out, fields listed in pattern are kept
+        Assertions.assertEquals(3, filtered.size());
+        Assertions.assertEquals(1, filtered.get("kittens").get(0).size());
+
+        //excluded field is present in sample, so it is actually skipped by filtering
+        JsonNode exclusionPattern = TestUtils.stringToJsonNode("{\"-debug\": 1}");
+
+        Assertions.assertTrue(FilterPatternSampleGenerator.generateSample(exclusionPattern).has("debug"));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.BadFilterPatternException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import io.github.liquidcake.jsonsiever.web.RejectedFilterPatternsCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FilterPatternValidationTest {
+
+    @Test
+    public void test_validFilterPatterns() throws Exception {
+        String[] filterPatterns = {
+                "\"*\"",
+                "{}",
+                "[]",
+                "{\"name\": 1, \"stats\": {\"str\": 1}, \"items\": [{\"id\": 1}], \"meta\": {}}",
+                "[[{\"id\": 1}]]",
+                "{\"-debug\": 1, \"stats\": {\"-audit\": 1}}",
+                "{\"items\": {\"$offset\": 1, \"$limit\": 2, \"$each\": {\"tags\": {\"$limit\": 1}}}}",
+                "{\"items\": [{\"$where\": {\"price\": {\"$lt\": 10}}, \"id\": 1}]}"
+        };
+
+        for (String filterPattern : filterPatterns) {
+            JsonFilteringService.validateFilterPattern(TestUtils.stringToJsonNode(filterPattern));
+        }
+    }
+
+    /**
+     * Structural problems are found without any json data
+     */
+    @Test
+    public void test_invalidFilterPatterns() throws Exception {
+        String[] filterPatterns = {
+                "1",
+                "{\"items\": [{\"id\": 1}, {\"name\": 1}]}",
+                "[[{\"id\": 1}, 1]]",
+                "{\"items\": {\"$limit\": -1}}",
+                "{\"items\": {\"$limit\": 1, \"$each\": [{\"a\": 1}, {\"b\": 1}]}}",
+                "{\"items\": [{\"$where\": {}, \"id\": 1}]}",
+                "{\"items\": [{\"$where\": {\"price\": {\"$unknown\": 1}}}]}"
+        };
+
+        for (String filterPattern : filterPatterns) {
+            Assertions.assertThrows(BadFilterPatternException.class,
+                    () -> JsonFilteringService.validateFilterPattern(TestUtils.stringToJsonNode(filterPattern)),
+                    filterPattern);
+        }
+    }
+
+    @Test
+    public void test_rejectedFilterPatternsCacheIsBounded() {
+        RejectedFilterPatternsCache rejectedFilterPatternsCache = new RejectedFilterPatternsCache(2);
+
+        rejectedFilterPatternsCache.reject("a");
+        rejectedFilterPatternsCache.reject("b");
+
+        //"a" becomes most recently used, so "b" is evicted
+        Assertions.assertTrue(rejectedFilterPatternsCache.isRejected("a"));
+
+        rejectedFilterPatternsCache.reject("c");
+
+        Assertions.assertEquals(2, rejectedFilterPatternsCache.size());
+        Assertions.assertTrue(rejectedFilterPatternsCache.isRejected("a"));
+        Assertions.assertFalse(rejectedFilterPatternsCache.isRejected("b"));
+        Assertions.assertTrue(rejectedFilterPatternsCache.isRejected("c"));
+    }
+}
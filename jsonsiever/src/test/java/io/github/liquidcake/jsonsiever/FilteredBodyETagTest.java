@@ -0,0 +1,77 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.web.FilteredBodyETag;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class FilteredBodyETagTest {
+
+    /**
+     * ETag depends on filtered bytes only, and is same whether bytes are hashed at once or as they are written
+     */
+    @Test
+    public void test_etagValue() throws Exception {
+        byte[] body = "{\"name\": \"Tom\", \"stats\": {\"agi\": 7}}".getBytes(StandardCharsets.UTF_8);
+        byte[] otherBody = "{\"name\": \"Tom\"}".getBytes(StandardCharsets.UTF_8);
+
+        FilteredBodyETag etag = new FilteredBodyETag();
+        etag.update(body, 0, body.length);
+
+        FilteredBodyETag streamedETag = new FilteredBodyETag();
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream etagOutputStream = streamedETag.wrap(written);
+        etagOutputStream.write(body[0]);
+        etagOutputStream.write(body, 1, body.length - 1);
+
+        FilteredBodyETag otherETag = new FilteredBodyETag();
+        otherETag.update(otherBody, 0, otherBody.length);
+
+        Assertions.assertArrayEquals(body, written.toByteArray());
+        Assertions.assertEquals(etag.getValue(), streamedETag.getValue());
+        Assertions.assertNotEquals(etag.getValue(), otherETag.getValue());
+        Assertions.assertTrue(etag.getValue().startsWith("\"") && etag.getValue().endsWith("\""));
+    }
+
+    /**
+     * Flush is not passed to wrapped stream, so response stays uncommitted until filter flushes it
+     */
+    @Test
+    public void test_flushNotPassed() throws Exception {
+        boolean[] flushed = {false};
+
+        OutputStream etagOutputStream = new FilteredBodyETag().wrap(new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushed[0] = true;
+            }
+        });
+
+        etagOutputStream.write(1);
+        etagOutputStream.flush();
+
+        Assertions.assertFalse(flushed[0]);
+    }
+
+    @Test
+    public void test_ifNoneMatch() {
+        String etag = "\"24-1a2b3c4d\"";
+
+        Assertions.assertTrue(FilteredBodyETag.matches(etag, etag));
+        Assertions.assertTrue(FilteredBodyETag.matches("W/" + etag, etag));
+        Assertions.assertTrue(FilteredBodyETag.matches("\"other\", " + etag, etag));
+        Assertions.assertTrue(FilteredBodyETag.matches("*", etag));
+
+        Assertions.assertFalse(FilteredBodyETag.matches(null, etag));
+        Assertions.assertFalse(FilteredBodyETag.matches("\"other\"", etag));
+        Assertions.assertFalse(FilteredBodyETag.matches("24-1a2b3c4d", etag));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.core.FilteringLimits;
+import io.github.liquidcake.jsonsiever.core.exception.FilteringLimitExceededException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class FilteringLimitsTest extends BaseTest {
+
+    /**
+     * Json data within limits is filtered exactly as without limits
+     */
+    @Test
+    public void test_withinLimits() throws Exception {
+        byte[] jsonData = "{\"name\": \"shop\", \"debug\": {\"trace\": [[1], [2]]}, \"items\": [{\"id\": 1, \"price\": 2}]}"
+                .getBytes();
+        FilteringLimits filteringLimits = new FilteringLimits(4, 10_000);
+
+        for (String filterPattern : new String[] {"{\"items\": [{\"id\": 1}]}", "{\"-items\": 1}", "{\"debug\": {}}"}) {
+            byte[] expected = jsonFilteringService.filterJsonFields(jsonData, TestUtils.stringToJsonNode(filterPattern));
+
+            Assertions.assertArrayEquals(expected, jsonFilteringService.filterJsonFields(
+                    jsonData, TestUtils.stringToJsonNode(filterPattern), filteringLimits));
+        }
+    }
+
+    /**
+     * Nesting depth is checked in filtered, copied and skipped parts of json data
+     */
+    @Test
+    public void test_maxNestingDepth() {
+        byte[] jsonData = "{\"name\": \"shop\", \"deep\": {\"a\": {\"b\": {\"c\": [1]}}}}".getBytes();
+        FilteringLimits filteringLimits = new FilteringLimits(3, 0);
+
+        for (String filterPattern : new String[] {"{\"deep\": {\"a\": {}}}", "{\"deep\": {}}", "{\"name\": 1}"}) {
+            Assertions.assertThrows(FilteringLimitExceededException.class, () -> jsonFilteringService.filterJsonFields(
+                    jsonData, TestUtils.stringToJsonNode(filterPattern), filteringLimits), filterPattern);
+
+            Assertions.assertThrows(FilteringLimitExceededException.class, () -> jsonFilteringService.filterJsonFields(
+                    new ByteArrayInputStream(jsonData), new ByteArrayOutputStream(),
+                    TestUtils.stringToJsonNode(filterPattern), filteringLimits), filterPattern);
+        }
+    }
+
+    @Test
+    public void test_maxFilteringTime() {
+        StringBuilder jsonData = new StringBuilder("[");
+
+        for (int i = 0; i < 1_000_000; i++) {
+            jsonData.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"item\"}");
+        }
+
+        jsonData.append("]");
+
+        Assertions.assertThrows(FilteringLimitExceededException.class, () -> jsonFilteringService.filterJsonFields(
+                jsonData.toString().getBytes(), TestUtils.stringToJsonNode("[{\"id\": 1}]"), new FilteringLimits(0, 1)));
+    }
+}
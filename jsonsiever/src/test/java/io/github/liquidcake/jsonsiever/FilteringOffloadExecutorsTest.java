@@ -0,0 +1,85 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.web.FilteringOffloadExecutors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FilteringOffloadExecutorsTest {
+
+    /**
+     * Tasks above threads + queue capacity are rejected, so caller may filter on its own thread
+     */
+    @Test
+    public void test_boundedExecutorRejectsWhenSaturated() throws Exception {
+        ExecutorService executor = FilteringOffloadExecutors.newBoundedExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            executor.execute(() -> awaitQuietly(release));
+            executor.execute(() -> awaitQuietly(release));
+
+            Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_concurrencyLimitedExecutor() throws Exception {
+        ExecutorService taskExecutor = Executors.newCachedThreadPool();
+        Executor executor = FilteringOffloadExecutors.newConcurrencyLimitedExecutor(taskExecutor, 2);
+
+        int tasks = 20;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        try {
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleepQuietly(5);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+            Assertions.assertTrue(maxRunning.get() <= 2, "max concurrent tasks: " + maxRunning.get());
+        } finally {
+            taskExecutor.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
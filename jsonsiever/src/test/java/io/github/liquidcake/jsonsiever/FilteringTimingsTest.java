@@ -0,0 +1,46 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.core.metrics.FilterPatternSource;
+import io.github.liquidcake.jsonsiever.web.FilteringTimings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FilteringTimingsTest {
+
+    /**
+     * Application time excludes pattern resolution and body capture, Server-Timing value lists all recorded parts
+     */
+    @Test
+    public void test_serverTimingValue() {
+        FilteringTimings filteringTimings = new FilteringTimings(0);
+
+        filteringTimings.recordPatternResolution(50_000, FilterPatternSource.HEADER);
+        filteringTimings.addCaptureNanos(100_000);
+        filteringTimings.addCaptureNanos(110_000);
+        filteringTimings.markApplicationDone(12_605_000);
+        filteringTimings.recordFiltering(3_100_000, 10240, 512);
+
+        Assertions.assertEquals(12_345_000, filteringTimings.getAppNanos());
+        Assertions.assertEquals("app;dur=12.345, capture;dur=0.210, pattern;dur=0.050;desc=\"HEADER\", "
+                + "filter;dur=3.100;desc=\"in=10240 out=512\"", filteringTimings.toString());
+    }
+
+    /**
+     * Parts that are not recorded yet are omitted
+     */
+    @Test
+    public void test_partialServerTimingValue() {
+        FilteringTimings filteringTimings = new FilteringTimings(0);
+
+        Assertions.assertEquals("capture;dur=0.000", filteringTimings.toString());
+
+        filteringTimings.recordPatternResolution(1_000, null);
+
+        Assertions.assertEquals("capture;dur=0.000, pattern;dur=0.001;desc=\"NONE\"", filteringTimings.toString());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.metrics.FilterPatternSource;
+import io.github.liquidcake.jsonsiever.core.metrics.FilteringFallbackReason;
+import io.github.liquidcake.jsonsiever.core.metrics.InMemoryJsonFilteringMetrics;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class JsonFilteringMetricsTest {
+
+    /**
+     * Output and skipped tokens are reported by filtering service
+     */
+    @Test
+    public void test_tokensAreCounted() throws Exception {
+        InMemoryJsonFilteringMetrics metrics = new InMemoryJsonFilteringMetrics();
+        JsonFilteringService jsonFilteringService = new JsonFilteringService(new ObjectMapper().getFactory(), metrics);
+
+        String mockData = "{\"name\": \"orange\", \"stats\": {\"str\": 8, \"agi\": 10}}";
+
+        jsonFilteringService.filterJsonFields(mockData.getBytes(), TestUtils.stringToJsonNode("{\"stats\": {\"str\": 1}}"));
+
+        //output: {, "stats", {, "str", 8, }, }
+        Assertions.assertEquals(7, metrics.getOutputTokens());
+        //skipped: "name", "orange", "agi", 10
+        Assertions.assertEquals(4, metrics.getSkippedTokens());
+    }
+
+    /**
+     * Per-endpoint and per-client stats are aggregated separately
+     */
+    @Test
+    public void test_endpointAndClientStats() {
+        InMemoryJsonFilteringMetrics metrics = new InMemoryJsonFilteringMetrics();
+
+        metrics.recordFiltering("GET_/cats", "mobile", FilterPatternSource.CLIENT_FILE,
+                1000, 100, TimeUnit.MICROSECONDS.toNanos(70));
+        metrics.recordFiltering("GET_/cats", "default", FilterPatternSource.HEADER,
+                2000, 500, TimeUnit.SECONDS.toNanos(2));
+        metrics.recordFallback("GET_/cats", "default", FilteringFallbackReason.FILTERING_ERROR);
+        metrics.recordHeaderPatternCacheLookup(true);
+        metrics.recordHeaderPatternCacheLookup(false);
+        metrics.recordHeaderPatternCacheLookup(true);
+
+        InMemoryJsonFilteringMetrics.FilteringStats endpointStats = metrics.getEndpointStats().get("GET_/cats");
+
+        Assertions.assertEquals(2, endpointStats.getFilteredResponses());
+        Assertions.assertEquals(3000, endpointStats.getBytesIn());
+        Assertions.assertEquals(600, endpointStats.getBytesOut());
+        Assertions.assertEquals(1, endpointStats.getPatternSourceCount(FilterPatternSource.HEADER));
+        Assertions.assertEquals(1, endpointStats.getFallbackCount(FilteringFallbackReason.FILTERING_ERROR));
+
+        long[] latencyHistogram = endpointStats.getLatencyHistogram();
+        Assertions.assertEquals(1, latencyHistogram[1]);
+        Assertions.assertEquals(1, latencyHistogram[latencyHistogram.length - 1]);
+
+        Assertions.assertEquals(100, metrics.getClientStats().get("GET_/cats|mobile").getBytesOut());
+        Assertions.assertEquals(2, metrics.getHeaderPatternCacheHits());
+        Assertions.assertEquals(1, metrics.getHeaderPatternCacheMisses());
+    }
+}
@@ -0,0 +1,529 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.FilteringLimits;
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.core.metrics.FilteringFallbackReason;
+import io.github.liquidcake.jsonsiever.core.metrics.InMemoryJsonFilteringMetrics;
+import io.github.liquidcake.jsonsiever.core.metrics.JsonFilteringMetrics;
+import io.github.liquidcake.jsonsiever.util.InMemoryJsonFilteringUtils;
+import io.github.liquidcake.jsonsiever.util.TestServletContainer;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import io.github.liquidcake.jsonsiever.web.JsonResponseBodyFilter;
+import io.github.liquidcake.jsonsiever.web.JsonResponseFilterApplier;
+import io.github.liquidcake.jsonsiever.web.SimpleInMemoryDynamicJsonFiltersCacheWrapper;
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Servlet filter tests - filter is applied by embedded servlet container to responses of test servlet
+ */
+public class JsonResponseBodyFilterTest {
+
+    private static final String CATS_PATH = "/cats";
+    private static final String CATS_ENDPOINT_PATH = "GET_/cats";
+
+    private static final String CAT_JSON = "{\"name\":\"orange\",\"age\":5,\"stats\":{\"str\":8,\"agi\":10}}";
+    private static final String FILTERED_CAT_JSON = "{\"name\":\"orange\"}";
+
+    private static final String SPILL_FILE_PREFIX = "jsonsiever-body-";
+
+    private static final String SETTINGS =
+            "endpoints:\n" +
+            "  - path: \"" + CATS_ENDPOINT_PATH + "\"\n" +
+            "    filePatternAllowed: true\n" +
+            "    filePatternPathPerClient:\n" +
+            "      default: \"/json-filters/cats.json\"\n";
+
+    private final InMemoryJsonFilteringMetrics metrics = new InMemoryJsonFilteringMetrics();
+    private JsonFilteringService jsonFilteringService = new JsonFilteringService(TestUtils.TEST_OBJECT_MAPPER.getFactory(), metrics);
+
+    private TestServletContainer servletContainer;
+
+    @AfterEach
+    public void stopServletContainer() throws Exception {
+        if (servletContainer != null) {
+            servletContainer.close();
+        }
+    }
+
+    /**
+     * Only responses with filtered status and Content-Type are captured, other responses are written as is
+     */
+    @Test
+    public void test_passthroughByStatusAndContentType() throws Exception {
+        startServletContainer("", null, (request, response) -> {
+            response.setStatus(Integer.parseInt(request.getParameter("status")));
+            response.setContentType(request.getParameter("contentType"));
+            response.getOutputStream().write(CAT_JSON.getBytes(StandardCharsets.UTF_8));
+        });
+
+        Assertions.assertEquals(FILTERED_CAT_JSON,
+                servletContainer.get(CATS_PATH + "?status=200&contentType=application/json").body());
+        Assertions.assertEquals(FILTERED_CAT_JSON,
+                servletContainer.get(CATS_PATH + "?status=200&contentType=application/problem%2Bjson").body());
+
+        HttpResponse<String> notFoundResponse = servletContainer.get(CATS_PATH + "?status=404&contentType=application/json");
+
+        Assertions.assertEquals(404, notFoundResponse.statusCode());
+        Assertions.assertEquals(CAT_JSON, notFoundResponse.body());
+        Assertions.assertEquals(CAT_JSON, servletContainer.get(CATS_PATH + "?status=200&contentType=text/plain").body());
+
+        Assertions.assertEquals(2, getFilteredResponses());
+    }
+
+    /**
+     * Content-Length set by application is not sent while body is captured - response gets length of filtered body.
+     * Flushing captured response doesn't commit it
+     */
+    @Test
+    public void test_declaredContentLengthIsHeldBack() throws Exception {
+        startServletContainer("", null, (request, response) -> {
+            byte[] body = CAT_JSON.getBytes(StandardCharsets.UTF_8);
+
+            response.setContentType("application/json");
+
+            if (request.getParameter("lengthHeader") != null) {
+                response.setHeader("Content-Length", String.valueOf(body.length));
+            } else {
+                response.setContentLength(body.length);
+            }
+
+            response.getOutputStream().write(body, 0, 10);
+            response.flushBuffer();
+            response.getOutputStream().write(body, 10, body.length - 10);
+        });
+
+        for (String pathAndQuery : new String[]{CATS_PATH, CATS_PATH + "?lengthHeader=true"}) {
+            HttpResponse<String> response = servletContainer.get(pathAndQuery);
+
+            Assertions.assertEquals(FILTERED_CAT_JSON, response.body());
+            Assertions.assertEquals(String.valueOf(FILTERED_CAT_JSON.length()),
+                    response.headers().firstValue("Content-Length").orElse(null));
+        }
+    }
+
+    @Test
+    public void test_bodyWrittenByWriter() throws Exception {
+        startServletContainer("", null, (request, response) -> {
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write("{\"name\":\"\u043a\u0456\u0442\",\"age\":5}");
+        });
+
+        Assertions.assertEquals("{\"name\":\"\u043a\u0456\u0442\"}", servletContainer.get(CATS_PATH).body());
+    }
+
+    /**
+     * If streaming filtering fails before response is committed - partially written filtered body is dropped
+     * and original body is returned
+     */
+    @Test
+    public void test_streamingFailureFallsBackToOriginalBody() throws Exception {
+        String malformedJson = "{\"name\":\"orange\",\"age\":5,\"stats\":{\"str\":";
+
+        startServletContainer("    streamingThresholdBytes: 1\n", null,
+                (request, response) -> writeJson(response, malformedJson));
+
+        HttpResponse<String> response = servletContainer.get(CATS_PATH);
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(malformedJson, response.body());
+        Assertions.assertEquals(1, getFallbackCount(FilteringFallbackReason.FILTERING_ERROR));
+    }
+
+    /**
+     * Capture is stopped as soon as declared or written length exceeds <i>maxBodySizeBytes</i> - part captured
+     * so far is written as is, followed by rest of body
+     */
+    @Test
+    public void test_maxBodySizeStopsCapture() throws Exception {
+        startServletContainer("    maxBodySizeBytes: 20\n", null, (request, response) -> {
+            byte[] body = CAT_JSON.getBytes(StandardCharsets.UTF_8);
+
+            response.setContentType("application/json");
+
+            if (request.getParameter("declaredLength") != null) {
+                response.setContentLength(body.length);
+            }
+
+            response.getOutputStream().write(body, 0, 10);
+            response.getOutputStream().write(body, 10, body.length - 10);
+        });
+
+        Assertions.assertEquals(CAT_JSON, servletContainer.get(CATS_PATH).body());
+
+        HttpResponse<String> declaredLengthResponse = servletContainer.get(CATS_PATH + "?declaredLength=true");
+
+        Assertions.assertEquals(CAT_JSON, declaredLengthResponse.body());
+        Assertions.assertEquals(String.valueOf(CAT_JSON.length()),
+                declaredLengthResponse.headers().firstValue("Content-Length").orElse(null));
+
+        Assertions.assertEquals(2, getFallbackCount(FilteringFallbackReason.LIMIT_EXCEEDED));
+        Assertions.assertEquals(0, getFilteredResponses());
+    }
+
+    @Test
+    public void test_maxBodySizeRejectsResponse() throws Exception {
+        startServletContainer("    maxBodySizeBytes: 20\n    rejectOnLimitExceeded: true\n", null, (request, response) -> {
+            byte[] body = CAT_JSON.getBytes(StandardCharsets.UTF_8);
+
+            response.setContentType("application/json");
+            response.getOutputStream().write(body, 0, 10);
+            response.getOutputStream().write(body, 10, body.length - 10);
+        });
+
+        HttpResponse<String> response = servletContainer.get(CATS_PATH);
+
+        Assertions.assertEquals(JsonFilteringSettings.Endpoint.DEFAULT_REJECT_STATUS_CODE, response.statusCode());
+        Assertions.assertEquals("", response.body());
+        Assertions.assertEquals(1, getFallbackCount(FilteringFallbackReason.LIMIT_EXCEEDED));
+    }
+
+    /**
+     * Offloaded filtering keeps request in async mode until filtered body is written on executor thread
+     */
+    @Test
+    public void test_offloadedFiltering() throws Exception {
+        AtomicInteger offloadedTasks = new AtomicInteger();
+
+        startServletContainer("    offloadThresholdBytes: 1\n", delayedExecutor(offloadedTasks),
+                (request, response) -> writeJson(response, CAT_JSON));
+
+        HttpResponse<String> response = servletContainer.get(CATS_PATH);
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(FILTERED_CAT_JSON, response.body());
+        Assertions.assertEquals(1, offloadedTasks.get());
+        Assertions.assertEquals(1, getFilteredResponses());
+    }
+
+    /**
+     * Async context is completed even if offloaded filtering fails - request is not left hanging until async timeout
+     */
+    @Test
+    public void test_offloadedFilteringFailureCompletesRequest() throws Exception {
+        //filtered part of body doesn't fit response buffer - response is committed before filtering fails
+        String longName = "a".repeat(20_000);
+        String malformedJson = "{\"name\":\"" + longName + "\",\"age\":";
+        AtomicInteger offloadedTasks = new AtomicInteger();
+
+        startServletContainer("    streamingThresholdBytes: 1\n    offloadThresholdBytes: 1\n",
+                delayedExecutor(offloadedTasks), (request, response) -> writeJson(response, malformedJson));
+
+        HttpResponse<String> response = servletContainer.get(CATS_PATH);
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertTrue(response.body().startsWith("{\"name\":\"" + longName));
+        Assertions.assertEquals(1, offloadedTasks.get());
+        Assertions.assertEquals(1, getFallbackCount(FilteringFallbackReason.FILTERING_ERROR));
+    }
+
+    @Test
+    public void test_rejectedOffloadIsFilteredInline() throws Exception {
+        AtomicInteger offloadedTasks = new AtomicInteger();
+
+        startServletContainer("    offloadThresholdBytes: 1\n", task -> {
+            offloadedTasks.incrementAndGet();
+
+            throw new RejectedExecutionException("saturated");
+        }, (request, response) -> writeJson(response, CAT_JSON));
+
+        HttpResponse<String> response = servletContainer.get(CATS_PATH);
+
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals(FILTERED_CAT_JSON, response.body());
+        Assertions.assertEquals(1, offloadedTasks.get());
+        Assertions.assertEquals(1, getFilteredResponses());
+    }
+
+    /**
+     * Spilled body is not loaded back to heap - it is filtered by streaming engine from spill file, even if
+     * streaming is disabled for endpoint. Spill file is deleted once body is written
+     */
+    @Test
+    public void test_spilledBodyIsStreamedFromFile() throws Exception {
+        RecordingJsonFilteringService recordingJsonFilteringService = new RecordingJsonFilteringService();
+        jsonFilteringService = recordingJsonFilteringService;
+        Set<Path> spillFilesBefore = listSpillFiles();
+
+        startServletContainer("    spillThresholdBytes: 16\n", null, (request, response) -> writeJson(response, CAT_JSON));
+
+        Assertions.assertEquals(FILTERED_CAT_JSON, servletContainer.get(CATS_PATH).body());
+
+        Assertions.assertEquals(1, recordingJsonFilteringService.streamingCalls.get());
+        Assertions.assertEquals(0, recordingJsonFilteringService.inMemoryCalls.get());
+        Assertions.assertEquals(1, recordingJsonFilteringService.spillFilesWhileStreaming.size() - spillFilesBefore.size());
+        Assertions.assertEquals(spillFilesBefore, listSpillFiles());
+    }
+
+    @Test
+    public void test_spillFileIsDeletedOnFallback() throws Exception {
+        String malformedJson = "{\"name\":\"orange\",\"age\":5,\"stats\":{\"str\":";
+        Set<Path> spillFilesBefore = listSpillFiles();
+
+        startServletContainer("    spillThresholdBytes: 16\n", null, (request, response) -> writeJson(response, malformedJson));
+
+        Assertions.assertEquals(malformedJson, servletContainer.get(CATS_PATH).body());
+
+        Assertions.assertEquals(1, getFallbackCount(FilteringFallbackReason.FILTERING_ERROR));
+        Assertions.assertEquals(spillFilesBefore, listSpillFiles());
+    }
+
+    @Test
+    public void test_spillFileIsDeletedWhenApplicationFails() throws Exception {
+        Set<Path> spillFilesBefore = listSpillFiles();
+        AtomicInteger spilledBodies = new AtomicInteger();
+
+        startServletContainer("    spillThresholdBytes: 16\n", null, (request, response) -> {
+            writeJson(response, CAT_JSON);
+
+            spilledBodies.set(listSpillFiles().size() - spillFilesBefore.size());
+
+            throw new IllegalStateException("application failure after body is written");
+        });
+
+        Assertions.assertEquals(500, servletContainer.get(CATS_PATH).statusCode());
+
+        Assertions.assertEquals(1, spilledBodies.get());
+        Assertions.assertEquals(spillFilesBefore, listSpillFiles());
+    }
+
+    /**
+     * Async dispatch with response wrapper of 'first' step writes into that wrapper - body is captured
+     * and filtered once
+     */
+    @Test
+    public void test_asyncDispatchWithWrappedResponse() throws Exception {
+        startServletContainer("", null, (request, response) -> {
+            if (DispatcherType.ASYNC.equals(request.getDispatcherType())) {
+                writeJson(response, CAT_JSON);
+            } else {
+                AsyncContext asyncContext = request.startAsync(request, response);
+                asyncContext.start(asyncContext::dispatch);
+            }
+        });
+
+        Assertions.assertEquals(FILTERED_CAT_JSON, servletContainer.get(CATS_PATH).body());
+        Assertions.assertEquals(1, getFilteredResponses());
+    }
+
+    /**
+     * Async dispatch started with original response writes past wrapper of 'first' step - body is captured
+     * by new wrapper
+     */
+    @Test
+    public void test_asyncDispatchWithOriginalResponse() throws Exception {
+        startServletContainer("", null, (request, response) -> {
+            if (DispatcherType.ASYNC.equals(request.getDispatcherType())) {
+                writeJson(response, CAT_JSON);
+            } else {
+                AsyncContext asyncContext = request.startAsync();
+                asyncContext.start(asyncContext::dispatch);
+            }
+        });
+
+        Assertions.assertEquals(FILTERED_CAT_JSON, servletContainer.get(CATS_PATH).body());
+        Assertions.assertEquals(1, getFilteredResponses());
+    }
+
+    /**
+     * If async processing completes without dispatch, captured body is written as is on completion
+     */
+    @Test
+    public void test_asyncCompletionWithoutDispatch() throws Exception {
+        startServletContainer("", null, (request, response) -> {
+            AsyncContext asyncContext = request.startAsync(request, response);
+
+            asyncContext.start(() -> {
+                writeJsonUnchecked(asyncContext.getResponse(), CAT_JSON);
+                asyncContext.complete();
+            });
+        });
+
+        Assertions.assertEquals(CAT_JSON, servletContainer.get(CATS_PATH).body());
+        Assertions.assertEquals(0, getFilteredResponses());
+    }
+
+    /**
+     * Async mode started again on async dispatch replaces listeners of previous async context - completion
+     * listener is registered again, so body is still written on completion
+     */
+    @Test
+    public void test_asyncRestartedOnDispatch() throws Exception {
+        startServletContainer("", null, (request, response) -> {
+            AsyncContext asyncContext = request.startAsync(request, response);
+
+            if (DispatcherType.ASYNC.equals(request.getDispatcherType())) {
+                asyncContext.start(() -> {
+                    writeJsonUnchecked(asyncContext.getResponse(), CAT_JSON);
+                    asyncContext.complete();
+                });
+            } else {
+                asyncContext.start(asyncContext::dispatch);
+            }
+        });
+
+        Assertions.assertEquals(CAT_JSON, servletContainer.get(CATS_PATH).body());
+    }
+
+    /**
+     * Filtering of body captured on async dispatch may be offloaded too - async mode is started again,
+     * and body is written once, by offloaded filtering
+     */
+    @Test
+    public void test_asyncDispatchWithOffloadedFiltering() throws Exception {
+        AtomicInteger offloadedTasks = new AtomicInteger();
+
+        startServletContainer("    offloadThresholdBytes: 1\n", delayedExecutor(offloadedTasks), (request, response) -> {
+            if (DispatcherType.ASYNC.equals(request.getDispatcherType())) {
+                writeJson(response, CAT_JSON);
+            } else {
+                AsyncContext asyncContext = request.startAsync(request, response);
+                asyncContext.start(asyncContext::dispatch);
+            }
+        });
+
+        Assertions.assertEquals(FILTERED_CAT_JSON, servletContainer.get(CATS_PATH).body());
+        Assertions.assertEquals(1, offloadedTasks.get());
+        Assertions.assertEquals(1, getFilteredResponses());
+    }
+
+    /**
+     * @param endpointSettings additional settings of test endpoint
+     * @param offloadExecutor  offload executor of filter, may be null
+     */
+    private void startServletContainer(String endpointSettings, Executor offloadExecutor,
+                                       TestServletContainer.ServletHandler handler) throws Exception {
+        InMemoryJsonFilteringUtils jsonFilteringUtils = new InMemoryJsonFilteringUtils()
+                .withSettings(SETTINGS + endpointSettings)
+                .withFile("/json-filters/cats.json", "{\"name\": 1}");
+        JsonFilteringSettings jsonFilteringSettings = new JsonFilteringSettings(jsonFilteringUtils);
+
+        jsonFilteringSettings.initProperties();
+
+        JsonResponseFilterApplier applier = new JsonResponseFilterApplier(jsonFilteringUtils, jsonFilteringService,
+                jsonFilteringSettings, new SimpleInMemoryDynamicJsonFiltersCacheWrapper(),
+                new StaticListableBeanFactory(Map.of("metrics", metrics)).getBeanProvider(JsonFilteringMetrics.class));
+
+        servletContainer = new TestServletContainer(new JsonResponseBodyFilter(applier, offloadExecutor))
+                .withServlet(CATS_PATH, handler)
+                .start();
+    }
+
+    /**
+     * @return executor that runs each task on new thread with delay, so task starts after container thread
+     * has left filter
+     */
+    private static Executor delayedExecutor(AtomicInteger offloadedTasks) {
+        return task -> {
+            offloadedTasks.incrementAndGet();
+
+            new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                task.run();
+            }).start();
+        };
+    }
+
+    private static void writeJson(HttpServletResponse response, String json) throws IOException {
+        response.setContentType("application/json");
+        response.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeJsonUnchecked(ServletResponse response, String json) {
+        try {
+            writeJson((HttpServletResponse) response, json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Set<Path> listSpillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SPILL_FILE_PREFIX))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private long getFilteredResponses() {
+        InMemoryJsonFilteringMetrics.FilteringStats endpointStats = metrics.getEndpointStats().get(CATS_ENDPOINT_PATH);
+
+        return endpointStats != null ? endpointStats.getFilteredResponses() : 0;
+    }
+
+    private long getFallbackCount(FilteringFallbackReason reason) {
+        InMemoryJsonFilteringMetrics.FilteringStats endpointStats = metrics.getEndpointStats().get(CATS_ENDPOINT_PATH);
+
+        return endpointStats != null ? endpointStats.getFallbackCount(reason) : 0;
+    }
+
+    /**
+     * Records which filtering engine is used, and spill files present while body is streamed
+     */
+    private class RecordingJsonFilteringService extends JsonFilteringService {
+        private final AtomicInteger inMemoryCalls = new AtomicInteger();
+        private final AtomicInteger streamingCalls = new AtomicInteger();
+        private volatile Set<Path> spillFilesWhileStreaming = Set.of();
+
+        private RecordingJsonFilteringService() {
+            super(TestUtils.TEST_OBJECT_MAPPER.getFactory(), metrics);
+        }
+
+        @Override
+        public byte[] filterJsonFields(byte[] jsonData, JsonNode filterPatternJsonRootNode,
+                                       FilteringLimits filteringLimits) throws JsonFilteringException {
+            inMemoryCalls.incrementAndGet();
+
+            return super.filterJsonFields(jsonData, filterPatternJsonRootNode, filteringLimits);
+        }
+
+        @Override
+        public void filterJsonFields(InputStream jsonDataInputStream, OutputStream outputStream,
+                                     JsonNode filterPatternJsonRootNode, FilteringLimits filteringLimits)
+                throws JsonFilteringException {
+            streamingCalls.incrementAndGet();
+
+            try {
+                spillFilesWhileStreaming = listSpillFiles();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            super.filterJsonFields(jsonDataInputStream, outputStream, filterPatternJsonRootNode, filteringLimits);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.metrics.FilterPatternSource;
+import io.github.liquidcake.jsonsiever.core.metrics.FilteringFallbackReason;
+import io.github.liquidcake.jsonsiever.core.metrics.InMemoryJsonFilteringMetrics;
+import io.github.liquidcake.jsonsiever.core.metrics.JsonFilteringMetrics;
+import io.github.liquidcake.jsonsiever.util.InMemoryJsonFilteringUtils;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import io.github.liquidcake.jsonsiever.web.CachedFilterPattern;
+import io.github.liquidcake.jsonsiever.web.JsonResponseFilterApplier;
+import io.github.liquidcake.jsonsiever.web.ResolvedFilterPattern;
+import io.github.liquidcake.jsonsiever.web.SimpleInMemoryDynamicJsonFiltersCacheWrapper;
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JsonResponseFilterApplierTest {
+
+    private static final String REQUEST_PATH_KEY = "GET_/cats";
+    private static final String FILTER_HEADER_NAME = "X-json-filter-pattern";
+
+    private static final String SETTINGS =
+            "filterHeaderName: \"" + FILTER_HEADER_NAME + "\"\n" +
+            "endpoints:\n" +
+            "  - path: \"GET_/cats\"\n" +
+            "    headerPatternAllowed: true\n";
+
+    private static final String CLIENT_ID_HEADER_NAME = "X-client-id";
+    private static final String PATTERN_ID_HEADER_NAME = "X-json-filter-pattern-id";
+
+    private static final String ALL_PATTERN_SOURCES_SETTINGS =
+            "filterHeaderName: \"" + FILTER_HEADER_NAME + "\"\n" +
+            "clientIdHeaderName: \"" + CLIENT_ID_HEADER_NAME + "\"\n" +
+            "patternIdHeaderName: \"" + PATTERN_ID_HEADER_NAME + "\"\n" +
+            "registeredPatternPaths:\n" +
+            "  cats-registered: \"/json-filters/registered.json\"\n" +
+            "endpoints:\n" +
+            "  - path: \"GET_/cats\"\n" +
+            "    headerPatternAllowed: true\n" +
+            "    filePatternAllowed: true\n" +
+            "    filePatternPathPerClient:\n" +
+            "      mobile: \"/json-filters/mobile.json\"\n" +
+            "      default: \"/json-filters/default.json\"\n";
+
+    private static final String LIMITED_HEADER_PATTERN_SETTINGS = SETTINGS +
+            "    maxHeaderPatternSizeBytes: 20\n" +
+            "    maxHeaderPatternNodes: 3\n";
+
+    private final InMemoryJsonFilteringMetrics metrics = new InMemoryJsonFilteringMetrics();
+    private final CountingDynamicJsonFiltersCache dynamicJsonFiltersCache = new CountingDynamicJsonFiltersCache();
+
+    /**
+     * Header value rejected once is rejected by negative cache - shared cache of parsed patterns (which may be remote)
+     * is not consulted for it again and such requests are not counted as cache misses
+     */
+    @Test
+    public void test_rejectedHeaderPatternIsNotLookedUpInCache() {
+        JsonResponseFilterApplier applier = createApplier(SETTINGS);
+        Map<String, String> requestHeaders = Map.of(FILTER_HEADER_NAME, "{\"name\": ");
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(resolveFilterPattern(applier, requestHeaders).isEmpty());
+        }
+
+        Assertions.assertEquals(1, dynamicJsonFiltersCache.getLookups());
+        Assertions.assertEquals(1, metrics.getHeaderPatternCacheMisses());
+        Assertions.assertEquals(0, metrics.getHeaderPatternCacheHits());
+    }
+
+    /**
+     * Valid header pattern is parsed once, then taken from cache
+     */
+    @Test
+    public void test_headerPatternIsCached() {
+        JsonResponseFilterApplier applier = createApplier(SETTINGS);
+        Map<String, String> requestHeaders = Map.of(FILTER_HEADER_NAME, "{\"name\": 1}");
+
+        for (int i = 0; i < 3; i++) {
+            Optional<ResolvedFilterPattern> resolvedFilterPatternOpt = resolveFilterPattern(applier, requestHeaders);
+
+            Assertions.assertTrue(resolvedFilterPatternOpt.isPresent());
+            Assertions.assertEquals(TestUtils.stringToJsonNode("{\"name\": 1}"),
+                    resolvedFilterPatternOpt.get().getFilterPattern());
+        }
+
+        Assertions.assertEquals(1, metrics.getHeaderPatternCacheMisses());
+        Assertions.assertEquals(2, metrics.getHeaderPatternCacheHits());
+    }
+
+    /**
+     * Header pattern size is limited in UTF-8 bytes, oversized value is never looked up in cache of parsed patterns
+     * and is remembered by endpoint
+     */
+    @Test
+    public void test_headerPatternSizeLimit() {
+        JsonResponseFilterApplier applier = createApplier(LIMITED_HEADER_PATTERN_SETTINGS);
+
+        Assertions.assertTrue(resolveFilterPattern(applier, Map.of(FILTER_HEADER_NAME, "{\"name\": 1}")).isPresent());
+
+        //19 chars, but 31 bytes in UTF-8
+        String multiByteFilterPattern = "{\"\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\": 1}";
+        String longFilterPattern = "{\"naaaaaaaaaaaaaaaaaaame\": 1}";
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertTrue(resolveFilterPattern(applier, Map.of(FILTER_HEADER_NAME, multiByteFilterPattern)).isEmpty());
+            Assertions.assertTrue(resolveFilterPattern(applier, Map.of(FILTER_HEADER_NAME, longFilterPattern)).isEmpty());
+        }
+
+        Assertions.assertEquals(1, dynamicJsonFiltersCache.getLookups());
+        Assertions.assertEquals(4, getFallbackCount(FilteringFallbackReason.LIMIT_EXCEEDED));
+        Assertions.assertEquals(2, applier.findEndpointFilteringSettings(REQUEST_PATH_KEY).orElseThrow()
+                .getOversizedHeaderPatterns().size());
+    }
+
+    /**
+     * Header pattern node limit is checked against node count cached with parsed pattern
+     */
+    @Test
+    public void test_headerPatternNodesLimit() {
+        JsonResponseFilterApplier applier = createApplier(LIMITED_HEADER_PATTERN_SETTINGS);
+        String filterPattern = "{\"a\":1,\"b\":{\"c\":1}}";
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertTrue(resolveFilterPattern(applier, Map.of(FILTER_HEADER_NAME, filterPattern)).isEmpty());
+        }
+
+        Assertions.assertEquals(4, dynamicJsonFiltersCache.getWithNodeCount(filterPattern).getNodeCount());
+        Assertions.assertEquals(1, metrics.getHeaderPatternCacheHits());
+        Assertions.assertEquals(2, getFallbackCount(FilteringFallbackReason.LIMIT_EXCEEDED));
+    }
+
+    /**
+     * Header pattern that exceeds limits is not a fallback if request is served by file pattern
+     */
+    @Test
+    public void test_headerPatternLimitWithFilePattern() {
+        JsonResponseFilterApplier applier = createApplier(new InMemoryJsonFilteringUtils()
+                .withSettings(LIMITED_HEADER_PATTERN_SETTINGS +
+                        "    filePatternAllowed: true\n" +
+                        "    filePatternPathPerClient:\n" +
+                        "      default: \"/json-filters/cats.json\"\n")
+                .withFile("/json-filters/cats.json", "{\"id\": 1}"));
+
+        Optional<ResolvedFilterPattern> resolvedFilterPatternOpt =
+                resolveFilterPattern(applier, Map.of(FILTER_HEADER_NAME, "{\"naaaaaaaaaaaaaaaaaaame\": 1}"));
+
+        Assertions.assertTrue(resolvedFilterPatternOpt.isPresent());
+        Assertions.assertEquals(FilterPatternSource.DEFAULT_FILE, resolvedFilterPatternOpt.get().getSource());
+        Assertions.assertEquals(0, getFallbackCount(FilteringFallbackReason.LIMIT_EXCEEDED));
+    }
+
+    /**
+     * Priority: registered pattern ID header, pattern header, client-specific pattern file, default pattern file
+     */
+    @Test
+    public void test_filterPatternResolutionOrder() {
+        JsonResponseFilterApplier applier = createApplier(createAllPatternSourcesUtils());
+        Map<String, String> requestHeaders = new HashMap<>();
+
+        assertResolvedFilterPattern(applier, requestHeaders, FilterPatternSource.DEFAULT_FILE, "{\"default\": 1}");
+
+        requestHeaders.put(CLIENT_ID_HEADER_NAME, "mobile");
+        assertResolvedFilterPattern(applier, requestHeaders, FilterPatternSource.CLIENT_FILE, "{\"mobile\": 1}");
+
+        requestHeaders.put(FILTER_HEADER_NAME, "{\"header\": 1}");
+        assertResolvedFilterPattern(applier, requestHeaders, FilterPatternSource.HEADER, "{\"header\": 1}");
+
+        requestHeaders.put(PATTERN_ID_HEADER_NAME, "cats-registered");
+        assertResolvedFilterPattern(applier, requestHeaders, FilterPatternSource.REGISTERED_ID, "{\"registered\": 1}");
+
+        //pattern is referenced by content hash as well
+        requestHeaders.put(PATTERN_ID_HEADER_NAME,
+                new InMemoryJsonFilteringUtils().calculateFilterPatternHash(TestUtils.stringToJsonNode("{\"registered\": 1}")));
+        assertResolvedFilterPattern(applier, requestHeaders, FilterPatternSource.REGISTERED_ID, "{\"registered\": 1}");
+
+        Assertions.assertEquals("mobile", resolveFilterPattern(applier, requestHeaders).orElseThrow().getClientId());
+    }
+
+    /**
+     * Unknown pattern ID is a fallback only if there is no other pattern for request
+     */
+    @Test
+    public void test_unknownPatternIdFallback() {
+        JsonResponseFilterApplier applier = createApplier(createAllPatternSourcesUtils());
+
+        assertResolvedFilterPattern(applier, Map.of(PATTERN_ID_HEADER_NAME, "cats-unknown"),
+                FilterPatternSource.DEFAULT_FILE, "{\"default\": 1}");
+        assertResolvedFilterPattern(applier, Map.of(PATTERN_ID_HEADER_NAME, "cats-unknown", FILTER_HEADER_NAME, "{\"header\": 1}"),
+                FilterPatternSource.HEADER, "{\"header\": 1}");
+
+        Assertions.assertEquals(0, getFallbackCount(FilteringFallbackReason.UNKNOWN_PATTERN_ID));
+
+        JsonResponseFilterApplier headerOnlyApplier = createApplier(new InMemoryJsonFilteringUtils().withSettings(
+                "patternIdHeaderName: \"" + PATTERN_ID_HEADER_NAME + "\"\n" + SETTINGS));
+
+        Assertions.assertTrue(resolveFilterPattern(headerOnlyApplier, Map.of(PATTERN_ID_HEADER_NAME, "cats-unknown")).isEmpty());
+        Assertions.assertEquals(1, getFallbackCount(FilteringFallbackReason.UNKNOWN_PATTERN_ID));
+    }
+
+    @Test
+    public void test_cachedFilterPatternNodeCount() {
+        Assertions.assertEquals(1, new CachedFilterPattern(TestUtils.stringToJsonNode("{}")).getNodeCount());
+        Assertions.assertEquals(6, new CachedFilterPattern(
+                TestUtils.stringToJsonNode("{\"name\": 1, \"items\": [{\"id\": 1, \"tags\": 1}]}")).getNodeCount());
+    }
+
+    private static InMemoryJsonFilteringUtils createAllPatternSourcesUtils() {
+        return new InMemoryJsonFilteringUtils()
+                .withSettings(ALL_PATTERN_SOURCES_SETTINGS)
+                .withFile("/json-filters/registered.json", "{\"registered\": 1}")
+                .withFile("/json-filters/mobile.json", "{\"mobile\": 1}")
+                .withFile("/json-filters/default.json", "{\"default\": 1}");
+    }
+
+    private JsonResponseFilterApplier createApplier(String settingsYaml) {
+        return createApplier(new InMemoryJsonFilteringUtils().withSettings(settingsYaml));
+    }
+
+    private JsonResponseFilterApplier createApplier(InMemoryJsonFilteringUtils jsonFilteringUtils) {
+        JsonFilteringSettings jsonFilteringSettings = new JsonFilteringSettings(jsonFilteringUtils);
+
+        jsonFilteringSettings.initProperties();
+
+        return new JsonResponseFilterApplier(jsonFilteringUtils,
+                new JsonFilteringService(TestUtils.TEST_OBJECT_MAPPER.getFactory(), metrics),
+                jsonFilteringSettings,
+                dynamicJsonFiltersCache,
+                new StaticListableBeanFactory(Map.of("metrics", metrics)).getBeanProvider(JsonFilteringMetrics.class));
+    }
+
+    private long getFallbackCount(FilteringFallbackReason reason) {
+        InMemoryJsonFilteringMetrics.FilteringStats endpointStats = metrics.getEndpointStats().get(REQUEST_PATH_KEY);
+
+        return endpointStats != null ? endpointStats.getFallbackCount(reason) : 0;
+    }
+
+    private static void assertResolvedFilterPattern(JsonResponseFilterApplier applier, Map<String, String> requestHeaders,
+                                                    FilterPatternSource expectedSource, String expectedFilterPattern) {
+        ResolvedFilterPattern resolvedFilterPattern = resolveFilterPattern(applier, requestHeaders).orElseThrow();
+
+        Assertions.assertEquals(expectedSource, resolvedFilterPattern.getSource());
+        Assertions.assertEquals(TestUtils.stringToJsonNode(expectedFilterPattern), resolvedFilterPattern.getFilterPattern());
+    }
+
+    private static Optional<ResolvedFilterPattern> resolveFilterPattern(JsonResponseFilterApplier applier,
+                                                                        Map<String, String> requestHeaders) {
+        JsonFilteringSettings.Endpoint endpoint = applier.findEndpointFilteringSettings(REQUEST_PATH_KEY).orElseThrow();
+
+        return applier.resolveFilterPattern(endpoint, requestHeaders::get, REQUEST_PATH_KEY);
+    }
+
+    private static class CountingDynamicJsonFiltersCache extends SimpleInMemoryDynamicJsonFiltersCacheWrapper {
+        private final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public CachedFilterPattern getWithNodeCount(String key) {
+            lookups.incrementAndGet();
+
+            return super.getWithNodeCount(key);
+        }
+
+        private int getLookups() {
+            return lookups.get();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.core.JsonFilteringService;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class NonBlockingFilteringTest extends BaseTest {
+    private static final String MOCK_DATA = "{\"name\": \"shop\", \"debug\": {\"trace\": [1, 2]}, \"items\": [" +
+            "{\"id\": 1, \"price\": 1.50, \"tags\": [\"a\", \"b\"]}, " +
+            "{\"id\": 2, \"price\": 20, \"tags\": []}, " +
+            "{\"id\": 3, \"price\": 3, \"tags\": [\"c\"]}" +
+            "], \"matrix\": [[{\"v\": 1}, {\"v\": 2}], [{\"v\": 3}]]}";
+
+    /**
+     * Exclusions, slices and predicates give same result as blocking filtering, wherever chunks end
+     */
+    @Test
+    public void test_sameResultAsBlockingFiltering() throws Exception {
+        String[] filterPatterns = {
+                "{\"-debug\": 1, \"items\": [{\"-tags\": 1}]}",
+                "{\"-\": 1, \"items\": [{\"-tags\": 1}]}",
+                "{\"items\": {\"$offset\": 1, \"$limit\": 1}, \"matrix\": [[{\"v\": 1}]]}",
+                "{\"items\": {\"$limit\": 2, \"$each\": {\"tags\": {\"$limit\": 1}}}}",
+                "{\"items\": [{\"$where\": {\"price\": {\"$lt\": 10}}, \"id\": 1}]}",
+                //predicate decided after buffered container field, whole element, exclusion element pattern
+                "{\"items\": [{\"$where\": {\"price\": {\"$lt\": 10}}, \"tags\": {\"$limit\": 1}}]}",
+                "{\"items\": [{\"$where\": {\"id\": {\"$in\": [1, 3]}}}]}",
+                "{\"items\": [{\"$where\": {\"price\": {\"$gte\": 3}}, \"-tags\": 1}]}",
+                //several conditions, missing predicate field
+                "{\"items\": [{\"$where\": {\"price\": 3, \"id\": 3}, \"id\": 1}], \"name\": 1}",
+                "{\"items\": [{\"$where\": {\"stock\": 1}}]}",
+                //predicates with slices, nested predicate inside buffered element
+                "{\"items\": {\"$offset\": 1, \"$limit\": 1, \"$each\": {\"$where\": {\"price\": {\"$lt\": 10}}}}}",
+                "{\"matrix\": [[{\"$where\": {\"v\": {\"$gt\": 1}}}]]}",
+                "\"*\""
+        };
+
+        for (String filterPattern : filterPatterns) {
+            byte[] expected =
+                    jsonFilteringService.filterJsonFields(MOCK_DATA.getBytes(), TestUtils.stringToJsonNode(filterPattern));
+
+            for (int chunkSize : new int[] {1, 3, 64}) {
+                Assertions.assertArrayEquals(expected,
+                        filterNonBlocking(MOCK_DATA.getBytes(), TestUtils.stringToJsonNode(filterPattern), chunkSize));
+            }
+        }
+    }
+
+    /**
+     * Filtered json is produced as chunks are fed, not only when input ends
+     */
+    @Test
+    public void test_outputIsProducedIncrementally() throws Exception {
+        JsonFilteringService.NonBlockingFilter nonBlockingFilter =
+                jsonFilteringService.newNonBlockingFilter(TestUtils.stringToJsonNode("{\"name\": 1, \"items\": [{\"id\": 1}]}"));
+
+        byte[] firstChunk = "{\"name\": \"shop\", \"items\": [{\"id\": 1, \"price\"".getBytes(StandardCharsets.UTF_8);
+        byte[] secondChunk = ": 2}]}".getBytes(StandardCharsets.UTF_8);
+
+        nonBlockingFilter.feedInput(firstChunk, 0, firstChunk.length);
+
+        Assertions.assertEquals("{\"name\":\"shop\",\"items\":[{\"id\":1",
+                new String(nonBlockingFilter.drainOutput(), StandardCharsets.UTF_8));
+
+        nonBlockingFilter.feedInput(secondChunk, 0, secondChunk.length);
+        nonBlockingFilter.endOfInput();
+
+        Assertions.assertEquals("}]}", new String(nonBlockingFilter.drainOutput(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Array elements with predicate are output as soon as predicate is decided - json data is not accumulated
+     */
+    @Test
+    public void test_elementPredicateOutputIsProducedIncrementally() throws Exception {
+        JsonFilteringService.NonBlockingFilter nonBlockingFilter = jsonFilteringService.newNonBlockingFilter(
+                TestUtils.stringToJsonNode("[{\"$where\": {\"status\": \"active\"}, \"id\": 1}]"));
+
+        byte[] firstChunk = "[{\"id\": 1, \"status\": \"active\", \"x\": 1}, {\"id\": 2, \"st"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] secondChunk = "atus\": \"active\"}, {\"status\": \"deleted\", \"id\": 3}]".getBytes(StandardCharsets.UTF_8);
+
+        nonBlockingFilter.feedInput(firstChunk, 0, firstChunk.length);
+
+        Assertions.assertEquals("[{\"id\":1}", new String(nonBlockingFilter.drainOutput(), StandardCharsets.UTF_8));
+
+        nonBlockingFilter.feedInput(secondChunk, 0, secondChunk.length);
+        nonBlockingFilter.endOfInput();
+
+        Assertions.assertEquals(",{\"id\":2}]", new String(nonBlockingFilter.drainOutput(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lookahead of element with predicate is bounded same as in blocking filtering
+     */
+    @Test
+    public void test_elementPredicateLookaheadLimit() throws Exception {
+        String bigValue = "x".repeat(JsonFilteringService.MAX_PREDICATE_LOOKAHEAD_BYTES);
+        byte[] mockData = ("[{\"id\": 1, \"big\": \"" + bigValue + "\", \"status\": \"active\"}]")
+                .getBytes(StandardCharsets.UTF_8);
+
+        //not output field is skipped, not buffered
+        Assertions.assertArrayEquals("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8), filterNonBlocking(mockData,
+                TestUtils.stringToJsonNode("[{\"$where\": {\"status\": \"active\"}, \"id\": 1}]"), 8192));
+
+        Assertions.assertThrows(JsonFilteringException.class, () -> filterNonBlocking(mockData,
+                TestUtils.stringToJsonNode("[{\"$where\": {\"status\": \"active\"}}]"), 8192));
+    }
+
+    @Test
+    public void test_incompleteJson() throws Exception {
+        JsonFilteringService.NonBlockingFilter nonBlockingFilter =
+                jsonFilteringService.newNonBlockingFilter(TestUtils.stringToJsonNode("{\"items\": [{\"id\": 1}]}"));
+
+        byte[] chunk = "{\"items\": [{\"id\": 1}".getBytes(StandardCharsets.UTF_8);
+
+        nonBlockingFilter.feedInput(chunk, 0, chunk.length);
+
+        Assertions.assertThrows(JsonFilteringException.class, nonBlockingFilter::endOfInput);
+    }
+}
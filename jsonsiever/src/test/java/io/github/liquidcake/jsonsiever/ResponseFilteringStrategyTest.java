@@ -0,0 +1,78 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.web.ResponseFilteringStrategy;
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ResponseFilteringStrategyTest {
+
+    /**
+     * Error statuses and non-json content types are passed through before any body is captured
+     */
+    @Test
+    public void test_selectBeforeCapture() {
+        JsonFilteringSettings.Endpoint endpoint = new JsonFilteringSettings.Endpoint();
+
+        Assertions.assertEquals(ResponseFilteringStrategy.IN_MEMORY,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 200, "application/json;charset=UTF-8", -1));
+        Assertions.assertEquals(ResponseFilteringStrategy.IN_MEMORY,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 201, "application/problem+json", -1));
+
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 500, "application/json", -1));
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 200, "text/html", -1));
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 200, null, -1));
+
+        //explicit statuses and content types
+        endpoint.setFilteredStatusCodes(List.of(200, 404));
+        endpoint.setFilteredContentTypes(List.of("text/*"));
+
+        Assertions.assertEquals(ResponseFilteringStrategy.IN_MEMORY,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 404, "text/plain", -1));
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 201, "text/plain", -1));
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 200, "application/json", -1));
+    }
+
+    /**
+     * Engine is picked by body size: passthrough for tiny bodies, streaming for large ones
+     */
+    @Test
+    public void test_selectBySize() {
+        JsonFilteringSettings.Endpoint endpoint = new JsonFilteringSettings.Endpoint();
+        endpoint.setMinBodySizeBytes(64);
+        endpoint.setStreamingThresholdBytes(1024);
+
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectForCapturedBody(endpoint, 0));
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectForCapturedBody(endpoint, 63));
+        Assertions.assertEquals(ResponseFilteringStrategy.IN_MEMORY,
+                ResponseFilteringStrategy.selectForCapturedBody(endpoint, 64));
+        Assertions.assertEquals(ResponseFilteringStrategy.STREAMING,
+                ResponseFilteringStrategy.selectForCapturedBody(endpoint, 1024));
+
+        //declared Content-Length allows to decide before capture
+        Assertions.assertEquals(ResponseFilteringStrategy.PASSTHROUGH,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 200, "application/json", 10));
+        Assertions.assertEquals(ResponseFilteringStrategy.STREAMING,
+                ResponseFilteringStrategy.selectBeforeCapture(endpoint, 200, "application/json", 4096));
+
+        //streaming engine disabled
+        endpoint.setStreamingThresholdBytes(0);
+
+        Assertions.assertEquals(ResponseFilteringStrategy.IN_MEMORY,
+                ResponseFilteringStrategy.selectForCapturedBody(endpoint, 1024 * 1024 * 100));
+    }
+}
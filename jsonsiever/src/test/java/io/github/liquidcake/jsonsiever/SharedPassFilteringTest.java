@@ -0,0 +1,84 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SharedPassFilteringTest extends BaseTest {
+
+    /**
+     * Each filter pattern gets exactly the same result as with separate filtering - including exclusions,
+     * slices and predicates (which are applied in separate pass)
+     */
+    @Test
+    public void test_severalFilterPatterns() throws Exception {
+        String mockData = "{\"name\": \"shop\", \"debug\": {\"trace\": [1, 2]}, \"items\": [" +
+                "{\"id\": 1, \"price\": 1.50, \"tags\": [\"a\", \"b\"], \"stock\": {\"count\": 5}}, " +
+                "{\"id\": 2, \"price\": 20, \"tags\": [], \"stock\": {\"count\": 0}}, " +
+                "{\"id\": 3, \"price\": 3, \"tags\": [\"c\"], \"stock\": null}" +
+                "], \"matrix\": [[{\"v\": 1}, {\"v\": 2}], [{\"v\": 3}]]}";
+
+        List<JsonNode> filterPatterns = new ArrayList<>();
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"name\": 1}"));
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"items\": [{\"id\": 1, \"stock\": {}}]}"));
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"-debug\": 1, \"items\": [{\"-tags\": 1}]}"));
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"-\": 1, \"items\": [{\"-tags\": 1}]}"));
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"items\": {\"$offset\": 1, \"$limit\": 1}, \"matrix\": [[]]}"));
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"items\": {\"$limit\": 2, \"$each\": {\"tags\": {\"$limit\": 1}}}}"));
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"items\": [{\"$where\": {\"price\": {\"$lt\": 10}}, \"id\": 1}]}"));
+        filterPatterns.add(TestUtils.stringToJsonNode("\"*\""));
+        filterPatterns.add(TestUtils.stringToJsonNode("{\"matrix\": [[{\"v\": 1}]], \"debug\": {\"trace\": []}}"));
+
+        List<byte[]> results = jsonFilteringService.filterJsonFieldsForEachPattern(mockData.getBytes(), filterPatterns);
+
+        Assertions.assertEquals(filterPatterns.size(), results.size());
+
+        for (int i = 0; i < filterPatterns.size(); i++) {
+            byte[] expected = jsonFilteringService.filterJsonFields(mockData.getBytes(), filterPatterns.get(i));
+
+            Assertions.assertArrayEquals(expected, results.get(i));
+        }
+    }
+
+    /**
+     * Root arrays and patterns that don't include anything in common
+     */
+    @Test
+    public void test_rootArray() throws Exception {
+        String mockData = "[{\"a\": 1, \"b\": {\"c\": 2}}, {\"a\": 3, \"b\": {\"c\": 4}}]";
+
+        List<byte[]> results = jsonFilteringService.filterJsonFieldsForEachPattern(mockData.getBytes(), List.of(
+                TestUtils.stringToJsonNode("[{\"a\": 1}]"),
+                TestUtils.stringToJsonNode("[{\"b\": {\"c\": 1}}]"),
+                TestUtils.stringToJsonNode("{\"$limit\": 1}")));
+
+        assertJsonEquals("[{\"a\": 1}, {\"a\": 3}]", results.get(0));
+        assertJsonEquals("[{\"b\": {\"c\": 2}}, {\"b\": {\"c\": 4}}]", results.get(1));
+        assertJsonEquals("[{\"a\": 1, \"b\": {\"c\": 2}}]", results.get(2));
+    }
+
+    /**
+     * Filter pattern that doesn't match json data fails whole call
+     */
+    @Test
+    public void test_badFilterPattern() {
+        Assertions.assertThrows(JsonFilteringException.class,
+                () -> jsonFilteringService.filterJsonFieldsForEachPattern("{\"a\": {\"b\": 1}}".getBytes(), List.of(
+                        TestUtils.stringToJsonNode("{\"a\": 1}"),
+                        TestUtils.stringToJsonNode("{\"a\": [{\"b\": 1}]}"))));
+    }
+
+    private void assertJsonEquals(String expected, byte[] actual) {
+        Assertions.assertEquals(TestUtils.stringToJsonNode(expected), TestUtils.stringToJsonNode(new String(actual)));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import io.github.liquidcake.jsonsiever.web.SpillableCaptureBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SpillableCaptureBufferTest extends BaseTest {
+
+    private static final byte[] JSON_DATA = ("{\"name\": \"shop\", \"debug\": {\"trace\": \"x\"}, "
+            + "\"items\": [{\"id\": 1, \"price\": 2}, {\"id\": 2, \"price\": 3}]}").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Body within threshold stays on heap
+     */
+    @Test
+    public void test_notSpilled() throws Exception {
+        SpillableCaptureBuffer buffer = new SpillableCaptureBuffer(16, JSON_DATA.length);
+
+        buffer.write(JSON_DATA, 0, JSON_DATA.length);
+
+        Assertions.assertFalse(buffer.isSpilled());
+        Assertions.assertArrayEquals(JSON_DATA, buffer.toByteArray());
+    }
+
+    /**
+     * Body above threshold is moved to file as it is written, read back (and filtered) from memory-mapped file,
+     * file is deleted on reset
+     */
+    @Test
+    public void test_spilled() throws Exception {
+        SpillableCaptureBuffer buffer = new SpillableCaptureBuffer(16, 20);
+
+        buffer.write(JSON_DATA, 0, 10);
+        Assertions.assertFalse(buffer.isSpilled());
+
+        buffer.write(JSON_DATA[10]);
+        buffer.write(JSON_DATA, 11, JSON_DATA.length - 11);
+
+        Path spillFile = buffer.getSpillFile();
+
+        Assertions.assertTrue(buffer.isSpilled());
+        Assertions.assertTrue(Files.exists(spillFile));
+        Assertions.assertEquals(JSON_DATA.length, buffer.size());
+
+        ByteArrayOutputStream copiedBody = new ByteArrayOutputStream();
+        buffer.writeTo(copiedBody);
+
+        Assertions.assertArrayEquals(JSON_DATA, copiedBody.toByteArray());
+
+        ByteArrayOutputStream filteredBody = new ByteArrayOutputStream();
+
+        try (InputStream inputStream = buffer.toInputStream()) {
+            jsonFilteringService.filterJsonFields(inputStream, filteredBody,
+                    TestUtils.stringToJsonNode("{\"items\": [{\"id\": 1}]}"));
+        }
+
+        Assertions.assertEquals("{\"items\":[{\"id\":1},{\"id\":2}]}", filteredBody.toString(StandardCharsets.UTF_8));
+
+        buffer.reset();
+
+        Assertions.assertFalse(buffer.isSpilled());
+        Assertions.assertFalse(Files.exists(spillFile));
+        Assertions.assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import io.github.liquidcake.jsonsiever.web.FilterPatternBinaryStore;
+import io.github.liquidcake.jsonsiever.web.TwoTierDynamicJsonFiltersCacheWrapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TwoTierDynamicJsonFiltersCacheWrapperTest {
+
+    private static final String FILTER_PATTERN = "{\"name\": 1, \"stats\": {\"agi\": 1}, \"kittens\": [{\"name\": 1}]}";
+
+    /**
+     * Pattern put by one instance is restored by another instance sharing same L2 store
+     */
+    @Test
+    public void test_sharedL2() throws Exception {
+        InMemoryStore l2Store = new InMemoryStore();
+        JsonNode filterPattern = TestUtils.stringToJsonNode(FILTER_PATTERN);
+
+        new TwoTierDynamicJsonFiltersCacheWrapper(l2Store).putIfAbsent(FILTER_PATTERN, filterPattern);
+
+        TwoTierDynamicJsonFiltersCacheWrapper otherInstanceCache = new TwoTierDynamicJsonFiltersCacheWrapper(l2Store);
+
+        Assertions.assertEquals(filterPattern, otherInstanceCache.get(FILTER_PATTERN));
+        Assertions.assertEquals(1, otherInstanceCache.getL1Size());
+        Assertions.assertNull(otherInstanceCache.get("{\"other\": 1}"));
+    }
+
+    /**
+     * Pattern evicted from L1 is still restored from L2
+     */
+    @Test
+    public void test_l1Eviction() throws Exception {
+        TwoTierDynamicJsonFiltersCacheWrapper cache = new TwoTierDynamicJsonFiltersCacheWrapper(new InMemoryStore(), 1);
+        JsonNode filterPattern = TestUtils.stringToJsonNode(FILTER_PATTERN);
+
+        cache.putIfAbsent(FILTER_PATTERN, filterPattern);
+        cache.putIfAbsent("{\"other\": 1}", TestUtils.stringToJsonNode("{\"other\": 1}"));
+
+        Assertions.assertEquals(1, cache.getL1Size());
+        Assertions.assertEquals(filterPattern, cache.get(FILTER_PATTERN));
+    }
+
+    /**
+     * Undecodable L2 value and L2 failure are treated as cache miss
+     */
+    @Test
+    public void test_brokenL2() {
+        InMemoryStore l2Store = new InMemoryStore();
+
+        new TwoTierDynamicJsonFiltersCacheWrapper(l2Store).putIfAbsent(FILTER_PATTERN,
+                TestUtils.stringToJsonNode(FILTER_PATTERN));
+        l2Store.values.replaceAll((key, value) -> new byte[] {1, 2, 3});
+
+        Assertions.assertNull(new TwoTierDynamicJsonFiltersCacheWrapper(l2Store).get(FILTER_PATTERN));
+
+        FilterPatternBinaryStore failingStore = new FilterPatternBinaryStore() {
+            @Override
+            public byte[] get(String key) {
+                throw new IllegalStateException("L2 is down");
+            }
+
+            @Override
+            public void putIfAbsent(String key, byte[] encodedFilterPattern) {
+                throw new IllegalStateException("L2 is down");
+            }
+        };
+
+        TwoTierDynamicJsonFiltersCacheWrapper cache = new TwoTierDynamicJsonFiltersCacheWrapper(failingStore);
+
+        Assertions.assertNull(cache.get(FILTER_PATTERN));
+        cache.putIfAbsent(FILTER_PATTERN, TestUtils.stringToJsonNode(FILTER_PATTERN));
+        Assertions.assertNotNull(cache.get(FILTER_PATTERN));
+    }
+
+    private static class InMemoryStore implements FilterPatternBinaryStore {
+        private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public void putIfAbsent(String key, byte[] encodedFilterPattern) {
+            values.putIfAbsent(key, encodedFilterPattern);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.web.JsonFilteringUtils;
+import io.github.liquidcake.jsonsiever.web.config.JsonFilteringSettings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves settings and filter pattern "classpath files" from memory, so tests may change them between reloads.
+ * Each file change bumps its last modification time
+ */
+public class InMemoryJsonFilteringUtils extends JsonFilteringUtils {
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastModifiedMillisPerPath = new ConcurrentHashMap<>();
+
+    public InMemoryJsonFilteringUtils() {
+        super(TestUtils.TEST_OBJECT_MAPPER);
+    }
+
+    public InMemoryJsonFilteringUtils withSettings(String settingsYaml) {
+        return withFile(JsonFilteringSettings.JSON_FILTERS_CONFIG_FILE, settingsYaml);
+    }
+
+    public InMemoryJsonFilteringUtils withFile(String path, String content) {
+        String normalizedPath = normalizePath(path);
+
+        files.put(normalizedPath, content);
+        lastModifiedMillisPerPath.merge(normalizedPath, 1L, Long::sum);
+
+        return this;
+    }
+
+    @Override
+    public Optional<JsonNode> readClasspathFileAsJsonNode(String path) {
+        String content = files.get(normalizePath(path));
+
+        if (content == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.ofNullable(parseFilterPattern(content));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<byte[]> readClasspathFileAsBytes(String path) {
+        return Optional.ofNullable(files.get(normalizePath(path)))
+                .map(content -> content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Optional<Long> getClasspathFileLastModifiedMillis(String path) {
+        return Optional.ofNullable(lastModifiedMillisPerPath.get(normalizePath(path)));
+    }
+
+    @Override
+    public <T> Optional<T> readClasspathYamlFileAs(String path, Class<?> clazz) {
+        String content = files.get(normalizePath(path));
+
+        return content != null ? parseYamlAs(content, clazz) : Optional.empty();
+    }
+
+    private static String normalizePath(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+}
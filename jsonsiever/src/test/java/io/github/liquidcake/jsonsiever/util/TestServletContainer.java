@@ -0,0 +1,126 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.util;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Tomcat with single filter applied to all request and async dispatches, for filter-level tests.
+ * Requests are sent over real HTTP connection
+ */
+public class TestServletContainer implements AutoCloseable {
+    //request that is never completed (e.g. async context is not completed) fails test instead of hanging it
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Path baseDir;
+    private final Tomcat tomcat;
+    private final Context context;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    public TestServletContainer(Filter filter) throws IOException {
+        baseDir = Files.createTempDirectory("jsonsiever-tomcat-");
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(0);
+        tomcat.getConnector();
+
+        context = tomcat.addContext("", null);
+
+        FilterDef filterDef = new FilterDef();
+        filterDef.setFilterName("filter");
+        filterDef.setFilter(filter);
+        filterDef.setAsyncSupported("true");
+        context.addFilterDef(filterDef);
+
+        FilterMap filterMap = new FilterMap();
+        filterMap.setFilterName("filter");
+        filterMap.addURLPattern("/*");
+        filterMap.setDispatcher(DispatcherType.REQUEST.name());
+        filterMap.setDispatcher(DispatcherType.ASYNC.name());
+        context.addFilterMap(filterMap);
+    }
+
+    public TestServletContainer withServlet(String path, ServletHandler handler) {
+        Wrapper wrapper = Tomcat.addServlet(context, path, new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response)
+                    throws ServletException, IOException {
+                try {
+                    handler.handle(request, response);
+                } catch (ServletException | IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        wrapper.setAsyncSupported(true);
+        context.addServletMappingDecoded(path, path);
+
+        return this;
+    }
+
+    public TestServletContainer start() throws LifecycleException {
+        tomcat.start();
+
+        return this;
+    }
+
+    public HttpResponse<String> get(String pathAndQuery) throws IOException, InterruptedException {
+        return get(pathAndQuery, Map.of());
+    }
+
+    public HttpResponse<String> get(String pathAndQuery, Map<String, String> headers)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + pathAndQuery))
+                .timeout(REQUEST_TIMEOUT);
+
+        headers.forEach(request::header);
+
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Override
+    public void close() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+
+        try (Stream<Path> files = Files.walk(baseDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @FunctionalInterface
+    public interface ServletHandler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws Exception;
+    }
+}
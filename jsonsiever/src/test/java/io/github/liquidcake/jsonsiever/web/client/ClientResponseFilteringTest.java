@@ -0,0 +1,305 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.BaseTest;
+import io.github.liquidcake.jsonsiever.core.exception.JsonFilteringException;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ClientResponseFilteringTest extends BaseTest {
+    private static final String MOCK_DATA = "{\"name\": \"shop\", \"debug\": {\"trace\": [1, 2]}, \"items\": [" +
+            "{\"id\": 1, \"price\": 1.50, \"tags\": [\"a\", \"b\"]}, " +
+            "{\"id\": 2, \"price\": 20, \"tags\": []}" +
+            "]}";
+    private static final String FILTER_PATTERN = "{\"name\": 1, \"items\": [{\"id\": 1}]}";
+    private static final String MALFORMED_MOCK_DATA = "{\"name\": \"shop\", \"items\": [{\"id\": 1}";
+
+    /**
+     * Filtered json is the same as with blocking filtering, however small chunks upstream returns
+     */
+    @Test
+    public void test_filteringInputStreamWithSmallUpstreamReads() throws Exception {
+        JsonNode filterPattern = TestUtils.stringToJsonNode(FILTER_PATTERN);
+        byte[] expected = jsonFilteringService.filterJsonFields(MOCK_DATA.getBytes(StandardCharsets.UTF_8), filterPattern);
+
+        try (InputStream filteringInputStream = new FilteringInputStream(
+                new OneByteInputStream(MOCK_DATA.getBytes(StandardCharsets.UTF_8)),
+                jsonFilteringService.newNonBlockingFilter(filterPattern))) {
+            Assertions.assertArrayEquals(expected, filteringInputStream.readAllBytes());
+        }
+
+        //byte by byte
+        try (InputStream filteringInputStream = new FilteringInputStream(
+                new OneByteInputStream(MOCK_DATA.getBytes(StandardCharsets.UTF_8)),
+                jsonFilteringService.newNonBlockingFilter(filterPattern))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            int b;
+
+            while ((b = filteringInputStream.read()) >= 0) {
+                output.write(b);
+            }
+
+            Assertions.assertArrayEquals(expected, output.toByteArray());
+            Assertions.assertEquals(-1, filteringInputStream.read(new byte[8], 0, 8));
+        }
+
+        //element predicate - elements are read ahead only until predicate is decided
+        JsonNode predicateFilterPattern =
+                TestUtils.stringToJsonNode("{\"items\": [{\"$where\": {\"price\": {\"$lt\": 10}}, \"tags\": 1}]}");
+        byte[] expectedWithPredicate =
+                jsonFilteringService.filterJsonFields(MOCK_DATA.getBytes(StandardCharsets.UTF_8), predicateFilterPattern);
+
+        try (InputStream filteringInputStream = new FilteringInputStream(
+                new OneByteInputStream(MOCK_DATA.getBytes(StandardCharsets.UTF_8)),
+                jsonFilteringService.newNonBlockingFilter(predicateFilterPattern))) {
+            Assertions.assertArrayEquals(expectedWithPredicate, filteringInputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    public void test_filteringInputStreamWithMalformedJson() throws Exception {
+        try (InputStream filteringInputStream = new FilteringInputStream(
+                new ByteArrayInputStream(MALFORMED_MOCK_DATA.getBytes(StandardCharsets.UTF_8)),
+                jsonFilteringService.newNonBlockingFilter(TestUtils.stringToJsonNode(FILTER_PATTERN)))) {
+            IOException e = Assertions.assertThrows(IOException.class, filteringInputStream::readAllBytes);
+
+            Assertions.assertInstanceOf(JsonFilteringException.class, e.getCause());
+        }
+    }
+
+    /**
+     * Only successful responses with json content type are filtered
+     */
+    @Test
+    public void test_filteringPolicy() {
+        Assertions.assertTrue(ClientResponseFilteringPolicy.isFiltered(HttpStatus.OK, headers("application/json")));
+        Assertions.assertTrue(ClientResponseFilteringPolicy.isFiltered(HttpStatus.CREATED,
+                headers("Application/JSON;charset=UTF-8")));
+        Assertions.assertTrue(ClientResponseFilteringPolicy.isFiltered(HttpStatus.OK, headers("application/problem+json")));
+
+        Assertions.assertFalse(ClientResponseFilteringPolicy.isFiltered(HttpStatus.OK, headers("text/html")));
+        Assertions.assertFalse(ClientResponseFilteringPolicy.isFiltered(HttpStatus.OK, headers(null)));
+        Assertions.assertFalse(ClientResponseFilteringPolicy.isFiltered(HttpStatus.NOT_FOUND, headers("application/json")));
+        Assertions.assertFalse(ClientResponseFilteringPolicy.isFiltered(
+                HttpStatus.INTERNAL_SERVER_ERROR, headers("application/json")));
+        Assertions.assertFalse(ClientResponseFilteringPolicy.isFiltered(
+                HttpStatus.MOVED_PERMANENTLY, headers("application/json")));
+    }
+
+    /**
+     * RestTemplate / RestClient interceptor filters successful json responses and drops their Content-Length,
+     * other responses are returned as is
+     */
+    @Test
+    public void test_clientHttpRequestInterceptor() throws Exception {
+        JsonNode filterPattern = TestUtils.stringToJsonNode(FILTER_PATTERN);
+        byte[] expected = jsonFilteringService.filterJsonFields(MOCK_DATA.getBytes(StandardCharsets.UTF_8), filterPattern);
+        JsonFilteringClientHttpRequestInterceptor interceptor =
+                new JsonFilteringClientHttpRequestInterceptor(jsonFilteringService, filterPattern);
+
+        TestClientHttpResponse upstreamResponse = new TestClientHttpResponse(HttpStatus.OK, "application/json", MOCK_DATA);
+
+        try (ClientHttpResponse response = interceptor.intercept(
+                new TestHttpRequest(), new byte[0], (request, body) -> upstreamResponse)) {
+            Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+            Assertions.assertEquals("application/json", response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+            Assertions.assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+            //upstream response itself is not modified
+            Assertions.assertTrue(upstreamResponse.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+
+            Assertions.assertArrayEquals(expected, response.getBody().readAllBytes());
+        }
+
+        Assertions.assertTrue(upstreamResponse.closed);
+
+        //error and non-json responses, and requests without filter pattern
+        for (TestClientHttpResponse notFilteredResponse : List.of(
+                new TestClientHttpResponse(HttpStatus.INTERNAL_SERVER_ERROR, "application/json", MOCK_DATA),
+                new TestClientHttpResponse(HttpStatus.OK, "text/plain", MOCK_DATA))) {
+            Assertions.assertSame(notFilteredResponse, interceptor.intercept(
+                    new TestHttpRequest(), new byte[0], (request, body) -> notFilteredResponse));
+        }
+
+        JsonFilteringClientHttpRequestInterceptor noPatternInterceptor =
+                new JsonFilteringClientHttpRequestInterceptor(jsonFilteringService, request -> null);
+        Assertions.assertSame(upstreamResponse, noPatternInterceptor.intercept(
+                new TestHttpRequest(), new byte[0], (request, body) -> upstreamResponse));
+
+        //malformed json fails on read
+        ClientHttpResponse malformedResponse = interceptor.intercept(new TestHttpRequest(), new byte[0],
+                (request, body) -> new TestClientHttpResponse(HttpStatus.OK, "application/json", MALFORMED_MOCK_DATA));
+
+        Assertions.assertThrows(IOException.class, () -> malformedResponse.getBody().readAllBytes());
+    }
+
+    /**
+     * WebClient filter filters successful json responses chunk by chunk and drops their Content-Length,
+     * other responses are returned as is
+     */
+    @Test
+    public void test_exchangeFilterFunction() throws Exception {
+        JsonNode filterPattern = TestUtils.stringToJsonNode(FILTER_PATTERN);
+        byte[] expected = jsonFilteringService.filterJsonFields(MOCK_DATA.getBytes(StandardCharsets.UTF_8), filterPattern);
+        JsonFilteringExchangeFilterFunction filterFunction =
+                new JsonFilteringExchangeFilterFunction(jsonFilteringService, filterPattern);
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://upstream/shop")).build();
+
+        ClientResponse response = filterFunction.filter(request,
+                req -> Mono.just(clientResponse(HttpStatus.OK, "application/json", MOCK_DATA, 1))).block();
+
+        Assertions.assertEquals("application/json", response.headers().asHttpHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        Assertions.assertTrue(response.headers().contentLength().isEmpty());
+        Assertions.assertEquals(new String(expected, StandardCharsets.UTF_8), response.bodyToMono(String.class).block());
+
+        //error and non-json responses, and requests without filter pattern
+        for (ClientResponse notFilteredResponse : List.of(
+                clientResponse(HttpStatus.BAD_REQUEST, "application/json", MOCK_DATA, 4),
+                clientResponse(HttpStatus.OK, "text/plain", MOCK_DATA, 4))) {
+            Assertions.assertSame(notFilteredResponse,
+                    filterFunction.filter(request, req -> Mono.just(notFilteredResponse)).block());
+        }
+
+        ClientResponse upstreamResponse = clientResponse(HttpStatus.OK, "application/json", MOCK_DATA, 4);
+        Assertions.assertSame(upstreamResponse, new JsonFilteringExchangeFilterFunction(jsonFilteringService, req -> null)
+                .filter(request, req -> Mono.just(upstreamResponse)).block());
+
+        //malformed json terminates body with error
+        ClientResponse malformedResponse = filterFunction.filter(request,
+                req -> Mono.just(clientResponse(HttpStatus.OK, "application/json", MALFORMED_MOCK_DATA, 3))).block();
+
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class,
+                () -> malformedResponse.bodyToMono(String.class).block());
+
+        Assertions.assertInstanceOf(JsonFilteringException.class, Exceptions.unwrap(e));
+    }
+
+    private static HttpHeaders headers(String contentType) {
+        HttpHeaders headers = new HttpHeaders();
+
+        if (contentType != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+
+        return headers;
+    }
+
+    private static ClientResponse clientResponse(HttpStatus status, String contentType, String body, int chunkSize) {
+        byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> chunks = new ArrayList<>();
+
+        for (int offset = 0; offset < bodyBytes.length; offset += chunkSize) {
+            chunks.add(DefaultDataBufferFactory.sharedInstance.wrap(
+                    Arrays.copyOfRange(bodyBytes, offset, Math.min(offset + chunkSize, bodyBytes.length))));
+        }
+
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(bodyBytes.length))
+                .body(Flux.fromIterable(chunks))
+                .build();
+    }
+
+    /**
+     * Upstream that returns at most one byte per read
+     */
+    private static class OneByteInputStream extends ByteArrayInputStream {
+
+        private OneByteInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+
+    private static class TestHttpRequest implements HttpRequest {
+
+        @Override
+        public HttpMethod getMethod() {
+            return HttpMethod.GET;
+        }
+
+        @Override
+        public URI getURI() {
+            return URI.create("http://upstream/shop");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    }
+
+    private static class TestClientHttpResponse implements ClientHttpResponse {
+        private final HttpStatusCode statusCode;
+        private final HttpHeaders headers;
+        private final InputStream body;
+
+        private boolean closed;
+
+        private TestClientHttpResponse(HttpStatusCode statusCode, String contentType, String body) {
+            byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+
+            this.statusCode = statusCode;
+            this.headers = headers(contentType);
+            this.headers.setContentLength(bodyBytes.length);
+            this.body = new OneByteInputStream(bodyBytes);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getStatusText() {
+            return "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Author: https://github.com/LiquidCake
+ * MIT License
+ */
+
+package io.github.liquidcake.jsonsiever.web.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.liquidcake.jsonsiever.util.InMemoryJsonFilteringUtils;
+import io.github.liquidcake.jsonsiever.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JsonFilteringSettingsTest {
+
+    private static final String CATS_SHORT_PATTERN = "{\"name\": 1, \"stats\": {\"agi\": 1}}";
+    //lowercase hex SHA-256 of {"name":1,"stats":{"agi":1}}
+    private static final String CATS_SHORT_PATTERN_HASH = "8b1df89f691f9ac0709ffba5d4d48bf9b519c27689b21a519e3eba69971c001c";
+
+    private static final String SETTINGS =
+            "patternIdHeaderName: \"X-json-filter-pattern-id\"\n" +
+            "registeredPatternPaths:\n" +
+            "  cats-short: \"/json-filters/registered/cats-short.json\"\n";
+
+    private static final String ENDPOINT_SETTINGS = SETTINGS +
+            "endpoints:\n" +
+            "  - path: \"GET_/cats\"\n" +
+            "    filePatternAllowed: true\n" +
+            "    filePatternPathPerClient:\n" +
+            "      default: \"/json-filters/cats.json\"\n";
+
+    /**
+     * Hash is calculated from compact json, so it doesn't depend on formatting of pattern file
+     */
+    @Test
+    public void test_filterPatternHashIsStable() {
+        InMemoryJsonFilteringUtils jsonFilteringUtils = new InMemoryJsonFilteringUtils();
+
+        Assertions.assertEquals(CATS_SHORT_PATTERN_HASH,
+                jsonFilteringUtils.calculateFilterPatternHash(TestUtils.stringToJsonNode(CATS_SHORT_PATTERN)));
+        Assertions.assertEquals(CATS_SHORT_PATTERN_HASH, jsonFilteringUtils.calculateFilterPatternHash(
+                TestUtils.stringToJsonNode("{\n  \"name\" : 1,\n  \"stats\" : {\n    \"agi\" : 1\n  }\n}")));
+        //field order is part of pattern
+        Assertions.assertNotEquals(CATS_SHORT_PATTERN_HASH, jsonFilteringUtils.calculateFilterPatternHash(
+                TestUtils.stringToJsonNode("{\"stats\": {\"agi\": 1}, \"name\": 1}")));
+    }
+
+    @Test
+    public void test_registeredPatternPathsAreFoundByIdAndHash() {
+        JsonFilteringSettings jsonFilteringSettings = createSettings(new InMemoryJsonFilteringUtils()
+                .withSettings(SETTINGS)
+                .withFile("/json-filters/registered/cats-short.json", CATS_SHORT_PATTERN));
+        JsonNode filterPattern = TestUtils.stringToJsonNode(CATS_SHORT_PATTERN);
+
+        Assertions.assertEquals(filterPattern, jsonFilteringSettings.findRegisteredFilterPattern("cats-short").orElseThrow());
+        Assertions.assertEquals(filterPattern,
+                jsonFilteringSettings.findRegisteredFilterPattern(CATS_SHORT_PATTERN_HASH).orElseThrow());
+        Assertions.assertTrue(jsonFilteringSettings.findRegisteredFilterPattern("cats-long").isEmpty());
+    }
+
+    @Test
+    public void test_registerFilterPattern() {
+        JsonFilteringSettings jsonFilteringSettings = createSettings(new InMemoryJsonFilteringUtils().withSettings(SETTINGS));
+        JsonNode filterPattern = TestUtils.stringToJsonNode(CATS_SHORT_PATTERN);
+
+        Assertions.assertTrue(jsonFilteringSettings.findRegisteredFilterPattern("cats-runtime").isEmpty());
+
+        String patternHash = jsonFilteringSettings.registerFilterPattern("cats-runtime", filterPattern);
+
+        Assertions.assertEquals(CATS_SHORT_PATTERN_HASH, patternHash);
+        Assertions.assertEquals(filterPattern, jsonFilteringSettings.findRegisteredFilterPattern("cats-runtime").orElseThrow());
+        Assertions.assertEquals(filterPattern, jsonFilteringSettings.findRegisteredFilterPattern(patternHash).orElseThrow());
+    }
+
+    @Test
+    public void test_registerBadFilterPattern() {
+        JsonFilteringSettings jsonFilteringSettings = createSettings(new InMemoryJsonFilteringUtils().withSettings(SETTINGS));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> jsonFilteringSettings.registerFilterPattern(
+                "cats-bad", TestUtils.stringToJsonNode("{\"items\": [{\"id\": 1}, {\"name\": 1}]}")));
+        Assertions.assertTrue(jsonFilteringSettings.findRegisteredFilterPattern("cats-bad").isEmpty());
+    }
+
+    @Test
+    public void test_reloadPublishesChangedPattern() {
+        InMemoryJsonFilteringUtils jsonFilteringUtils = createEndpointSettingsUtils();
+        JsonFilteringSettings jsonFilteringSettings = createSettings(jsonFilteringUtils);
+        JsonFilteringSettings.JsonSiever previousSettings = jsonFilteringSettings.getJsonsiever();
+
+        jsonFilteringUtils.withFile("/json-filters/cats.json", "{\"id\": 1}");
+
+        Assertions.assertTrue(jsonFilteringSettings.reloadProperties());
+        Assertions.assertNotSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+        Assertions.assertEquals(TestUtils.stringToJsonNode("{\"id\": 1}"), getDefaultFilePattern(jsonFilteringSettings));
+        //previous snapshot is not modified - requests that still use it are not affected
+        Assertions.assertEquals(TestUtils.stringToJsonNode("{\"name\": 1}"),
+                previousSettings.getEndpoints().get(0).getFilePatternPerClient().get("default"));
+    }
+
+    /**
+     * Half-edited or missing pattern file doesn't disable filtering - previous settings snapshot is kept
+     */
+    @Test
+    public void test_reloadKeepsPreviousSettingsIfPatternIsBroken() {
+        InMemoryJsonFilteringUtils jsonFilteringUtils = createEndpointSettingsUtils();
+        JsonFilteringSettings jsonFilteringSettings = createSettings(jsonFilteringUtils);
+        JsonFilteringSettings.JsonSiever previousSettings = jsonFilteringSettings.getJsonsiever();
+
+        jsonFilteringUtils.withFile("/json-filters/cats.json", "{\"id\": ");
+
+        Assertions.assertFalse(jsonFilteringSettings.reloadProperties());
+        Assertions.assertSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+
+        jsonFilteringUtils.withSettings(ENDPOINT_SETTINGS.replace("/json-filters/cats.json", "/json-filters/dogs.json"));
+
+        Assertions.assertFalse(jsonFilteringSettings.reloadProperties());
+        Assertions.assertSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+
+        jsonFilteringUtils.withSettings("endpoints: [");
+
+        Assertions.assertFalse(jsonFilteringSettings.reloadProperties());
+        Assertions.assertSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+        Assertions.assertEquals(TestUtils.stringToJsonNode("{\"name\": 1}"), getDefaultFilePattern(jsonFilteringSettings));
+        Assertions.assertTrue(jsonFilteringSettings.findRegisteredFilterPattern("cats-short").isPresent());
+    }
+
+    /**
+     * On startup there is no previous snapshot - settings are published even if some pattern files are broken
+     */
+    @Test
+    public void test_initWithBrokenPattern() {
+        JsonFilteringSettings jsonFilteringSettings = createSettings(createEndpointSettingsUtils()
+                .withFile("/json-filters/registered/cats-short.json", "{\"name\": "));
+
+        Assertions.assertTrue(jsonFilteringSettings.findRegisteredFilterPattern("cats-short").isEmpty());
+        Assertions.assertEquals(TestUtils.stringToJsonNode("{\"name\": 1}"), getDefaultFilePattern(jsonFilteringSettings));
+    }
+
+    @Test
+    public void test_runtimeRegisteredPatternsSurviveReload() {
+        InMemoryJsonFilteringUtils jsonFilteringUtils = createEndpointSettingsUtils();
+        JsonFilteringSettings jsonFilteringSettings = createSettings(jsonFilteringUtils);
+        JsonNode filterPattern = TestUtils.stringToJsonNode("{\"id\": 1}");
+
+        String patternHash = jsonFilteringSettings.registerFilterPattern("cats-runtime", filterPattern);
+
+        //registered pattern file is removed from settings
+        jsonFilteringUtils.withSettings(ENDPOINT_SETTINGS.replace(SETTINGS, ""));
+
+        Assertions.assertTrue(jsonFilteringSettings.reloadProperties());
+        Assertions.assertTrue(jsonFilteringSettings.findRegisteredFilterPattern("cats-short").isEmpty());
+        Assertions.assertEquals(filterPattern, jsonFilteringSettings.findRegisteredFilterPattern("cats-runtime").orElseThrow());
+        Assertions.assertEquals(filterPattern, jsonFilteringSettings.findRegisteredFilterPattern(patternHash).orElseThrow());
+    }
+
+    /**
+     * Watcher reloads settings only when settings file or any referenced pattern file is changed
+     */
+    @Test
+    public void test_watcherReloadsChangedSettings() {
+        InMemoryJsonFilteringUtils jsonFilteringUtils = createEndpointSettingsUtils();
+        JsonFilteringSettings jsonFilteringSettings = createSettings(jsonFilteringUtils);
+        JsonFilteringSettingsWatcher watcher = new JsonFilteringSettingsWatcher(jsonFilteringSettings, jsonFilteringUtils);
+
+        //first poll remembers modification times of files
+        watcher.reloadIfChanged();
+
+        JsonFilteringSettings.JsonSiever previousSettings = jsonFilteringSettings.getJsonsiever();
+
+        watcher.reloadIfChanged();
+
+        Assertions.assertSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+
+        jsonFilteringUtils.withFile("/json-filters/cats.json", "{\"id\": 1}");
+        watcher.reloadIfChanged();
+
+        Assertions.assertNotSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+        Assertions.assertEquals(TestUtils.stringToJsonNode("{\"id\": 1}"), getDefaultFilePattern(jsonFilteringSettings));
+
+        //file that is not referenced by settings is not watched
+        previousSettings = jsonFilteringSettings.getJsonsiever();
+        jsonFilteringUtils.withFile("/json-filters/dogs.json", "{\"id\": 1}");
+        watcher.reloadIfChanged();
+
+        Assertions.assertSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+    }
+
+    /**
+     * Broken pattern file is not reloaded again until it is changed, and fixed file is picked up
+     */
+    @Test
+    public void test_watcherKeepsPreviousSettingsIfPatternIsBroken() {
+        InMemoryJsonFilteringUtils jsonFilteringUtils = createEndpointSettingsUtils();
+        JsonFilteringSettings jsonFilteringSettings = createSettings(jsonFilteringUtils);
+        JsonFilteringSettingsWatcher watcher = new JsonFilteringSettingsWatcher(jsonFilteringSettings, jsonFilteringUtils);
+
+        watcher.reloadIfChanged();
+
+        JsonFilteringSettings.JsonSiever previousSettings = jsonFilteringSettings.getJsonsiever();
+
+        jsonFilteringUtils.withFile("/json-filters/cats.json", "{\"id\": ");
+        watcher.reloadIfChanged();
+        watcher.reloadIfChanged();
+
+        Assertions.assertSame(previousSettings, jsonFilteringSettings.getJsonsiever());
+        Assertions.assertEquals(TestUtils.stringToJsonNode("{\"name\": 1}"), getDefaultFilePattern(jsonFilteringSettings));
+
+        jsonFilteringUtils.withFile("/json-filters/cats.json", "{\"id\": 1}");
+        watcher.reloadIfChanged();
+
+        Assertions.assertEquals(TestUtils.stringToJsonNode("{\"id\": 1}"), getDefaultFilePattern(jsonFilteringSettings));
+    }
+
+    private static InMemoryJsonFilteringUtils createEndpointSettingsUtils() {
+        return new InMemoryJsonFilteringUtils()
+                .withSettings(ENDPOINT_SETTINGS)
+                .withFile("/json-filters/registered/cats-short.json", CATS_SHORT_PATTERN)
+                .withFile("/json-filters/cats.json", "{\"name\": 1}");
+    }
+
+    private static JsonNode getDefaultFilePattern(JsonFilteringSettings jsonFilteringSettings) {
+        return jsonFilteringSettings.getJsonsiever().getEndpoints().get(0).getFilePatternPerClient().get("default");
+    }
+
+    private static JsonFilteringSettings createSettings(InMemoryJsonFilteringUtils jsonFilteringUtils) {
+        JsonFilteringSettings jsonFilteringSettings = new JsonFilteringSettings(jsonFilteringUtils);
+
+        jsonFilteringSettings.initProperties();
+
+        return jsonFilteringSettings;
+    }
+}